@@ -124,7 +124,7 @@ public class ApiError {
     /**
      * Método público para adicionar erros de validação de objeto à lista de suberros.
      */
-    public void addValidationErrors(List<ObjectError> globalErrors) {
+    public void addValidationError(List<ObjectError> globalErrors) {
         globalErrors.forEach(this::addValidationError);
     }
 
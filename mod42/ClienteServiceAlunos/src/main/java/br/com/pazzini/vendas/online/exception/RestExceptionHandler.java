@@ -24,7 +24,7 @@ import org.springframework.web.client.HttpClientErrorException.UnprocessableEnti
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
-import br.com.dpazzini.vendas.online.errorhandling.ApiError;
+import br.com.pazzini.vendas.online.errorhandling.ApiError;
 import lombok.extern.slf4j.Slf4j;
 
 /**
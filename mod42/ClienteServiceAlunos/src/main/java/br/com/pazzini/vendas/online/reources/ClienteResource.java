@@ -16,9 +16,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import br.com.pazzini.vendas.online.domain.Cliente;
+import br.com.pazzini.vendas.online.dto.PaginaCursor;
 import br.com.pazzini.vendas.online.usecase.BuscaCliente;
 import br.com.pazzini.vendas.online.usecase.CadastroCliente;
 import io.swagger.v3.oas.annotations.Operation;
@@ -48,6 +50,17 @@ public class ClienteResource {
 		return ResponseEntity.ok(buscaCliente.buscar(pageable));
 	}
 	
+	/**
+	 * Retorna uma lista de clientes por cursor, sem a contagem total.
+	 */
+	@GetMapping(params = "cursor")
+	@Operation(summary = "Lista os clientes por cursor")
+	public ResponseEntity<PaginaCursor<Cliente>> buscarPorCursor(
+			@RequestParam(value = "cursor") String cursor,
+			@RequestParam(value = "size", required = false) Integer tamanho) {
+		return ResponseEntity.ok(buscaCliente.buscar(cursor, tamanho));
+	}
+	
 	/**
 	 * Busca um cliente pelo ID.
 	 */
@@ -65,6 +78,15 @@ public class ClienteResource {
 		return ResponseEntity.ok(buscaCliente.isCadastrado(id));
 	}
 	
+	/**
+	 * Retorna uma lista paginada com os identificadores dos clientes cadastrados.
+	 */
+	@GetMapping(value = "/ids")
+	@Operation(summary = "Lista os identificadores dos clientes cadastrados")
+	public ResponseEntity<Page<String>> buscarIds(Pageable pageable) {
+		return ResponseEntity.ok(buscaCliente.buscarIds(pageable));
+	}
+
 	/**
 	 * Cadastra um novo cliente.
 	 */
@@ -1,14 +1,18 @@
 /**
- * 
+ *
  */
 package br.com.pazzini.vendas.online.repository;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
-import br.com.gomes.vendas.online.domain.Cliente;
+import br.com.pazzini.vendas.online.domain.Cliente;
 
 /**
  * @author diego.pazzini
@@ -18,4 +22,11 @@ import br.com.gomes.vendas.online.domain.Cliente;
 public interface IClienteRepository extends MongoRepository<Cliente, String>{
 
 	Optional<Cliente> findByCpf(Long cpf);
+
+	@Query(value = "{}", fields = "{ '_id' : 1 }")
+	Page<Cliente> findAllIds(Pageable pageable);
+
+	List<Cliente> findAllBy(Pageable pageable);
+
+	List<Cliente> findByIdGreaterThan(String id, Pageable pageable);
 }
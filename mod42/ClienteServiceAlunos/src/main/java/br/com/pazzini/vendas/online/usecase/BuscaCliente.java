@@ -1,26 +1,104 @@
 /**
- * A interface IClienteRepository é responsável por definir operações de acesso a dados para a entidade Cliente no contexto do MongoDB.
+ * A classe BuscaCliente representa a lógica de negócios para as consultas relacionadas à entidade Cliente.
  */
-package br.com.pazzini.vendas.online.repository;
+package br.com.pazzini.vendas.online.usecase;
 
-import java.util.Optional;
+import java.util.List;
 
-import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.stereotype.Repository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
 
 import br.com.pazzini.vendas.online.domain.Cliente;
+import br.com.pazzini.vendas.online.dto.PaginaCursor;
+import br.com.pazzini.vendas.online.exception.EntityNotFoundException;
+import br.com.pazzini.vendas.online.repository.IClienteRepository;
 
 /**
- * Repositório que estende MongoRepository para operações relacionadas à entidade Cliente no MongoDB.
+ * Serviço que encapsula as consultas relacionadas à entidade Cliente.
  */
-@Repository
-public interface IClienteRepository extends MongoRepository<Cliente, String> {
+@Service
+public class BuscaCliente {
+
+    private IClienteRepository clienteRepository;
+
+    /**
+     * Construtor que injeta a dependência do repositório IClienteRepository.
+     *
+     * @param clienteRepository Repositório para operações de acesso a dados relacionadas à entidade Cliente.
+     */
+    @Autowired
+    public BuscaCliente(IClienteRepository clienteRepository) {
+        this.clienteRepository = clienteRepository;
+    }
+
+    /**
+     * Retorna uma página de clientes.
+     *
+     * @param pageable Configurações de paginação.
+     * @return Uma página de clientes.
+     */
+    public Page<Cliente> buscar(Pageable pageable) {
+        return clienteRepository.findAll(pageable);
+    }
+
+    /**
+     * Retorna uma página de clientes a partir de um cursor, sem contar o total de clientes.
+     *
+     * @param cursor Cursor retornado na página anterior; vazio na primeira página.
+     * @param tamanho Quantidade de clientes da página.
+     * @return Os clientes e o cursor da próxima página.
+     */
+    public PaginaCursor<Cliente> buscar(String cursor, Integer tamanho) {
+        String ultimoId = PaginaCursor.decodificar(cursor);
+        int limite = PaginaCursor.limitar(tamanho);
+        List<Cliente> clientes = ultimoId == null
+                ? clienteRepository.findAllBy(PaginaCursor.consulta(limite))
+                : clienteRepository.findByIdGreaterThan(ultimoId, PaginaCursor.consulta(limite));
+        return PaginaCursor.de(clientes, limite, Cliente::getId);
+    }
+
+    /**
+     * Busca um cliente pelo identificador único.
+     *
+     * @param id Identificador único do cliente.
+     * @return O cliente encontrado.
+     */
+    public Cliente buscarPorId(String id) {
+        return clienteRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(Cliente.class, "id", id));
+    }
+
+    /**
+     * Verifica se existe um cliente com o identificador informado.
+     *
+     * @param id Identificador único do cliente.
+     * @return true se o cliente estiver cadastrado.
+     */
+    public Boolean isCadastrado(String id) {
+        return clienteRepository.existsById(id);
+    }
 
     /**
      * Busca um cliente pelo CPF.
      *
      * @param cpf Número do CPF do cliente.
-     * @return Um Optional contendo o cliente correspondente, se existir.
+     * @return O cliente encontrado.
+     */
+    public Cliente buscarPorCpf(Long cpf) {
+        return clienteRepository.findByCpf(cpf)
+                .orElseThrow(() -> new EntityNotFoundException(Cliente.class, "cpf", String.valueOf(cpf)));
+    }
+
+    /**
+     * Retorna uma página contendo apenas os identificadores dos clientes cadastrados.
+     * Utilizado pelo Venda Service para alimentar o seu filtro de clientes existentes.
+     *
+     * @param pageable Configurações de paginação.
+     * @return Uma página de identificadores de clientes.
      */
-    Optional<Cliente> findByCpf(Long cpf);
+    public Page<String> buscarIds(Pageable pageable) {
+        return clienteRepository.findAllIds(pageable).map(Cliente::getId);
+    }
 }
@@ -3,6 +3,7 @@
  * Está anotada com `@SpringBootApplication` para indicar que é uma aplicação Spring Boot.
  * `@RefreshScope` é usado para habilitar o suporte à atualização dinâmica de propriedades da aplicação.
  * `@EnableAutoConfiguration` é configurado para excluir a configuração automática do DataSource, indicando que não será necessário um DataSource nesta aplicação.
+ * `@EnableScheduling` habilita as tarefas periódicas do estoque: a gravação dos saldos em memória e a expiração das reservas.
  */
 package br.com.pazzini.vendas.online;
 
@@ -11,10 +12,12 @@ import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @RefreshScope
 @EnableAutoConfiguration(exclude={DataSourceAutoConfiguration.class})
+@EnableScheduling
 public class ProdutoServiceAlunosApplication {
 
     /**
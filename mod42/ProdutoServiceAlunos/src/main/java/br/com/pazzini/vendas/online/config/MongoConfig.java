@@ -13,7 +13,7 @@ import org.springframework.data.mongodb.repository.config.EnableMongoRepositorie
  * Configuração específica para integração do Spring Data MongoDB.
  */
 @Configuration
-@EnableMongoRepositories(basePackages = "br.com.rpires.vendas.online.repository")
+@EnableMongoRepositories(basePackages = "br.com.pazzini.vendas.online.repository")
 public class MongoConfig {
 
 }
@@ -0,0 +1,137 @@
+/**
+ * A classe TracingConfig é uma classe de configuração que grava, de forma opcional, os spans do serviço em um
+ * arquivo. Só é carregada quando a propriedade application.tracing.arquivo é informada.
+ * Cada span é gravado em uma linha, no formato JSON v2 do Zipkin, o que permite analisar o trace de uma venda
+ * sem um coletor. O envio a um coletor Zipkin é configurado pelo Sleuth nas propriedades spring.zipkin.*.
+ */
+package br.com.pazzini.vendas.online.config;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import zipkin2.Call;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.Sender;
+import zipkin2.reporter.brave.AsyncZipkinSpanHandler;
+
+/**
+ * Configuração da exportação de spans para arquivo.
+ */
+@Configuration
+@ConditionalOnProperty(name = "application.tracing.arquivo")
+@Slf4j
+public class TracingConfig {
+
+	/**
+	 * Cria o sender que grava os spans no arquivo configurado.
+	 * @param arquivo O caminho do arquivo de spans.
+	 * @return O sender de spans para arquivo.
+	 */
+	@Bean(destroyMethod = "close")
+	public ArquivoSender arquivoSender(@Value("${application.tracing.arquivo}") String arquivo) {
+		log.info("SPANS EXPORTADOS PARA O ARQUIVO {}", arquivo);
+		return new ArquivoSender(Paths.get(arquivo));
+	}
+
+	/**
+	 * Cria o handler que envia os spans finalizados, em lotes e fora da thread da requisição, para o arquivo.
+	 * @param arquivoSender O sender de spans para arquivo.
+	 * @return O handler de spans.
+	 */
+	@Bean(destroyMethod = "close")
+	public AsyncZipkinSpanHandler arquivoSpanHandler(ArquivoSender arquivoSender) {
+		return AsyncZipkinSpanHandler.create(arquivoSender);
+	}
+
+	/**
+	 * Sender que grava cada span recebido em uma linha do arquivo.
+	 */
+	static class ArquivoSender extends Sender {
+
+		private final OutputStream saida;
+
+		/**
+		 * Abre o arquivo de spans para inclusão, criando-o se necessário.
+		 * @param arquivo O caminho do arquivo de spans.
+		 * @throws UncheckedIOException Se o arquivo não puder ser aberto.
+		 */
+		ArquivoSender(Path arquivo) {
+			try {
+				if (arquivo.getParent() != null) {
+					Files.createDirectories(arquivo.getParent());
+				}
+				this.saida = new BufferedOutputStream(Files.newOutputStream(arquivo,
+						StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+			} catch (IOException e) {
+				throw new UncheckedIOException("NÃO FOI POSSÍVEL ABRIR O ARQUIVO DE SPANS " + arquivo, e);
+			}
+		}
+
+		/**
+		 * @return A codificação JSON usada nos spans.
+		 */
+		@Override
+		public Encoding encoding() {
+			return Encoding.JSON;
+		}
+
+		/**
+		 * @return O tamanho máximo, em bytes, de um lote de spans.
+		 */
+		@Override
+		public int messageMaxBytes() {
+			return 512 * 1024;
+		}
+
+		/**
+		 * @param spans Os spans codificados.
+		 * @return O tamanho, em bytes, do lote.
+		 */
+		@Override
+		public int messageSizeInBytes(List<byte[]> spans) {
+			return Encoding.JSON.listSizeInBytes(spans);
+		}
+
+		/**
+		 * Grava o lote de spans, um por linha.
+		 * @param spans Os spans codificados.
+		 * @return A chamada já concluída.
+		 * @throws UncheckedIOException Se a gravação falhar; o reporter registra a falha e descarta o lote.
+		 */
+		@Override
+		public synchronized Call<Void> sendSpans(List<byte[]> spans) {
+			try {
+				for (byte[] span : spans) {
+					saida.write(span);
+					saida.write('\n');
+				}
+				saida.flush();
+				return Call.create(null);
+			} catch (IOException e) {
+				throw new UncheckedIOException("ERRO AO GRAVAR SPANS", e);
+			}
+		}
+
+		/**
+		 * Fecha o arquivo de spans.
+		 * @throws IOException Se o arquivo não puder ser fechado.
+		 */
+		@Override
+		public synchronized void close() throws IOException {
+			saida.close();
+		}
+	}
+}
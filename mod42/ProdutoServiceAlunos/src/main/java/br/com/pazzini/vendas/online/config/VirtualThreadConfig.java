@@ -0,0 +1,76 @@
+/**
+ * A classe VirtualThreadConfig é uma classe de configuração que ativa, de forma opcional, o atendimento das
+ * requisições em threads virtuais. Só é carregada quando a propriedade application.virtualThreads.enabled é true.
+ * Cada requisição recebida pelo Tomcat passa a ser executada em uma thread virtual, de modo que a espera pelo
+ * MongoDB bloqueia apenas essa thread e não uma thread do pool do servidor.
+ * Exige JVM 21 ou superior em execução; o executor é obtido por reflexão para que o projeto continue compilando
+ * para Java 11.
+ */
+package br.com.pazzini.vendas.online.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Configuração do modo de execução em threads virtuais.
+ */
+@Configuration
+@ConditionalOnProperty(name = "application.virtualThreads.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfig {
+
+	/**
+	 * Cria o executor que inicia uma thread virtual por tarefa.
+	 * @return O executor de threads virtuais.
+	 * @throws IllegalStateException Se a JVM em execução não suportar threads virtuais.
+	 */
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService virtualThreadExecutor() {
+		try {
+			ExecutorService executor = (ExecutorService) Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor")
+					.invoke(null);
+			log.info("REQUISIÇÕES ATENDIDAS EM THREADS VIRTUAIS");
+			return executor;
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException("THREADS VIRTUAIS EXIGEM JAVA 21 OU SUPERIOR, JVM ATUAL: "
+					+ Runtime.version(), e);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("NÃO FOI POSSÍVEL CRIAR O EXECUTOR DE THREADS VIRTUAIS", e);
+		}
+	}
+
+	/**
+	 * Faz o Tomcat executar as requisições no executor de threads virtuais.
+	 * @param virtualThreadExecutor O executor de threads virtuais.
+	 * @return O customizador do protocolo do Tomcat.
+	 */
+	@Bean
+	public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer(
+			ExecutorService virtualThreadExecutor) {
+		return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+	}
+
+	/**
+	 * Substitui o pool padrão usado por @Async e pelas requisições assíncronas do Spring MVC.
+	 * @param virtualThreadExecutor O executor de threads virtuais.
+	 * @return O executor de tarefas da aplicação.
+	 */
+	@Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+			AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+	public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+		return new TaskExecutorAdapter(virtualThreadExecutor);
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * A classe EstoqueResource é um controlador REST que lida com o estoque e as reservas de produtos na aplicação de vendas online.
+ * As reservas são feitas pelo Venda Service ao adicionar produtos a uma venda, confirmadas ao concluí-la e liberadas ao cancelá-la
+ * ou ao remover produtos.
+ */
+package br.com.pazzini.vendas.online.controller;
+
+import java.util.List;
+
+import javax.validation.Valid;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.pazzini.vendas.online.domain.Estoque;
+import br.com.pazzini.vendas.online.dto.ItemReservaDTO;
+import br.com.pazzini.vendas.online.usecase.EstoqueProduto;
+import io.swagger.v3.oas.annotations.Operation;
+
+/**
+ * Controlador REST para lidar com o estoque e as reservas de produtos na aplicação de vendas online.
+ */
+@RestController
+@RequestMapping(value = "/produto/estoque")
+@Validated
+public class EstoqueResource {
+
+	private EstoqueProduto estoqueProduto;
+
+	@Autowired
+	public EstoqueResource(EstoqueProduto estoqueProduto) {
+		this.estoqueProduto = estoqueProduto;
+	}
+
+	/**
+	 * Endpoint para buscar o estoque de um produto.
+	 * As quantidades refletem a última persistência dos saldos em memória, feita a cada poucos segundos.
+	 * @param codigo Código do produto.
+	 * @return Uma ResponseEntity contendo o estoque do produto.
+	 */
+	@GetMapping(value = "/{codigo}")
+	@Operation(summary = "Busca o estoque de um produto")
+	public ResponseEntity<Estoque> consultar(@PathVariable(value = "codigo") String codigo) {
+		return ResponseEntity.ok(estoqueProduto.consultar(codigo));
+	}
+
+	/**
+	 * Endpoint para registrar a entrada de unidades de um produto. A primeira entrada passa a controlar o estoque do produto.
+	 * @param codigo Código do produto.
+	 * @param quantidade Quantidade recebida.
+	 * @return Uma ResponseEntity contendo o estoque do produto após a entrada.
+	 */
+	@PostMapping(value = "/{codigo}/entrada")
+	@Operation(summary = "Registra a entrada de unidades de um produto")
+	public ResponseEntity<Estoque> entrada(@PathVariable(value = "codigo") String codigo,
+			@RequestParam(value = "quantidade") Integer quantidade) {
+		return ResponseEntity.ok(estoqueProduto.entrada(codigo, quantidade));
+	}
+
+	/**
+	 * Endpoint para reservar os produtos de uma venda. Todos os itens são reservados, ou nenhum.
+	 * @param vendaId Identificador da venda.
+	 * @param itens Produtos e quantidades a reservar.
+	 * @return Uma ResponseEntity vazia; 409 se algum produto não tiver estoque suficiente.
+	 */
+	@PostMapping(value = "/reservas/{vendaId}")
+	@Operation(summary = "Reserva os produtos de uma venda")
+	public ResponseEntity<Void> reservar(@PathVariable(value = "vendaId") String vendaId,
+			@RequestBody List<@Valid ItemReservaDTO> itens) {
+		estoqueProduto.reservar(vendaId, itens);
+		return ResponseEntity.ok().build();
+	}
+
+	/**
+	 * Endpoint para confirmar as reservas de uma venda concluída.
+	 * Com as linhas finais da venda, confirma de cada produto só a quantidade vendida e devolve ao saldo o que foi reservado além dela;
+	 * sem elas, confirma tudo o que está reservado.
+	 * @param vendaId Identificador da venda.
+	 * @param linhas Produtos e quantidades da venda concluída.
+	 * @return Uma ResponseEntity contendo a quantidade de reservas confirmadas; 409 se faltar estoque para alguma linha.
+	 */
+	@PostMapping(value = "/reservas/{vendaId}/confirmar")
+	@Operation(summary = "Confirma as reservas de uma venda concluída")
+	public ResponseEntity<Integer> confirmar(@PathVariable(value = "vendaId") String vendaId,
+			@RequestBody(required = false) List<@Valid ItemReservaDTO> linhas) {
+		return ResponseEntity.ok(linhas == null ? estoqueProduto.confirmar(vendaId) : estoqueProduto.confirmar(vendaId, linhas));
+	}
+
+	/**
+	 * Endpoint para liberar reservas de uma venda: todas, quando a venda é cancelada, ou parte da reserva de um produto,
+	 * quando ele é removido da venda.
+	 * @param vendaId Identificador da venda.
+	 * @param codigoProduto Código do produto removido; ausente para liberar todas as reservas.
+	 * @param quantidade Quantidade removida do produto.
+	 * @return Uma ResponseEntity contendo a quantidade de reservas, ou de unidades do produto, liberadas.
+	 */
+	@PostMapping(value = "/reservas/{vendaId}/liberar")
+	@Operation(summary = "Libera as reservas de uma venda")
+	public ResponseEntity<Long> liberar(@PathVariable(value = "vendaId") String vendaId,
+			@RequestParam(value = "codigoProduto", required = false) String codigoProduto,
+			@RequestParam(value = "quantidade", required = false) Integer quantidade) {
+		if (codigoProduto == null) {
+			return ResponseEntity.ok((long) estoqueProduto.liberar(vendaId));
+		}
+		return ResponseEntity.ok(estoqueProduto.liberar(vendaId, codigoProduto, quantidade == null ? 0 : quantidade));
+	}
+}
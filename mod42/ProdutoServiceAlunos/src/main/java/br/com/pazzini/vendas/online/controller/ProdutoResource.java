@@ -5,11 +5,16 @@
  */
 package br.com.pazzini.vendas.online.controller;
 
+import java.time.Instant;
+import java.util.List;
+
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,10 +23,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import br.com.pazzini.vendas.online.domain.Produto;
 import br.com.pazzini.vendas.online.domain.Produto.Status;
+import br.com.pazzini.vendas.online.domain.ProdutoEvento;
+import br.com.pazzini.vendas.online.dto.PaginaCursor;
 import br.com.pazzini.vendas.online.usecase.BuscaProduto;
 import br.com.pazzini.vendas.online.usecase.CadastroProduto;
 import io.swagger.v3.oas.annotations.Operation;
@@ -55,6 +63,20 @@ public class ProdutoResource {
 		return ResponseEntity.ok(buscaProduto.buscar(pageable));
 	}
 	
+	/**
+	 * Endpoint para buscar uma lista de produtos por cursor, sem a contagem total.
+	 * @param cursor Cursor retornado na página anterior; vazio na primeira página.
+	 * @param tamanho Quantidade de produtos da página.
+	 * @return Uma ResponseEntity contendo os produtos e o cursor da próxima página.
+	 */
+	@GetMapping(params = "cursor")
+	@Operation(summary = "Busca uma lista de produtos por cursor")
+	public ResponseEntity<PaginaCursor<Produto>> buscarPorCursor(
+			@RequestParam(value = "cursor") String cursor,
+			@RequestParam(value = "size", required = false) Integer tamanho) {
+		return ResponseEntity.ok(buscaProduto.buscar(cursor, tamanho));
+	}
+	
 	/**
 	 * Endpoint para buscar uma lista paginada de produtos por status.
 	 * @param pageable Objeto Pageable para suportar paginação.
@@ -79,6 +101,33 @@ public class ProdutoResource {
 		return ResponseEntity.ok(buscaProduto.buscarPorCodigo(codigo));
 	}
 	
+	/**
+	 * Endpoint para buscar vários produtos pelos seus códigos em uma única requisição.
+	 * @param codigos Códigos dos produtos.
+	 * @return Uma ResponseEntity contendo os produtos encontrados; códigos inexistentes são omitidos.
+	 */
+	@GetMapping(value = "/lote")
+	@Operation(summary = "Busca vários produtos pelos seus códigos")
+	public ResponseEntity<List<Produto>> buscarPorCodigos(
+			@RequestParam(value = "codigos", required = true) List<String> codigos) {
+		return ResponseEntity.ok(buscaProduto.buscarPorCodigos(codigos));
+	}
+	
+	/**
+	 * Endpoint para buscar os eventos de alteração de produtos gravados a partir de um instante.
+	 * Usado pelos serviços que mantêm cópias locais dos produtos para invalidá-las.
+	 * @param desde Instante inicial (ISO-8601), inclusivo.
+	 * @param limite Quantidade máxima de eventos retornados.
+	 * @return Uma ResponseEntity contendo os eventos em ordem de gravação.
+	 */
+	@GetMapping(value = "/eventos")
+	@Operation(summary = "Busca os eventos de alteração de produtos a partir de um instante")
+	public ResponseEntity<List<ProdutoEvento>> buscarEventos(
+			@RequestParam(value = "desde") @DateTimeFormat(iso = ISO.DATE_TIME) Instant desde,
+			@RequestParam(value = "limite", required = false) Integer limite) {
+		return ResponseEntity.ok(buscaProduto.buscarEventos(desde, limite));
+	}
+	
 	/**
 	 * Endpoint para cadastrar um novo produto.
 	 * @param produto Objeto Produto a ser cadastrado.
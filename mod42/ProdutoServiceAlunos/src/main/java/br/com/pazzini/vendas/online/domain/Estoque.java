@@ -0,0 +1,53 @@
+/**
+ * A classe Estoque representa as quantidades de um produto na aplicação de vendas online, gravadas na coleção estoque.
+ * O documento de cada produto só é alterado por incrementos em lote, para que muitas reservas do mesmo produto não disputem o mesmo documento.
+ */
+package br.com.pazzini.vendas.online.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Entidade que representa o estoque de um produto, identificado pelo código do produto.
+ * A soma de disponivel, alocado, reservado e vendido só muda com as entradas de estoque.
+ * Produtos sem documento de estoque não têm o estoque controlado.
+ */
+@Document(collection = "estoque")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class Estoque {
+
+	/**
+	 * Código do produto.
+	 */
+	@Id
+	private String codigo;
+
+	/**
+	 * Quantidade livre, ainda não entregue a nenhuma instância do serviço.
+	 */
+	private long disponivel;
+
+	/**
+	 * Quantidade entregue às instâncias em blocos e ainda não reservada; as reservas são atendidas por esses blocos, em memória.
+	 */
+	private long alocado;
+
+	/**
+	 * Quantidade reservada por vendas em andamento.
+	 */
+	private long reservado;
+
+	/**
+	 * Quantidade das vendas concluídas.
+	 */
+	private long vendido;
+
+}
@@ -0,0 +1,61 @@
+/**
+ * A classe ProdutoEvento representa uma alteração do catálogo de produtos, gravada na coleção de saída (outbox) produto_evento.
+ * Os eventos são lidos por outros serviços, como o Venda Service, para invalidar as cópias locais dos produtos alterados.
+ */
+package br.com.pazzini.vendas.online.domain;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Entidade que representa um evento de alteração de produto.
+ * Os eventos expiram um dia após a gravação; quem ficar mais tempo sem consultá-los deve descartar todas as cópias locais.
+ */
+@Document(collection = "produto_evento")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProdutoEvento {
+
+	/**
+	 * Enumeração para representar o tipo de alteração: produto cadastrado, alterado ou inativado.
+	 */
+	public enum Tipo {
+		CADASTRADO, ALTERADO, INATIVADO;
+	}
+
+	@Id
+	private String id;
+
+	private Tipo tipo;
+
+	/**
+	 * Código do produto após a alteração.
+	 */
+	private String codigo;
+
+	/**
+	 * Código anterior, quando a alteração mudou o código do produto; nulo nos demais casos.
+	 */
+	private String codigoAnterior;
+
+	/**
+	 * Produto como ficou após a alteração.
+	 */
+	private Produto produto;
+
+	@Indexed(name = "evento_expiracao", expireAfter = "1d")
+	private Instant criadoEm;
+
+}
@@ -0,0 +1,65 @@
+/**
+ * A classe ReservaEstoque representa a quantidade de um produto reservada por uma venda, gravada na coleção estoque_reserva.
+ * As reservas são confirmadas quando a venda é concluída e liberadas quando é cancelada ou quando o produto é removido.
+ * Reservas esquecidas expiram: suas unidades voltam ao saldo e só são reservadas de novo se a venda voltar a ser usada.
+ */
+package br.com.pazzini.vendas.online.domain;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Entidade que representa a reserva de um produto por uma venda.
+ * Há um documento por venda e produto, de identificador {@code vendaId:codigoProduto}; cada venda altera apenas os seus,
+ * então reservas concorrentes do mesmo produto não disputam documentos.
+ */
+@Document(collection = "estoque_reserva")
+@CompoundIndex(name = "reserva_expiracao", def = "{'status': 1, 'atualizadoEm': 1}")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservaEstoque {
+
+	/**
+	 * Enumeração para representar a situação da reserva. Só reservas RESERVADA mudam de situação, exceto as EXPIRADA,
+	 * que voltam a RESERVADA quando as unidades são reservadas de novo.
+	 */
+	public enum Status {
+		RESERVADA, CONFIRMADA, LIBERADA, EXPIRADA;
+	}
+
+	@Id
+	private String id;
+
+	@Indexed(name = "reserva_venda")
+	private String vendaId;
+
+	private String codigoProduto;
+
+	private long quantidade;
+
+	private Status status;
+
+	/**
+	 * Instante da última reserva do produto pela venda; as reservas sem alteração há mais tempo que a expiração expiram.
+	 */
+	private Instant atualizadoEm;
+
+	/**
+	 * Monta o identificador da reserva de um produto por uma venda.
+	 */
+	public static String id(String vendaId, String codigoProduto) {
+		return vendaId + ":" + codigoProduto;
+	}
+
+}
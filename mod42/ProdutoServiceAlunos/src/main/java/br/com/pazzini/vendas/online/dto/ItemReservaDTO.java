@@ -0,0 +1,30 @@
+/**
+ * A classe ItemReservaDTO representa um produto e a quantidade a reservar para uma venda.
+ */
+package br.com.pazzini.vendas.online.dto;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Item de uma requisição de reserva de estoque.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemReservaDTO {
+
+	@NotNull
+	private String codigoProduto;
+
+	@NotNull
+	@Min(1)
+	private Integer quantidade;
+
+}
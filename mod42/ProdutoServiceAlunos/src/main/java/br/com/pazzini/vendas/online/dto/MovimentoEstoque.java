@@ -0,0 +1,27 @@
+/**
+ * A classe MovimentoEstoque representa os incrementos acumulados em memória para o estoque de um produto,
+ * gravados de uma vez no documento de estoque pela persistência periódica.
+ */
+package br.com.pazzini.vendas.online.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Incrementos das quantidades de um produto desde a última gravação; valores negativos diminuem a quantidade.
+ */
+@Getter
+@AllArgsConstructor
+public class MovimentoEstoque {
+
+	private final String codigo;
+
+	private final long disponivel;
+
+	private final long alocado;
+
+	private final long reservado;
+
+	private final long vendido;
+
+}
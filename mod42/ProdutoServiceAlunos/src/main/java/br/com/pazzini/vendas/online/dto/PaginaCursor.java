@@ -0,0 +1,110 @@
+/**
+ * A classe PaginaCursor representa uma página de uma listagem por cursor (keyset).
+ * Os documentos são ordenados pelo _id e cada página começa depois do último documento da anterior,
+ * o que evita o skip e o count() da paginação por deslocamento e mantém constante o custo de páginas profundas.
+ * O cursor é o _id do último item codificado em Base64 e não deve ser interpretado pelo cliente.
+ */
+package br.com.pazzini.vendas.online.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import br.com.pazzini.vendas.online.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Página de uma listagem por cursor, com os itens e o cursor da próxima página.
+ * @param <T> O tipo dos itens da página.
+ */
+@Getter
+@AllArgsConstructor
+public class PaginaCursor<T> {
+
+	/** Tamanho da página quando não informado. */
+	public static final int TAMANHO_PADRAO = 20;
+
+	/** Maior tamanho de página aceito. */
+	public static final int TAMANHO_MAXIMO = 100;
+
+	// Itens da página, em ordem crescente de _id.
+	private List<T> conteudo;
+
+	// Cursor da próxima página, ou nulo quando esta é a última.
+	private String proximoCursor;
+
+	/**
+	 * Cria a paginação da consulta: ordenada pelo _id e com um item a mais que o tamanho pedido,
+	 * para saber se existe uma próxima página sem contar os documentos.
+	 * @param tamanho Tamanho da página.
+	 * @return A paginação a ser usada na consulta ao repositório.
+	 */
+	public static Pageable consulta(int tamanho) {
+		return PageRequest.of(0, tamanho + 1, Sort.by("id"));
+	}
+
+	/**
+	 * Ajusta o tamanho pedido ao intervalo aceito.
+	 * @param tamanho Tamanho pedido, possivelmente nulo.
+	 * @return O tamanho da página a ser usado.
+	 */
+	public static int limitar(Integer tamanho) {
+		if (tamanho == null) {
+			return TAMANHO_PADRAO;
+		}
+		return Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO));
+	}
+
+	/**
+	 * Monta a página a partir do resultado de uma consulta feita com {@link #consulta(int)}.
+	 * @param itens Itens retornados pela consulta.
+	 * @param tamanho Tamanho da página.
+	 * @param id Função que obtém o identificador de um item.
+	 * @param <T> O tipo dos itens.
+	 * @return A página, com o cursor da próxima quando houver mais itens.
+	 */
+	public static <T> PaginaCursor<T> de(List<T> itens, int tamanho, Function<T, String> id) {
+		if (itens.size() <= tamanho) {
+			return new PaginaCursor<>(itens, null);
+		}
+		List<T> pagina = itens.subList(0, tamanho);
+		return new PaginaCursor<>(pagina, codificar(id.apply(pagina.get(tamanho - 1))));
+	}
+
+	/**
+	 * Codifica um identificador como cursor.
+	 * @param id Identificador do último item da página.
+	 * @return O cursor opaco.
+	 */
+	public static String codificar(String id) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Obtém o identificador contido em um cursor.
+	 * @param cursor O cursor recebido na requisição; vazio ou nulo na primeira página.
+	 * @return O identificador, ou nulo para a primeira página.
+	 * @throws BadRequestException Se o cursor não foi gerado por esta API.
+	 */
+	public static String decodificar(String cursor) {
+		if (cursor == null || cursor.isEmpty()) {
+			return null;
+		}
+		try {
+			String id = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			if (ObjectId.isValid(id)) {
+				return id;
+			}
+		} catch (IllegalArgumentException e) {
+			// Tratado abaixo como cursor inválido.
+		}
+		throw new BadRequestException("CURSOR INVÁLIDO: " + cursor);
+	}
+}
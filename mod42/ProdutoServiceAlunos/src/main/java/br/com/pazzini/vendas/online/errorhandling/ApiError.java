@@ -102,7 +102,7 @@ public class ApiError {
     }
 
     // Método público para adicionar lista de erros de validação globais
-    public void addValidationErrors(List<ObjectError> globalErrors) {
+    public void addValidationError(List<ObjectError> globalErrors) {
         globalErrors.forEach(this::addValidationError);
     }
 
@@ -0,0 +1,22 @@
+/**
+ * A classe EstoqueInsuficienteException é uma exceção lançada quando não há unidades suficientes de um produto para uma reserva.
+ * Ela estende a classe RuntimeException e é traduzida para a resposta HTTP 409 (Conflict).
+ */
+package br.com.pazzini.vendas.online.exception;
+
+/**
+ * Exceção lançada quando o estoque de um produto não atende a quantidade pedida.
+ */
+public class EstoqueInsuficienteException extends RuntimeException {
+
+    private static final long serialVersionUID = 4622416230188170147L;
+
+    /**
+     * Construtor que monta a mensagem a partir do produto e da quantidade pedida.
+     * @param codigoProduto O código do produto sem estoque suficiente.
+     * @param quantidade A quantidade pedida.
+     */
+    public EstoqueInsuficienteException(String codigoProduto, long quantidade) {
+        super("ESTOQUE INSUFICIENTE DO PRODUTO " + codigoProduto + " PARA RESERVAR " + quantidade + " UNIDADES");
+    }
+}
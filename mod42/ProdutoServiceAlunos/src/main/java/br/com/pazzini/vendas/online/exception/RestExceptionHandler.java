@@ -25,7 +25,7 @@ import org.springframework.web.client.HttpClientErrorException.UnprocessableEnti
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
-import br.com.rpires.vendas.online.errorhandling.ApiError;
+import br.com.pazzini.vendas.online.errorhandling.ApiError;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -153,6 +153,13 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
         return buildResponseEntity(apiError);
     }
     
+    @ExceptionHandler(EstoqueInsuficienteException.class)
+    protected ResponseEntity<Object> handleEstoqueInsuficiente(EstoqueInsuficienteException ex) {
+        ApiError apiError = new ApiError(HttpStatus.CONFLICT);
+        apiError.setMessage(ex.getMessage());
+        return buildResponseEntity(apiError);
+    }
+    
     @ExceptionHandler(DuplicateKeyException.class)
     protected ResponseEntity<Object> handleDuplicateKeyException(DuplicateKeyException ex) {
         ApiError apiError = new ApiError(BAD_REQUEST);
@@ -170,3 +177,24 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
     @ExceptionHandler(BadRequest.class)
     protected ResponseEntity<Object> handleBadRequest(BadRequest ex) {
         ApiError apiError = new ApiError(BAD_REQUEST);
+        apiError.setMessage(ex.getMessage());
+        return buildResponseEntity(apiError);
+    }
+    
+    @ExceptionHandler(UnprocessableEntity.class)
+    protected ResponseEntity<Object> handleUnprocessableEntity(UnprocessableEntity ex) {
+        ApiError apiError = new ApiError(HttpStatus.UNPROCESSABLE_ENTITY);
+        apiError.setMessage(ex.getMessage());
+        return buildResponseEntity(apiError);
+    }
+    
+    /**
+     * Monta a resposta HTTP a partir do ApiError, usando o status nele informado.
+     *
+     * @param apiError o objeto ApiError
+     * @return a resposta HTTP
+     */
+    private ResponseEntity<Object> buildResponseEntity(ApiError apiError) {
+        return new ResponseEntity<>(apiError, apiError.getStatus());
+    }
+}
@@ -0,0 +1,19 @@
+/**
+ * A interface `IEstoqueRepository` é uma extensão da interface `MongoRepository` fornecida pelo Spring Data MongoDB.
+ * Ela define operações de acesso a dados relacionadas à entidade `Estoque`.
+ */
+package br.com.pazzini.vendas.online.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import br.com.pazzini.vendas.online.domain.Estoque;
+
+/**
+ * Repositório para a entidade Estoque, proporcionando operações de acesso a dados.
+ * As alterações de quantidade ficam em {@link IEstoqueRepositoryCustom}.
+ */
+@Repository
+public interface IEstoqueRepository extends MongoRepository<Estoque, String>, IEstoqueRepositoryCustom {
+
+}
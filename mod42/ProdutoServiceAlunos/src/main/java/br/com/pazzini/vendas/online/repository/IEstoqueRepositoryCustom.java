@@ -0,0 +1,39 @@
+/**
+ * A interface `IEstoqueRepositoryCustom` define as alterações de quantidade do estoque que não são geradas pelo Spring Data.
+ */
+package br.com.pazzini.vendas.online.repository;
+
+import java.util.Collection;
+
+import br.com.pazzini.vendas.online.dto.MovimentoEstoque;
+
+/**
+ * Alterações atômicas das quantidades de estoque, implementadas em {@link IEstoqueRepositoryCustomImpl}.
+ */
+public interface IEstoqueRepositoryCustom {
+
+	/**
+	 * Move do disponível para o alocado um bloco de até {@code bloco} unidades, se houver ao menos {@code minimo} disponíveis.
+	 *
+	 * @param codigo Código do produto.
+	 * @param minimo Quantidade mínima necessária.
+	 * @param bloco Quantidade desejada; menos é alocado quando o disponível é menor.
+	 * @return A quantidade alocada, ou zero se o produto não tem estoque controlado ou não há o mínimo disponível.
+	 */
+	long alocar(String codigo, long minimo, long bloco);
+
+	/**
+	 * Aplica os incrementos acumulados de vários produtos com uma única requisição ao MongoDB.
+	 *
+	 * @param movimentos Incrementos de cada produto.
+	 */
+	void aplicar(Collection<MovimentoEstoque> movimentos);
+
+	/**
+	 * Soma a quantidade ao disponível do produto, criando o estoque se ainda não existir.
+	 *
+	 * @param codigo Código do produto.
+	 * @param quantidade Quantidade recebida.
+	 */
+	void entrada(String codigo, long quantidade);
+}
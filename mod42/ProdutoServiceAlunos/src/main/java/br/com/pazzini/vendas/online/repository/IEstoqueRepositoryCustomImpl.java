@@ -0,0 +1,87 @@
+/**
+ * A classe `IEstoqueRepositoryCustomImpl` implementa as alterações de quantidade do estoque com o MongoTemplate.
+ */
+package br.com.pazzini.vendas.online.repository;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import br.com.pazzini.vendas.online.domain.Estoque;
+import br.com.pazzini.vendas.online.dto.MovimentoEstoque;
+
+/**
+ * Implementação de {@link IEstoqueRepositoryCustom}.
+ * A alocação usa um pipeline de atualização e exige MongoDB 4.2 ou superior.
+ */
+public class IEstoqueRepositoryCustomImpl implements IEstoqueRepositoryCustom {
+
+	private static final String DISPONIVEL = "disponivel";
+
+	private static final String ALOCADO = "alocado";
+
+	private static final String RESERVADO = "reservado";
+
+	private static final String VENDIDO = "vendido";
+
+	private MongoTemplate mongoTemplate;
+
+	/**
+	 * Construtor que recebe o MongoTemplate usado nas atualizações.
+	 */
+	@Autowired
+	public IEstoqueRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+		this.mongoTemplate = mongoTemplate;
+	}
+
+	/**
+	 * Lê o disponível anterior à atualização para saber quanto foi alocado: o mínimo entre ele e o bloco.
+	 */
+	@Override
+	public long alocar(String codigo, long minimo, long bloco) {
+		Query query = Query.query(Criteria.where("_id").is(codigo).and(DISPONIVEL).gte(minimo));
+		long quantidade = Math.max(minimo, bloco);
+		Document tomado = new Document("$min", Arrays.asList("$" + DISPONIVEL, quantidade));
+		AggregationUpdate update = AggregationUpdate.from(Arrays.asList(context -> new Document("$set", new Document()
+				.append(DISPONIVEL, new Document("$subtract", Arrays.asList("$" + DISPONIVEL, tomado)))
+				.append(ALOCADO, new Document("$add", Arrays.asList("$" + ALOCADO, tomado))))));
+		Estoque anterior = mongoTemplate.findAndModify(query, update,
+				FindAndModifyOptions.options().returnNew(false), Estoque.class);
+		return anterior == null ? 0 : Math.min(anterior.getDisponivel(), quantidade);
+	}
+
+	@Override
+	public void aplicar(Collection<MovimentoEstoque> movimentos) {
+		if (movimentos.isEmpty()) {
+			return;
+		}
+		BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, Estoque.class);
+		for (MovimentoEstoque movimento : movimentos) {
+			bulk.updateOne(Query.query(Criteria.where("_id").is(movimento.getCodigo())), new Update()
+					.inc(DISPONIVEL, movimento.getDisponivel())
+					.inc(ALOCADO, movimento.getAlocado())
+					.inc(RESERVADO, movimento.getReservado())
+					.inc(VENDIDO, movimento.getVendido()));
+		}
+		bulk.execute();
+	}
+
+	@Override
+	public void entrada(String codigo, long quantidade) {
+		mongoTemplate.upsert(Query.query(Criteria.where("_id").is(codigo)), new Update()
+				.inc(DISPONIVEL, quantidade)
+				.setOnInsert(ALOCADO, 0L)
+				.setOnInsert(RESERVADO, 0L)
+				.setOnInsert(VENDIDO, 0L), Estoque.class);
+	}
+}
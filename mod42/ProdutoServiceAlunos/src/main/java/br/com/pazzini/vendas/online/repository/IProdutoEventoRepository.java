@@ -0,0 +1,30 @@
+/**
+ * A interface `IProdutoEventoRepository` é uma extensão da interface `MongoRepository` fornecida pelo Spring Data MongoDB.
+ * Ela define operações de acesso a dados relacionadas à entidade `ProdutoEvento`.
+ */
+package br.com.pazzini.vendas.online.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import br.com.pazzini.vendas.online.domain.ProdutoEvento;
+
+/**
+ * Repositório para a entidade ProdutoEvento, proporcionando operações de acesso a dados.
+ */
+@Repository
+public interface IProdutoEventoRepository extends MongoRepository<ProdutoEvento, String> {
+
+    /**
+     * Busca os eventos gravados a partir do instante informado, usando o índice de criadoEm.
+     *
+     * @param desde Instante inicial, inclusivo.
+     * @param pageable Configurações de paginação e ordenação.
+     * @return Os eventos encontrados.
+     */
+    List<ProdutoEvento> findByCriadoEmGreaterThanEqual(Instant desde, Pageable pageable);
+}
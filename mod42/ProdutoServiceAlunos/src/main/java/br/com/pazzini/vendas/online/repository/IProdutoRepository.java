@@ -4,6 +4,8 @@
  */
 package br.com.pazzini.vendas.online.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
@@ -28,6 +30,14 @@ public interface IProdutoRepository extends MongoRepository<Produto, String>{
      */
     Optional<Produto> findByCodigo(String codigo);
     
+    /**
+     * Busca todos os produtos cujos códigos estejam na coleção informada, em uma única consulta ($in).
+     *
+     * @param codigos Códigos dos produtos a serem buscados.
+     * @return Os produtos encontrados, sem ordem definida.
+     */
+    List<Produto> findByCodigoIn(Collection<String> codigos);
+    
     /**
      * Busca todos os produtos com um determinado status, retornando uma página de resultados.
      *
@@ -36,4 +46,21 @@ public interface IProdutoRepository extends MongoRepository<Produto, String>{
      * @return Uma página de produtos com o status especificado.
      */
     Page<Produto> findAllByStatus(Pageable pageable, Status status);
+
+    /**
+     * Busca os primeiros produtos na ordem da paginação, sem contar o total de documentos.
+     *
+     * @param pageable Configurações de paginação e ordenação.
+     * @return Os produtos encontrados.
+     */
+    List<Produto> findAllBy(Pageable pageable);
+
+    /**
+     * Busca os produtos com identificador maior que o informado, usando o índice do _id.
+     *
+     * @param id Identificador do último produto da página anterior.
+     * @param pageable Configurações de paginação e ordenação.
+     * @return Os produtos encontrados.
+     */
+    List<Produto> findByIdGreaterThan(String id, Pageable pageable);
 }
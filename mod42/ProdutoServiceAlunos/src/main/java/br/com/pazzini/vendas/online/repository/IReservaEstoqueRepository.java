@@ -0,0 +1,50 @@
+/**
+ * A interface `IReservaEstoqueRepository` é uma extensão da interface `MongoRepository` fornecida pelo Spring Data MongoDB.
+ * Ela define operações de acesso a dados relacionadas à entidade `ReservaEstoque`.
+ */
+package br.com.pazzini.vendas.online.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import br.com.pazzini.vendas.online.domain.ReservaEstoque;
+import br.com.pazzini.vendas.online.domain.ReservaEstoque.Status;
+
+/**
+ * Repositório para a entidade ReservaEstoque, proporcionando operações de acesso a dados.
+ * As mudanças de situação ficam em {@link IReservaEstoqueRepositoryCustom}.
+ */
+@Repository
+public interface IReservaEstoqueRepository extends MongoRepository<ReservaEstoque, String>, IReservaEstoqueRepositoryCustom {
+
+    /**
+     * Busca todas as reservas de uma venda, em qualquer situação.
+     *
+     * @param vendaId Identificador da venda.
+     * @return As reservas encontradas.
+     */
+    List<ReservaEstoque> findByVendaId(String vendaId);
+
+    /**
+     * Busca as reservas de uma venda na situação informada.
+     *
+     * @param vendaId Identificador da venda.
+     * @param status Situação das reservas.
+     * @return As reservas encontradas.
+     */
+    List<ReservaEstoque> findByVendaIdAndStatus(String vendaId, Status status);
+
+    /**
+     * Busca as reservas na situação informada sem alteração desde o instante, usando o índice de expiração.
+     *
+     * @param status Situação das reservas.
+     * @param limite Instante limite, exclusivo.
+     * @param pageable Configurações de paginação.
+     * @return As reservas encontradas.
+     */
+    List<ReservaEstoque> findByStatusAndAtualizadoEmLessThan(Status status, Instant limite, Pageable pageable);
+}
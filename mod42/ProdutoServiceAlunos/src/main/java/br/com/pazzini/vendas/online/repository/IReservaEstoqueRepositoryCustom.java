@@ -0,0 +1,66 @@
+/**
+ * A interface `IReservaEstoqueRepositoryCustom` define as mudanças atômicas das reservas de estoque.
+ */
+package br.com.pazzini.vendas.online.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import br.com.pazzini.vendas.online.domain.ReservaEstoque;
+import br.com.pazzini.vendas.online.domain.ReservaEstoque.Status;
+
+/**
+ * Mudanças atômicas das reservas, implementadas em {@link IReservaEstoqueRepositoryCustomImpl}.
+ * Cada mudança só se aplica a reservas na situação de origem, o que torna confirmações e liberações repetidas inofensivas.
+ */
+public interface IReservaEstoqueRepositoryCustom {
+
+	/**
+	 * Soma a quantidade à reserva do produto pela venda, criando-a se não existir. Uma reserva LIBERADA volta a RESERVADA com a nova quantidade;
+	 * uma EXPIRADA também, por isso deve ser reativada antes, para não perder a quantidade expirada.
+	 *
+	 * @param vendaId Identificador da venda.
+	 * @param codigoProduto Código do produto.
+	 * @param quantidade Quantidade reservada.
+	 * @param agora Instante da reserva.
+	 * @throws org.springframework.dao.DuplicateKeyException se a reserva já foi confirmada.
+	 */
+	void reservar(String vendaId, String codigoProduto, long quantidade, Instant agora);
+
+	/**
+	 * Muda a situação de uma reserva RESERVADA.
+	 *
+	 * @param id Identificador da reserva.
+	 * @param status Nova situação.
+	 * @param atualizadaAntesDe Se informado, só muda reservas sem alteração desde esse instante.
+	 * @return A reserva alterada, ou vazio se ela não estava RESERVADA.
+	 */
+	Optional<ReservaEstoque> encerrar(String id, Status status, Instant atualizadaAntesDe);
+
+	/**
+	 * Confirma uma reserva RESERVADA, limitando a quantidade à vendida.
+	 *
+	 * @param id Identificador da reserva.
+	 * @param quantidade Quantidade vendida do produto; a reserva confirmada fica com o menor valor entre ela e a reservada.
+	 * @return A reserva antes da alteração, ou vazio se ela não estava RESERVADA.
+	 */
+	Optional<ReservaEstoque> confirmar(String id, long quantidade);
+
+	/**
+	 * Volta uma reserva EXPIRADA para RESERVADA, depois que suas unidades foram reservadas de novo.
+	 *
+	 * @param id Identificador da reserva.
+	 * @param agora Instante da nova reserva.
+	 * @return A reserva alterada, ou vazio se ela não estava EXPIRADA.
+	 */
+	Optional<ReservaEstoque> reativar(String id, Instant agora);
+
+	/**
+	 * Diminui em até {@code quantidade} uma reserva RESERVADA ou EXPIRADA, sem deixá-la negativa.
+	 *
+	 * @param id Identificador da reserva.
+	 * @param quantidade Quantidade a liberar.
+	 * @return A reserva antes da alteração, ou vazio se ela não estava RESERVADA nem EXPIRADA.
+	 */
+	Optional<ReservaEstoque> liberar(String id, long quantidade);
+}
@@ -0,0 +1,106 @@
+/**
+ * A classe `IReservaEstoqueRepositoryCustomImpl` implementa as mudanças atômicas das reservas de estoque com o MongoTemplate.
+ */
+package br.com.pazzini.vendas.online.repository;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Optional;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import br.com.pazzini.vendas.online.domain.ReservaEstoque;
+import br.com.pazzini.vendas.online.domain.ReservaEstoque.Status;
+
+/**
+ * Implementação de {@link IReservaEstoqueRepositoryCustom}.
+ * Os pipelines de atualização exigem MongoDB 4.2 ou superior.
+ */
+public class IReservaEstoqueRepositoryCustomImpl implements IReservaEstoqueRepositoryCustom {
+
+	private static final String STATUS = "status";
+
+	private static final String QUANTIDADE = "quantidade";
+
+	private static final String ATUALIZADO_EM = "atualizadoEm";
+
+	private MongoTemplate mongoTemplate;
+
+	/**
+	 * Construtor que recebe o MongoTemplate usado nas atualizações.
+	 */
+	@Autowired
+	public IReservaEstoqueRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+		this.mongoTemplate = mongoTemplate;
+	}
+
+	/**
+	 * O filtro exclui a reserva CONFIRMADA: nesse caso o upsert tenta criar outra com o mesmo _id e falha com DuplicateKeyException.
+	 */
+	@Override
+	public void reservar(String vendaId, String codigoProduto, long quantidade, Instant agora) {
+		Query query = Query.query(Criteria.where("_id").is(ReservaEstoque.id(vendaId, codigoProduto))
+				.and(STATUS).ne(Status.CONFIRMADA.name()));
+		Document reservada = new Document("$eq", Arrays.asList("$" + STATUS, Status.RESERVADA.name()));
+		AggregationUpdate update = AggregationUpdate.from(Arrays.asList(context -> new Document("$set", new Document()
+				.append("vendaId", vendaId)
+				.append("codigoProduto", codigoProduto)
+				.append(QUANTIDADE, new Document("$cond", Arrays.asList(reservada,
+						new Document("$add", Arrays.asList("$" + QUANTIDADE, quantidade)), quantidade)))
+				.append(STATUS, Status.RESERVADA.name())
+				.append(ATUALIZADO_EM, Date.from(agora)))));
+		mongoTemplate.upsert(query, update, ReservaEstoque.class);
+	}
+
+	@Override
+	public Optional<ReservaEstoque> encerrar(String id, Status status, Instant atualizadaAntesDe) {
+		Criteria criteria = Criteria.where("_id").is(id).and(STATUS).is(Status.RESERVADA);
+		if (atualizadaAntesDe != null) {
+			criteria.and(ATUALIZADO_EM).lt(atualizadaAntesDe);
+		}
+		return Optional.ofNullable(mongoTemplate.findAndModify(Query.query(criteria), new Update().set(STATUS, status),
+				FindAndModifyOptions.options().returnNew(true), ReservaEstoque.class));
+	}
+
+	/**
+	 * Retorna a reserva anterior à atualização para saber quanto estava reservado além do vendido.
+	 */
+	@Override
+	public Optional<ReservaEstoque> confirmar(String id, long quantidade) {
+		Query query = Query.query(Criteria.where("_id").is(id).and(STATUS).is(Status.RESERVADA));
+		AggregationUpdate update = AggregationUpdate.from(Arrays.asList(context -> new Document("$set", new Document()
+				.append(QUANTIDADE, new Document("$min", Arrays.asList("$" + QUANTIDADE, quantidade)))
+				.append(STATUS, Status.CONFIRMADA.name()))));
+		return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+				FindAndModifyOptions.options().returnNew(false), ReservaEstoque.class));
+	}
+
+	@Override
+	public Optional<ReservaEstoque> reativar(String id, Instant agora) {
+		Query query = Query.query(Criteria.where("_id").is(id).and(STATUS).is(Status.EXPIRADA));
+		Update update = new Update().set(STATUS, Status.RESERVADA).set(ATUALIZADO_EM, Date.from(agora));
+		return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+				FindAndModifyOptions.options().returnNew(true), ReservaEstoque.class));
+	}
+
+	/**
+	 * Retorna a reserva anterior à atualização para saber quanto foi liberado e se as unidades ainda estavam reservadas.
+	 */
+	@Override
+	public Optional<ReservaEstoque> liberar(String id, long quantidade) {
+		Query query = Query.query(Criteria.where("_id").is(id).and(STATUS).in(Status.RESERVADA, Status.EXPIRADA));
+		AggregationUpdate update = AggregationUpdate.from(Arrays.asList(context -> new Document("$set",
+				new Document(QUANTIDADE, new Document("$max", Arrays.asList(0L,
+						new Document("$subtract", Arrays.asList("$" + QUANTIDADE, quantidade))))))));
+		return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+				FindAndModifyOptions.options().returnNew(false), ReservaEstoque.class));
+	}
+}
@@ -1,69 +1,112 @@
 /**
- * A classe CadastroProduto é um componente de caso de uso responsável por gerenciar as operações de cadastro, atualização e remoção de produtos.
- * Ela segue as boas práticas de design orientado a objetos e é anotada com @Service, indicando que é um componente de serviço gerenciado pelo Spring.
+ * A classe BuscaProduto é um componente de caso de uso responsável pelas consultas de produtos.
+ * Ela é anotada com @Service, indicando que é um componente de serviço gerenciado pelo Spring.
  * A classe possui uma dependência injetada de IProdutoRepository, o que facilita a testabilidade e segue o princípio de inversão de controle.
  */
 package br.com.pazzini.vendas.online.usecase;
 
-import javax.validation.Valid;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import br.com.pazzini.vendas.online.domain.Produto;
 import br.com.pazzini.vendas.online.domain.Produto.Status;
+import br.com.pazzini.vendas.online.domain.ProdutoEvento;
+import br.com.pazzini.vendas.online.dto.PaginaCursor;
+import br.com.pazzini.vendas.online.exception.BadRequestException;
 import br.com.pazzini.vendas.online.exception.EntityNotFoundException;
+import br.com.pazzini.vendas.online.repository.IProdutoEventoRepository;
 import br.com.pazzini.vendas.online.repository.IProdutoRepository;
 
 /**
- * CadastroProduto é um componente de caso de uso responsável por encapsular as operações de cadastro, atualização e remoção de produtos.
- * Esta classe segue boas práticas de design orientado a objetos e é anotada com @Service para indicar que é um componente de serviço gerenciado pelo Spring.
+ * BuscaProduto é um componente de caso de uso responsável por encapsular as consultas de produtos.
  * Ela possui uma dependência injetada de IProdutoRepository, o que facilita a testabilidade e a inversão de controle.
  */
 @Service
-public class CadastroProduto {
-	
+public class BuscaProduto {
+
+	// Quantidade máxima de eventos retornados por consulta.
+	public static final int LIMITE_EVENTOS = 1000;
+
 	// Repositório responsável pela persistência de produtos.
 	private IProdutoRepository produtoRepository;
-	
+
+	// Repositório dos eventos de alteração de produtos (outbox).
+	private IProdutoEventoRepository eventoRepository;
+
 	/**
-	 * Construtor de CadastroProduto que recebe uma instância de IProdutoRepository como dependência.
-	 * A anotação @Autowired indica que a instância será injetada automaticamente pelo Spring.
+	 * Construtor de BuscaProduto que recebe instâncias de IProdutoRepository e IProdutoEventoRepository como dependências.
+	 * A anotação @Autowired indica que as instâncias serão injetadas automaticamente pelo Spring.
 	 */
 	@Autowired
-	public CadastroProduto(IProdutoRepository produtoRepository) {
+	public BuscaProduto(IProdutoRepository produtoRepository,
+			IProdutoEventoRepository eventoRepository) {
 		this.produtoRepository = produtoRepository;
+		this.eventoRepository = eventoRepository;
 	}
-	
+
+	/**
+	 * Método responsável por retornar uma página de produtos.
+	 */
+	public Page<Produto> buscar(Pageable pageable) {
+		return produtoRepository.findAll(pageable);
+	}
+
+	/**
+	 * Método responsável por retornar uma página de produtos a partir de um cursor.
+	 * A consulta começa depois do último _id da página anterior e não conta o total de produtos.
+	 */
+	public PaginaCursor<Produto> buscar(String cursor, Integer tamanho) {
+		String ultimoId = PaginaCursor.decodificar(cursor);
+		int limite = PaginaCursor.limitar(tamanho);
+		List<Produto> produtos = ultimoId == null
+				? produtoRepository.findAllBy(PaginaCursor.consulta(limite))
+				: produtoRepository.findByIdGreaterThan(ultimoId, PaginaCursor.consulta(limite));
+		return PaginaCursor.de(produtos, limite, Produto::getId);
+	}
+
+	/**
+	 * Método responsável por retornar uma página de produtos filtrada pelo status.
+	 */
+	public Page<Produto> buscar(Pageable pageable, Status status) {
+		return produtoRepository.findAllByStatus(pageable, status);
+	}
+
 	/**
-	 * Método responsável por cadastrar um novo produto. Recebe um objeto Produto validado e define seu status como ATIVO.
-	 * A inserção é realizada através do método insert do repositório.
-	 * Retorna o produto cadastrado.
+	 * Método responsável por buscar um produto pelo código.
+	 * Caso o produto não seja encontrado, uma exceção do tipo EntityNotFoundException é lançada.
 	 */
-	public Produto cadastrar(@Valid Produto produto) {
-		produto.setStatus(Status.ATIVO);
-		return this.produtoRepository.insert(produto);
+	public Produto buscarPorCodigo(String codigo) {
+		return produtoRepository.findByCodigo(codigo)
+				.orElseThrow(() -> new EntityNotFoundException(Produto.class, "codigo", codigo));
 	}
 
 	/**
-	 * Método responsável por atualizar um produto existente. Recebe um objeto Produto validado e o salva no repositório através do método save.
-	 * Retorna o produto atualizado.
+	 * Método responsável por buscar vários produtos pelos seus códigos em uma única consulta ($in).
+	 * Códigos repetidos são consultados uma única vez e códigos sem produto correspondente são simplesmente omitidos do resultado.
 	 */
-	public Produto atualizar(@Valid Produto produto) {
-		return this.produtoRepository.save(produto);
+	public List<Produto> buscarPorCodigos(Collection<String> codigos) {
+		return produtoRepository.findByCodigoIn(new LinkedHashSet<>(codigos));
 	}
 
 	/**
-	 * Método responsável por remover um produto com base no ID. Busca o produto no repositório por ID e, se encontrado, define seu status como INATIVO.
-	 * O produto é então salvo no repositório. Caso o produto não seja encontrado, uma exceção do tipo EntityNotFoundException é lançada.
-	 * Este método mantém um histórico das operações, marcando o produto como INATIVO em vez de excluí-lo permanentemente.
+	 * Método responsável por buscar os eventos de alteração de produtos gravados a partir de um instante, em ordem de gravação.
+	 * O limite é restrito ao intervalo de 1 a LIMITE_EVENTOS; a próxima consulta deve partir do criadoEm do último evento.
 	 */
-	public void remover(String id) {
-		Produto prod = produtoRepository.findById(id)
-		.orElseThrow(() -> new EntityNotFoundException(Produto.class, "id", id));
-		prod.setStatus(Status.INATIVO);
-		this.produtoRepository.save(prod);
-		// Poderia ser utilizado o método deleteById para excluir permanentemente o produto por ID.
-		// this.produtoRepository.deleteById(id);
+	public List<ProdutoEvento> buscarEventos(Instant desde, Integer limite) {
+		if (desde == null) {
+			throw new BadRequestException("INFORME O INSTANTE INICIAL DOS EVENTOS");
+		}
+		int tamanho = limite == null ? LIMITE_EVENTOS : Math.max(1, Math.min(limite, LIMITE_EVENTOS));
+		return eventoRepository.findByCriadoEmGreaterThanEqual(desde,
+				PageRequest.of(0, tamanho, Sort.by("criadoEm", "id")));
 	}
 }
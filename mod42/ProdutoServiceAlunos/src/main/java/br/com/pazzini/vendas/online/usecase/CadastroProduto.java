@@ -4,6 +4,8 @@
  */
 package br.com.pazzini.vendas.online.usecase;
 
+import java.time.Instant;
+
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,13 +13,17 @@ import org.springframework.stereotype.Service;
 
 import br.com.pazzini.vendas.online.domain.Produto;
 import br.com.pazzini.vendas.online.domain.Produto.Status;
+import br.com.pazzini.vendas.online.domain.ProdutoEvento;
+import br.com.pazzini.vendas.online.domain.ProdutoEvento.Tipo;
 import br.com.pazzini.vendas.online.exception.EntityNotFoundException;
+import br.com.pazzini.vendas.online.repository.IProdutoEventoRepository;
 import br.com.pazzini.vendas.online.repository.IProdutoRepository;
 
 /**
  * CadastroProduto é um componente de caso de uso responsável por encapsular as operações de cadastro, atualização e remoção de produtos.
  * Esta classe segue boas práticas de design orientado a objetos e é anotada com @Service para indicar que é um componente de serviço gerenciado pelo Spring.
  * Ela possui uma dependência injetada de IProdutoRepository, o que facilita a testabilidade e a inversão de controle.
+ * Cada alteração gravada gera um ProdutoEvento, consultado pelos serviços que mantêm cópias dos produtos.
  */
 @Service
 public class CadastroProduto {
@@ -25,13 +31,18 @@ public class CadastroProduto {
 	// Repositório responsável pela persistência de produtos.
 	private IProdutoRepository produtoRepository;
 	
+	// Repositório dos eventos de alteração de produtos (outbox).
+	private IProdutoEventoRepository eventoRepository;
+	
 	/**
-	 * Construtor de CadastroProduto que recebe uma instância de IProdutoRepository como dependência.
-	 * A anotação @Autowired indica que a instância será injetada automaticamente pelo Spring.
+	 * Construtor de CadastroProduto que recebe instâncias de IProdutoRepository e IProdutoEventoRepository como dependências.
+	 * A anotação @Autowired indica que as instâncias serão injetadas automaticamente pelo Spring.
 	 */
 	@Autowired
-	public CadastroProduto(IProdutoRepository produtoRepository) {
+	public CadastroProduto(IProdutoRepository produtoRepository,
+			IProdutoEventoRepository eventoRepository) {
 		this.produtoRepository = produtoRepository;
+		this.eventoRepository = eventoRepository;
 	}
 	
 	/**
@@ -41,15 +52,24 @@ public class CadastroProduto {
 	 */
 	public Produto cadastrar(@Valid Produto produto) {
 		produto.setStatus(Status.ATIVO);
-		return this.produtoRepository.insert(produto);
+		Produto cadastrado = this.produtoRepository.insert(produto);
+		registrarEvento(Tipo.CADASTRADO, cadastrado, null);
+		return cadastrado;
 	}
 
 	/**
 	 * Método responsável por atualizar um produto existente. Recebe um objeto Produto validado e o salva no repositório através do método save.
+	 * O código anterior é lido antes da gravação para que o evento informe também o código substituído, se mudou.
 	 * Retorna o produto atualizado.
 	 */
 	public Produto atualizar(@Valid Produto produto) {
-		return this.produtoRepository.save(produto);
+		String codigoAnterior = produto.getId() == null ? null : produtoRepository.findById(produto.getId())
+				.map(Produto::getCodigo)
+				.filter(codigo -> !codigo.equals(produto.getCodigo()))
+				.orElse(null);
+		Produto atualizado = this.produtoRepository.save(produto);
+		registrarEvento(Tipo.ALTERADO, atualizado, codigoAnterior);
+		return atualizado;
 	}
 
 	/**
@@ -61,8 +81,23 @@ public class CadastroProduto {
 		Produto prod = produtoRepository.findById(id)
 		.orElseThrow(() -> new EntityNotFoundException(Produto.class, "id", id));
 		prod.setStatus(Status.INATIVO);
-		this.produtoRepository.save(prod);
+		Produto inativado = this.produtoRepository.save(prod);
+		registrarEvento(Tipo.INATIVADO, inativado, null);
 		// Poderia ser utilizado o método deleteById para excluir permanentemente o produto por ID.
 		// this.produtoRepository.deleteById(id);
 	}
+	
+	/**
+	 * Grava o evento da alteração logo após a gravação do produto, para que quem o consumir já leia o produto alterado.
+	 * Se o serviço parar entre as duas gravações, o evento se perde e as cópias expiram apenas pelo TTL de quem as mantém.
+	 */
+	private void registrarEvento(Tipo tipo, Produto produto, String codigoAnterior) {
+		this.eventoRepository.insert(ProdutoEvento.builder()
+				.tipo(tipo)
+				.codigo(produto.getCodigo())
+				.codigoAnterior(codigoAnterior)
+				.produto(produto)
+				.criadoEm(Instant.now())
+				.build());
+	}
 }
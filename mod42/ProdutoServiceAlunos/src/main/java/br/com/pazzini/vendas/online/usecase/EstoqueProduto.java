@@ -0,0 +1,337 @@
+/**
+ * EstoqueProduto é um componente de caso de uso responsável pelas entradas de estoque e pelas reservas de produtos feitas pelas vendas.
+ * As reservas são confirmadas quando a venda é concluída e liberadas quando é cancelada ou quando o produto é removido da venda.
+ * Reservas sem alteração por muito tempo expiram e só voltam a valer se houver estoque quando a venda for usada de novo.
+ */
+package br.com.pazzini.vendas.online.usecase;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import br.com.pazzini.vendas.online.domain.Estoque;
+import br.com.pazzini.vendas.online.domain.ReservaEstoque;
+import br.com.pazzini.vendas.online.domain.ReservaEstoque.Status;
+import br.com.pazzini.vendas.online.dto.ItemReservaDTO;
+import br.com.pazzini.vendas.online.exception.BadRequestException;
+import br.com.pazzini.vendas.online.exception.EntityNotFoundException;
+import br.com.pazzini.vendas.online.exception.EstoqueInsuficienteException;
+import br.com.pazzini.vendas.online.repository.IEstoqueRepository;
+import br.com.pazzini.vendas.online.repository.IReservaEstoqueRepository;
+import br.com.pazzini.vendas.online.usecase.SaldoEstoque.Resultado;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * EstoqueProduto é um componente de caso de uso responsável por encapsular o estoque e as reservas de produtos.
+ * As unidades reservadas saem do {@link SaldoEstoque} desta instância; cada reserva é gravada no seu próprio documento,
+ * de modo que qualquer instância pode confirmá-la ou liberá-la. As mudanças de situação só se aplicam a reservas na situação
+ * de origem, o que torna confirmações e liberações repetidas inofensivas; já cada reserva soma a quantidade à anterior.
+ */
+@Service
+@Slf4j
+public class EstoqueProduto {
+
+	// Quantidade máxima de reservas expiradas liberadas a cada verificação.
+	private static final int LOTE_EXPIRACAO = 500;
+
+	// Repositório dos documentos de estoque.
+	private IEstoqueRepository estoqueRepository;
+
+	// Repositório das reservas das vendas.
+	private IReservaEstoqueRepository reservaRepository;
+
+	// Saldos em memória desta instância.
+	private SaldoEstoque saldoEstoque;
+
+	// Tempo sem alteração após o qual uma reserva é liberada.
+	private Duration expiracao;
+
+	/**
+	 * Construtor de EstoqueProduto que recebe os repositórios, os saldos e o tempo de expiração das reservas.
+	 * A anotação @Autowired indica que as instâncias serão injetadas automaticamente pelo Spring.
+	 */
+	@Autowired
+	public EstoqueProduto(IEstoqueRepository estoqueRepository,
+			IReservaEstoqueRepository reservaRepository,
+			SaldoEstoque saldoEstoque,
+			@Value("${application.estoque.reserva.expiracao:24h}") Duration expiracao) {
+		this.estoqueRepository = estoqueRepository;
+		this.reservaRepository = reservaRepository;
+		this.saldoEstoque = saldoEstoque;
+		this.expiracao = expiracao;
+	}
+
+	/**
+	 * Método responsável por retornar o estoque de um produto, como gravado pela última persistência dos saldos.
+	 */
+	public Estoque consultar(String codigo) {
+		return estoqueRepository.findById(codigo)
+				.orElseThrow(() -> new EntityNotFoundException(Estoque.class, "codigo", codigo));
+	}
+
+	/**
+	 * Método responsável por somar uma quantidade recebida ao disponível do produto, passando a controlar seu estoque se ainda não era controlado.
+	 */
+	public Estoque entrada(String codigo, Integer quantidade) {
+		if (quantidade == null || quantidade < 1) {
+			throw new BadRequestException("INFORME UMA QUANTIDADE DE ENTRADA MAIOR QUE ZERO");
+		}
+		estoqueRepository.entrada(codigo, quantidade);
+		saldoEstoque.entrada(codigo);
+		return consultar(codigo);
+	}
+
+	/**
+	 * Método responsável por reservar os produtos de uma venda. Ou todos os itens são reservados, ou nenhum:
+	 * se um deles falhar, os já reservados nesta chamada são liberados antes de a exceção ser relançada.
+	 * Produtos sem estoque controlado são aceitos sem reserva. As reservas expiradas da venda são reservadas de novo antes.
+	 */
+	public void reservar(String vendaId, List<ItemReservaDTO> itens) {
+		reativarExpiradas(vendaId);
+		reservar(vendaId, somar(itens));
+	}
+
+	/**
+	 * Método responsável por confirmar as reservas de uma venda concluída.
+	 * Reservas expiradas são reservadas de novo antes; sem estoque para elas, lança {@link EstoqueInsuficienteException}
+	 * e nada é confirmado, para que a venda não seja concluída.
+	 * Retorna a quantidade de reservas confirmadas; zero se já estavam confirmadas.
+	 */
+	public int confirmar(String vendaId) {
+		reativarExpiradas(vendaId);
+		return encerrar(vendaId, Status.CONFIRMADA);
+	}
+
+	/**
+	 * Método responsável por confirmar as reservas de uma venda concluída pelas linhas finais da venda, e não pelo que foi reservado:
+	 * reservas que a venda não usou (de chamadas abandonadas por timeout ou de liberações que falharam) não são contadas como vendidas.
+	 * Antes, reserva o que falta para as linhas com reserva menor que a quantidade vendida; sem estoque, lança
+	 * {@link EstoqueInsuficienteException} e nada é confirmado. Depois, confirma de cada reserva o menor valor entre o reservado e a linha
+	 * e devolve o restante ao saldo. Produtos sem linha na venda têm a reserva toda devolvida.
+	 * Retorna a quantidade de reservas confirmadas; zero se já estavam confirmadas.
+	 */
+	public int confirmar(String vendaId, List<ItemReservaDTO> linhas) {
+		Map<String, Long> vendidas = somar(linhas);
+		reativarExpiradas(vendaId);
+		Map<String, ReservaEstoque> reservas = new LinkedHashMap<>();
+		reservaRepository.findByVendaId(vendaId).forEach(reserva -> reservas.put(reserva.getCodigoProduto(), reserva));
+		Map<String, Long> faltantes = new LinkedHashMap<>();
+		vendidas.forEach((codigo, vendida) -> {
+			ReservaEstoque reserva = reservas.get(codigo);
+			if (reserva != null && reserva.getStatus() == Status.CONFIRMADA) {
+				return;
+			}
+			long reservada = reserva != null && reserva.getStatus() == Status.RESERVADA ? reserva.getQuantidade() : 0;
+			if (vendida > reservada) {
+				faltantes.put(codigo, vendida - reservada);
+			}
+		});
+		if (!faltantes.isEmpty()) {
+			reservar(vendaId, faltantes);
+		}
+		int confirmadas = 0;
+		for (ReservaEstoque reserva : reservaRepository.findByVendaIdAndStatus(vendaId, Status.RESERVADA)) {
+			String codigo = reserva.getCodigoProduto();
+			long vendida = vendidas.getOrDefault(codigo, 0L);
+			ReservaEstoque anterior = reservaRepository.confirmar(reserva.getId(), vendida).orElse(null);
+			if (anterior == null) {
+				continue;
+			}
+			long confirmada = Math.min(anterior.getQuantidade(), vendida);
+			long sobra = anterior.getQuantidade() - confirmada;
+			if (confirmada > 0) {
+				saldoEstoque.confirmar(codigo, confirmada);
+				confirmadas++;
+			}
+			if (sobra > 0) {
+				saldoEstoque.liberar(codigo, sobra);
+				log.warn("RESERVA DO PRODUTO {} DA VENDA {} TINHA {} UNIDADES ALÉM DAS VENDIDAS, DEVOLVIDAS AO SALDO", codigo, vendaId, sobra);
+			}
+		}
+		return confirmadas;
+	}
+
+	/**
+	 * Método responsável por liberar as reservas de uma venda cancelada, devolvendo as unidades ao saldo.
+	 * Retorna a quantidade de reservas liberadas; zero se já estavam liberadas.
+	 */
+	public int liberar(String vendaId) {
+		return encerrar(vendaId, Status.LIBERADA);
+	}
+
+	/**
+	 * Método responsável por liberar parte da reserva de um produto, quando ele é removido da venda.
+	 * Nunca libera mais do que está reservado; retorna a quantidade liberada. De uma reserva expirada, cujas unidades
+	 * já voltaram ao saldo, apenas diminui o que será reservado de novo.
+	 */
+	public long liberar(String vendaId, String codigoProduto, long quantidade) {
+		if (quantidade < 1) {
+			throw new BadRequestException("INFORME UMA QUANTIDADE A LIBERAR MAIOR QUE ZERO");
+		}
+		ReservaEstoque anterior = reservaRepository.liberar(ReservaEstoque.id(vendaId, codigoProduto), quantidade).orElse(null);
+		if (anterior == null) {
+			return 0;
+		}
+		long liberada = Math.min(anterior.getQuantidade(), quantidade);
+		if (liberada > 0 && anterior.getStatus() == Status.RESERVADA) {
+			saldoEstoque.liberar(codigoProduto, liberada);
+		}
+		return liberada;
+	}
+
+	/**
+	 * Devolve ao saldo as reservas sem alteração há mais tempo que a expiração, como as de vendas abandonadas, marcando-as EXPIRADA.
+	 * Várias instâncias podem verificar ao mesmo tempo: só uma consegue mudar a situação de cada reserva.
+	 */
+	@Scheduled(fixedDelayString = "${application.estoque.reserva.verificacao:PT1M}")
+	public void expirar() {
+		Instant limite = Instant.now().minus(expiracao);
+		try {
+			List<ReservaEstoque> expiradas = reservaRepository.findByStatusAndAtualizadoEmLessThan(Status.RESERVADA, limite,
+					PageRequest.of(0, LOTE_EXPIRACAO));
+			int liberadas = 0;
+			for (ReservaEstoque reserva : expiradas) {
+				ReservaEstoque expirada = reservaRepository.encerrar(reserva.getId(), Status.EXPIRADA, limite).orElse(null);
+				if (expirada != null) {
+					saldoEstoque.liberar(expirada.getCodigoProduto(), expirada.getQuantidade());
+					liberadas++;
+				}
+			}
+			if (liberadas > 0) {
+				log.info("{} RESERVAS DE ESTOQUE EXPIRADAS FORAM LIBERADAS", liberadas);
+			}
+		} catch (RuntimeException e) {
+			log.error("ERRO AO LIBERAR RESERVAS DE ESTOQUE EXPIRADAS - {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Reserva de novo as unidades das reservas expiradas da venda. Ou todas voltam a valer, ou nenhuma: sem estoque para uma delas,
+	 * as já reativadas nesta chamada expiram de novo antes de a exceção ser relançada.
+	 */
+	private void reativarExpiradas(String vendaId) {
+		List<ReservaEstoque> reativadas = new ArrayList<>();
+		try {
+			for (ReservaEstoque reserva : reservaRepository.findByVendaIdAndStatus(vendaId, Status.EXPIRADA)) {
+				long quantidade = reserva.getQuantidade();
+				boolean reservada = quantidade > 0 && reservarSaldo(reserva.getCodigoProduto(), quantidade);
+				ReservaEstoque reativada;
+				try {
+					reativada = reservaRepository.reativar(reserva.getId(), Instant.now()).orElse(null);
+				} catch (RuntimeException e) {
+					if (reservada) {
+						saldoEstoque.liberar(reserva.getCodigoProduto(), quantidade);
+					}
+					throw e;
+				}
+				if (reativada == null) {
+					// Outra chamada da mesma venda já a reativou.
+					if (reservada) {
+						saldoEstoque.liberar(reserva.getCodigoProduto(), quantidade);
+					}
+					continue;
+				}
+				if (!reservada) {
+					continue;
+				}
+				reativadas.add(reativada);
+				if (reativada.getQuantidade() < quantidade) {
+					// Parte foi liberada entre a consulta e a reativação; uma reserva EXPIRADA nunca aumenta.
+					saldoEstoque.liberar(reserva.getCodigoProduto(), quantidade - reativada.getQuantidade());
+				}
+			}
+		} catch (RuntimeException e) {
+			for (ReservaEstoque reativada : reativadas) {
+				reservaRepository.encerrar(reativada.getId(), Status.EXPIRADA, null)
+						.ifPresent(expirada -> saldoEstoque.liberar(expirada.getCodigoProduto(), expirada.getQuantidade()));
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Soma as quantidades dos itens por produto, na ordem em que aparecem.
+	 */
+	private static Map<String, Long> somar(List<ItemReservaDTO> itens) {
+		Map<String, Long> quantidades = new LinkedHashMap<>();
+		for (ItemReservaDTO item : itens) {
+			quantidades.merge(item.getCodigoProduto(), item.getQuantidade().longValue(), Long::sum);
+		}
+		return quantidades;
+	}
+
+	/**
+	 * Retira a quantidade do saldo; retorna falso se o produto não tem estoque controlado.
+	 */
+	private boolean reservarSaldo(String codigoProduto, long quantidade) {
+		Resultado resultado = saldoEstoque.reservar(codigoProduto, quantidade);
+		if (resultado == Resultado.INSUFICIENTE) {
+			throw new EstoqueInsuficienteException(codigoProduto, quantidade);
+		}
+		return resultado == Resultado.RESERVADO;
+	}
+
+	/**
+	 * Reserva as quantidades de cada produto; se uma falhar, libera as já reservadas nesta chamada e relança a exceção.
+	 */
+	private void reservar(String vendaId, Map<String, Long> quantidades) {
+		Map<String, Long> reservadas = new LinkedHashMap<>();
+		try {
+			for (Map.Entry<String, Long> item : quantidades.entrySet()) {
+				if (reservar(vendaId, item.getKey(), item.getValue())) {
+					reservadas.put(item.getKey(), item.getValue());
+				}
+			}
+		} catch (RuntimeException e) {
+			reservadas.forEach((codigo, quantidade) -> liberar(vendaId, codigo, quantidade));
+			throw e;
+		}
+	}
+
+	private boolean reservar(String vendaId, String codigoProduto, long quantidade) {
+		if (!reservarSaldo(codigoProduto, quantidade)) {
+			return false;
+		}
+		try {
+			reservaRepository.reservar(vendaId, codigoProduto, quantidade, Instant.now());
+		} catch (DuplicateKeyException e) {
+			saldoEstoque.liberar(codigoProduto, quantidade);
+			throw new BadRequestException("AS RESERVAS DA VENDA " + vendaId + " JÁ FORAM CONFIRMADAS");
+		} catch (RuntimeException e) {
+			saldoEstoque.liberar(codigoProduto, quantidade);
+			throw e;
+		}
+		return true;
+	}
+
+	/**
+	 * Muda a situação das reservas RESERVADA da venda, uma a uma. A quantidade usada é a lida na própria mudança,
+	 * que inclui reservas feitas entre a consulta e a mudança.
+	 */
+	private int encerrar(String vendaId, Status status) {
+		int encerradas = 0;
+		for (ReservaEstoque reserva : reservaRepository.findByVendaIdAndStatus(vendaId, Status.RESERVADA)) {
+			ReservaEstoque encerrada = reservaRepository.encerrar(reserva.getId(), status, null).orElse(null);
+			if (encerrada == null || encerrada.getQuantidade() == 0) {
+				continue;
+			}
+			if (status == Status.CONFIRMADA) {
+				saldoEstoque.confirmar(encerrada.getCodigoProduto(), encerrada.getQuantidade());
+			} else {
+				saldoEstoque.liberar(encerrada.getCodigoProduto(), encerrada.getQuantidade());
+			}
+			encerradas++;
+		}
+		return encerradas;
+	}
+}
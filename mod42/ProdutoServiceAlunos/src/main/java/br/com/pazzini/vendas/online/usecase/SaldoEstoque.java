@@ -0,0 +1,310 @@
+/**
+ * SaldoEstoque é um componente que mantém em memória, por produto, as unidades que esta instância pode reservar sem consultar o MongoDB.
+ * As reservas de um produto muito disputado são atendidas por contadores divididos em faixas, alterados sem bloqueio, e as quantidades
+ * do documento de estoque são atualizadas em lote pela persistência periódica.
+ */
+package br.com.pazzini.vendas.online.usecase;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import br.com.pazzini.vendas.online.dto.MovimentoEstoque;
+import br.com.pazzini.vendas.online.repository.IEstoqueRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Saldo em memória das unidades alocadas a esta instância, por produto.
+ *
+ * Quando o saldo de um produto não basta, um bloco de até {@code bloco} unidades é movido do disponível para o alocado do documento
+ * de estoque, em uma única atualização atômica; é a única gravação síncrona no documento. Reservas, liberações e confirmações apenas
+ * acumulam incrementos, gravados a cada {@code persistencia.intervalo}. Saldos sem reservas há mais de {@code devolucao} voltam ao
+ * disponível, para que outras instâncias possam usá-los.
+ *
+ * Se a instância parar sem o encerramento normal, o saldo em memória e os incrementos ainda não gravados ficam no alocado do documento
+ * até serem corrigidos manualmente: nunca há venda acima do estoque, mas essas unidades deixam de ser oferecidas.
+ */
+@Component
+@Slf4j
+public class SaldoEstoque {
+
+	/**
+	 * Resultado de uma reserva: atendida, sem unidades suficientes ou de produto sem estoque controlado.
+	 */
+	public enum Resultado {
+		RESERVADO, INSUFICIENTE, NAO_CONTROLADO;
+	}
+
+	// Longs por linha de cache (64 bytes): cada faixa ocupa uma linha própria, para que faixas vizinhas não disputem a mesma linha.
+	private static final int ESPACAMENTO = 8;
+
+	// Tempo durante o qual um produto sem documento de estoque, ou esgotado, é respondido sem consultar o MongoDB.
+	private static final long VALIDADE_CONSULTA_MILLIS = 1_000;
+
+	// Falhas seguidas de gravação entre dois registros no log.
+	private static final int INTERVALO_LOG_FALHAS = 100;
+
+	// Repositório dos documentos de estoque.
+	private IEstoqueRepository estoqueRepository;
+
+	private int faixas;
+
+	private long bloco;
+
+	private long devolucaoMillis;
+
+	private Map<String, Saldo> saldos = new ConcurrentHashMap<>();
+
+	private Map<String, Long> naoControlados = new ConcurrentHashMap<>();
+
+	private int falhasSeguidas;
+
+	/**
+	 * Construtor de SaldoEstoque que recebe o repositório de estoque e a configuração dos saldos.
+	 * Sem {@code faixas} configurado, usa uma faixa por processador, até oito.
+	 */
+	@Autowired
+	public SaldoEstoque(IEstoqueRepository estoqueRepository,
+			@Value("${application.estoque.faixas:0}") int faixas,
+			@Value("${application.estoque.bloco:100}") long bloco,
+			@Value("${application.estoque.devolucao:30s}") Duration devolucao) {
+		this.estoqueRepository = estoqueRepository;
+		this.faixas = faixas > 0 ? faixas : Math.min(8, Runtime.getRuntime().availableProcessors());
+		this.bloco = Math.max(1, bloco);
+		this.devolucaoMillis = devolucao.toMillis();
+	}
+
+	/**
+	 * Retira a quantidade do saldo do produto, alocando um novo bloco do documento de estoque quando o saldo não basta.
+	 */
+	public Resultado reservar(String codigo, long quantidade) {
+		long agora = System.currentTimeMillis();
+		Long validade = naoControlados.get(codigo);
+		if (validade != null && validade > agora) {
+			return Resultado.NAO_CONTROLADO;
+		}
+		Saldo saldo = saldo(codigo);
+		saldo.usadoEm = agora;
+		if (!saldo.retirar(quantidade)) {
+			if (saldo.esgotadoAte > agora) {
+				return Resultado.INSUFICIENTE;
+			}
+			Resultado resultado = reabastecer(codigo, saldo, quantidade);
+			if (resultado != Resultado.RESERVADO) {
+				return resultado;
+			}
+		}
+		saldo.alocado.add(-quantidade);
+		saldo.reservado.add(quantidade);
+		return Resultado.RESERVADO;
+	}
+
+	/**
+	 * Devolve ao saldo desta instância a quantidade de uma reserva liberada.
+	 */
+	public void liberar(String codigo, long quantidade) {
+		Saldo saldo = saldo(codigo);
+		saldo.devolver(quantidade);
+		saldo.alocado.add(quantidade);
+		saldo.reservado.add(-quantidade);
+	}
+
+	/**
+	 * Registra como vendida a quantidade de uma reserva confirmada.
+	 */
+	public void confirmar(String codigo, long quantidade) {
+		Saldo saldo = saldo(codigo);
+		saldo.reservado.add(-quantidade);
+		saldo.vendido.add(quantidade);
+	}
+
+	/**
+	 * Esquece que o produto não tinha estoque controlado ou estava esgotado, após uma entrada de estoque.
+	 */
+	public void entrada(String codigo) {
+		naoControlados.remove(codigo);
+		Saldo saldo = saldos.get(codigo);
+		if (saldo != null) {
+			saldo.esgotadoAte = 0;
+		}
+	}
+
+	/**
+	 * Grava de uma vez os incrementos acumulados de todos os produtos e devolve ao disponível os saldos ociosos.
+	 * Em caso de falha, os incrementos voltam para a próxima gravação.
+	 */
+	@Scheduled(fixedDelayString = "${application.estoque.persistencia.intervalo:PT1S}")
+	public synchronized void persistir() {
+		long agora = System.currentTimeMillis();
+		List<MovimentoEstoque> movimentos = new ArrayList<>();
+		saldos.forEach((codigo, saldo) -> {
+			if (agora - saldo.usadoEm > devolucaoMillis) {
+				saldo.devolverSobra();
+			}
+			MovimentoEstoque movimento = saldo.movimento(codigo);
+			if (movimento != null) {
+				movimentos.add(movimento);
+			}
+		});
+		try {
+			estoqueRepository.aplicar(movimentos);
+			falhasSeguidas = 0;
+		} catch (RuntimeException e) {
+			movimentos.forEach(movimento -> saldos.get(movimento.getCodigo()).somar(movimento));
+			if (falhasSeguidas++ % INTERVALO_LOG_FALHAS == 0) {
+				log.error("ERRO AO GRAVAR ESTOQUE DE {} PRODUTOS ({} FALHAS SEGUIDAS) - {}",
+						movimentos.size(), falhasSeguidas, e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Devolve todos os saldos ao disponível e grava os incrementos pendentes antes de a instância parar.
+	 */
+	@PreDestroy
+	public void encerrar() {
+		saldos.values().forEach(Saldo::devolverSobra);
+		persistir();
+	}
+
+	private Saldo saldo(String codigo) {
+		return saldos.computeIfAbsent(codigo, c -> new Saldo(faixas));
+	}
+
+	/**
+	 * Caminho lento, um por vez para cada produto: junta as faixas, que podem ter a quantidade somada mas não em uma só, e aloca
+	 * o que faltar do documento de estoque.
+	 */
+	private Resultado reabastecer(String codigo, Saldo saldo, long quantidade) {
+		synchronized (saldo) {
+			// Outra thread pode ter reabastecido o saldo enquanto esta esperava.
+			if (saldo.retirar(quantidade)) {
+				return Resultado.RESERVADO;
+			}
+			long juntado = saldo.esvaziar();
+			if (juntado >= quantidade) {
+				saldo.distribuir(juntado - quantidade);
+				return Resultado.RESERVADO;
+			}
+			long alocado;
+			try {
+				alocado = estoqueRepository.alocar(codigo, quantidade - juntado, bloco);
+			} catch (RuntimeException e) {
+				saldo.distribuir(juntado);
+				throw e;
+			}
+			if (alocado > 0) {
+				saldo.distribuir(juntado + alocado - quantidade);
+				return Resultado.RESERVADO;
+			}
+			saldo.distribuir(juntado);
+			long validade = System.currentTimeMillis() + VALIDADE_CONSULTA_MILLIS;
+			if (!estoqueRepository.existsById(codigo)) {
+				naoControlados.put(codigo, validade);
+				return Resultado.NAO_CONTROLADO;
+			}
+			saldo.esgotadoAte = validade;
+			return Resultado.INSUFICIENTE;
+		}
+	}
+
+	/**
+	 * Saldo de um produto, dividido em faixas, e os incrementos do documento de estoque ainda não gravados.
+	 */
+	private static final class Saldo {
+
+		private final int faixas;
+
+		private final AtomicLongArray unidades;
+
+		private final LongAdder disponivel = new LongAdder();
+
+		private final LongAdder alocado = new LongAdder();
+
+		private final LongAdder reservado = new LongAdder();
+
+		private final LongAdder vendido = new LongAdder();
+
+		private volatile long usadoEm = System.currentTimeMillis();
+
+		private volatile long esgotadoAte;
+
+		Saldo(int faixas) {
+			this.faixas = faixas;
+			this.unidades = new AtomicLongArray(faixas * ESPACAMENTO);
+		}
+
+		/**
+		 * Começa por uma faixa aleatória e tenta as demais, retirando a quantidade da primeira que a tiver inteira.
+		 */
+		boolean retirar(long quantidade) {
+			int inicio = ThreadLocalRandom.current().nextInt(faixas);
+			for (int i = 0; i < faixas; i++) {
+				int indice = ((inicio + i) % faixas) * ESPACAMENTO;
+				long atual;
+				while ((atual = unidades.get(indice)) >= quantidade) {
+					if (unidades.compareAndSet(indice, atual, atual - quantidade)) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		void devolver(long quantidade) {
+			unidades.addAndGet(ThreadLocalRandom.current().nextInt(faixas) * ESPACAMENTO, quantidade);
+		}
+
+		void distribuir(long quantidade) {
+			for (int i = 0; i < faixas; i++) {
+				long parte = quantidade / faixas + (i < quantidade % faixas ? 1 : 0);
+				if (parte > 0) {
+					unidades.addAndGet(i * ESPACAMENTO, parte);
+				}
+			}
+		}
+
+		long esvaziar() {
+			long total = 0;
+			for (int i = 0; i < faixas; i++) {
+				total += unidades.getAndSet(i * ESPACAMENTO, 0);
+			}
+			return total;
+		}
+
+		void devolverSobra() {
+			synchronized (this) {
+				long sobra = esvaziar();
+				alocado.add(-sobra);
+				disponivel.add(sobra);
+			}
+		}
+
+		MovimentoEstoque movimento(String codigo) {
+			MovimentoEstoque movimento = new MovimentoEstoque(codigo, disponivel.sumThenReset(), alocado.sumThenReset(),
+					reservado.sumThenReset(), vendido.sumThenReset());
+			boolean vazio = movimento.getDisponivel() == 0 && movimento.getAlocado() == 0
+					&& movimento.getReservado() == 0 && movimento.getVendido() == 0;
+			return vazio ? null : movimento;
+		}
+
+		void somar(MovimentoEstoque movimento) {
+			disponivel.add(movimento.getDisponivel());
+			alocado.add(movimento.getAlocado());
+			reservado.add(movimento.getReservado());
+			vendido.add(movimento.getVendido());
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/**
+ * BuscaProdutoTest é uma classe de teste JUnit para as consultas de produtos expostas pelo ProdutoResource.
+ * Utiliza o MockMvc sobre o controlador e o Mockito para simular os repositórios com um catálogo em memória.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import br.com.pazzini.vendas.online.controller.ProdutoResource;
+import br.com.pazzini.vendas.online.domain.Produto;
+import br.com.pazzini.vendas.online.domain.Produto.Status;
+import br.com.pazzini.vendas.online.repository.IProdutoEventoRepository;
+import br.com.pazzini.vendas.online.repository.IProdutoRepository;
+import br.com.pazzini.vendas.online.usecase.BuscaProduto;
+import br.com.pazzini.vendas.online.usecase.CadastroProduto;
+
+/**
+ * Testa a busca de produtos em lote.
+ */
+public class BuscaProdutoTest {
+
+	private static final List<Produto> CATALOGO = Arrays.asList(produto("A1"), produto("B1"));
+
+	private IProdutoRepository produtoRepository;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	public void setup() {
+		produtoRepository = mock(IProdutoRepository.class);
+		when(produtoRepository.findByCodigoIn(anyCollection())).thenAnswer(invocation -> {
+			Collection<String> codigos = invocation.getArgument(0);
+			return CATALOGO.stream().filter(produto -> codigos.contains(produto.getCodigo())).collect(Collectors.toList());
+		});
+		BuscaProduto buscaProduto = new BuscaProduto(produtoRepository, mock(IProdutoEventoRepository.class));
+		mockMvc = MockMvcBuilders.standaloneSetup(new ProdutoResource(buscaProduto, mock(CadastroProduto.class))).build();
+	}
+
+	/**
+	 * Códigos inexistentes são omitidos e códigos repetidos são consultados e retornados uma única vez.
+	 */
+	@Test
+	public void loteOmiteCodigosInexistentesERepetidos() throws Exception {
+		mockMvc.perform(get("/produto/lote").param("codigos", "A1,X9,A1,B1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[0].codigo").value("A1"))
+				.andExpect(jsonPath("$[1].codigo").value("B1"));
+
+		verify(produtoRepository).findByCodigoIn(new LinkedHashSet<>(Arrays.asList("A1", "X9", "B1")));
+	}
+
+	/**
+	 * Sem nenhum código conhecido a resposta é uma lista vazia, e não 404.
+	 */
+	@Test
+	public void loteSemProdutosRetornaListaVazia() throws Exception {
+		mockMvc.perform(get("/produto/lote").param("codigos", "X9", "Y9"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(0));
+	}
+
+	/**
+	 * Sem o parâmetro codigos a requisição é recusada.
+	 */
+	@Test
+	public void loteSemCodigosERecusado() throws Exception {
+		mockMvc.perform(get("/produto/lote"))
+				.andExpect(status().isBadRequest());
+	}
+
+	private static Produto produto(String codigo) {
+		return Produto.builder()
+				.id(codigo.toLowerCase())
+				.codigo(codigo)
+				.nome("Produto " + codigo)
+				.descricao("Descrição " + codigo)
+				.valor(BigDecimal.TEN)
+				.status(Status.ATIVO)
+				.build();
+	}
+}
@@ -0,0 +1,180 @@
+/**
+ * EstoqueProdutoTest é uma classe de teste JUnit para as reservas de estoque das vendas.
+ * Utiliza o Mockito para simular os repositórios e os saldos em memória.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import br.com.pazzini.vendas.online.domain.ReservaEstoque;
+import br.com.pazzini.vendas.online.domain.ReservaEstoque.Status;
+import br.com.pazzini.vendas.online.dto.ItemReservaDTO;
+import br.com.pazzini.vendas.online.exception.EstoqueInsuficienteException;
+import br.com.pazzini.vendas.online.repository.IEstoqueRepository;
+import br.com.pazzini.vendas.online.repository.IReservaEstoqueRepository;
+import br.com.pazzini.vendas.online.usecase.EstoqueProduto;
+import br.com.pazzini.vendas.online.usecase.SaldoEstoque;
+import br.com.pazzini.vendas.online.usecase.SaldoEstoque.Resultado;
+
+/**
+ * Testa que uma reserva expirada só volta a valer se houver estoque, que sem ele a venda não é confirmada e que a confirmação
+ * pelas linhas da venda não conta como vendido o que foi reservado além delas.
+ */
+public class EstoqueProdutoTest {
+
+	private static final String VENDA = "V1";
+
+	private IReservaEstoqueRepository reservaRepository;
+
+	private SaldoEstoque saldoEstoque;
+
+	private EstoqueProduto estoqueProduto;
+
+	@BeforeEach
+	public void setup() {
+		reservaRepository = mock(IReservaEstoqueRepository.class);
+		saldoEstoque = mock(SaldoEstoque.class);
+		estoqueProduto = new EstoqueProduto(mock(IEstoqueRepository.class), reservaRepository, saldoEstoque, Duration.ofHours(24));
+	}
+
+	/**
+	 * A expiração devolve as unidades ao saldo e marca a reserva como EXPIRADA, não como LIBERADA.
+	 */
+	@Test
+	public void expirarDevolveAsUnidadesAoSaldo() {
+		ReservaEstoque reserva = reserva("A1", 2, Status.RESERVADA);
+		when(reservaRepository.findByStatusAndAtualizadoEmLessThan(eq(Status.RESERVADA), any(), any()))
+				.thenReturn(Collections.singletonList(reserva));
+		when(reservaRepository.encerrar(eq(reserva.getId()), eq(Status.EXPIRADA), any()))
+				.thenReturn(Optional.of(reserva("A1", 2, Status.EXPIRADA)));
+
+		estoqueProduto.expirar();
+
+		verify(saldoEstoque).liberar("A1", 2);
+	}
+
+	/**
+	 * Com estoque, a confirmação reserva de novo as unidades expiradas antes de confirmá-las.
+	 */
+	@Test
+	public void confirmarReservaDeNovoAsExpiradas() {
+		ReservaEstoque expirada = reserva("A1", 2, Status.EXPIRADA);
+		ReservaEstoque reativada = reserva("A1", 2, Status.RESERVADA);
+		when(reservaRepository.findByVendaIdAndStatus(VENDA, Status.EXPIRADA)).thenReturn(Collections.singletonList(expirada));
+		when(saldoEstoque.reservar("A1", 2)).thenReturn(Resultado.RESERVADO);
+		when(reservaRepository.reativar(eq(expirada.getId()), any(Instant.class))).thenReturn(Optional.of(reativada));
+		when(reservaRepository.findByVendaIdAndStatus(VENDA, Status.RESERVADA)).thenReturn(Collections.singletonList(reativada));
+		when(reservaRepository.encerrar(reativada.getId(), Status.CONFIRMADA, null))
+				.thenReturn(Optional.of(reserva("A1", 2, Status.CONFIRMADA)));
+
+		assertThat(estoqueProduto.confirmar(VENDA)).isEqualTo(1);
+
+		verify(saldoEstoque).confirmar("A1", 2);
+	}
+
+	/**
+	 * Sem estoque para uma das reservas expiradas, nada é confirmado: as já reativadas expiram de novo e a exceção chega à venda.
+	 */
+	@Test
+	public void reservaExpiradaSemEstoqueImpedeAConfirmacao() {
+		ReservaEstoque a1 = reserva("A1", 2, Status.EXPIRADA);
+		ReservaEstoque b1 = reserva("B1", 1, Status.EXPIRADA);
+		when(reservaRepository.findByVendaIdAndStatus(VENDA, Status.EXPIRADA)).thenReturn(Arrays.asList(a1, b1));
+		when(saldoEstoque.reservar("A1", 2)).thenReturn(Resultado.RESERVADO);
+		when(saldoEstoque.reservar("B1", 1)).thenReturn(Resultado.INSUFICIENTE);
+		when(reservaRepository.reativar(eq(a1.getId()), any(Instant.class)))
+				.thenReturn(Optional.of(reserva("A1", 2, Status.RESERVADA)));
+		when(reservaRepository.encerrar(a1.getId(), Status.EXPIRADA, null))
+				.thenReturn(Optional.of(reserva("A1", 2, Status.EXPIRADA)));
+
+		assertThatThrownBy(() -> estoqueProduto.confirmar(VENDA))
+				.isInstanceOf(EstoqueInsuficienteException.class);
+
+		verify(saldoEstoque).liberar("A1", 2);
+		verify(reservaRepository, never()).encerrar(anyString(), eq(Status.CONFIRMADA), isNull());
+		verify(saldoEstoque, never()).confirmar(anyString(), anyLong());
+	}
+
+	/**
+	 * Com as linhas da venda, cada reserva confirma só o vendido e devolve o excesso ao saldo; a reserva de um produto fora da venda
+	 * volta toda, e a linha sem reserva suficiente reserva o que falta antes de qualquer confirmação.
+	 */
+	@Test
+	public void confirmarPelasLinhasDaVenda() {
+		ReservaEstoque a1 = reserva("A1", 5, Status.RESERVADA);
+		ReservaEstoque b1 = reserva("B1", 2, Status.RESERVADA);
+		ReservaEstoque c1 = reserva("C1", 4, Status.RESERVADA);
+		when(reservaRepository.findByVendaId(VENDA)).thenReturn(Arrays.asList(a1, b1, reserva("C1", 1, Status.RESERVADA)));
+		when(saldoEstoque.reservar("C1", 3)).thenReturn(Resultado.RESERVADO);
+		when(reservaRepository.findByVendaIdAndStatus(VENDA, Status.RESERVADA)).thenReturn(Arrays.asList(a1, b1, c1));
+		when(reservaRepository.confirmar(a1.getId(), 3)).thenReturn(Optional.of(a1));
+		when(reservaRepository.confirmar(b1.getId(), 0)).thenReturn(Optional.of(b1));
+		when(reservaRepository.confirmar(c1.getId(), 4)).thenReturn(Optional.of(c1));
+
+		assertThat(estoqueProduto.confirmar(VENDA, Arrays.asList(item("A1", 3), item("C1", 4)))).isEqualTo(2);
+
+		verify(reservaRepository).reservar(eq(VENDA), eq("C1"), eq(3L), any(Instant.class));
+		verify(saldoEstoque).confirmar("A1", 3);
+		verify(saldoEstoque).liberar("A1", 2);
+		verify(saldoEstoque).liberar("B1", 2);
+		verify(saldoEstoque).confirmar("C1", 4);
+		verify(saldoEstoque, never()).confirmar(eq("B1"), anyLong());
+	}
+
+	/**
+	 * Sem estoque para completar uma linha, nada é confirmado; repetida depois de confirmada, a chamada não reserva de novo.
+	 */
+	@Test
+	public void confirmarPelasLinhasSemEstoqueNaoConfirma() {
+		when(reservaRepository.findByVendaId(VENDA)).thenReturn(Collections.singletonList(reserva("A1", 1, Status.RESERVADA)));
+		when(saldoEstoque.reservar("A1", 2)).thenReturn(Resultado.INSUFICIENTE);
+
+		assertThatThrownBy(() -> estoqueProduto.confirmar(VENDA, Collections.singletonList(item("A1", 3))))
+				.isInstanceOf(EstoqueInsuficienteException.class);
+		verify(reservaRepository, never()).confirmar(anyString(), anyLong());
+
+		when(reservaRepository.findByVendaId(VENDA)).thenReturn(Collections.singletonList(reserva("A1", 3, Status.CONFIRMADA)));
+		assertThat(estoqueProduto.confirmar(VENDA, Collections.singletonList(item("A1", 3)))).isZero();
+		verify(saldoEstoque).reservar("A1", 2);
+	}
+
+	/**
+	 * Remover da venda um produto com a reserva expirada só diminui o que será reservado de novo: as unidades já voltaram ao saldo.
+	 */
+	@Test
+	public void liberarReservaExpiradaNaoDevolveAoSaldo() {
+		when(reservaRepository.liberar(ReservaEstoque.id(VENDA, "A1"), 1))
+				.thenReturn(Optional.of(reserva("A1", 2, Status.EXPIRADA)));
+
+		assertThat(estoqueProduto.liberar(VENDA, "A1", 1)).isEqualTo(1);
+
+		verify(saldoEstoque, never()).liberar(anyString(), anyLong());
+	}
+
+	private static ItemReservaDTO item(String codigoProduto, int quantidade) {
+		return new ItemReservaDTO(codigoProduto, quantidade);
+	}
+
+	private static ReservaEstoque reserva(String codigoProduto, long quantidade, Status status) {
+		return new ReservaEstoque(ReservaEstoque.id(VENDA, codigoProduto), VENDA, codigoProduto, quantidade, status, Instant.now());
+	}
+}
@@ -0,0 +1,125 @@
+/**
+ * PaginaCursorTest é uma classe de teste JUnit para a paginação por cursor dos produtos.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import br.com.pazzini.vendas.online.domain.Produto;
+import br.com.pazzini.vendas.online.dto.PaginaCursor;
+import br.com.pazzini.vendas.online.exception.BadRequestException;
+import br.com.pazzini.vendas.online.repository.IProdutoEventoRepository;
+import br.com.pazzini.vendas.online.repository.IProdutoRepository;
+import br.com.pazzini.vendas.online.usecase.BuscaProduto;
+
+/**
+ * Testa a codificação do cursor, a montagem das páginas e a listagem de produtos por cursor.
+ */
+public class PaginaCursorTest {
+
+	/**
+	 * O cursor gerado devolve o mesmo identificador e um cursor vazio indica a primeira página.
+	 */
+	@Test
+	public void cursorDevolveOIdentificador() {
+		String id = new ObjectId().toHexString();
+
+		String cursor = PaginaCursor.codificar(id);
+
+		assertThat(cursor).isNotEqualTo(id);
+		assertThat(PaginaCursor.decodificar(cursor)).isEqualTo(id);
+		assertThat(PaginaCursor.decodificar("")).isNull();
+		assertThat(PaginaCursor.decodificar(null)).isNull();
+	}
+
+	/**
+	 * Cursores que não foram gerados pela API são rejeitados.
+	 */
+	@Test
+	public void cursorInvalidoERejeitado() {
+		assertThatThrownBy(() -> PaginaCursor.decodificar("%%%"))
+				.isInstanceOf(BadRequestException.class);
+		assertThatThrownBy(() -> PaginaCursor.decodificar(PaginaCursor.codificar("nao-e-um-id")))
+				.isInstanceOf(BadRequestException.class);
+	}
+
+	/**
+	 * O item a mais só indica a próxima página; o cursor aponta para o último item retornado.
+	 */
+	@Test
+	public void proximoCursorSoExisteComMaisItens() {
+		List<String> ids = Arrays.asList(new ObjectId().toHexString(), new ObjectId().toHexString(),
+				new ObjectId().toHexString());
+
+		PaginaCursor<String> pagina = PaginaCursor.de(ids, 2, id -> id);
+		PaginaCursor<String> ultima = PaginaCursor.de(ids, 3, id -> id);
+
+		assertThat(pagina.getConteudo()).containsExactly(ids.get(0), ids.get(1));
+		assertThat(PaginaCursor.decodificar(pagina.getProximoCursor())).isEqualTo(ids.get(1));
+		assertThat(ultima.getConteudo()).hasSize(3);
+		assertThat(ultima.getProximoCursor()).isNull();
+		assertThat(PaginaCursor.consulta(PaginaCursor.limitar(500)).getPageSize())
+				.isEqualTo(PaginaCursor.TAMANHO_MAXIMO + 1);
+	}
+
+	/**
+	 * Seguindo os cursores, a listagem percorre todos os produtos uma única vez, em ordem de _id,
+	 * e um cursor inválido é recusado sem consultar o MongoDB.
+	 */
+	@Test
+	public void listagemPercorreTodosOsProdutos() {
+		List<Produto> produtos = IntStream.range(0, 7)
+				.mapToObj(i -> Produto.builder().id(new ObjectId().toHexString()).codigo("P" + i).build())
+				.collect(Collectors.toList());
+		IProdutoRepository produtoRepository = mock(IProdutoRepository.class);
+		when(produtoRepository.findAllBy(any(Pageable.class)))
+				.thenAnswer(invocation -> depois(produtos, null, invocation.getArgument(0)));
+		when(produtoRepository.findByIdGreaterThan(anyString(), any(Pageable.class)))
+				.thenAnswer(invocation -> depois(produtos, invocation.getArgument(0), invocation.getArgument(1)));
+		BuscaProduto buscaProduto = new BuscaProduto(produtoRepository, mock(IProdutoEventoRepository.class));
+
+		List<Produto> lidos = new ArrayList<>();
+		int paginas = 0;
+		String cursor = null;
+		do {
+			PaginaCursor<Produto> pagina = buscaProduto.buscar(cursor, 3);
+			lidos.addAll(pagina.getConteudo());
+			cursor = pagina.getProximoCursor();
+			paginas++;
+		} while (cursor != null);
+
+		assertThat(lidos).containsExactlyElementsOf(produtos);
+		assertThat(paginas).isEqualTo(3);
+
+		IProdutoRepository naoConsultado = mock(IProdutoRepository.class);
+		assertThatThrownBy(() -> new BuscaProduto(naoConsultado, mock(IProdutoEventoRepository.class)).buscar("%%%", 3))
+				.isInstanceOf(BadRequestException.class);
+		verifyNoInteractions(naoConsultado);
+	}
+
+	/**
+	 * Simula a consulta por keyset: os produtos com _id maior que o último, até o tamanho da página.
+	 */
+	private static List<Produto> depois(List<Produto> produtos, String ultimoId, Pageable pageable) {
+		return produtos.stream()
+				.filter(produto -> ultimoId == null || produto.getId().compareTo(ultimoId) > 0)
+				.limit(pageable.getPageSize())
+				.collect(Collectors.toList());
+	}
+}
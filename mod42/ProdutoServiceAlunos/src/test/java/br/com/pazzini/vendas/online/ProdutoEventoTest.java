@@ -0,0 +1,167 @@
+/**
+ * ProdutoEventoTest é uma classe de teste JUnit para os eventos de alteração de produtos, do cadastro à consulta em /produto/eventos.
+ * Utiliza o MockMvc sobre o controlador e o Mockito para simular os repositórios, com os eventos guardados em memória.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import br.com.pazzini.vendas.online.controller.ProdutoResource;
+import br.com.pazzini.vendas.online.domain.Produto;
+import br.com.pazzini.vendas.online.domain.ProdutoEvento;
+import br.com.pazzini.vendas.online.domain.ProdutoEvento.Tipo;
+import br.com.pazzini.vendas.online.repository.IProdutoEventoRepository;
+import br.com.pazzini.vendas.online.repository.IProdutoRepository;
+import br.com.pazzini.vendas.online.usecase.BuscaProduto;
+import br.com.pazzini.vendas.online.usecase.CadastroProduto;
+
+/**
+ * Testa que cada alteração de produto gera o seu evento e que /produto/eventos os devolve como o Venda Service os consulta.
+ */
+public class ProdutoEventoTest {
+
+	private List<ProdutoEvento> eventos = new ArrayList<>();
+
+	private List<Pageable> consultas = new ArrayList<>();
+
+	private IProdutoRepository produtoRepository;
+
+	private CadastroProduto cadastroProduto;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	public void setup() {
+		produtoRepository = mock(IProdutoRepository.class);
+		when(produtoRepository.insert(any(Produto.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		when(produtoRepository.save(any(Produto.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		IProdutoEventoRepository eventoRepository = mock(IProdutoEventoRepository.class);
+		when(eventoRepository.insert(any(ProdutoEvento.class))).thenAnswer(invocation -> {
+			ProdutoEvento evento = invocation.getArgument(0);
+			evento.setId(String.valueOf(eventos.size() + 1));
+			eventos.add(evento);
+			return evento;
+		});
+		when(eventoRepository.findByCriadoEmGreaterThanEqual(any(Instant.class), any(Pageable.class))).thenAnswer(invocation -> {
+			Instant desde = invocation.getArgument(0);
+			Pageable pageable = invocation.getArgument(1);
+			consultas.add(pageable);
+			return eventos.stream()
+					.filter(evento -> !evento.getCriadoEm().isBefore(desde))
+					.sorted(Comparator.comparing(ProdutoEvento::getCriadoEm).thenComparing(ProdutoEvento::getId))
+					.limit(pageable.getPageSize())
+					.collect(Collectors.toList());
+		});
+		cadastroProduto = new CadastroProduto(produtoRepository, eventoRepository);
+		BuscaProduto buscaProduto = new BuscaProduto(produtoRepository, eventoRepository);
+		// Como no Spring Boot, instantes são escritos em ISO-8601, o formato lido pelo Venda Service.
+		MappingJackson2HttpMessageConverter json = new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json()
+				.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.build());
+		mockMvc = MockMvcBuilders.standaloneSetup(new ProdutoResource(buscaProduto, cadastroProduto))
+				.setMessageConverters(json)
+				.build();
+	}
+
+	/**
+	 * Cadastro, alteração e inativação geram um evento cada; a troca de código informa também o código anterior,
+	 * para que as cópias guardadas pelo código antigo sejam descartadas.
+	 */
+	@Test
+	public void cadaAlteracaoRegistraUmEvento() {
+		Produto produto = cadastroProduto.cadastrar(produto("1", "A1"));
+		when(produtoRepository.findById("1")).thenReturn(Optional.of(produto("1", "A1")));
+		cadastroProduto.atualizar(produto("1", "A2"));
+		when(produtoRepository.findById("1")).thenReturn(Optional.of(produto("1", "A2")));
+		cadastroProduto.atualizar(produto("1", "A2"));
+		cadastroProduto.remover("1");
+
+		assertThat(eventos).extracting(ProdutoEvento::getTipo)
+				.containsExactly(Tipo.CADASTRADO, Tipo.ALTERADO, Tipo.ALTERADO, Tipo.INATIVADO);
+		assertThat(eventos).extracting(ProdutoEvento::getCodigo).containsExactly("A1", "A2", "A2", "A2");
+		assertThat(eventos).extracting(ProdutoEvento::getCodigoAnterior).containsExactly(null, "A1", null, null);
+		assertThat(eventos.get(3).getProduto().getStatus()).isEqualTo(Produto.Status.INATIVO);
+	}
+
+	/**
+	 * O instante é enviado como Instant.toString() pelo Venda Service; os eventos voltam em ordem de gravação,
+	 * a partir do instante (inclusivo), e o limite pedido é restrito ao máximo.
+	 */
+	@Test
+	public void eventosSaoConsultadosAPartirDoInstante() throws Exception {
+		Instant inicio = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+		eventos.add(evento("1", "A1", inicio.minusSeconds(1)));
+		eventos.add(evento("2", "B1", inicio));
+		eventos.add(evento("3", "C1", inicio.plusNanos(1_000)));
+		eventos.add(evento("4", "D1", inicio.plusSeconds(1)));
+
+		mockMvc.perform(get("/produto/eventos").param("desde", inicio.toString()).param("limite", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[0].codigo").value("B1"))
+				.andExpect(jsonPath("$[1].codigo").value("C1"));
+
+		mockMvc.perform(get("/produto/eventos").param("desde", inicio.plusNanos(1_000).toString()).param("limite", "5000"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[0].codigo").value("C1"))
+				.andExpect(jsonPath("$[0].tipo").value("ALTERADO"))
+				.andExpect(jsonPath("$[0].criadoEm").value(inicio.plusNanos(1_000).toString()));
+
+		assertThat(consultas).extracting(Pageable::getPageSize).containsExactly(2, BuscaProduto.LIMITE_EVENTOS);
+	}
+
+	/**
+	 * Sem o instante inicial a consulta é recusada.
+	 */
+	@Test
+	public void eventosSemInstanteSaoRecusados() throws Exception {
+		mockMvc.perform(get("/produto/eventos"))
+				.andExpect(status().isBadRequest());
+	}
+
+	private static Produto produto(String id, String codigo) {
+		return Produto.builder()
+				.id(id)
+				.codigo(codigo)
+				.nome("Produto " + codigo)
+				.descricao("Descrição " + codigo)
+				.valor(BigDecimal.TEN)
+				.build();
+	}
+
+	private static ProdutoEvento evento(String id, String codigo, Instant criadoEm) {
+		return ProdutoEvento.builder()
+				.id(id)
+				.tipo(Tipo.ALTERADO)
+				.codigo(codigo)
+				.produto(produto(id, codigo))
+				.criadoEm(criadoEm)
+				.build();
+	}
+}
@@ -0,0 +1,244 @@
+/**
+ * SaldoEstoqueTest é uma classe de teste JUnit para os saldos de estoque mantidos em memória.
+ * Utiliza o Mockito para simular o repositório de estoque sobre um documento guardado no próprio teste.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import br.com.pazzini.vendas.online.dto.MovimentoEstoque;
+import br.com.pazzini.vendas.online.repository.IEstoqueRepository;
+import br.com.pazzini.vendas.online.usecase.SaldoEstoque;
+import br.com.pazzini.vendas.online.usecase.SaldoEstoque.Resultado;
+
+/**
+ * Testa que as reservas concorrentes de um mesmo produto nunca passam do estoque e que cada incremento é gravado uma única vez.
+ */
+public class SaldoEstoqueTest {
+
+	private static final String CODIGO = "A1";
+
+	private static final int THREADS = 16;
+
+	private DocumentoEstoque documento;
+
+	private IEstoqueRepository estoqueRepository;
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void setup() {
+		documento = new DocumentoEstoque();
+		estoqueRepository = mock(IEstoqueRepository.class);
+		when(estoqueRepository.alocar(anyString(), anyLong(), anyLong()))
+				.thenAnswer(invocation -> documento.alocar(invocation.getArgument(1), invocation.getArgument(2)));
+		doAnswer(invocation -> {
+			documento.aplicar(invocation.getArgument(0));
+			return null;
+		}).when(estoqueRepository).aplicar(anyCollection());
+		when(estoqueRepository.existsById(CODIGO)).thenReturn(true);
+		executor = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@AfterEach
+	public void encerrar() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Muitas threads reservando uma unidade por vez conseguem, juntas, exatamente o estoque disponível; as reservas
+	 * seguintes são recusadas e o documento gravado fica com tudo reservado.
+	 */
+	@Test
+	public void reservasConcorrentesNuncaPassamDoEstoque() throws Exception {
+		documento.disponivel = 1_000;
+		SaldoEstoque saldoEstoque = new SaldoEstoque(estoqueRepository, 8, 50, Duration.ofHours(1));
+		AtomicLong reservadas = new AtomicLong();
+
+		emParalelo(() -> {
+			int recusadas = 0;
+			while (recusadas < 3) {
+				if (saldoEstoque.reservar(CODIGO, 1) == Resultado.RESERVADO) {
+					reservadas.incrementAndGet();
+				} else {
+					recusadas++;
+				}
+			}
+		});
+		saldoEstoque.persistir();
+
+		assertThat(reservadas.get()).isEqualTo(1_000);
+		assertThat(documento.disponivel).isZero();
+		assertThat(documento.alocado).isZero();
+		assertThat(documento.reservado).isEqualTo(1_000);
+	}
+
+	/**
+	 * Reservas, confirmações e liberações concorrentes com gravações periódicas no meio: ao fim, o documento tem cada
+	 * incremento aplicado uma única vez e nenhuma unidade some ou aparece.
+	 */
+	@Test
+	public void persistirDuranteReservasAplicaCadaIncrementoUmaVez() throws Exception {
+		documento.disponivel = 2_000;
+		SaldoEstoque saldoEstoque = new SaldoEstoque(estoqueRepository, 8, 20, Duration.ofHours(1));
+		AtomicLong vendidas = new AtomicLong();
+		AtomicLong reservadas = new AtomicLong();
+		AtomicBoolean reservando = new AtomicBoolean(true);
+		ExecutorService persistidor = Executors.newSingleThreadExecutor();
+		Future<?> persistencia = persistidor.submit(() -> {
+			while (reservando.get()) {
+				saldoEstoque.persistir();
+			}
+		});
+
+		emParalelo(() -> {
+			for (int i = 0; i < 300; i++) {
+				long quantidade = 1 + i % 3;
+				if (saldoEstoque.reservar(CODIGO, quantidade) != Resultado.RESERVADO) {
+					continue;
+				}
+				if (i % 3 == 0) {
+					saldoEstoque.liberar(CODIGO, quantidade);
+				} else if (i % 3 == 1) {
+					saldoEstoque.confirmar(CODIGO, quantidade);
+					vendidas.addAndGet(quantidade);
+				} else {
+					reservadas.addAndGet(quantidade);
+				}
+			}
+		});
+		reservando.set(false);
+		persistencia.get(10, TimeUnit.SECONDS);
+		persistidor.shutdown();
+		saldoEstoque.encerrar();
+
+		assertThat(documento.vendido).isEqualTo(vendidas.get());
+		assertThat(documento.reservado).isEqualTo(reservadas.get());
+		assertThat(documento.alocado).isZero();
+		assertThat(documento.disponivel + documento.reservado + documento.vendido).isEqualTo(2_000);
+	}
+
+	/**
+	 * Se a gravação falha, os incrementos voltam para a próxima, que os grava uma única vez.
+	 */
+	@Test
+	public void falhaAoPersistirGuardaIncrementosParaAProxima() {
+		documento.disponivel = 10;
+		SaldoEstoque saldoEstoque = new SaldoEstoque(estoqueRepository, 2, 10, Duration.ofHours(1));
+		saldoEstoque.reservar(CODIGO, 3);
+		saldoEstoque.confirmar(CODIGO, 3);
+
+		doThrow(new DataAccessResourceFailureException("MongoDB indisponível"))
+				.doAnswer(invocation -> {
+					documento.aplicar(invocation.getArgument(0));
+					return null;
+				}).when(estoqueRepository).aplicar(anyCollection());
+		saldoEstoque.persistir();
+		saldoEstoque.persistir();
+		saldoEstoque.persistir();
+
+		assertThat(documento.vendido).isEqualTo(3);
+		assertThat(documento.reservado).isZero();
+		assertThat(documento.alocado).isEqualTo(7);
+	}
+
+	/**
+	 * Com o saldo espalhado em faixas que não têm a quantidade sozinhas, a reserva junta as faixas sem alocar outro bloco;
+	 * com todas as faixas vazias, aloca um novo bloco, e sem disponível no documento a reserva é recusada.
+	 */
+	@Test
+	public void faixasVaziasSaoReabastecidas() {
+		documento.disponivel = 10;
+		SaldoEstoque saldoEstoque = new SaldoEstoque(estoqueRepository, 4, 4, Duration.ofHours(1));
+
+		// Aloca 4 e espalha a sobra de 3 em faixas de uma unidade.
+		assertThat(saldoEstoque.reservar(CODIGO, 1)).isEqualTo(Resultado.RESERVADO);
+		assertThat(saldoEstoque.reservar(CODIGO, 3)).isEqualTo(Resultado.RESERVADO);
+		verify(estoqueRepository, times(1)).alocar(anyString(), anyLong(), anyLong());
+
+		assertThat(saldoEstoque.reservar(CODIGO, 2)).isEqualTo(Resultado.RESERVADO);
+		assertThat(saldoEstoque.reservar(CODIGO, 4)).isEqualTo(Resultado.RESERVADO);
+		verify(estoqueRepository, times(3)).alocar(anyString(), anyLong(), anyLong());
+
+		assertThat(saldoEstoque.reservar(CODIGO, 1)).isEqualTo(Resultado.INSUFICIENTE);
+		saldoEstoque.persistir();
+		assertThat(documento.disponivel).isZero();
+		assertThat(documento.alocado).isZero();
+		assertThat(documento.reservado).isEqualTo(10);
+	}
+
+	private void emParalelo(Runnable tarefa) throws Exception {
+		CountDownLatch largada = new CountDownLatch(1);
+		List<Future<?>> tarefas = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			tarefas.add(executor.submit(() -> {
+				largada.await();
+				tarefa.run();
+				return null;
+			}));
+		}
+		largada.countDown();
+		for (Future<?> future : tarefas) {
+			future.get(30, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Documento de estoque com as mesmas regras das atualizações atômicas do repositório.
+	 */
+	private static final class DocumentoEstoque {
+
+		private long disponivel;
+
+		private long alocado;
+
+		private long reservado;
+
+		private long vendido;
+
+		synchronized long alocar(long minimo, long bloco) {
+			if (disponivel < minimo) {
+				return 0;
+			}
+			long tomado = Math.min(disponivel, Math.max(minimo, bloco));
+			disponivel -= tomado;
+			alocado += tomado;
+			return tomado;
+		}
+
+		synchronized void aplicar(Collection<MovimentoEstoque> movimentos) {
+			for (MovimentoEstoque movimento : movimentos) {
+				disponivel += movimento.getDisponivel();
+				alocado += movimento.getAlocado();
+				reservado += movimento.getReservado();
+				vendido += movimento.getVendido();
+			}
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.benchmark;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import br.com.gomes.vendas.online.domain.ProdutoQuantidade;
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+
+/**
+ * Benchmarks das operações do agregado {@link Venda} para vendas de 1 a 10.000 linhas.
+ *
+ * Execução: {@code mvn -Pbenchmark verify}; o resultado em JSON fica em
+ * {@code target/jmh-result.json}.
+ *
+ * @author wendel.gomes
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VendaBenchmark {
+
+	@Param({ "1", "10", "100", "1000", "10000" })
+	private int linhas;
+
+	private Venda venda;
+
+	private Produto[] produtos;
+
+	private Produto produtoNovo;
+
+	private ProdutoQuantidade linha;
+
+	private ObjectMapper objectMapper;
+
+	private int proximo;
+
+	/** Refeito a cada iteração para que a quantidade acumulada não contamine as medições seguintes. */
+	@Setup(Level.Iteration)
+	public void setup() {
+		venda = Venda.builder()
+				.id("benchmark")
+				.codigo("V1")
+				.clienteId("C1")
+				.status(Status.INICIADA)
+				.dataVenda(Instant.now())
+				.valorTotal(BigDecimal.ZERO)
+				.produtos(new HashSet<>())
+				.build();
+		produtos = new Produto[linhas];
+		for (int i = 0; i < linhas; i++) {
+			produtos[i] = produto("P" + i, BigDecimal.valueOf(i % 100 + 1, 2));
+			// Duas unidades: a remoção unitária decrementa a linha em vez de excluí-la.
+			venda.adicionarProduto(produtos[i], 2);
+		}
+		produtoNovo = produto("NOVO", BigDecimal.TEN);
+		linha = ProdutoQuantidade.builder()
+				.produto(produtos[0])
+				.quantidade(0)
+				.valorTotal(BigDecimal.ZERO)
+				.build();
+		objectMapper = new ObjectMapper()
+				.registerModule(new JavaTimeModule())
+				.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+	}
+
+	@Benchmark
+	public void adicionarProdutoExistente() {
+		venda.adicionarProduto(proximoProduto(), 1);
+	}
+
+	/** Inclui e exclui uma linha nova, mantendo o tamanho da venda estável. */
+	@Benchmark
+	public void adicionarRemoverProdutoNovo() {
+		venda.adicionarProduto(produtoNovo, 1);
+		venda.removerProduto(produtoNovo, 1);
+	}
+
+	/** Exclui uma unidade de uma linha existente e a repõe, para que a linha nunca se esvazie. */
+	@Benchmark
+	public void removerAdicionarProdutoExistente() {
+		Produto produto = proximoProduto();
+		venda.removerProduto(produto, 1);
+		venda.adicionarProduto(produto, 1);
+	}
+
+	@Benchmark
+	public BigDecimal recalcularValorTotalVenda() {
+		venda.recalcularValorTotalVenda();
+		return venda.getValorTotal();
+	}
+
+	@Benchmark
+	public Integer getQuantidadeTotalProdutos() {
+		return venda.getQuantidadeTotalProdutos();
+	}
+
+	@Benchmark
+	public BigDecimal produtoQuantidadeAdicionar() {
+		return linha.adicionar(1);
+	}
+
+	@Benchmark
+	public void serializarJson(Blackhole blackhole) throws JsonProcessingException {
+		blackhole.consume(objectMapper.writeValueAsBytes(venda));
+	}
+
+	private Produto proximoProduto() {
+		Produto produto = produtos[proximo];
+		proximo = proximo + 1 == produtos.length ? 0 : proximo + 1;
+		return produto;
+	}
+
+	private static Produto produto(String codigo, BigDecimal valor) {
+		return Produto.builder()
+				.id(codigo)
+				.codigo(codigo)
+				.nome("Produto " + codigo)
+				.descricao("Produto " + codigo)
+				.valor(valor)
+				.build();
+	}
+}
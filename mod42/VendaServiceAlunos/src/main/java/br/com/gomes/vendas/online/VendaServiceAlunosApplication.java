@@ -6,10 +6,12 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @RefreshScope
 @EnableFeignClients
+@EnableScheduling
 @EnableAutoConfiguration(exclude={DataSourceAutoConfiguration.class})
 public class VendaServiceAlunosApplication {
 
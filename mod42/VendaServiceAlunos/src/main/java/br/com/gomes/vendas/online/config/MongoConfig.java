@@ -3,7 +3,19 @@
  */
 package br.com.gomes.vendas.online.config;
 
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.bson.types.Decimal128;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
 /**
@@ -14,4 +26,42 @@ import org.springframework.data.mongodb.repository.config.EnableMongoRepositorie
 @EnableMongoRepositories(basePackages = "br.com.gomes.vendas.online.repository")
 public class MongoConfig {
 
+	/**
+	 * Persiste BigDecimal como Decimal128 (e não como texto) para que os valores
+	 * possam ser alterados com $inc/$sum diretamente no banco.
+	 */
+	@Bean
+	public MongoCustomConversions mongoCustomConversions() {
+		return new MongoCustomConversions(Arrays.asList(
+				new BigDecimalToDecimal128Converter(),
+				new Decimal128ToBigDecimalConverter()));
+	}
+
+	/**
+	 * Transações usadas para gravar a venda e o evento da outbox juntos; o modo
+	 * reativo usa o gerenciador de {@link ReactiveConfig}.
+	 */
+	@Bean
+	@Profile("!reactive")
+	public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+		return new MongoTransactionManager(databaseFactory);
+	}
+
+	@WritingConverter
+	static class BigDecimalToDecimal128Converter implements Converter<BigDecimal, Decimal128> {
+
+		@Override
+		public Decimal128 convert(BigDecimal source) {
+			return new Decimal128(source);
+		}
+	}
+
+	@ReadingConverter
+	static class Decimal128ToBigDecimalConverter implements Converter<Decimal128, BigDecimal> {
+
+		@Override
+		public BigDecimal convert(Decimal128 source) {
+			return source.bigDecimalValue();
+		}
+	}
 }
@@ -0,0 +1,90 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.ReactiveMongoTransactionManager;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Modo reativo (perfil {@code reactive}): WebFlux sobre Netty, repositórios
+ * reativos do MongoDB e WebClient com pool de conexões para o ClienteService
+ * e o ProdutoService.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Configuration
+@Profile("reactive")
+@EnableReactiveMongoRepositories(basePackages = "br.com.gomes.vendas.online.repository")
+public class ReactiveConfig implements WebFluxConfigurer {
+
+	@Value("${application.httpClient.maxTotal:200}")
+	private int maxTotal;
+
+	@Value("${application.httpClient.connectTimeout:2000}")
+	private int connectTimeout;
+
+	@Value("${application.httpClient.readTimeout:5000}")
+	private long readTimeout;
+
+	@Value("${application.httpClient.connectionRequestTimeout:1000}")
+	private long connectionRequestTimeout;
+
+	@Value("${application.httpClient.maxIdle:60000}")
+	private long maxIdle;
+
+	/**
+	 * O Tomcat também está no classpath (modo bloqueante); sem esta fábrica o
+	 * WebFlux subiria sobre ele em vez do Netty.
+	 */
+	@Bean
+	public NettyReactiveWebServerFactory reactiveWebServerFactory() {
+		return new NettyReactiveWebServerFactory();
+	}
+
+	@Bean(destroyMethod = "dispose")
+	public ConnectionProvider webClientConnectionProvider() {
+		return ConnectionProvider.builder("venda-http-client")
+				.maxConnections(maxTotal)
+				.pendingAcquireTimeout(Duration.ofMillis(connectionRequestTimeout))
+				.maxIdleTime(Duration.ofMillis(maxIdle))
+				.metrics(true)
+				.build();
+	}
+
+	@Bean
+	public WebClient webClient(WebClient.Builder builder, ConnectionProvider connectionProvider) {
+		HttpClient httpClient = HttpClient.create(connectionProvider)
+				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+				.responseTimeout(Duration.ofMillis(readTimeout));
+		return builder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+	}
+
+	@Bean
+	public ReactiveMongoTransactionManager reactiveTransactionManager(ReactiveMongoDatabaseFactory databaseFactory) {
+		return new ReactiveMongoTransactionManager(databaseFactory);
+	}
+
+	@Override
+	public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+		configurer.addCustomResolver(new ReactivePageableHandlerMethodArgumentResolver());
+	}
+}
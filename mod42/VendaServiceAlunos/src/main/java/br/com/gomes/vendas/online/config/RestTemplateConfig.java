@@ -1,21 +1,103 @@
 /**
- * 
+ *
  */
 package br.com.gomes.vendas.online.config;
 
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import feign.Client;
+import feign.httpclient.ApacheHttpClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+
 /**
+ * Cliente HTTP com pool de conexões compartilhado pelo RestTemplate (RestUtils)
+ * e pelos clientes Feign.
+ *
  * @author wendel.gomes
  *
  */
 @Configuration
 public class RestTemplateConfig {
 
+	@Value("${application.httpClient.maxTotal:200}")
+	private int maxTotal;
+
+	@Value("${application.httpClient.maxPerRoute:50}")
+	private int maxPerRoute;
+
+	@Value("${application.httpClient.connectTimeout:2000}")
+	private int connectTimeout;
+
+	@Value("${application.httpClient.readTimeout:5000}")
+	private int readTimeout;
+
+	@Value("${application.httpClient.connectionRequestTimeout:1000}")
+	private int connectionRequestTimeout;
+
+	@Value("${application.httpClient.keepAlive:30000}")
+	private long keepAlive;
+
+	@Value("${application.httpClient.maxIdle:60000}")
+	private long maxIdle;
+
+	@Value("${application.httpClient.validateAfterInactivity:2000}")
+	private int validateAfterInactivity;
+
+	@Bean(destroyMethod = "close")
+	public PoolingHttpClientConnectionManager httpClientConnectionManager(MeterRegistry meterRegistry) {
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(maxTotal);
+		connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+		connectionManager.setValidateAfterInactivity(validateAfterInactivity);
+		new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "venda-http-client")
+				.bindTo(meterRegistry);
+		return connectionManager;
+	}
+
+	@Bean(destroyMethod = "close")
+	public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager) {
+		RequestConfig requestConfig = RequestConfig.custom()
+				.setConnectTimeout(connectTimeout)
+				.setSocketTimeout(readTimeout)
+				.setConnectionRequestTimeout(connectionRequestTimeout)
+				.build();
+		return HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(requestConfig)
+				.setKeepAliveStrategy(keepAliveStrategy())
+				.evictExpiredConnections()
+				.evictIdleConnections(maxIdle, TimeUnit.MILLISECONDS)
+				.build();
+	}
+
 	@Bean
-	public RestTemplate restTemplate() {
-		return new RestTemplate();
+	public RestTemplate restTemplate(CloseableHttpClient httpClient) {
+		return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+	}
+
+	@Bean
+	public Client feignClient(CloseableHttpClient httpClient) {
+		return new ApacheHttpClient(httpClient);
+	}
+
+	// Respeita o Keep-Alive enviado pelo servidor e usa o valor configurado quando ele não vier.
+	private ConnectionKeepAliveStrategy keepAliveStrategy() {
+		return (response, context) -> {
+			long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+			return duration > 0 ? duration : keepAlive;
+		};
 	}
 }
@@ -0,0 +1,105 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.config;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import zipkin2.Call;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.Sender;
+import zipkin2.reporter.brave.AsyncZipkinSpanHandler;
+
+/**
+ * Exportação opcional dos spans para arquivo ({@code application.tracing.arquivo}),
+ * um span por linha no formato JSON v2 do Zipkin, para análise sem um coletor.
+ * O envio a um coletor Zipkin é configurado pelo Sleuth em {@code spring.zipkin.*}.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Configuration
+@ConditionalOnProperty(name = "application.tracing.arquivo")
+public class TracingConfig {
+
+	private static final Logger logger = LoggerFactory.getLogger(TracingConfig.class);
+
+	@Bean(destroyMethod = "close")
+	public ArquivoSender arquivoSender(@Value("${application.tracing.arquivo}") String arquivo) {
+		logger.info("SPANS EXPORTADOS PARA O ARQUIVO {}", arquivo);
+		return new ArquivoSender(Paths.get(arquivo));
+	}
+
+	@Bean(destroyMethod = "close")
+	public AsyncZipkinSpanHandler arquivoSpanHandler(ArquivoSender arquivoSender) {
+		return AsyncZipkinSpanHandler.create(arquivoSender);
+	}
+
+	/** Grava os lotes enviados pelo reporter assíncrono, fora da thread da requisição. */
+	static class ArquivoSender extends Sender {
+
+		private final OutputStream saida;
+
+		ArquivoSender(Path arquivo) {
+			try {
+				if (arquivo.getParent() != null) {
+					Files.createDirectories(arquivo.getParent());
+				}
+				this.saida = new BufferedOutputStream(Files.newOutputStream(arquivo,
+						StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+			} catch (IOException e) {
+				throw new UncheckedIOException("NÃO FOI POSSÍVEL ABRIR O ARQUIVO DE SPANS " + arquivo, e);
+			}
+		}
+
+		@Override
+		public Encoding encoding() {
+			return Encoding.JSON;
+		}
+
+		@Override
+		public int messageMaxBytes() {
+			return 512 * 1024;
+		}
+
+		@Override
+		public int messageSizeInBytes(List<byte[]> spans) {
+			return Encoding.JSON.listSizeInBytes(spans);
+		}
+
+		@Override
+		public synchronized Call<Void> sendSpans(List<byte[]> spans) {
+			try {
+				for (byte[] span : spans) {
+					saida.write(span);
+					saida.write('\n');
+				}
+				saida.flush();
+				return Call.create(null);
+			} catch (IOException e) {
+				// O reporter registra a falha e descarta o lote.
+				throw new UncheckedIOException("ERRO AO GRAVAR SPANS", e);
+			}
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			saida.close();
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+/**
+ * Modo opcional ({@code application.virtualThreads.enabled=true}) em que o Tomcat
+ * atende cada requisição em uma thread virtual. As chamadas ao MongoDB, ao
+ * ClienteService (RestUtils) e ao ProdutoService (Feign) feitas durante a
+ * requisição bloqueiam apenas a thread virtual.
+ *
+ * Exige JVM 21 ou superior em execução; o executor é obtido por reflexão para
+ * que o projeto continue compilando para Java 11.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Configuration
+@ConditionalOnProperty(name = "application.virtualThreads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+	private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService virtualThreadExecutor() {
+		try {
+			ExecutorService executor = (ExecutorService) Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor")
+					.invoke(null);
+			logger.info("REQUISIÇÕES ATENDIDAS EM THREADS VIRTUAIS");
+			return executor;
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException("THREADS VIRTUAIS EXIGEM JAVA 21 OU SUPERIOR, JVM ATUAL: "
+					+ Runtime.version(), e);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("NÃO FOI POSSÍVEL CRIAR O EXECUTOR DE THREADS VIRTUAIS", e);
+		}
+	}
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer(
+			ExecutorService virtualThreadExecutor) {
+		return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+	}
+
+	/**
+	 * Substitui o pool padrão usado por @Async e pelas requisições assíncronas do Spring MVC.
+	 */
+	@Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+			AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+	public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+		return new TaskExecutorAdapter(virtualThreadExecutor);
+	}
+}
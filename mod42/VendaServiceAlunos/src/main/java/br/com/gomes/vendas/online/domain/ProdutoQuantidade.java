@@ -4,6 +4,7 @@
 package br.com.gomes.vendas.online.domain;
 
 import java.math.BigDecimal;
+import java.util.Objects;
 
 import javax.validation.constraints.NotNull;
 
@@ -35,18 +36,48 @@ public class ProdutoQuantidade {
 		this.valorTotal = BigDecimal.ZERO;
 	}
 
-	public void adicionar(Integer quantidade) {
+	/**
+	 * Soma a quantidade à linha e retorna o valor acrescentado ao seu total.
+	 */
+	public BigDecimal adicionar(Integer quantidade) {
 		this.quantidade += quantidade;
 		BigDecimal novoValor = this.produto.getValor().multiply(BigDecimal.valueOf(quantidade));
-		BigDecimal novoTotal = this.valorTotal.add(novoValor);
-		this.valorTotal = novoTotal;
+		this.valorTotal = this.valorTotal.add(novoValor);
+		return novoValor;
 	}
 	
-	public void remover(Integer quantidade) {
+	/**
+	 * Subtrai a quantidade da linha e retorna o valor retirado do seu total.
+	 */
+	public BigDecimal remover(Integer quantidade) {
 		this.quantidade -= quantidade;
 		BigDecimal novoValor = this.produto.getValor().multiply(BigDecimal.valueOf(quantidade));
 		this.valorTotal = this.valorTotal.subtract(novoValor);
+		return novoValor;
 	}
 	
+	/**
+	 * Cada venda tem no máximo uma linha por produto, então a identidade da
+	 * linha é o código do produto.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ProdutoQuantidade)) {
+			return false;
+		}
+		return Objects.equals(codigoProduto(), ((ProdutoQuantidade) obj).codigoProduto());
+	}
+	
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(codigoProduto());
+	}
+	
+	private String codigoProduto() {
+		return produto == null ? null : produto.getCodigo();
+	}
 	
 }
@@ -0,0 +1,116 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.domain;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Totais pré-agregados das vendas por período (hora ou dia, em UTC, pela
+ * {@code dataVenda}), status e cliente; {@code clienteId} nulo soma todos os
+ * clientes. Cada venda conta uma vez em INICIADA, quando é criada, e uma vez no
+ * status final (CONCLUIDA ou CANCELADA) com o valor e os itens que tinha nesse
+ * momento.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Document(collection = "venda_resumo")
+@CompoundIndex(name = "resumo_periodo", unique = true,
+		def = "{'granularidade': 1, 'clienteId': 1, 'inicio': 1, 'status': 1}")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ResumoVenda {
+
+	public enum Granularidade {
+		HORA(ChronoUnit.HOURS), DIA(ChronoUnit.DAYS);
+
+		private final ChronoUnit unidade;
+
+		Granularidade(ChronoUnit unidade) {
+			this.unidade = unidade;
+		}
+
+		public Instant inicio(Instant instante) {
+			return instante.truncatedTo(unidade);
+		}
+
+		public Duration getDuracao() {
+			return unidade.getDuration();
+		}
+	}
+
+	@Id
+	private String id;
+
+	private Granularidade granularidade;
+
+	private Instant inicio;
+
+	private Status status;
+
+	private String clienteId;
+
+	private long quantidade;
+
+	private BigDecimal valorTotal;
+
+	private long itens;
+
+	public ResumoVenda(Granularidade granularidade, Instant inicio, Status status, String clienteId,
+			long quantidade, BigDecimal valorTotal, long itens) {
+		this.granularidade = granularidade;
+		this.inicio = inicio;
+		this.status = status;
+		this.clienteId = clienteId;
+		this.quantidade = quantidade;
+		this.valorTotal = valorTotal;
+		this.itens = itens;
+	}
+
+	/**
+	 * Incrementos causados pela venda ao chegar ao status: um por granularidade,
+	 * para o cliente e para o total de clientes.
+	 */
+	public static List<ResumoVenda> parciais(Venda venda, Status status) {
+		BigDecimal valor = status == Status.INICIADA || venda.getValorTotal() == null
+				? BigDecimal.ZERO : venda.getValorTotal();
+		long itens = status == Status.INICIADA ? 0 : venda.getQuantidadeTotalProdutos();
+		List<ResumoVenda> parciais = new ArrayList<>();
+		for (Granularidade granularidade : Granularidade.values()) {
+			Instant inicio = granularidade.inicio(venda.getDataVenda());
+			parciais.add(new ResumoVenda(granularidade, inicio, status, null, 1, valor, itens));
+			parciais.add(new ResumoVenda(granularidade, inicio, status, venda.getClienteId(), 1, valor, itens));
+		}
+		return parciais;
+	}
+
+	/**
+	 * Identifica a linha do resumo: granularidade, período, status e cliente.
+	 */
+	public String chave() {
+		return granularidade + "|" + inicio + "|" + status + "|" + clienteId;
+	}
+
+	public void somar(ResumoVenda outro) {
+		quantidade += outro.quantidade;
+		valorTotal = valorTotal.add(outro.valorTotal);
+		itens += outro.itens;
+	}
+
+}
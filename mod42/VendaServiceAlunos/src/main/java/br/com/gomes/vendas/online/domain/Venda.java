@@ -5,18 +5,23 @@ package br.com.gomes.vendas.online.domain;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Optional;
+import java.util.Map;
 import java.util.Set;
 
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
@@ -28,8 +33,6 @@ import lombok.Setter;
 @Document(collection = "venda")
 @Getter
 @Setter
-@AllArgsConstructor
-@Builder
 public class Venda {
 	
 	public enum Status {
@@ -61,34 +64,80 @@ public class Venda {
 	private BigDecimal valorTotal;
 	
 	@NotNull
+	@Indexed(background = true)
 	private Instant dataVenda;
 	
 	@NotNull
 	private Status status;
 	
+	@Version
+	private Long versao;
+	
+	/**
+	 * Índice das linhas de {@link #produtos} pelo código do produto. Não é persistido:
+	 * é reconstruído sob demanda quando o conjunto de produtos é substituído.
+	 */
+	@Transient
+	@JsonIgnore
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private Map<String, ProdutoQuantidade> indiceProdutos;
+	
+	@Transient
+	@JsonIgnore
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private Set<ProdutoQuantidade> produtosIndexados;
+	
+	/**
+	 * Soma das quantidades das linhas, mantida junto com o índice.
+	 */
+	@Transient
+	@JsonIgnore
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private int quantidadeTotal;
+	
+	/**
+	 * Quando ligado (-Dvenda.verificarTotais=true), cada alteração confere os totais
+	 * mantidos incrementalmente contra um recálculo completo.
+	 */
+	private static volatile boolean verificarTotais = Boolean.getBoolean("venda.verificarTotais");
+	
 	public Venda() {
 		produtos = new HashSet<>();
 	}
+	
+	@Builder
+	public Venda(String id, String codigo, String clienteId, Set<ProdutoQuantidade> produtos,
+			BigDecimal valorTotal, Instant dataVenda, Status status, Long versao) {
+		this.id = id;
+		this.codigo = codigo;
+		this.clienteId = clienteId;
+		this.produtos = produtos;
+		this.valorTotal = valorTotal;
+		this.dataVenda = dataVenda;
+		this.status = status;
+		this.versao = versao;
+	}
 
 
 	public void adicionarProduto(Produto produto, Integer quantidade) {
 		validarStatus();
-		Optional<ProdutoQuantidade> op = 
-				produtos.stream().filter(filter -> filter.getProduto().getCodigo().equals(produto.getCodigo())).findAny();
-		if (op.isPresent()) {
-			ProdutoQuantidade produtpQtd = op.get();
-			produtpQtd.adicionar(quantidade);
-		} else {
-			ProdutoQuantidade prod = 
+		Map<String, ProdutoQuantidade> indice = indiceProdutos();
+		ProdutoQuantidade produtpQtd = indice.get(produto.getCodigo());
+		if (produtpQtd == null) {
+			produtpQtd = 
 					ProdutoQuantidade.builder()
 					.produto(produto)
 					.valorTotal(BigDecimal.ZERO)
 					.quantidade(0)
 					.build();
-			prod.adicionar(quantidade);
-			produtos.add(prod);
+			produtos.add(produtpQtd);
+			indice.put(produto.getCodigo(), produtpQtd);
 		}
-		recalcularValorTotalVenda();
+		BigDecimal valorAdicionado = produtpQtd.adicionar(quantidade);
+		atualizarTotais(valorAdicionado, quantidade);
 	}
 
 	public void validarStatus() {
@@ -99,17 +148,17 @@ public class Venda {
 	
 	public void removerProduto(Produto produto, Integer quantidade) {
 		validarStatus();
-		Optional<ProdutoQuantidade> op = 
-				produtos.stream().filter(filter -> filter.getProduto().getCodigo().equals(produto.getCodigo())).findAny();
+		Map<String, ProdutoQuantidade> indice = indiceProdutos();
+		ProdutoQuantidade produtpQtd = indice.get(produto.getCodigo());
 		
-		if (op.isPresent()) {
-			ProdutoQuantidade produtpQtd = op.get();
+		if (produtpQtd != null) {
 			if (produtpQtd.getQuantidade()>quantidade) {
-				produtpQtd.remover(quantidade);
-				recalcularValorTotalVenda();
+				BigDecimal valorRemovido = produtpQtd.remover(quantidade);
+				atualizarTotais(valorRemovido.negate(), -quantidade);
 			} else {
-				produtos.remove(op.get());
-				recalcularValorTotalVenda();
+				produtos.remove(produtpQtd);
+				indice.remove(produto.getCodigo());
+				atualizarTotais(produtpQtd.getValorTotal().negate(), -produtpQtd.getQuantidade());
 			}
 			
 		}
@@ -118,23 +167,73 @@ public class Venda {
 	public void removerTodosProdutos() {
 		validarStatus();
 		produtos.clear();
+		indiceProdutos().clear();
+		quantidadeTotal = 0;
 		valorTotal = BigDecimal.ZERO;
 	}
 	
 	public Integer getQuantidadeTotalProdutos() {
-		// Soma a quantidade getQuantidade() de todos os objetos ProdutoQuantidade
-		int result = produtos.stream()
-		  .reduce(0, (partialCountResult, prod) -> partialCountResult + prod.getQuantidade(), Integer::sum);
-		return result;
+		indiceProdutos();
+		return quantidadeTotal;
 	}
 	
+	/**
+	 * Recalcula o valor total somando todas as linhas. As alterações de produtos já
+	 * mantêm o total incrementalmente; este método serve para vendas montadas por fora.
+	 */
 	public void recalcularValorTotalVenda() {
 		//validarStatus();
-		BigDecimal valorTotal = BigDecimal.ZERO;
+		this.valorTotal = somarValorLinhas();
+	}
+	
+	public static void setVerificarTotais(boolean verificar) {
+		verificarTotais = verificar;
+	}
+	
+	private void atualizarTotais(BigDecimal deltaValor, int deltaQuantidade) {
+		this.valorTotal = this.valorTotal == null ? somarValorLinhas() : this.valorTotal.add(deltaValor);
+		this.quantidadeTotal += deltaQuantidade;
+		if (verificarTotais) {
+			verificarTotais();
+		}
+	}
+	
+	private void verificarTotais() {
+		BigDecimal valorEsperado = somarValorLinhas();
+		int quantidadeEsperada = somarQuantidadeLinhas();
+		if (valorEsperado.compareTo(valorTotal) != 0 || quantidadeEsperada != quantidadeTotal) {
+			throw new IllegalStateException(String.format(
+					"TOTAIS DA VENDA %s INCONSISTENTES: valor %s (esperado %s), quantidade %d (esperada %d)",
+					codigo, valorTotal, valorEsperado, quantidadeTotal, quantidadeEsperada));
+		}
+	}
+	
+	private BigDecimal somarValorLinhas() {
+		BigDecimal soma = BigDecimal.ZERO;
 		for (ProdutoQuantidade prod : this.produtos) {
-			valorTotal = valorTotal.add(prod.getValorTotal());
+			soma = soma.add(prod.getValorTotal());
 		}
-		this.valorTotal = valorTotal;
+		return soma;
+	}
+	
+	private int somarQuantidadeLinhas() {
+		int soma = 0;
+		for (ProdutoQuantidade prod : this.produtos) {
+			soma += prod.getQuantidade();
+		}
+		return soma;
+	}
+	
+	private Map<String, ProdutoQuantidade> indiceProdutos() {
+		if (indiceProdutos == null || produtosIndexados != produtos || indiceProdutos.size() != produtos.size()) {
+			indiceProdutos = new HashMap<>();
+			for (ProdutoQuantidade prod : produtos) {
+				indiceProdutos.put(prod.getProduto().getCodigo(), prod);
+			}
+			produtosIndexados = produtos;
+			quantidadeTotal = somarQuantidadeLinhas();
+		}
+		return indiceProdutos;
 	}
 	
 }
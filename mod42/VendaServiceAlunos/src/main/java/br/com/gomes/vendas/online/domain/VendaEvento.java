@@ -0,0 +1,76 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.domain;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Evento de alteração de uma venda, gravado na coleção de saída (outbox) na
+ * mesma transação da alteração e publicado depois pelo relay. Leva a venda
+ * como ficou após a alteração; {@code versao} cresce a cada alteração da
+ * mesma venda e permite ao consumidor descartar eventos repetidos ou
+ * fora de ordem.
+ *
+ * Eventos publicados são removidos pelo MongoDB 7 dias após a publicação.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Document(collection = "venda_outbox")
+@CompoundIndex(name = "outbox_pendentes", def = "{'publicadoEm': 1, '_id': 1}")
+@Getter
+@Setter
+@NoArgsConstructor
+public class VendaEvento {
+
+	public enum Tipo {
+		CRIADA, ALTERADA, CONCLUIDA, CANCELADA;
+
+		public static Tipo de(Status status) {
+			switch (status) {
+			case CONCLUIDA:
+				return CONCLUIDA;
+			case CANCELADA:
+				return CANCELADA;
+			default:
+				return ALTERADA;
+			}
+		}
+	}
+
+	@Id
+	private String id;
+
+	private Tipo tipo;
+
+	private String vendaId;
+
+	private Long versao;
+
+	private Instant criadoEm;
+
+	@Indexed(name = "outbox_expiracao", expireAfter = "7d")
+	private Instant publicadoEm;
+
+	private Venda venda;
+
+	public VendaEvento(Tipo tipo, Venda venda, Instant criadoEm) {
+		this.tipo = tipo;
+		this.vendaId = venda.getId();
+		this.versao = venda.getVersao();
+		this.criadoEm = criadoEm;
+		this.venda = venda;
+	}
+
+}
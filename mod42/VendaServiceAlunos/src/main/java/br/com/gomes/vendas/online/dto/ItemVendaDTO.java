@@ -0,0 +1,35 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.dto;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * @author wendel.gomes
+ *
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ItemVendaDTO {
+
+	@NotNull
+	@Size(min = 2, max = 10)
+	private String codigoProduto;
+
+	@NotNull
+	@Min(1)
+	private Integer quantidade;
+
+}
@@ -0,0 +1,90 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import br.com.gomes.vendas.online.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Página de uma listagem por cursor (keyset): os documentos vêm ordenados por
+ * {@code _id} e a próxima página começa depois do último retornado, sem
+ * {@code skip} nem {@code count()}. O cursor é o {@code _id} do último item
+ * em Base64 e não deve ser interpretado pelo cliente; na última página é nulo.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class PaginaCursor<T> {
+
+	public static final int TAMANHO_PADRAO = 20;
+
+	public static final int TAMANHO_MAXIMO = 100;
+
+	private List<T> conteudo;
+
+	private String proximoCursor;
+
+	/**
+	 * Consulta a ser usada na busca: ordenada por {@code _id} e com um item a
+	 * mais que o tamanho pedido, para saber se existe uma próxima página.
+	 */
+	public static Pageable consulta(int tamanho) {
+		return PageRequest.of(0, tamanho + 1, Sort.by("id"));
+	}
+
+	public static int limitar(Integer tamanho) {
+		if (tamanho == null) {
+			return TAMANHO_PADRAO;
+		}
+		return Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO));
+	}
+
+	/**
+	 * Monta a página a partir do resultado de {@link #consulta(int)}.
+	 */
+	public static <T> PaginaCursor<T> de(List<T> itens, int tamanho, Function<T, String> id) {
+		if (itens.size() <= tamanho) {
+			return new PaginaCursor<>(itens, null);
+		}
+		List<T> pagina = itens.subList(0, tamanho);
+		return new PaginaCursor<>(pagina, codificar(id.apply(pagina.get(tamanho - 1))));
+	}
+
+	public static String codificar(String id) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return o {@code _id} contido no cursor, ou nulo para a primeira página.
+	 * @throws BadRequestException se o cursor não foi gerado por esta API.
+	 */
+	public static String decodificar(String cursor) {
+		if (cursor == null || cursor.isEmpty()) {
+			return null;
+		}
+		try {
+			String id = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			if (ObjectId.isValid(id)) {
+				return id;
+			}
+		} catch (IllegalArgumentException e) {
+			// Tratado abaixo como cursor inválido.
+		}
+		throw new BadRequestException("CURSOR INVÁLIDO: " + cursor);
+	}
+
+}
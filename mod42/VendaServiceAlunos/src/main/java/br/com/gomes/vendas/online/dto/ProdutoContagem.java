@@ -0,0 +1,28 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Quantidade estimada de um produto na janela consultada; pode exceder a real
+ * dentro do erro do Count-Min Sketch, nunca ficar abaixo dela.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProdutoContagem {
+
+	private String codigoProduto;
+
+	private long quantidade;
+
+}
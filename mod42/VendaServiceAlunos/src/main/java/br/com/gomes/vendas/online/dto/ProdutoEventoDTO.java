@@ -0,0 +1,37 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.dto;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Evento de alteração de produto publicado pelo ProdutoService em
+ * {@code GET /produto/eventos}; só os campos usados para invalidar o cache.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProdutoEventoDTO {
+
+	private String id;
+
+	private String codigo;
+
+	private String codigoAnterior;
+
+	private Instant criadoEm;
+
+}
@@ -0,0 +1,47 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.dto;
+
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+import br.com.gomes.vendas.online.usecase.TopProdutos.Metrica;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Estado de uma janela de {@code TopProdutos} de uma instância: o sketch
+ * somado dos intervalos e os produtos candidatos. Os snapshots de várias
+ * instâncias, com as mesmas dimensões, são mesclados somando os sketches.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TopProdutosSnapshot {
+
+	@NotNull
+	private Metrica metrica;
+
+	private int minutos;
+
+	private int largura;
+
+	private int profundidade;
+
+	private long total;
+
+	@NotNull
+	private long[] contadores;
+
+	@NotNull
+	private List<String> candidatos;
+
+}
@@ -0,0 +1,11 @@
+package br.com.gomes.vendas.online.exception;
+
+public class DeadlineExceededException extends RuntimeException {
+
+	private static final long serialVersionUID = 3183565390164781251L;
+
+	public DeadlineExceededException(String message) {
+		super(message);
+	}
+
+}
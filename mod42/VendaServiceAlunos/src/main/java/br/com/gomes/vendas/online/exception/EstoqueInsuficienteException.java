@@ -0,0 +1,11 @@
+package br.com.gomes.vendas.online.exception;
+
+public class EstoqueInsuficienteException extends RuntimeException {
+
+	private static final long serialVersionUID = 6160468953472095115L;
+
+	public EstoqueInsuficienteException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,141 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.exception;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.server.UnsupportedMediaTypeStatusException;
+
+import br.com.gomes.vendas.online.errorhandling.ApiError;
+
+/**
+ * Equivalente de {@link RestExceptionHandler} para o modo reativo, com as
+ * mesmas respostas de erro.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RestControllerAdvice
+@Profile("reactive")
+public class ReactiveRestExceptionHandler {
+
+	@ExceptionHandler(WebExchangeBindException.class)
+	protected ResponseEntity<Object> handleBindException(WebExchangeBindException ex) {
+		ApiError apiError = new ApiError(BAD_REQUEST);
+		apiError.setMessage("Validation error");
+		apiError.addValidationErrors(ex.getBindingResult().getFieldErrors());
+		apiError.addValidationError(ex.getBindingResult().getGlobalErrors());
+		return buildResponseEntity(apiError);
+	}
+
+	@ExceptionHandler(UnsupportedMediaTypeStatusException.class)
+	protected ResponseEntity<Object> handleUnsupportedMediaType(UnsupportedMediaTypeStatusException ex) {
+		ApiError apiError = new ApiError(HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+		apiError.setMessage(ex.getReason());
+		return buildResponseEntity(apiError);
+	}
+
+	@ExceptionHandler(ServerWebInputException.class)
+	protected ResponseEntity<Object> handleServerWebInput(ServerWebInputException ex) {
+		ApiError apiError = new ApiError(BAD_REQUEST);
+		apiError.setMessage(ex.getReason());
+		return buildResponseEntity(apiError);
+	}
+
+	@ExceptionHandler(javax.validation.ConstraintViolationException.class)
+	protected ResponseEntity<Object> handleConstraintViolation(javax.validation.ConstraintViolationException ex) {
+		ApiError apiError = new ApiError(BAD_REQUEST);
+		apiError.setMessage("Validation error");
+		apiError.addValidationErrors(ex.getConstraintViolations());
+		return buildResponseEntity(apiError);
+	}
+
+	@ExceptionHandler(EntityNotFoundException.class)
+	protected ResponseEntity<Object> handleEntityNotFound(EntityNotFoundException ex) {
+		ApiError apiError = new ApiError(NOT_FOUND);
+		apiError.setMessage(ex.getMessage());
+		return buildResponseEntity(apiError);
+	}
+
+	@ExceptionHandler(BadRequestException.class)
+	protected ResponseEntity<Object> handleBadRequest(BadRequestException ex) {
+		ApiError apiError = new ApiError(BAD_REQUEST);
+		apiError.setMessage(ex.getMessage());
+		return buildResponseEntity(apiError);
+	}
+
+	@ExceptionHandler(UnsupportedOperationException.class)
+	protected ResponseEntity<Object> handleUnsupportedOperationException(UnsupportedOperationException ex) {
+		ApiError apiError = new ApiError(HttpStatus.UNPROCESSABLE_ENTITY);
+		apiError.setMessage(ex.getMessage());
+		return buildResponseEntity(apiError);
+	}
+
+	@ExceptionHandler(DuplicateKeyException.class)
+	protected ResponseEntity<Object> handleDuplicateKeyException(DuplicateKeyException ex) {
+		ApiError apiError = new ApiError(BAD_REQUEST);
+		apiError.setMessage(ex.getMessage());
+		return buildResponseEntity(apiError);
+	}
+
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	protected ResponseEntity<Object> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+		ApiError apiError = new ApiError(HttpStatus.CONFLICT);
+		apiError.setMessage("A venda foi alterada por outra requisição, tente novamente");
+		return buildResponseEntity(apiError);
+	}
+
+	@ExceptionHandler(EstoqueInsuficienteException.class)
+	protected ResponseEntity<Object> handleEstoqueInsuficiente(EstoqueInsuficienteException ex) {
+		ApiError apiError = new ApiError(HttpStatus.CONFLICT);
+		apiError.setMessage(ex.getMessage());
+		return buildResponseEntity(apiError);
+	}
+
+	@ExceptionHandler(ServiceUnavailableException.class)
+	protected ResponseEntity<Object> handleServiceUnavailable(ServiceUnavailableException ex) {
+		ApiError apiError = new ApiError(HttpStatus.SERVICE_UNAVAILABLE);
+		apiError.setMessage(ex.getMessage());
+		return buildResponseEntity(apiError);
+	}
+
+	@ExceptionHandler(WebClientResponseException.NotFound.class)
+	protected ResponseEntity<Object> handleNotFound(WebClientResponseException.NotFound ex) {
+		ApiError apiError = new ApiError(NOT_FOUND);
+		apiError.setMessage(ex.getMessage());
+		return buildResponseEntity(apiError);
+	}
+
+	@ExceptionHandler(WebClientResponseException.BadRequest.class)
+	protected ResponseEntity<Object> handleBadRequest(WebClientResponseException.BadRequest ex) {
+		ApiError apiError = new ApiError(BAD_REQUEST);
+		apiError.setMessage(ex.getMessage());
+		return buildResponseEntity(apiError);
+	}
+
+	@ExceptionHandler(WebClientResponseException.UnprocessableEntity.class)
+	protected ResponseEntity<Object> handleUnprocessableEntity(WebClientResponseException.UnprocessableEntity ex) {
+		ApiError apiError = new ApiError(HttpStatus.UNPROCESSABLE_ENTITY);
+		apiError.setMessage(ex.getMessage());
+		return buildResponseEntity(apiError);
+	}
+
+	private ResponseEntity<Object> buildResponseEntity(ApiError apiError) {
+		return new ResponseEntity<>(apiError, apiError.getStatus());
+	}
+}
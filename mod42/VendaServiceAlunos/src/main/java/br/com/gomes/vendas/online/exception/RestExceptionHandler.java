@@ -6,9 +6,11 @@ package br.com.gomes.vendas.online.exception;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -33,6 +35,7 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Order(Ordered.HIGHEST_PRECEDENCE)
 @ControllerAdvice
+@Profile("!reactive")
 @Slf4j
 public class RestExceptionHandler extends ResponseEntityExceptionHandler {
 	
@@ -160,6 +163,34 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
         return buildResponseEntity(apiError);
     }
     
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    protected ResponseEntity<Object> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        ApiError apiError = new ApiError(HttpStatus.CONFLICT);
+        apiError.setMessage("A venda foi alterada por outra requisição, tente novamente");
+        return buildResponseEntity(apiError);
+    }
+    
+    @ExceptionHandler(EstoqueInsuficienteException.class)
+    protected ResponseEntity<Object> handleEstoqueInsuficiente(EstoqueInsuficienteException ex) {
+        ApiError apiError = new ApiError(HttpStatus.CONFLICT);
+        apiError.setMessage(ex.getMessage());
+        return buildResponseEntity(apiError);
+    }
+    
+    @ExceptionHandler(DeadlineExceededException.class)
+    protected ResponseEntity<Object> handleDeadlineExceeded(DeadlineExceededException ex) {
+        ApiError apiError = new ApiError(HttpStatus.GATEWAY_TIMEOUT);
+        apiError.setMessage(ex.getMessage());
+        return buildResponseEntity(apiError);
+    }
+    
+    @ExceptionHandler(ServiceUnavailableException.class)
+    protected ResponseEntity<Object> handleServiceUnavailable(ServiceUnavailableException ex) {
+        ApiError apiError = new ApiError(HttpStatus.SERVICE_UNAVAILABLE);
+        apiError.setMessage(ex.getMessage());
+        return buildResponseEntity(apiError);
+    }
+    
     @ExceptionHandler(NotFound.class)
     protected ResponseEntity<Object> handleNotFound(NotFound ex) {
         ApiError apiError = new ApiError(NOT_FOUND);
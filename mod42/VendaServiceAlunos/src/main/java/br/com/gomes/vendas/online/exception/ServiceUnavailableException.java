@@ -0,0 +1,11 @@
+package br.com.gomes.vendas.online.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+
+	private static final long serialVersionUID = -2841907345201874213L;
+
+	public ServiceUnavailableException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
@@ -0,0 +1,19 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+import br.com.gomes.vendas.online.domain.ResumoVenda;
+
+/**
+ * @author wendel.gomes
+ *
+ */
+@Repository
+public interface IReactiveResumoVendaRepository
+		extends ReactiveMongoRepository<ResumoVenda, String>, IReactiveResumoVendaRepositoryCustom {
+
+}
@@ -0,0 +1,28 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+
+import br.com.gomes.vendas.online.domain.ResumoVenda;
+import br.com.gomes.vendas.online.domain.ResumoVenda.Granularidade;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Versão reativa de {@link IResumoVendaRepositoryCustom}.
+ *
+ * @author wendel.gomes
+ *
+ */
+public interface IReactiveResumoVendaRepositoryCustom {
+
+	Mono<Void> incrementar(Collection<ResumoVenda> parciais);
+
+	Flux<ResumoVenda> buscar(Granularidade granularidade, Instant de, Instant ate, Status status, String clienteId);
+
+	Mono<Long> remover(Instant de, Instant ate);
+}
@@ -0,0 +1,57 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import com.mongodb.client.result.DeleteResult;
+
+import br.com.gomes.vendas.online.domain.ResumoVenda;
+import br.com.gomes.vendas.online.domain.ResumoVenda.Granularidade;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implementação de {@link IReactiveResumoVendaRepositoryCustom} com o driver
+ * reativo. Sem bulk reativo nesta versão do Spring Data, cada parcial é um
+ * upsert, enviados em paralelo.
+ *
+ * @author wendel.gomes
+ *
+ */
+public class IReactiveResumoVendaRepositoryCustomImpl implements IReactiveResumoVendaRepositoryCustom {
+
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Autowired
+	public IReactiveResumoVendaRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+		this.mongoTemplate = mongoTemplate;
+	}
+
+	@Override
+	public Mono<Void> incrementar(Collection<ResumoVenda> parciais) {
+		return Flux.fromIterable(parciais)
+				.flatMap(parcial -> mongoTemplate.upsert(ResumoVendaUpdates.linha(parcial),
+						ResumoVendaUpdates.incrementar(parcial), ResumoVenda.class))
+				.then();
+	}
+
+	@Override
+	public Flux<ResumoVenda> buscar(Granularidade granularidade, Instant de, Instant ate, Status status,
+			String clienteId) {
+		return mongoTemplate.find(ResumoVendaUpdates.periodo(granularidade, de, ate, status, clienteId),
+				ResumoVenda.class);
+	}
+
+	@Override
+	public Mono<Long> remover(Instant de, Instant ate) {
+		return mongoTemplate.remove(ResumoVendaUpdates.periodo(de, ate), ResumoVenda.class)
+				.map(DeleteResult::getDeletedCount);
+	}
+}
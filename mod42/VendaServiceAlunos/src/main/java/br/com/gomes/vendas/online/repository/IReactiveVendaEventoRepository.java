@@ -0,0 +1,21 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+import br.com.gomes.vendas.online.domain.VendaEvento;
+
+/**
+ * Gravação dos eventos pelo modo reativo; a leitura e a publicação ficam com
+ * o relay, em {@link IVendaEventoRepository}.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Repository
+public interface IReactiveVendaEventoRepository extends ReactiveMongoRepository<VendaEvento, String> {
+
+}
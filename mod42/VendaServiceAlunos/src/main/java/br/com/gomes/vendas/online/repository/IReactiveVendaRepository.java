@@ -0,0 +1,26 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+import br.com.gomes.vendas.online.domain.Venda;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * @author wendel.gomes
+ *
+ */
+@Repository
+public interface IReactiveVendaRepository extends ReactiveMongoRepository<Venda, String>, IReactiveVendaRepositoryCustom {
+
+	Mono<Venda> findByCodigo(String codigo);
+
+	Flux<Venda> findAllBy(Pageable pageable);
+
+	Flux<Venda> findByIdGreaterThan(String id, Pageable pageable);
+}
@@ -0,0 +1,35 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.repository;
+
+import java.time.Instant;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Versão reativa de {@link IVendaRepositoryCustom}: as mesmas atualizações
+ * parciais e atômicas, completando vazio quando nenhuma venda alterável
+ * satisfez a condição.
+ *
+ * @author wendel.gomes
+ *
+ */
+public interface IReactiveVendaRepositoryCustom {
+
+	Mono<Venda> adicionarProduto(String id, Produto produto, Integer quantidade);
+
+	Mono<Venda> removerProduto(String id, String codigoProduto, Integer quantidade);
+
+	Mono<Venda> atualizarStatus(String id, Status status);
+
+	/**
+	 * Vendas do período [de, ate) com o status informado, lidas do cursor
+	 * conforme a demanda do assinante.
+	 */
+	Flux<Venda> exportar(Instant de, Instant ate, Status status);
+}
@@ -0,0 +1,69 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.repository;
+
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implementação de {@link IReactiveVendaRepositoryCustom} com o driver reativo,
+ * usando as mesmas consultas e atualizações de {@link VendaUpdates}.
+ *
+ * @author wendel.gomes
+ *
+ */
+public class IReactiveVendaRepositoryCustomImpl implements IReactiveVendaRepositoryCustom {
+
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Autowired
+	public IReactiveVendaRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+		this.mongoTemplate = mongoTemplate;
+	}
+
+	@Override
+	public Mono<Venda> adicionarProduto(String id, Produto produto, Integer quantidade) {
+		return incrementarLinha(id, produto.getCodigo(), quantidade)
+				.switchIfEmpty(Mono.defer(() -> modificar(VendaUpdates.semProduto(id, produto.getCodigo()),
+						VendaUpdates.incluirLinha(produto, quantidade))))
+				// Outra requisição pode ter incluído a linha entre as duas tentativas.
+				.switchIfEmpty(Mono.defer(() -> incrementarLinha(id, produto.getCodigo(), quantidade)));
+	}
+
+	@Override
+	public Mono<Venda> removerProduto(String id, String codigoProduto, Integer quantidade) {
+		return modificar(VendaUpdates.comQuantidadeMaiorQue(id, codigoProduto, quantidade),
+				VendaUpdates.ajustarLinha(codigoProduto, -quantidade))
+				.switchIfEmpty(Mono.defer(() -> modificar(VendaUpdates.comQuantidadeAte(id, codigoProduto, quantidade),
+						VendaUpdates.excluirLinha(codigoProduto))));
+	}
+
+	@Override
+	public Mono<Venda> atualizarStatus(String id, Status status) {
+		return modificar(VendaUpdates.alteravel(id), VendaUpdates.atualizarStatus(status));
+	}
+
+	@Override
+	public Flux<Venda> exportar(Instant de, Instant ate, Status status) {
+		return mongoTemplate.find(VendaUpdates.exportacao(de, ate, status), Venda.class);
+	}
+
+	private Mono<Venda> incrementarLinha(String id, String codigoProduto, Integer quantidade) {
+		return modificar(VendaUpdates.comProduto(id, codigoProduto), VendaUpdates.ajustarLinha(codigoProduto, quantidade));
+	}
+
+	private Mono<Venda> modificar(Query query, UpdateDefinition update) {
+		return mongoTemplate.findAndModify(query, update, VendaUpdates.RETORNAR_NOVO, Venda.class);
+	}
+}
@@ -0,0 +1,18 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import br.com.gomes.vendas.online.domain.ResumoVenda;
+
+/**
+ * @author wendel.gomes
+ *
+ */
+@Repository
+public interface IResumoVendaRepository extends MongoRepository<ResumoVenda, String>, IResumoVendaRepositoryCustom {
+
+}
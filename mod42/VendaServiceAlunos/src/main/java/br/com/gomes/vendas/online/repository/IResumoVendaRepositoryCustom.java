@@ -0,0 +1,30 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import br.com.gomes.vendas.online.domain.ResumoVenda;
+import br.com.gomes.vendas.online.domain.ResumoVenda.Granularidade;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+
+/**
+ * Incrementos e consultas dos resumos de vendas.
+ *
+ * @author wendel.gomes
+ *
+ */
+public interface IResumoVendaRepositoryCustom {
+
+	/**
+	 * Soma cada parcial à sua linha ($inc com upsert), em um único bulk não ordenado.
+	 */
+	void incrementar(Collection<ResumoVenda> parciais);
+
+	List<ResumoVenda> buscar(Granularidade granularidade, Instant de, Instant ate, Status status, String clienteId);
+
+	long remover(Instant de, Instant ate);
+}
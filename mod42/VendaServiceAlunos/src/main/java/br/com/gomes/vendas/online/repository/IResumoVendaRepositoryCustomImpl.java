@@ -0,0 +1,58 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import br.com.gomes.vendas.online.domain.ResumoVenda;
+import br.com.gomes.vendas.online.domain.ResumoVenda.Granularidade;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+
+/**
+ * Implementação de {@link IResumoVendaRepositoryCustom} com as consultas e os
+ * incrementos de {@link ResumoVendaUpdates}.
+ *
+ * @author wendel.gomes
+ *
+ */
+public class IResumoVendaRepositoryCustomImpl implements IResumoVendaRepositoryCustom {
+
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	public IResumoVendaRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+		this.mongoTemplate = mongoTemplate;
+	}
+
+	@Override
+	public void incrementar(Collection<ResumoVenda> parciais) {
+		if (parciais.isEmpty()) {
+			return;
+		}
+		BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, ResumoVenda.class);
+		for (ResumoVenda parcial : parciais) {
+			bulk.upsert(ResumoVendaUpdates.linha(parcial), ResumoVendaUpdates.incrementar(parcial));
+		}
+		bulk.execute();
+	}
+
+	@Override
+	public List<ResumoVenda> buscar(Granularidade granularidade, Instant de, Instant ate, Status status,
+			String clienteId) {
+		return mongoTemplate.find(ResumoVendaUpdates.periodo(granularidade, de, ate, status, clienteId),
+				ResumoVenda.class);
+	}
+
+	@Override
+	public long remover(Instant de, Instant ate) {
+		return mongoTemplate.remove(ResumoVendaUpdates.periodo(de, ate), ResumoVenda.class).getDeletedCount();
+	}
+}
@@ -0,0 +1,18 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import br.com.gomes.vendas.online.domain.VendaEvento;
+
+/**
+ * @author wendel.gomes
+ *
+ */
+@Repository
+public interface IVendaEventoRepository extends MongoRepository<VendaEvento, String>, IVendaEventoRepositoryCustom {
+
+}
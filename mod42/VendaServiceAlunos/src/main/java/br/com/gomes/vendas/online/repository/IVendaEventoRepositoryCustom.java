@@ -0,0 +1,34 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import br.com.gomes.vendas.online.domain.VendaEvento;
+
+/**
+ * Leitura dos eventos ainda não publicados e controle de qual instância
+ * publica, usados pelo relay da outbox.
+ *
+ * @author wendel.gomes
+ *
+ */
+public interface IVendaEventoRepositoryCustom {
+
+	/**
+	 * Até {@code limite} eventos não publicados, na ordem em que foram gravados.
+	 */
+	List<VendaEvento> pendentes(int limite);
+
+	void marcarPublicados(Collection<String> ids, Instant publicadoEm);
+
+	/**
+	 * Obtém ou renova, por {@code duracao}, a vez de publicar da instância.
+	 * Retorna falso enquanto outra instância tiver uma vez ainda não expirada.
+	 */
+	boolean renovarLease(String instancia, Duration duracao);
+}
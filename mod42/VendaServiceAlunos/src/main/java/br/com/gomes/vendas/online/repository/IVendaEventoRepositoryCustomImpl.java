@@ -0,0 +1,72 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import br.com.gomes.vendas.online.domain.VendaEvento;
+
+/**
+ * Implementação de {@link IVendaEventoRepositoryCustom}. A vez de publicar é um
+ * documento único em {@code venda_outbox_lease}: a instância que o possui o
+ * renova, e as outras só o tomam depois que expira.
+ *
+ * @author wendel.gomes
+ *
+ */
+public class IVendaEventoRepositoryCustomImpl implements IVendaEventoRepositoryCustom {
+
+	private static final String COLECAO_LEASE = "venda_outbox_lease";
+
+	private static final String LEASE = "relay";
+
+	private static final String PUBLICADO_EM = "publicadoEm";
+
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	public IVendaEventoRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+		this.mongoTemplate = mongoTemplate;
+	}
+
+	@Override
+	public List<VendaEvento> pendentes(int limite) {
+		Query query = Query.query(Criteria.where(PUBLICADO_EM).is(null))
+				.with(Sort.by("id"))
+				.limit(limite);
+		return mongoTemplate.find(query, VendaEvento.class);
+	}
+
+	@Override
+	public void marcarPublicados(Collection<String> ids, Instant publicadoEm) {
+		mongoTemplate.updateMulti(Query.query(Criteria.where("id").in(ids)),
+				new Update().set(PUBLICADO_EM, publicadoEm), VendaEvento.class);
+	}
+
+	@Override
+	public boolean renovarLease(String instancia, Duration duracao) {
+		Instant agora = Instant.now();
+		Query query = Query.query(Criteria.where("_id").is(LEASE)
+				.orOperator(Criteria.where("dono").is(instancia), Criteria.where("expiraEm").lt(agora)));
+		Update update = new Update().set("dono", instancia).set("expiraEm", agora.plus(duracao));
+		try {
+			mongoTemplate.upsert(query, update, COLECAO_LEASE);
+			return true;
+		} catch (DuplicateKeyException e) {
+			// O documento existe e pertence a outra instância: o upsert tentou criar outro com o mesmo _id.
+			return false;
+		}
+	}
+}
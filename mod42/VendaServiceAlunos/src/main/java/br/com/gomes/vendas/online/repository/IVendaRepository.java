@@ -3,8 +3,10 @@
  */
 package br.com.gomes.vendas.online.repository;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -15,7 +17,11 @@ import br.com.gomes.vendas.online.domain.Venda;
  *
  */
 @Repository
-public interface IVendaRepository extends MongoRepository<Venda, String>{
+public interface IVendaRepository extends MongoRepository<Venda, String>, IVendaRepositoryCustom {
 
 	Optional<Venda> findByCodigo(String codigo);
+
+	List<Venda> findAllBy(Pageable pageable);
+
+	List<Venda> findByIdGreaterThan(String id, Pageable pageable);
 }
@@ -0,0 +1,39 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.data.util.CloseableIterator;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+
+/**
+ * Atualizações parciais e atômicas do documento de venda e exportação em cursor.
+ *
+ * Todos os métodos de atualização só alteram vendas que ainda podem ser modificadas
+ * (nem CONCLUIDA nem CANCELADA) e retornam vazio quando nenhuma venda
+ * satisfez essa condição.
+ *
+ * @author wendel.gomes
+ *
+ */
+public interface IVendaRepositoryCustom {
+
+	Optional<Venda> adicionarProduto(String id, Produto produto, Integer quantidade);
+
+	Optional<Venda> removerProduto(String id, String codigoProduto, Integer quantidade);
+
+	Optional<Venda> atualizarStatus(String id, Status status);
+
+	/**
+	 * Percorre as vendas do período [de, ate) com o status informado (filtros
+	 * nulos são ignorados) em um cursor do MongoDB, sem carregá-las em memória.
+	 * O iterador deve ser fechado por quem o recebe.
+	 */
+	CloseableIterator<Venda> exportar(Instant de, Instant ate, Status status);
+}
@@ -0,0 +1,78 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.util.CloseableIterator;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+
+/**
+ * Implementação de {@link IVendaRepositoryCustom} com operadores de atualização
+ * do MongoDB ($push, $inc, $set e pipelines de atualização), sem regravar o documento.
+ * As consultas e atualizações ficam em {@link VendaUpdates}.
+ *
+ * @author wendel.gomes
+ *
+ */
+public class IVendaRepositoryCustomImpl implements IVendaRepositoryCustom {
+
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	public IVendaRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+		this.mongoTemplate = mongoTemplate;
+	}
+
+	@Override
+	public Optional<Venda> adicionarProduto(String id, Produto produto, Integer quantidade) {
+		Venda venda = incrementarLinha(id, produto.getCodigo(), quantidade);
+		if (venda == null) {
+			venda = modificar(VendaUpdates.semProduto(id, produto.getCodigo()),
+					VendaUpdates.incluirLinha(produto, quantidade));
+		}
+		if (venda == null) {
+			// Outra requisição pode ter incluído a linha entre as duas tentativas.
+			venda = incrementarLinha(id, produto.getCodigo(), quantidade);
+		}
+		return Optional.ofNullable(venda);
+	}
+
+	@Override
+	public Optional<Venda> removerProduto(String id, String codigoProduto, Integer quantidade) {
+		Venda venda = modificar(VendaUpdates.comQuantidadeMaiorQue(id, codigoProduto, quantidade),
+				VendaUpdates.ajustarLinha(codigoProduto, -quantidade));
+		if (venda == null) {
+			venda = modificar(VendaUpdates.comQuantidadeAte(id, codigoProduto, quantidade),
+					VendaUpdates.excluirLinha(codigoProduto));
+		}
+		return Optional.ofNullable(venda);
+	}
+
+	@Override
+	public Optional<Venda> atualizarStatus(String id, Status status) {
+		return Optional.ofNullable(modificar(VendaUpdates.alteravel(id), VendaUpdates.atualizarStatus(status)));
+	}
+
+	@Override
+	public CloseableIterator<Venda> exportar(Instant de, Instant ate, Status status) {
+		return mongoTemplate.stream(VendaUpdates.exportacao(de, ate, status), Venda.class);
+	}
+
+	private Venda incrementarLinha(String id, String codigoProduto, Integer quantidade) {
+		return modificar(VendaUpdates.comProduto(id, codigoProduto), VendaUpdates.ajustarLinha(codigoProduto, quantidade));
+	}
+
+	private Venda modificar(Query query, UpdateDefinition update) {
+		return mongoTemplate.findAndModify(query, update, VendaUpdates.RETORNAR_NOVO, Venda.class);
+	}
+}
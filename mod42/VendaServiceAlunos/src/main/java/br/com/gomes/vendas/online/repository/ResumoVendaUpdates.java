@@ -0,0 +1,75 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import br.com.gomes.vendas.online.domain.ResumoVenda;
+import br.com.gomes.vendas.online.domain.ResumoVenda.Granularidade;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+
+/**
+ * Consultas e incrementos dos resumos de vendas, compartilhados pelas
+ * implementações bloqueante e reativa do repositório.
+ *
+ * @author wendel.gomes
+ *
+ */
+final class ResumoVendaUpdates {
+
+	private static final String GRANULARIDADE = "granularidade";
+
+	private static final String INICIO = "inicio";
+
+	private static final String STATUS = "status";
+
+	private static final String CLIENTE_ID = "clienteId";
+
+	private ResumoVendaUpdates() {
+	}
+
+	/**
+	 * A linha do resumo pela chave única; usada com upsert, cria a linha com
+	 * os campos da chave quando ela ainda não existe.
+	 */
+	static Query linha(ResumoVenda parcial) {
+		return Query.query(Criteria.where(GRANULARIDADE).is(parcial.getGranularidade())
+				.and(CLIENTE_ID).is(parcial.getClienteId())
+				.and(INICIO).is(parcial.getInicio())
+				.and(STATUS).is(parcial.getStatus()));
+	}
+
+	static Update incrementar(ResumoVenda parcial) {
+		return new Update()
+				.inc("quantidade", parcial.getQuantidade())
+				.inc("valorTotal", parcial.getValorTotal())
+				.inc("itens", parcial.getItens());
+	}
+
+	/**
+	 * Linhas de [de, ate) do cliente (ou do total, com clienteId nulo), pelo
+	 * índice resumo_periodo; status nulo traz todos.
+	 */
+	static Query periodo(Granularidade granularidade, Instant de, Instant ate, Status status, String clienteId) {
+		Criteria criteria = Criteria.where(GRANULARIDADE).is(granularidade)
+				.and(CLIENTE_ID).is(clienteId)
+				.and(INICIO).gte(de).lt(ate);
+		if (status != null) {
+			criteria.and(STATUS).is(status);
+		}
+		return Query.query(criteria).with(Sort.by(INICIO, STATUS));
+	}
+
+	/**
+	 * Todas as linhas, de qualquer granularidade e cliente, que começam em [de, ate).
+	 */
+	static Query periodo(Instant de, Instant ate) {
+		return Query.query(Criteria.where(INICIO).gte(de).lt(ate));
+	}
+}
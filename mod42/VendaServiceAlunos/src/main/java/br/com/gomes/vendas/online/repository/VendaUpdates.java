@@ -0,0 +1,164 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import br.com.gomes.vendas.online.domain.ProdutoQuantidade;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+
+/**
+ * Consultas e atualizações parciais do documento de venda, compartilhadas pelas
+ * implementações bloqueante e reativa do repositório.
+ * Os pipelines exigem MongoDB 4.2 ou superior.
+ *
+ * @author wendel.gomes
+ *
+ */
+final class VendaUpdates {
+
+	static final FindAndModifyOptions RETORNAR_NOVO = FindAndModifyOptions.options().returnNew(true);
+
+	private static final String PRODUTOS = "produtos";
+
+	private static final String CODIGO_PRODUTO = "produto.codigo";
+
+	private static final String QUANTIDADE = "quantidade";
+
+	private static final String VALOR_TOTAL = "valorTotal";
+
+	private static final String STATUS = "status";
+
+	private static final String VERSAO = "versao";
+
+	private static final String DATA_VENDA = "dataVenda";
+
+	/** Documentos trazidos do servidor a cada getMore da exportação. */
+	private static final int LOTE_EXPORTACAO = 1000;
+
+	private VendaUpdates() {
+	}
+
+	static Query alteravel(String id) {
+		return Query.query(criteriaAlteravel(id));
+	}
+
+	static Query comProduto(String id, String codigoProduto) {
+		return Query.query(criteriaAlteravel(id).and(PRODUTOS + "." + CODIGO_PRODUTO).is(codigoProduto));
+	}
+
+	static Query semProduto(String id, String codigoProduto) {
+		return Query.query(criteriaAlteravel(id).and(PRODUTOS + "." + CODIGO_PRODUTO).ne(codigoProduto));
+	}
+
+	static Query comQuantidadeMaiorQue(String id, String codigoProduto, Integer quantidade) {
+		return Query.query(criteriaAlteravel(id).and(PRODUTOS).elemMatch(
+				Criteria.where(CODIGO_PRODUTO).is(codigoProduto).and(QUANTIDADE).gt(quantidade)));
+	}
+
+	static Query comQuantidadeAte(String id, String codigoProduto, Integer quantidade) {
+		return Query.query(criteriaAlteravel(id).and(PRODUTOS).elemMatch(
+				Criteria.where(CODIGO_PRODUTO).is(codigoProduto).and(QUANTIDADE).lte(quantidade)));
+	}
+
+	/**
+	 * Vendas do período [de, ate) com o status informado, em ordem de dataVenda;
+	 * filtros nulos são ignorados. O cursor não expira por inatividade porque o
+	 * ritmo é ditado pelo cliente da exportação; quem o abre deve fechá-lo.
+	 */
+	static Query exportacao(Instant de, Instant ate, Status status) {
+		Criteria criteria = new Criteria();
+		if (de != null || ate != null) {
+			Criteria periodo = criteria.and(DATA_VENDA);
+			if (de != null) {
+				periodo.gte(de);
+			}
+			if (ate != null) {
+				periodo.lt(ate);
+			}
+		}
+		if (status != null) {
+			criteria.and(STATUS).is(status);
+		}
+		return Query.query(criteria)
+				.with(Sort.by(DATA_VENDA))
+				.cursorBatchSize(LOTE_EXPORTACAO)
+				.noCursorTimeout();
+	}
+
+	static Update atualizarStatus(Status status) {
+		return new Update().set(STATUS, status).inc(VERSAO, 1);
+	}
+
+	static Update incluirLinha(Produto produto, Integer quantidade) {
+		BigDecimal valor = produto.getValor().multiply(BigDecimal.valueOf(quantidade));
+		ProdutoQuantidade linha = ProdutoQuantidade.builder()
+				.produto(produto)
+				.quantidade(quantidade)
+				.valorTotal(valor)
+				.build();
+		return new Update()
+				.push(PRODUTOS, linha)
+				.inc(VALOR_TOTAL, valor)
+				.inc(VERSAO, 1);
+	}
+
+	static UpdateDefinition excluirLinha(String codigoProduto) {
+		return AggregationUpdate.from(Arrays.asList(
+				stage("$set", new Document(PRODUTOS, new Document("$filter", new Document()
+						.append("input", "$" + PRODUTOS)
+						.append("as", "p")
+						.append("cond", new Document("$ne", Arrays.asList("$$p." + CODIGO_PRODUTO, codigoProduto)))))),
+				somarValorTotal()));
+	}
+
+	/**
+	 * Soma {@code quantidade} (positiva ou negativa) à linha do produto, usando o valor
+	 * unitário gravado na própria linha, e recalcula o valorTotal da venda.
+	 */
+	static UpdateDefinition ajustarLinha(String codigoProduto, Integer quantidade) {
+		Document linhaAjustada = new Document("$mergeObjects", Arrays.asList("$$p", new Document()
+				.append(QUANTIDADE, new Document("$add", Arrays.asList("$$p." + QUANTIDADE, quantidade)))
+				.append(VALOR_TOTAL, new Document("$add", Arrays.asList("$$p." + VALOR_TOTAL,
+						new Document("$multiply", Arrays.asList("$$p.produto.valor", quantidade)))))));
+		return AggregationUpdate.from(Arrays.asList(
+				stage("$set", new Document(PRODUTOS, new Document("$map", new Document()
+						.append("input", "$" + PRODUTOS)
+						.append("as", "p")
+						.append("in", new Document("$cond", Arrays.asList(
+								new Document("$eq", Arrays.asList("$$p." + CODIGO_PRODUTO, codigoProduto)),
+								linhaAjustada,
+								"$$p")))))),
+				somarValorTotal()));
+	}
+
+	// Recalcula o total e incrementa a versão, invalidando cópias lidas antes desta atualização.
+	private static AggregationOperation somarValorTotal() {
+		return stage("$set", new Document()
+				.append(VALOR_TOTAL, new Document("$sum", "$" + PRODUTOS + "." + VALOR_TOTAL))
+				.append(VERSAO, new Document("$add", Arrays.asList(
+						new Document("$ifNull", Arrays.asList("$" + VERSAO, 0L)), 1L))));
+	}
+
+	private static AggregationOperation stage(String operator, Document document) {
+		return context -> new Document(operator, document);
+	}
+
+	private static Criteria criteriaAlteravel(String id) {
+		return Criteria.where("id").is(id).and(STATUS).nin(Status.CONCLUIDA, Status.CANCELADA);
+	}
+}
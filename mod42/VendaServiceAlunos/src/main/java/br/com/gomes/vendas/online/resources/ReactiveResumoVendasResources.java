@@ -0,0 +1,63 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.resources;
+
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.gomes.vendas.online.domain.ResumoVenda;
+import br.com.gomes.vendas.online.domain.ResumoVenda.Granularidade;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import br.com.gomes.vendas.online.usecase.ReactiveResumoVendas;
+import io.swagger.v3.oas.annotations.Operation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Mesmos endpoints de {@link ResumoVendasResources} no modo reativo (perfil {@code reactive}).
+ *
+ * @author wendel.gomes
+ *
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping(value = "/venda/resumo")
+public class ReactiveResumoVendasResources {
+
+	private ReactiveResumoVendas resumoVendas;
+
+	@Autowired
+	public ReactiveResumoVendasResources(ReactiveResumoVendas resumoVendas) {
+		this.resumoVendas = resumoVendas;
+	}
+
+	@GetMapping
+	@Operation(summary = "Quantidade, valor e itens das vendas por hora ou dia e status, de um cliente ou de todos")
+	public Flux<ResumoVenda> buscar(
+			@RequestParam(name = "granularidade", defaultValue = "DIA") Granularidade granularidade,
+			@RequestParam(name = "de") @DateTimeFormat(iso = ISO.DATE_TIME) Instant de,
+			@RequestParam(name = "ate") @DateTimeFormat(iso = ISO.DATE_TIME) Instant ate,
+			@RequestParam(name = "status", required = false) Status status,
+			@RequestParam(name = "clienteId", required = false) String clienteId) {
+		return resumoVendas.buscar(granularidade, de, ate, status, clienteId);
+	}
+
+	@PostMapping("/reconstruir")
+	@Operation(summary = "Recalcula os resumos do período [de, ate), em dias completos, a partir das vendas")
+	public Mono<ResponseEntity<Long>> reconstruir(
+			@RequestParam(name = "de") @DateTimeFormat(iso = ISO.DATE_TIME) Instant de,
+			@RequestParam(name = "ate") @DateTimeFormat(iso = ISO.DATE_TIME) Instant ate) {
+		return resumoVendas.reconstruir(de, ate).map(ResponseEntity::ok);
+	}
+}
@@ -0,0 +1,108 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.resources;
+
+import java.time.Instant;
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import br.com.gomes.vendas.online.dto.ItemVendaDTO;
+import br.com.gomes.vendas.online.dto.PaginaCursor;
+import br.com.gomes.vendas.online.dto.VendaDTO;
+import br.com.gomes.vendas.online.usecase.ReactiveBuscaVenda;
+import br.com.gomes.vendas.online.usecase.ReactiveCadastroVenda;
+import io.swagger.v3.oas.annotations.Operation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Mesmos endpoints de {@link VendasResources} no modo reativo (perfil {@code reactive}).
+ *
+ * @author wendel.gomes
+ *
+ */
+@RestController
+@Validated
+@Profile("reactive")
+@RequestMapping(value = "/venda")
+public class ReactiveVendasResources {
+
+	private ReactiveBuscaVenda buscaVenda;
+
+	private ReactiveCadastroVenda cadastroVenda;
+
+	@Autowired
+	public ReactiveVendasResources(ReactiveBuscaVenda buscaVenda,
+			ReactiveCadastroVenda cadastroVenda) {
+		this.buscaVenda = buscaVenda;
+		this.cadastroVenda = cadastroVenda;
+	}
+
+	@GetMapping
+	@Operation(summary = "Lista as vendas cadastradas")
+	public Mono<ResponseEntity<Page<Venda>>> buscar(Pageable pageable) {
+		return buscaVenda.buscar(pageable).map(ResponseEntity::ok);
+	}
+
+	@GetMapping(params = "cursor")
+	@Operation(summary = "Lista as vendas por cursor, sem contagem total; informe cursor vazio na primeira página")
+	public Mono<ResponseEntity<PaginaCursor<Venda>>> buscarPorCursor(
+			@RequestParam(name = "cursor") String cursor,
+			@RequestParam(name = "size", required = false) Integer tamanho) {
+		return buscaVenda.buscar(cursor, tamanho).map(ResponseEntity::ok);
+	}
+
+	@GetMapping(value = "/exportar", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	@Operation(summary = "Exporta as vendas em NDJSON, uma por linha, filtradas pelo período [de, ate) e pelo status")
+	public Flux<Venda> exportar(
+			@RequestParam(name = "de", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) Instant de,
+			@RequestParam(name = "ate", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) Instant ate,
+			@RequestParam(name = "status", required = false) Status status) {
+		return buscaVenda.exportar(de, ate, status);
+	}
+
+	@PostMapping
+	@Operation(summary = "Iniciar uma venda")
+	public Mono<ResponseEntity<Venda>> cadastrar(@RequestBody @Valid VendaDTO venda) {
+		return cadastroVenda.cadastrar(venda).map(ResponseEntity::ok);
+	}
+
+	@PutMapping("/{id}/{codigoProduto}/{quantidade}/addProduto")
+	public Mono<ResponseEntity<Venda>> adicionarProduto(
+			@PathVariable(name = "id", required = true) String id,
+			@PathVariable(name = "codigoProduto", required = true) String codigoProduto,
+			@PathVariable(name = "quantidade", required = true) Integer quantidade) {
+		return cadastroVenda.adicionarProduto(id, codigoProduto, quantidade).map(ResponseEntity::ok);
+	}
+
+	@PutMapping("/{id}/addProdutos")
+	@Operation(summary = "Adiciona vários produtos à venda em uma única operação")
+	public Mono<ResponseEntity<Venda>> adicionarProdutos(
+			@PathVariable(name = "id", required = true) String id,
+			@RequestBody @NotEmpty List<@Valid ItemVendaDTO> itens) {
+		return cadastroVenda.adicionarProdutos(id, itens).map(ResponseEntity::ok);
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.resources;
+
+import java.util.List;
+
+import javax.validation.Valid;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.gomes.vendas.online.dto.ProdutoContagem;
+import br.com.gomes.vendas.online.dto.TopProdutosSnapshot;
+import br.com.gomes.vendas.online.usecase.TopProdutos;
+import br.com.gomes.vendas.online.usecase.TopProdutos.Metrica;
+import io.swagger.v3.oas.annotations.Operation;
+
+/**
+ * Sem {@code @Profile}: {@link TopProdutos} não depende do MongoDB e os
+ * mesmos endpoints atendem os modos bloqueante e reativo.
+ *
+ * @author wendel.gomes
+ *
+ */
+@RestController
+@Validated
+@RequestMapping(value = "/venda/top-produtos")
+public class TopProdutosResources {
+
+	private TopProdutos topProdutos;
+
+	@Autowired
+	public TopProdutosResources(TopProdutos topProdutos) {
+		this.topProdutos = topProdutos;
+	}
+
+	@GetMapping
+	@Operation(summary = "Produtos mais adicionados ou mais vendidos nos últimos minutos, nesta instância")
+	public ResponseEntity<List<ProdutoContagem>> top(
+			@RequestParam(name = "metrica", defaultValue = "VENDIDOS") Metrica metrica,
+			@RequestParam(name = "minutos", defaultValue = "60") int minutos,
+			@RequestParam(name = "n", defaultValue = "10") int n) {
+		return ResponseEntity.ok(topProdutos.top(metrica, minutos, n));
+	}
+
+	@GetMapping("/snapshot")
+	@Operation(summary = "Sketch e candidatos da janela, para mesclar com os das outras instâncias")
+	public ResponseEntity<TopProdutosSnapshot> snapshot(
+			@RequestParam(name = "metrica", defaultValue = "VENDIDOS") Metrica metrica,
+			@RequestParam(name = "minutos", defaultValue = "60") int minutos) {
+		return ResponseEntity.ok(topProdutos.snapshot(metrica, minutos));
+	}
+
+	@PostMapping("/mesclar")
+	@Operation(summary = "Produtos mais adicionados ou vendidos somando os snapshots de várias instâncias")
+	public ResponseEntity<List<ProdutoContagem>> mesclar(
+			@RequestBody List<@Valid TopProdutosSnapshot> snapshots,
+			@RequestParam(name = "n", defaultValue = "10") int n) {
+		return ResponseEntity.ok(topProdutos.mesclar(snapshots, n));
+	}
+}
@@ -0,0 +1,44 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.resources;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.gomes.vendas.online.domain.VendaEvento;
+import br.com.gomes.vendas.online.service.MemoriaVendaEventoSink;
+import io.swagger.v3.oas.annotations.Operation;
+
+/**
+ * Disponível apenas com o destino em memória ({@code application.outbox.sink=memoria}),
+ * para acompanhar localmente os eventos publicados pelo relay.
+ *
+ * @author wendel.gomes
+ *
+ */
+@RestController
+@ConditionalOnProperty(name = "application.outbox.sink", havingValue = "memoria", matchIfMissing = true)
+@RequestMapping(value = "/venda/eventos")
+public class VendaEventosResources {
+
+	private MemoriaVendaEventoSink sink;
+
+	@Autowired
+	public VendaEventosResources(MemoriaVendaEventoSink sink) {
+		this.sink = sink;
+	}
+
+	@GetMapping
+	@Operation(summary = "Últimos eventos de venda publicados pelo relay da outbox nesta instância")
+	public ResponseEntity<List<VendaEvento>> ultimos(@RequestParam(name = "n", defaultValue = "100") int n) {
+		return ResponseEntity.ok(sink.ultimos(n));
+	}
+}
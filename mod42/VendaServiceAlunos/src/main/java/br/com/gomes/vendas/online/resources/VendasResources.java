@@ -3,22 +3,45 @@
  */
 package br.com.gomes.vendas.online.resources;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import br.com.gomes.vendas.online.dto.ItemVendaDTO;
+import br.com.gomes.vendas.online.dto.PaginaCursor;
 import br.com.gomes.vendas.online.dto.VendaDTO;
 import br.com.gomes.vendas.online.usecase.BuscaVenda;
 import br.com.gomes.vendas.online.usecase.CadastroVenda;
@@ -33,18 +56,30 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
  *
  */
 @RestController
+@Profile("!reactive")
+@Validated
 @RequestMapping(value = "/venda")
 public class VendasResources {
 
+	private static final Logger logger = LoggerFactory.getLogger(VendasResources.class);
+
 	private BuscaVenda buscaVenda;
 	
 	private CadastroVenda cadastroVenda;
 	
+	private AsyncTaskExecutor taskExecutor;
+	
+	private Duration exportacaoTimeout;
+	
 	@Autowired
 	public VendasResources(BuscaVenda buscaVenda,
-			CadastroVenda cadastroVenda) {
+			CadastroVenda cadastroVenda,
+			@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) AsyncTaskExecutor taskExecutor,
+			@Value("${application.venda.exportacao.timeout:2h}") Duration exportacaoTimeout) {
 		this.buscaVenda = buscaVenda;
 		this.cadastroVenda = cadastroVenda;
+		this.taskExecutor = taskExecutor;
+		this.exportacaoTimeout = exportacaoTimeout;
 	}
 	
 	@GetMapping
@@ -59,6 +94,38 @@ public class VendasResources {
 	public ResponseEntity<Page<Venda>> buscar(Pageable pageable) {
 		return ResponseEntity.ok(buscaVenda.buscar(pageable));
 	}
+
+	@GetMapping(params = "cursor")
+	@Operation(summary = "Lista as vendas por cursor, sem contagem total; informe cursor vazio na primeira página")
+	public ResponseEntity<PaginaCursor<Venda>> buscarPorCursor(
+			@RequestParam(name = "cursor") String cursor,
+			@RequestParam(name = "size", required = false) Integer tamanho) {
+		return ResponseEntity.ok(buscaVenda.buscar(cursor, tamanho));
+	}
+	
+	@GetMapping(value = "/exportar")
+	@Operation(summary = "Exporta as vendas em NDJSON, uma por linha, filtradas pelo período [de, ate) e pelo status")
+	public ResponseEntity<ResponseBodyEmitter> exportar(
+			@RequestParam(name = "de", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) Instant de,
+			@RequestParam(name = "ate", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) Instant ate,
+			@RequestParam(name = "status", required = false) Status status) {
+		// Validado antes de iniciar a resposta, que a partir daí só pode conter NDJSON.
+		buscaVenda.validarPeriodo(de, ate);
+		// O prazo vale só para esta resposta; as demais requisições assíncronas mantêm o padrão do servidor.
+		ResponseBodyEmitter emitter = new ResponseBodyEmitter(exportacaoTimeout.toMillis());
+		taskExecutor.execute(() -> {
+			try {
+				buscaVenda.exportar(de, ate, status, new SaidaEmitter(emitter));
+				emitter.complete();
+			} catch (Exception e) {
+				logger.warn("EXPORTAÇÃO INTERROMPIDA: {}", e.getMessage());
+				emitter.completeWithError(e);
+			}
+		});
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(emitter);
+	}
 	
 	@PostMapping
 	@Operation(summary = "Iniciar uma venda")
@@ -73,4 +140,36 @@ public class VendasResources {
 			@PathVariable(name = "quantidade", required = true) Integer quantidade) {
 		return ResponseEntity.ok(cadastroVenda.adicionarProduto(id, codigoProduto, quantidade));
 	}
+	
+	@PutMapping("/{id}/addProdutos")
+	@Operation(summary = "Adiciona vários produtos à venda em uma única operação")
+	public ResponseEntity<Venda> adicionarProdutos(
+			@PathVariable(name = "id", required = true) String id,
+			@RequestBody @NotEmpty List<@Valid ItemVendaDTO> itens) {
+		return ResponseEntity.ok(cadastroVenda.adicionarProdutos(id, itens));
+	}
+
+	/**
+	 * Repassa ao emitter os blocos já montados pelo gerador JSON da exportação.
+	 */
+	private static final class SaidaEmitter extends OutputStream {
+
+		private final ResponseBodyEmitter emitter;
+
+		private SaidaEmitter(ResponseBodyEmitter emitter) {
+			this.emitter = emitter;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (len > 0) {
+				emitter.send(Arrays.copyOfRange(b, off, off + len), MediaType.APPLICATION_NDJSON);
+			}
+		}
+	}
 }
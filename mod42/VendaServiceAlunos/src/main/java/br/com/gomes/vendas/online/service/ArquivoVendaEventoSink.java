@@ -0,0 +1,81 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.gomes.vendas.online.domain.VendaEvento;
+
+/**
+ * Acrescenta os eventos publicados ao arquivo {@code application.outbox.arquivo},
+ * um evento JSON por linha (NDJSON).
+ *
+ * @author wendel.gomes
+ *
+ */
+@Service
+@ConditionalOnProperty(name = "application.outbox.sink", havingValue = "arquivo")
+public class ArquivoVendaEventoSink implements VendaEventoSink {
+
+	private static final Logger logger = LoggerFactory.getLogger(ArquivoVendaEventoSink.class);
+
+	private final ObjectMapper objectMapper;
+
+	private final OutputStream saida;
+
+	@Autowired
+	public ArquivoVendaEventoSink(ObjectMapper objectMapper,
+			@Value("${application.outbox.arquivo:venda-eventos.ndjson}") String arquivo) {
+		this.objectMapper = objectMapper.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		Path caminho = Paths.get(arquivo);
+		try {
+			if (caminho.getParent() != null) {
+				Files.createDirectories(caminho.getParent());
+			}
+			this.saida = new BufferedOutputStream(Files.newOutputStream(caminho,
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+		} catch (IOException e) {
+			throw new UncheckedIOException("NÃO FOI POSSÍVEL ABRIR O ARQUIVO DE EVENTOS " + arquivo, e);
+		}
+		logger.info("EVENTOS DE VENDA PUBLICADOS NO ARQUIVO {}", caminho.toAbsolutePath());
+	}
+
+	@Override
+	public synchronized void publicar(List<VendaEvento> eventos) {
+		try {
+			for (VendaEvento evento : eventos) {
+				objectMapper.writeValue(saida, evento);
+				saida.write('\n');
+			}
+			saida.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException("ERRO AO GRAVAR EVENTOS DE VENDA", e);
+		}
+	}
+
+	@PreDestroy
+	public synchronized void close() throws IOException {
+		saida.close();
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+/**
+ * Filtro de Bloom simples para chaves texto. Pode retornar falso positivo,
+ * nunca falso negativo para chaves adicionadas.
+ *
+ * @author wendel.gomes
+ *
+ */
+public class BloomFilter {
+
+	private final BitSet bits;
+
+	private final int numBits;
+
+	private final int numHashes;
+
+	public BloomFilter(long expectedInsertions, double fpp) {
+		long n = Math.max(1, expectedInsertions);
+		long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+		this.numBits = (int) Math.min(Integer.MAX_VALUE - 1, Math.max(64, m));
+		this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+		this.bits = new BitSet(numBits);
+	}
+
+	public void put(String value) {
+		long hash = hash(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= numHashes; i++) {
+			bits.set(index(h1 + i * h2));
+		}
+	}
+
+	public boolean mightContain(String value) {
+		long hash = hash(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= numHashes; i++) {
+			if (!bits.get(index(h1 + i * h2))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int index(int combinedHash) {
+		return (combinedHash & Integer.MAX_VALUE) % numBits;
+	}
+
+	// FNV-1a 64 bits seguido do finalizador do MurmurHash3 para espalhar os bits.
+	static long hash(String value) {
+		long h = 0xcbf29ce484222325L;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			h ^= b;
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -1,17 +1,32 @@
 /**
- * 
+ *
  */
 package br.com.gomes.vendas.online.service;
 
+import java.time.Duration;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Getter;
+import lombok.Setter;
+
 /**
  * @author wendel.gomes
  *
@@ -19,23 +34,137 @@ import org.springframework.stereotype.Service;
 @Service
 public class ClienteService {
 
+	private static final Logger logger = LoggerFactory.getLogger(ClienteService.class);
+
+	private static final String DEPENDENCIA = "cliente";
+
 	@Value("${application.clienteService.endpointConsultarCliente}")
 	private String urlEndpointConsultarCliente;
-	
+
+	@Value("${application.clienteService.endpointListarIds:}")
+	private String urlEndpointListarIds;
+
+	@Value("${application.clienteService.bloomFilter.enabled:false}")
+	private boolean bloomFilterEnabled;
+
+	@Value("${application.clienteService.bloomFilter.fpp:0.01}")
+	private double bloomFilterFpp;
+
+	@Value("${application.clienteService.bloomFilter.pageSize:5000}")
+	private int bloomFilterPageSize;
+
 	private RestUtils restUtils;
-	
+
+	private ResilienceGuard resilienceGuard;
+
+	private Cache<String, Boolean> clientesConfirmados;
+
+	private volatile BloomFilter bloomFilter;
+
+	private Counter rejeitadosBloomFilter;
+
 	@Autowired
-	public ClienteService(RestUtils restUtils) {
+	public ClienteService(RestUtils restUtils,
+			ResilienceGuard resilienceGuard,
+			MeterRegistry meterRegistry,
+			@Value("${application.clienteService.cache.maximumSize:50000}") long maximumSize,
+			@Value("${application.clienteService.cache.ttl:10m}") Duration ttl) {
 		this.restUtils = restUtils;
+		this.resilienceGuard = resilienceGuard;
+		this.clientesConfirmados = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, clientesConfirmados, "cliente");
+		this.rejeitadosBloomFilter = meterRegistry.counter("cliente.bloomfilter.rejeitados");
 	}
 
 	public Boolean isClienteCadastrado(String clienteId) {
+		Optional<Boolean> local = consultarLocalmente(clienteId);
+		if (local.isPresent()) {
+			return local.get();
+		}
 		RestRequest restRequest = new RestRequest(HttpMethod.GET, null);
 		restRequest.setContentType(MediaType.APPLICATION_JSON);
 		restRequest.setAcceptable(Collections.singletonList(MediaType.APPLICATION_JSON));
-		String urlComParam = urlEndpointConsultarCliente.replace("{id}", clienteId);
-		ResponseEntity<Boolean> response = restUtils.execute(urlComParam, restRequest, Boolean.class);
-		return response.getBody();
+		// Sem resposta do ClienteService não há como confirmar um cliente novo: os já
+		// confirmados foram respondidos pelo cache acima, então não há fallback.
+		Boolean cadastrado = resilienceGuard.executar(DEPENDENCIA,
+				() -> restUtils.execute(urlEndpointConsultarCliente, restRequest, Boolean.class, clienteId).getBody(),
+				Optional::empty);
+		registrarConsulta(clienteId, cadastrado);
+		return cadastrado;
+	}
+
+	/**
+	 * Responde pelo cache de clientes confirmados ou pelo filtro de Bloom, sem
+	 * acessar o ClienteService; vazio quando a consulta remota é necessária.
+	 */
+	public Optional<Boolean> consultarLocalmente(String clienteId) {
+		if (clientesConfirmados.getIfPresent(clienteId) != null) {
+			return Optional.of(Boolean.TRUE);
+		}
+		BloomFilter filtro = this.bloomFilter;
+		if (bloomFilterEnabled && filtro != null && !filtro.mightContain(clienteId)) {
+			rejeitadosBloomFilter.increment();
+			return Optional.of(Boolean.FALSE);
+		}
+		return Optional.empty();
+	}
+
+	public void registrarConsulta(String clienteId, Boolean cadastrado) {
+		if (Boolean.TRUE.equals(cadastrado)) {
+			clientesConfirmados.put(clienteId, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Recarrega o filtro de Bloom com todos os ids cadastrados no ClienteService.
+	 * Clientes cadastrados depois da última carga são rejeitados até a próxima,
+	 * por isso o intervalo deve ser curto o suficiente para o negócio.
+	 */
+	@Scheduled(fixedDelayString = "${application.clienteService.bloomFilter.refreshInterval:PT10M}")
+	public void atualizarBloomFilter() {
+		if (!bloomFilterEnabled || urlEndpointListarIds.isEmpty()) {
+			return;
+		}
+		try {
+			PaginaIds pagina = buscarPaginaIds(0);
+			BloomFilter filtro = new BloomFilter(pagina.getTotalElements(), bloomFilterFpp);
+			int page = 0;
+			while (true) {
+				pagina.getContent().forEach(filtro::put);
+				if (pagina.isLast() || pagina.getContent().isEmpty()) {
+					break;
+				}
+				pagina = buscarPaginaIds(++page);
+			}
+			this.bloomFilter = filtro;
+			logger.info("FILTRO DE CLIENTES ATUALIZADO COM {} IDS", pagina.getTotalElements());
+		} catch (Exception e) {
+			// Mantém o filtro anterior (ou nenhum), o que apenas desvia as consultas para o ClienteService.
+			logger.error("ERRO AO ATUALIZAR FILTRO DE CLIENTES - {}", e.getMessage());
+		}
+	}
+
+	private PaginaIds buscarPaginaIds(int page) {
+		RestRequest restRequest = new RestRequest(HttpMethod.GET, null);
+		restRequest.setAcceptable(Collections.singletonList(MediaType.APPLICATION_JSON));
+		String url = urlEndpointListarIds + "?page={page}&size={size}";
+		return restUtils.execute(url, restRequest, PaginaIds.class, page, bloomFilterPageSize).getBody();
+	}
+
+	@Getter
+	@Setter
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	static class PaginaIds {
+
+		private List<String> content = Collections.emptyList();
+
+		private long totalElements;
+
+		private boolean last = true;
 	}
 
 }
@@ -0,0 +1,107 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.service;
+
+import java.util.Arrays;
+
+/**
+ * Count-Min Sketch para chaves texto: conta ocorrências em memória fixa
+ * ({@code largura x profundidade} contadores). A estimativa nunca fica abaixo
+ * da contagem real e, com probabilidade 1 - e^-profundidade, excede-a em no
+ * máximo e/largura do total adicionado.
+ *
+ * Sketches com as mesmas dimensões podem ser somados, por exemplo os de
+ * várias instâncias ou de vários intervalos.
+ *
+ * @author wendel.gomes
+ *
+ */
+public class CountMinSketch {
+
+	private final int largura;
+
+	private final int profundidade;
+
+	private final long[] contadores;
+
+	private long total;
+
+	public CountMinSketch(int largura, int profundidade) {
+		this(largura, profundidade, new long[largura * profundidade], 0);
+	}
+
+	public CountMinSketch(int largura, int profundidade, long[] contadores, long total) {
+		if (largura < 1 || profundidade < 1 || contadores.length != (long) largura * profundidade) {
+			throw new IllegalArgumentException("DIMENSÕES INVÁLIDAS DO SKETCH: " + largura + "x" + profundidade);
+		}
+		this.largura = largura;
+		this.profundidade = profundidade;
+		this.contadores = contadores;
+		this.total = total;
+	}
+
+	/**
+	 * @return a nova estimativa da chave.
+	 */
+	public long add(String value, long count) {
+		long hash = BloomFilter.hash(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		long estimativa = Long.MAX_VALUE;
+		for (int linha = 0; linha < profundidade; linha++) {
+			int i = index(linha, h1 + (linha + 1) * h2);
+			contadores[i] += count;
+			estimativa = Math.min(estimativa, contadores[i]);
+		}
+		total += count;
+		return estimativa;
+	}
+
+	public long estimate(String value) {
+		long hash = BloomFilter.hash(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		long estimativa = Long.MAX_VALUE;
+		for (int linha = 0; linha < profundidade; linha++) {
+			estimativa = Math.min(estimativa, contadores[index(linha, h1 + (linha + 1) * h2)]);
+		}
+		return estimativa;
+	}
+
+	public void merge(CountMinSketch outro) {
+		if (outro.largura != largura || outro.profundidade != profundidade) {
+			throw new IllegalArgumentException("SKETCHES COM DIMENSÕES DIFERENTES: " + largura + "x" + profundidade
+					+ " E " + outro.largura + "x" + outro.profundidade);
+		}
+		for (int i = 0; i < contadores.length; i++) {
+			contadores[i] += outro.contadores[i];
+		}
+		total += outro.total;
+	}
+
+	public void clear() {
+		Arrays.fill(contadores, 0);
+		total = 0;
+	}
+
+	public int getLargura() {
+		return largura;
+	}
+
+	public int getProfundidade() {
+		return profundidade;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public long[] getContadores() {
+		return contadores.clone();
+	}
+
+	private int index(int linha, int combinedHash) {
+		return linha * largura + (combinedHash & Integer.MAX_VALUE) % largura;
+	}
+}
@@ -0,0 +1,166 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.dto.ItemVendaDTO;
+import br.com.gomes.vendas.online.exception.EstoqueInsuficienteException;
+import br.com.gomes.vendas.online.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Reservas de estoque no ProdutoService ({@code /produto/estoque/reservas}).
+ * As reservas são feitas antes de a venda ser alterada, confirmadas antes de
+ * ela ser concluída e liberadas antes de ser cancelada: sem resposta do
+ * ProdutoService a operação falha, para não vender além do estoque. As
+ * chamadas passam pelo {@link ResilienceGuard} (dependência {@code estoque}).
+ * Confirmar e liberar são idempotentes no ProdutoService e podem ser
+ * repetidas; reservar não é: cada chamada soma a quantidade à reserva do
+ * produto, por isso nunca é repetida automaticamente.
+ *
+ * Só a liberação parcial, feita depois de o produto sair da venda, não
+ * interrompe a operação: a falha é contada em {@code venda.estoque.falhas}.
+ * Como uma reserva abandonada por timeout ainda pode ser aplicada pelo
+ * ProdutoService, e uma liberação pode falhar, a confirmação envia as linhas
+ * finais da venda: só elas são contadas como vendidas.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Service
+@Profile("!reactive")
+public class EstoqueService {
+
+	private static final Logger logger = LoggerFactory.getLogger(EstoqueService.class);
+
+	static final String VENDA_FINALIZADA = "IMPOSSÍVEL ALTERAR VENDA FINALIZADA OU CANCELADA";
+
+	private static final String DEPENDENCIA = "estoque";
+
+	static final String SEM_ESTOQUE_PARA_CONCLUIR = "ESTOQUE INSUFICIENTE PARA CONCLUIR A VENDA";
+
+	private RestUtils restUtils;
+
+	private ResilienceGuard resilienceGuard;
+
+	private MeterRegistry meterRegistry;
+
+	private boolean enabled;
+
+	private String urlEndpointEstoque;
+
+	@Autowired
+	public EstoqueService(RestUtils restUtils,
+			ResilienceGuard resilienceGuard,
+			MeterRegistry meterRegistry,
+			@Value("${application.produtoService.estoque.enabled:false}") boolean enabled,
+			@Value("${application.produtoService.estoque.endpoint:}") String urlEndpointEstoque) {
+		this.restUtils = restUtils;
+		this.resilienceGuard = resilienceGuard;
+		this.meterRegistry = meterRegistry;
+		this.enabled = enabled && !urlEndpointEstoque.isEmpty();
+		this.urlEndpointEstoque = urlEndpointEstoque;
+	}
+
+	public void reservar(String vendaId, List<ItemVendaDTO> itens) {
+		if (!enabled) {
+			return;
+		}
+		try {
+			executar("/reservas/{vendaId}", itens, vendaId);
+		} catch (HttpClientErrorException.Conflict e) {
+			throw new EstoqueInsuficienteException(mensagemInsuficiente(itens));
+		} catch (HttpClientErrorException.BadRequest e) {
+			// O ProdutoService só recusa a reserva de produto já confirmado, ou seja, de venda concluída.
+			throw new UnsupportedOperationException(VENDA_FINALIZADA);
+		} catch (ServiceUnavailableException e) {
+			// Sem resposta, a reserva pode ter sido aplicada mesmo assim: a venda não será alterada, então é desfeita.
+			itens.forEach(item -> liberar(vendaId, item.getCodigoProduto(), item.getQuantidade()));
+			throw e;
+		}
+	}
+
+	/**
+	 * Confirma as reservas pelas linhas da venda: o ProdutoService confirma de
+	 * cada produto só a quantidade vendida, devolve ao saldo o que foi
+	 * reservado além dela e reserva o que faltar, inclusive reservas expiradas.
+	 * Sem estoque para isso (409), a venda não pode ser concluída.
+	 */
+	public void confirmar(Venda venda) {
+		if (!enabled) {
+			return;
+		}
+		try {
+			executar("/reservas/{vendaId}/confirmar", linhas(venda), venda.getId());
+		} catch (HttpClientErrorException.Conflict e) {
+			throw new EstoqueInsuficienteException(SEM_ESTOQUE_PARA_CONCLUIR);
+		}
+	}
+
+	public void liberar(String vendaId) {
+		if (enabled) {
+			executar("/reservas/{vendaId}/liberar", null, vendaId);
+		}
+	}
+
+	/**
+	 * Libera parte da reserva de um produto sem propagar falhas; usada depois
+	 * que a venda já foi alterada, quando não há o que desfazer.
+	 */
+	public void liberar(String vendaId, String codigoProduto, Integer quantidade) {
+		if (!enabled) {
+			return;
+		}
+		try {
+			executar("/reservas/{vendaId}/liberar?codigoProduto={codigoProduto}&quantidade={quantidade}", null,
+					vendaId, codigoProduto, quantidade);
+		} catch (RuntimeException e) {
+			meterRegistry.counter("venda.estoque.falhas", "operacao", "liberar").increment();
+			logger.error("ERRO AO LIBERAR {} UNIDADES DO PRODUTO {} DA VENDA {} - {}",
+					quantidade, codigoProduto, vendaId, e.getMessage());
+		}
+	}
+
+	static List<ItemVendaDTO> linhas(Venda venda) {
+		return venda.getProdutos().stream()
+				.filter(linha -> linha.getQuantidade() > 0)
+				.map(linha -> new ItemVendaDTO(linha.getProduto().getCodigo(), linha.getQuantidade()))
+				.collect(Collectors.toList());
+	}
+
+	static String mensagemInsuficiente(List<ItemVendaDTO> itens) {
+		return "ESTOQUE INSUFICIENTE PARA " + itens.stream()
+				.map(item -> item.getQuantidade() + " x " + item.getCodigoProduto())
+				.collect(Collectors.joining(", "));
+	}
+
+	/**
+	 * Erros 4xx são propagados como vieram; sem resposta do ProdutoService
+	 * não há fallback e o guard lança ServiceUnavailableException.
+	 */
+	private void executar(String caminho, Object body, Object... uriVariables) {
+		RestRequest restRequest = new RestRequest(HttpMethod.POST, body);
+		restRequest.setContentType(MediaType.APPLICATION_JSON);
+		restRequest.setAcceptable(Collections.singletonList(MediaType.APPLICATION_JSON));
+		resilienceGuard.executar(DEPENDENCIA,
+				() -> restUtils.execute(urlEndpointEstoque + caminho, restRequest, String.class, uriVariables),
+				Optional::empty);
+	}
+
+}
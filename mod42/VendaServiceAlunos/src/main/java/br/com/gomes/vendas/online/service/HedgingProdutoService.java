@@ -0,0 +1,358 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.openfeign.FeignClientBuilder;
+import org.springframework.cloud.sleuth.CurrentTraceContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Service;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Hedging opcional ({@code application.produtoService.hedging.enabled=true}) da
+ * consulta de um produto: se a resposta passar do percentil {@code percentile}
+ * das latências recentes, uma segunda consulta é enviada a outra instância do
+ * ProdutoService ({@code hedging.urls}, ou a mesma URL se não houver outras) e
+ * vale a primeira que responder com sucesso.
+ *
+ * As consultas extras ficam limitadas a {@code budgetPercent}% das consultas
+ * feitas. As consultas em lote não são duplicadas.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Service(HedgingProdutoService.BEAN_NAME)
+public class HedgingProdutoService implements IProdutoService {
+
+	public static final String BEAN_NAME = "hedgingProdutoService";
+
+	// Acúmulo máximo de consultas extras, para que um período calmo não libere uma rajada delas.
+	private static final long SALDO_MAXIMO = 10 * 1000L;
+
+	private IProdutoService primario;
+
+	private List<IProdutoService> alternativos;
+
+	private boolean enabled;
+
+	private double percentile;
+
+	private long minDelayNanos;
+
+	private int minSamples;
+
+	private long creditoPorConsulta;
+
+	private LatencyWindow latencias;
+
+	private AtomicLong saldo = new AtomicLong(SALDO_MAXIMO);
+
+	private AtomicInteger proximoAlternativo = new AtomicInteger();
+
+	private ThreadPoolExecutor executor;
+
+	private Executor submissor;
+
+	private Counter consultas;
+
+	private Counter disparados;
+
+	private Counter vitorias;
+
+	private Counter semOrcamento;
+
+	@Autowired
+	public HedgingProdutoService(@Qualifier(IProdutoService.FEIGN_CLIENT) IProdutoService primario,
+			ApplicationContext applicationContext,
+			MeterRegistry meterRegistry,
+			ObjectProvider<CurrentTraceContext> currentTraceContext,
+			@Value("${application.produtoService.hedging.enabled:false}") boolean enabled,
+			@Value("${application.produtoService.hedging.urls:}") String[] urls,
+			@Value("${application.produtoService.hedging.percentile:0.95}") double percentile,
+			@Value("${application.produtoService.hedging.minDelay:20ms}") Duration minDelay,
+			@Value("${application.produtoService.hedging.minSamples:100}") int minSamples,
+			@Value("${application.produtoService.hedging.windowSize:1000}") int windowSize,
+			@Value("${application.produtoService.hedging.budgetPercent:5}") double budgetPercent,
+			@Value("${application.produtoService.hedging.maxConcurrentCalls:32}") int maxConcurrentCalls) {
+		this(primario, alternativos(primario, applicationContext, enabled, urls), meterRegistry, enabled,
+				percentile, minDelay, minSamples, windowSize, budgetPercent, maxConcurrentCalls);
+		if (enabled) {
+			// As duas consultas aparecem como spans da mesma requisição.
+			currentTraceContext.ifAvailable(tracing -> this.submissor = tracing.wrap((Executor) executor));
+		}
+	}
+
+	public HedgingProdutoService(IProdutoService primario, List<IProdutoService> alternativos,
+			MeterRegistry meterRegistry, boolean enabled, double percentile, Duration minDelay, int minSamples,
+			int windowSize, double budgetPercent, int maxConcurrentCalls) {
+		this.primario = primario;
+		this.alternativos = alternativos.isEmpty() ? Collections.singletonList(primario) : alternativos;
+		this.enabled = enabled;
+		this.percentile = percentile;
+		this.minDelayNanos = minDelay.toNanos();
+		this.minSamples = minSamples;
+		this.creditoPorConsulta = Math.round(budgetPercent * 10);
+		this.latencias = new LatencyWindow(windowSize);
+		if (!enabled) {
+			return;
+		}
+		this.executor = new ThreadPoolExecutor(0, maxConcurrentCalls, 60, TimeUnit.SECONDS,
+				new SynchronousQueue<>(), threadFactory());
+		this.submissor = executor;
+		new ExecutorServiceMetrics(executor, "produto.hedge", Tags.empty()).bindTo(meterRegistry);
+		this.consultas = meterRegistry.counter("produto.hedge.consultas");
+		this.disparados = meterRegistry.counter("produto.hedge.disparados");
+		this.vitorias = meterRegistry.counter("produto.hedge.vitorias");
+		this.semOrcamento = meterRegistry.counter("produto.hedge.semOrcamento");
+		Gauge.builder("produto.hedge.taxa", this, HedgingProdutoService::taxa)
+				.description("Consultas extras por consulta de produto")
+				.register(meterRegistry);
+		Gauge.builder("produto.hedge.limiar", this, hedging -> hedging.limiarNanos() / 1e6)
+				.description("Espera, em ms, antes de enviar a consulta extra")
+				.register(meterRegistry);
+	}
+
+	@Override
+	public Produto buscarProduto(String codigoProduto) {
+		if (!enabled) {
+			return primario.buscarProduto(codigoProduto);
+		}
+		consultas.increment();
+		creditar();
+		Resultado resultado = new Resultado();
+		if (!enviar(primario, codigoProduto, resultado, false)) {
+			return primario.buscarProduto(codigoProduto);
+		}
+		long limiar = limiarNanos();
+		if (limiar > 0 && !respondeuEm(resultado, limiar)) {
+			disparar(codigoProduto, resultado);
+		}
+		return aguardar(resultado);
+	}
+
+	@Override
+	public List<Produto> buscarProdutos(Collection<String> codigosProdutos) {
+		return primario.buscarProdutos(codigosProdutos);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	private void disparar(String codigoProduto, Resultado resultado) {
+		if (!consumirSaldo()) {
+			semOrcamento.increment();
+			return;
+		}
+		IProdutoService alternativo = alternativos.get(Math.floorMod(proximoAlternativo.getAndIncrement(), alternativos.size()));
+		if (enviar(alternativo, codigoProduto, resultado, true)) {
+			disparados.increment();
+		} else {
+			saldo.addAndGet(1000);
+		}
+	}
+
+	/**
+	 * Executa a consulta no pool; falso se não houver thread livre.
+	 */
+	private boolean enviar(IProdutoService produtoService, String codigoProduto, Resultado resultado, boolean extra) {
+		resultado.pendentes.incrementAndGet();
+		try {
+			submissor.execute(() -> {
+				long inicio = System.nanoTime();
+				try {
+					Produto produto = produtoService.buscarProduto(codigoProduto);
+					latencias.registrar(System.nanoTime() - inicio);
+					if (resultado.futuro.complete(produto) && extra) {
+						vitorias.increment();
+					}
+				} catch (RuntimeException e) {
+					latencias.registrar(System.nanoTime() - inicio);
+					resultado.falhou(e);
+				}
+			});
+			return true;
+		} catch (RejectedExecutionException e) {
+			resultado.pendentes.decrementAndGet();
+			return false;
+		}
+	}
+
+	private boolean respondeuEm(Resultado resultado, long nanos) {
+		try {
+			resultado.futuro.get(nanos, TimeUnit.NANOSECONDS);
+			return true;
+		} catch (TimeoutException e) {
+			return false;
+		} catch (ExecutionException e) {
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("INTERROMPIDO AGUARDANDO PRODUTO", e);
+		}
+	}
+
+	private Produto aguardar(Resultado resultado) {
+		try {
+			return resultado.futuro.get();
+		} catch (ExecutionException e) {
+			throw (RuntimeException) e.getCause();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("INTERROMPIDO AGUARDANDO PRODUTO", e);
+		}
+	}
+
+	/**
+	 * Zero enquanto não há amostras suficientes, o que desliga o hedging.
+	 */
+	private long limiarNanos() {
+		if (latencias.tamanho() < minSamples) {
+			return 0;
+		}
+		return Math.max(minDelayNanos, latencias.percentil(percentile));
+	}
+
+	// Saldo em milésimos de consulta extra: cada consulta credita budgetPercent/100.
+	private void creditar() {
+		saldo.accumulateAndGet(creditoPorConsulta, (atual, credito) -> Math.min(SALDO_MAXIMO, atual + credito));
+	}
+
+	private boolean consumirSaldo() {
+		while (true) {
+			long atual = saldo.get();
+			if (atual < 1000) {
+				return false;
+			}
+			if (saldo.compareAndSet(atual, atual - 1000)) {
+				return true;
+			}
+		}
+	}
+
+	private double taxa() {
+		double total = consultas.count();
+		return total == 0 ? 0 : disparados.count() / total;
+	}
+
+	private static List<IProdutoService> alternativos(IProdutoService primario, ApplicationContext applicationContext,
+			boolean enabled, String[] urls) {
+		List<IProdutoService> alternativos = new ArrayList<>();
+		if (!enabled) {
+			return alternativos;
+		}
+		FeignClientBuilder builder = new FeignClientBuilder(applicationContext);
+		for (int i = 0; i < urls.length; i++) {
+			if (!urls[i].isBlank()) {
+				alternativos.add(builder.forType(IProdutoService.class, "produto")
+						.contextId("produto-hedge-" + i)
+						.url(urls[i].trim())
+						.build());
+			}
+		}
+		return alternativos;
+	}
+
+	private static ThreadFactory threadFactory() {
+		AtomicInteger contador = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "produto-hedge-" + contador.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/** Primeira resposta com sucesso entre as consultas enviadas, ou a primeira falha se todas falharem. */
+	private static class Resultado {
+
+		private final CompletableFuture<Produto> futuro = new CompletableFuture<>();
+
+		private final AtomicInteger pendentes = new AtomicInteger();
+
+		private final AtomicReference<RuntimeException> primeiraFalha = new AtomicReference<>();
+
+		void falhou(RuntimeException e) {
+			primeiraFalha.compareAndSet(null, e);
+			if (pendentes.decrementAndGet() == 0) {
+				futuro.completeExceptionally(primeiraFalha.get());
+			}
+		}
+	}
+
+	/** Últimas {@code tamanho} latências; o percentil é recalculado a cada décimo da janela. */
+	static class LatencyWindow {
+
+		private final long[] amostras;
+
+		private int proxima;
+
+		private int tamanho;
+
+		private int desdeUltimoCalculo;
+
+		private double percentilCalculado = -1;
+
+		private long valorCalculado;
+
+		LatencyWindow(int capacidade) {
+			this.amostras = new long[capacidade];
+		}
+
+		synchronized void registrar(long nanos) {
+			amostras[proxima] = nanos;
+			proxima = (proxima + 1) % amostras.length;
+			tamanho = Math.min(tamanho + 1, amostras.length);
+			desdeUltimoCalculo++;
+		}
+
+		synchronized int tamanho() {
+			return tamanho;
+		}
+
+		synchronized long percentil(double p) {
+			if (p != percentilCalculado || desdeUltimoCalculo >= Math.max(1, amostras.length / 10)) {
+				long[] ordenadas = Arrays.copyOf(amostras, tamanho);
+				Arrays.sort(ordenadas);
+				valorCalculado = ordenadas[Math.max(0, (int) Math.ceil(p * tamanho) - 1)];
+				percentilCalculado = p;
+				desdeUltimoCalculo = 0;
+			}
+			return valorCalculado;
+		}
+	}
+}
@@ -3,21 +3,29 @@
  */
 package br.com.gomes.vendas.online.service;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import br.com.rpires.vendas.online.domain.Produto;
+import br.com.gomes.vendas.online.domain.Produto;
 
 /**
  * @author wendel.gomes
  *
  */
-@FeignClient(name = "produto", url = "${application.produtoService.endpointConsultarProduto}")
+@FeignClient(name = "produto", qualifiers = IProdutoService.FEIGN_CLIENT, primary = false, url = "${application.produtoService.endpointConsultarProduto}")
 public interface IProdutoService {
 
+	String FEIGN_CLIENT = "produtoFeignClient";
+
 	@RequestMapping(method = RequestMethod.GET, value = "/{codigo}", produces = "application/json", headers = "application/json")
 	Produto buscarProduto(@RequestParam("codigo") String codigoProduto);
 
+	@RequestMapping(method = RequestMethod.GET, value = "/lote", produces = "application/json", headers = "application/json")
+	List<Produto> buscarProdutos(@RequestParam("codigos") Collection<String> codigosProdutos);
+
 }
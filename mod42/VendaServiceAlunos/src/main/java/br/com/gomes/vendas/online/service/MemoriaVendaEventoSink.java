@@ -0,0 +1,53 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import br.com.gomes.vendas.online.domain.VendaEvento;
+
+/**
+ * Guarda em memória os últimos {@code capacidade} eventos publicados, para
+ * execuções locais e testes; consultados em {@code GET /venda/eventos}.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Service
+@ConditionalOnProperty(name = "application.outbox.sink", havingValue = "memoria", matchIfMissing = true)
+public class MemoriaVendaEventoSink implements VendaEventoSink {
+
+	private final int capacidade;
+
+	private final Deque<VendaEvento> eventos = new ArrayDeque<>();
+
+	public MemoriaVendaEventoSink(@Value("${application.outbox.memoria.capacidade:1000}") int capacidade) {
+		this.capacidade = Math.max(1, capacidade);
+	}
+
+	@Override
+	public synchronized void publicar(List<VendaEvento> lote) {
+		for (VendaEvento evento : lote) {
+			if (eventos.size() == capacidade) {
+				eventos.removeFirst();
+			}
+			eventos.addLast(evento);
+		}
+	}
+
+	/**
+	 * Os {@code n} eventos mais recentes, do mais antigo para o mais novo.
+	 */
+	public synchronized List<VendaEvento> ultimos(int n) {
+		List<VendaEvento> todos = new ArrayList<>(eventos);
+		return new ArrayList<>(todos.subList(Math.max(0, todos.size() - Math.max(0, n)), todos.size()));
+	}
+}
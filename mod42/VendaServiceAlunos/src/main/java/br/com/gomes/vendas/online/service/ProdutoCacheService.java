@@ -0,0 +1,147 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache local de produtos na frente do cliente Feign do ProdutoService
+ * (protegido por {@link ResilientProdutoService}).
+ *
+ * Produtos encontrados ficam em cache por {@code ttl} e códigos inexistentes
+ * por {@code negativeTtl}, ambos limitados a {@code maximumSize} entradas.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Primary
+@Service
+public class ProdutoCacheService implements IProdutoService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ProdutoCacheService.class);
+
+	private static final String CACHE_NAME = "produto";
+
+	private IProdutoService produtoService;
+
+	private boolean enabled;
+
+	private Cache<String, Optional<Produto>> cache;
+
+	@Autowired
+	public ProdutoCacheService(@Qualifier(ResilientProdutoService.BEAN_NAME) IProdutoService produtoService,
+			MeterRegistry meterRegistry,
+			@Value("${application.produtoService.cache.enabled:true}") boolean enabled,
+			@Value("${application.produtoService.cache.maximumSize:10000}") long maximumSize,
+			@Value("${application.produtoService.cache.ttl:5m}") Duration ttl,
+			@Value("${application.produtoService.cache.negativeTtl:30s}") Duration negativeTtl) {
+		this.produtoService = produtoService;
+		this.enabled = enabled;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfter(new ProdutoExpiry(ttl, negativeTtl))
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+	}
+
+	@Override
+	public Produto buscarProduto(String codigoProduto) {
+		if (!enabled) {
+			return produtoService.buscarProduto(codigoProduto);
+		}
+		return cache.get(codigoProduto, this::carregar).orElse(null);
+	}
+
+	@Override
+	public List<Produto> buscarProdutos(Collection<String> codigosProdutos) {
+		if (!enabled) {
+			return produtoService.buscarProdutos(codigosProdutos);
+		}
+		return cache.getAll(codigosProdutos, this::carregarTodos).values().stream()
+				.filter(Optional::isPresent)
+				.map(Optional::get)
+				.collect(Collectors.toList());
+	}
+
+	public void invalidar(String codigoProduto) {
+		cache.invalidate(codigoProduto);
+	}
+
+	public void invalidarTodos() {
+		cache.invalidateAll();
+	}
+
+	private Optional<Produto> carregar(String codigoProduto) {
+		try {
+			return Optional.ofNullable(produtoService.buscarProduto(codigoProduto));
+		} catch (FeignException.NotFound e) {
+			logger.debug("PRODUTO {} NÃO ENCONTRADO, ARMAZENANDO RESULTADO NEGATIVO", codigoProduto);
+			return Optional.empty();
+		}
+	}
+
+	// Códigos ausentes da resposta entram no cache como resultado negativo.
+	private Map<String, Optional<Produto>> carregarTodos(Iterable<? extends String> codigosProdutos) {
+		Map<String, Optional<Produto>> resultado = new HashMap<>();
+		codigosProdutos.forEach(codigo -> resultado.put(codigo, Optional.empty()));
+		produtoService.buscarProdutos(new ArrayList<>(resultado.keySet()))
+				.forEach(produto -> resultado.put(produto.getCodigo(), Optional.of(produto)));
+		return resultado;
+	}
+
+	static class ProdutoExpiry implements Expiry<String, Optional<Produto>> {
+
+		private final long ttlNanos;
+
+		private final long negativeTtlNanos;
+
+		ProdutoExpiry(Duration ttl, Duration negativeTtl) {
+			this.ttlNanos = ttl.toNanos();
+			this.negativeTtlNanos = negativeTtl.toNanos();
+		}
+
+		@Override
+		public long expireAfterCreate(String key, Optional<Produto> value, long currentTime) {
+			return value.isPresent() ? ttlNanos : negativeTtlNanos;
+		}
+
+		@Override
+		public long expireAfterUpdate(String key, Optional<Produto> value, long currentTime,
+				long currentDuration) {
+			return expireAfterCreate(key, value, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(String key, Optional<Produto> value, long currentTime,
+				long currentDuration) {
+			return currentDuration;
+		}
+	}
+
+}
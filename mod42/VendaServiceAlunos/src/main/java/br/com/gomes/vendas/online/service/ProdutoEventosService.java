@@ -0,0 +1,188 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import br.com.gomes.vendas.online.dto.ProdutoEventoDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Mantém os caches de produtos coerentes com o catálogo: consulta os eventos
+ * de alteração do ProdutoService ({@code GET /produto/eventos}) e invalida os
+ * códigos alterados, para que a próxima consulta leia o produto atualizado.
+ *
+ * Cada consulta recomeça {@code margem} antes do último evento visto, cobrindo
+ * eventos gravados fora de ordem por instâncias diferentes do ProdutoService;
+ * repetir uma invalidação não tem efeito. Se o último sincronismo for mais
+ * antigo que a {@code retencao} dos eventos, todo o cache é descartado.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Service
+public class ProdutoEventosService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ProdutoEventosService.class);
+
+	private RestUtils restUtils;
+
+	private ProdutoCacheService produtoCacheService;
+
+	private ObjectProvider<ReactiveProdutoService> reactiveProdutoService;
+
+	private MeterRegistry meterRegistry;
+
+	private Clock clock;
+
+	private String urlEventos;
+
+	private boolean enabled;
+
+	private Duration margem;
+
+	private Duration retencao;
+
+	private int limite;
+
+	private Instant ultimoEvento;
+
+	private Instant ultimoSincronismo;
+
+	private int falhasSeguidas;
+
+	private Instant proximaTentativa = Instant.MIN;
+
+	@Autowired
+	public ProdutoEventosService(RestUtils restUtils,
+			ProdutoCacheService produtoCacheService,
+			ObjectProvider<ReactiveProdutoService> reactiveProdutoService,
+			MeterRegistry meterRegistry,
+			@Value("${application.produtoService.endpointConsultarProduto}") String urlEndpointConsultarProduto,
+			@Value("${application.produtoService.eventos.enabled:true}") boolean enabled,
+			@Value("${application.produtoService.eventos.margem:10s}") Duration margem,
+			@Value("${application.produtoService.eventos.retencao:1d}") Duration retencao,
+			@Value("${application.produtoService.eventos.limite:1000}") int limite) {
+		this(restUtils, produtoCacheService, reactiveProdutoService, meterRegistry, Clock.systemUTC(),
+				urlEndpointConsultarProduto + "/eventos", enabled, margem, retencao, limite);
+	}
+
+	public ProdutoEventosService(RestUtils restUtils,
+			ProdutoCacheService produtoCacheService,
+			ObjectProvider<ReactiveProdutoService> reactiveProdutoService,
+			MeterRegistry meterRegistry,
+			Clock clock,
+			String urlEventos,
+			boolean enabled,
+			Duration margem,
+			Duration retencao,
+			int limite) {
+		this.restUtils = restUtils;
+		this.produtoCacheService = produtoCacheService;
+		this.reactiveProdutoService = reactiveProdutoService;
+		this.meterRegistry = meterRegistry;
+		this.clock = clock;
+		this.urlEventos = urlEventos;
+		this.enabled = enabled;
+		this.margem = margem;
+		this.retencao = retencao;
+		this.limite = Math.max(1, limite);
+		// Os caches começam vazios: basta acompanhar os eventos a partir da subida.
+		this.ultimoEvento = clock.instant();
+		this.ultimoSincronismo = clock.instant();
+	}
+
+	@Scheduled(fixedDelayString = "${application.produtoService.eventos.intervalo:PT1S}")
+	public void agendado() {
+		if (!enabled || clock.instant().isBefore(proximaTentativa)) {
+			return;
+		}
+		try {
+			sincronizar();
+			falhasSeguidas = 0;
+		} catch (RuntimeException e) {
+			meterRegistry.counter("produto.eventos.falhas").increment();
+			// Com o ProdutoService fora do ar, espera 1s, 2s, 4s... até 1 minuto entre as tentativas.
+			proximaTentativa = clock.instant().plusSeconds(1L << Math.min(falhasSeguidas++, 6));
+			logger.error("ERRO AO CONSULTAR EVENTOS DE PRODUTO ({} SEGUIDOS) - {}", falhasSeguidas, e.getMessage());
+		}
+	}
+
+	/**
+	 * Aplica os eventos gravados desde o último sincronismo.
+	 *
+	 * @return quantidade de eventos lidos, incluindo os repetidos pela margem.
+	 */
+	public synchronized long sincronizar() {
+		Instant agora = clock.instant();
+		if (Duration.between(ultimoSincronismo, agora).compareTo(retencao.minus(margem)) > 0) {
+			// Eventos do período sem sincronismo podem ter expirado no ProdutoService.
+			logger.warn("EVENTOS DE PRODUTO NÃO CONSULTADOS DESDE {}, DESCARTANDO O CACHE DE PRODUTOS", ultimoSincronismo);
+			invalidarTodos();
+			ultimoEvento = agora;
+		}
+		long lidos = 0;
+		Instant desde = ultimoEvento.minus(margem);
+		while (true) {
+			List<ProdutoEventoDTO> eventos = consultar(desde);
+			for (ProdutoEventoDTO evento : eventos) {
+				invalidar(evento.getCodigo());
+				invalidar(evento.getCodigoAnterior());
+				if (evento.getCriadoEm() != null && evento.getCriadoEm().isAfter(ultimoEvento)) {
+					ultimoEvento = evento.getCriadoEm();
+				}
+			}
+			lidos += eventos.size();
+			if (eventos.size() < limite) {
+				break;
+			}
+			Instant proximo = eventos.get(eventos.size() - 1).getCriadoEm();
+			if (proximo == null || !proximo.isAfter(desde)) {
+				// Uma página inteira com o mesmo instante: não há como avançar sem pular eventos.
+				invalidarTodos();
+				break;
+			}
+			desde = proximo;
+		}
+		ultimoSincronismo = agora;
+		meterRegistry.counter("produto.eventos.lidos").increment(lidos);
+		return lidos;
+	}
+
+	private List<ProdutoEventoDTO> consultar(Instant desde) {
+		RestRequest restRequest = new RestRequest(HttpMethod.GET, null);
+		restRequest.setAcceptable(Collections.singletonList(MediaType.APPLICATION_JSON));
+		ProdutoEventoDTO[] eventos = restUtils.execute(urlEventos + "?desde={desde}&limite={limite}", restRequest,
+				ProdutoEventoDTO[].class, desde.toString(), limite).getBody();
+		return eventos == null ? Collections.emptyList() : Arrays.asList(eventos);
+	}
+
+	private void invalidar(String codigo) {
+		if (codigo == null) {
+			return;
+		}
+		produtoCacheService.invalidar(codigo);
+		reactiveProdutoService.ifAvailable(service -> service.invalidar(codigo));
+	}
+
+	private void invalidarTodos() {
+		produtoCacheService.invalidarTodos();
+		reactiveProdutoService.ifAvailable(ReactiveProdutoService::invalidarTodos);
+	}
+}
@@ -0,0 +1,53 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.service;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Consulta de clientes sem bloqueio para o modo reativo. O cache de confirmados
+ * e o filtro de Bloom continuam sendo os do {@link ClienteService}.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Service
+@Profile("reactive")
+public class ReactiveClienteService {
+
+	@Value("${application.clienteService.endpointConsultarCliente}")
+	private String urlEndpointConsultarCliente;
+
+	private ClienteService clienteService;
+
+	private WebClient webClient;
+
+	@Autowired
+	public ReactiveClienteService(ClienteService clienteService, WebClient webClient) {
+		this.clienteService = clienteService;
+		this.webClient = webClient;
+	}
+
+	public Mono<Boolean> isClienteCadastrado(String clienteId) {
+		Optional<Boolean> local = clienteService.consultarLocalmente(clienteId);
+		if (local.isPresent()) {
+			return Mono.just(local.get());
+		}
+		return webClient.get()
+				.uri(urlEndpointConsultarCliente, clienteId)
+				.accept(MediaType.APPLICATION_JSON)
+				.retrieve()
+				.bodyToMono(Boolean.class)
+				.doOnNext(cadastrado -> clienteService.registrarConsulta(clienteId, cadastrado));
+	}
+}
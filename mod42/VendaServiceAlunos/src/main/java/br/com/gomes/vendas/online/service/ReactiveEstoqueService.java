@@ -0,0 +1,119 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.dto.ItemVendaDTO;
+import br.com.gomes.vendas.online.exception.EstoqueInsuficienteException;
+import br.com.gomes.vendas.online.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Versão reativa de {@link EstoqueService}, com as mesmas regras.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Service
+@Profile("reactive")
+public class ReactiveEstoqueService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReactiveEstoqueService.class);
+
+	private static final String DEPENDENCIA = "estoque";
+
+	private WebClient webClient;
+
+	private ResilienceGuard resilienceGuard;
+
+	private MeterRegistry meterRegistry;
+
+	private boolean enabled;
+
+	private String urlEndpointEstoque;
+
+	@Autowired
+	public ReactiveEstoqueService(WebClient webClient,
+			ResilienceGuard resilienceGuard,
+			MeterRegistry meterRegistry,
+			@Value("${application.produtoService.estoque.enabled:false}") boolean enabled,
+			@Value("${application.produtoService.estoque.endpoint:}") String urlEndpointEstoque) {
+		this.webClient = webClient;
+		this.resilienceGuard = resilienceGuard;
+		this.meterRegistry = meterRegistry;
+		this.enabled = enabled && !urlEndpointEstoque.isEmpty();
+		this.urlEndpointEstoque = urlEndpointEstoque;
+	}
+
+	public Mono<Void> reservar(String vendaId, List<ItemVendaDTO> itens) {
+		if (!enabled) {
+			return Mono.empty();
+		}
+		return executar("/reservas/{vendaId}", itens, vendaId)
+				.onErrorMap(WebClientResponseException.Conflict.class,
+						e -> new EstoqueInsuficienteException(EstoqueService.mensagemInsuficiente(itens)))
+				.onErrorMap(WebClientResponseException.BadRequest.class,
+						e -> new UnsupportedOperationException(EstoqueService.VENDA_FINALIZADA))
+				.onErrorResume(ServiceUnavailableException.class, e -> Flux.fromIterable(itens)
+						.concatMap(item -> liberar(vendaId, item.getCodigoProduto(), item.getQuantidade()))
+						.then(Mono.error(e)));
+	}
+
+	public Mono<Void> confirmar(Venda venda) {
+		if (!enabled) {
+			return Mono.empty();
+		}
+		return executar("/reservas/{vendaId}/confirmar", EstoqueService.linhas(venda), venda.getId())
+				.onErrorMap(WebClientResponseException.Conflict.class,
+						e -> new EstoqueInsuficienteException(EstoqueService.SEM_ESTOQUE_PARA_CONCLUIR));
+	}
+
+	public Mono<Void> liberar(String vendaId) {
+		return enabled ? executar("/reservas/{vendaId}/liberar", null, vendaId) : Mono.empty();
+	}
+
+	/**
+	 * Libera parte da reserva de um produto sem propagar falhas.
+	 */
+	public Mono<Void> liberar(String vendaId, String codigoProduto, Integer quantidade) {
+		if (!enabled) {
+			return Mono.empty();
+		}
+		return executar("/reservas/{vendaId}/liberar?codigoProduto={codigoProduto}&quantidade={quantidade}", null,
+				vendaId, codigoProduto, quantidade)
+				.onErrorResume(e -> {
+					meterRegistry.counter("venda.estoque.falhas", "operacao", "liberar").increment();
+					logger.error("ERRO AO LIBERAR {} UNIDADES DO PRODUTO {} DA VENDA {} - {}",
+							quantidade, codigoProduto, vendaId, e.getMessage());
+					return Mono.empty();
+				});
+	}
+
+	private Mono<Void> executar(String caminho, Object body, Object... uriVariables) {
+		WebClient.RequestBodySpec request = webClient.post()
+				.uri(urlEndpointEstoque + caminho, uriVariables)
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON);
+		Mono<Void> chamada = (body == null ? request : request.bodyValue(body))
+				.retrieve()
+				.toBodilessEntity()
+				.then();
+		return resilienceGuard.executar(DEPENDENCIA, chamada);
+	}
+
+}
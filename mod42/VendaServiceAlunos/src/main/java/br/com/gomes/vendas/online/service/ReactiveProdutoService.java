@@ -0,0 +1,129 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+/**
+ * Consulta de produtos sem bloqueio para o modo reativo, com o mesmo cache
+ * (positivo e negativo) do {@link ProdutoCacheService}, em versão assíncrona:
+ * consultas simultâneas ao mesmo código compartilham a mesma requisição.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Service
+@Profile("reactive")
+public class ReactiveProdutoService {
+
+	private static final ParameterizedTypeReference<List<Produto>> LISTA_PRODUTOS =
+			new ParameterizedTypeReference<List<Produto>>() {};
+
+	@Value("${application.produtoService.endpointConsultarProduto}")
+	private String urlEndpointConsultarProduto;
+
+	private WebClient webClient;
+
+	private boolean enabled;
+
+	private AsyncCache<String, Optional<Produto>> cache;
+
+	@Autowired
+	public ReactiveProdutoService(WebClient webClient,
+			MeterRegistry meterRegistry,
+			@Value("${application.produtoService.cache.enabled:true}") boolean enabled,
+			@Value("${application.produtoService.cache.maximumSize:10000}") long maximumSize,
+			@Value("${application.produtoService.cache.ttl:5m}") Duration ttl,
+			@Value("${application.produtoService.cache.negativeTtl:30s}") Duration negativeTtl) {
+		this.webClient = webClient;
+		this.enabled = enabled;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfter(new ProdutoCacheService.ProdutoExpiry(ttl, negativeTtl))
+				.recordStats()
+				.buildAsync();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "produto-reactive");
+	}
+
+	/**
+	 * @return o produto, ou vazio quando o código não existe
+	 */
+	public Mono<Produto> buscarProduto(String codigoProduto) {
+		Mono<Optional<Produto>> produto = enabled
+				? Mono.fromFuture(() -> cache.get(codigoProduto, (codigo, executor) -> consultar(codigo).toFuture()))
+				: consultar(codigoProduto);
+		return produto.flatMap(Mono::justOrEmpty);
+	}
+
+	/**
+	 * @return os produtos encontrados; códigos inexistentes ficam de fora da lista
+	 */
+	public Mono<List<Produto>> buscarProdutos(Collection<String> codigosProdutos) {
+		Mono<Map<String, Optional<Produto>>> produtos = enabled
+				? Mono.fromFuture(() -> cache.getAll(codigosProdutos, (codigos, executor) -> consultarTodos(codigos).toFuture()))
+				: consultarTodos(codigosProdutos);
+		return produtos.map(resultado -> resultado.values().stream()
+				.filter(Optional::isPresent)
+				.map(Optional::get)
+				.collect(Collectors.toList()));
+	}
+
+	public void invalidar(String codigoProduto) {
+		cache.synchronous().invalidate(codigoProduto);
+	}
+
+	public void invalidarTodos() {
+		cache.synchronous().invalidateAll();
+	}
+
+	private Mono<Optional<Produto>> consultar(String codigoProduto) {
+		return webClient.get()
+				.uri(urlEndpointConsultarProduto + "/{codigo}", codigoProduto)
+				.accept(MediaType.APPLICATION_JSON)
+				.retrieve()
+				.bodyToMono(Produto.class)
+				.map(Optional::of)
+				.onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.just(Optional.empty()))
+				.defaultIfEmpty(Optional.empty());
+	}
+
+	// Códigos ausentes da resposta entram no cache como resultado negativo.
+	private Mono<Map<String, Optional<Produto>>> consultarTodos(Iterable<? extends String> codigosProdutos) {
+		Map<String, Optional<Produto>> resultado = new HashMap<>();
+		codigosProdutos.forEach(codigo -> resultado.put(codigo, Optional.empty()));
+		return webClient.get()
+				.uri(urlEndpointConsultarProduto + "/lote?codigos={codigos}", String.join(",", resultado.keySet()))
+				.accept(MediaType.APPLICATION_JSON)
+				.retrieve()
+				.bodyToMono(LISTA_PRODUTOS)
+				.map(encontrados -> {
+					encontrados.forEach(produto -> resultado.put(produto.getCodigo(), Optional.of(produto)));
+					return resultado;
+				})
+				.defaultIfEmpty(resultado);
+	}
+}
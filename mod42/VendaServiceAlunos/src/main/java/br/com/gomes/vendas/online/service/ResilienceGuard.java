@@ -0,0 +1,288 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.sleuth.CurrentTraceContext;
+import org.springframework.cloud.sleuth.TraceContext;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import br.com.gomes.vendas.online.exception.ServiceUnavailableException;
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadConfig;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedThreadPoolBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedTimeLimiterMetrics;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Circuit breaker, bulkhead e limite de tempo por dependência remota
+ * ({@code cliente}, {@code produto}, {@code estoque}), configurados em
+ * {@code application.resilience.<dependencia>.*}.
+ *
+ * A chamada roda no pool do bulkhead, o que limita as chamadas simultâneas e
+ * permite abandoná-la no timeout. Só falhas de disponibilidade (timeout, erro de
+ * conexão, HTTP 5xx, circuito aberto, bulkhead cheio) acionam o fallback e
+ * contam para abrir o circuito; respostas 4xx chegam ao chamador como foram lançadas.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Component
+public class ResilienceGuard {
+
+	private static final Logger logger = LoggerFactory.getLogger(ResilienceGuard.class);
+
+	private static final String PREFIXO = "application.resilience.";
+
+	private Binder binder;
+
+	private MeterRegistry meterRegistry;
+
+	private CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+
+	private ThreadPoolBulkheadRegistry bulkheads = ThreadPoolBulkheadRegistry.ofDefaults();
+
+	private TimeLimiterRegistry timeLimiters = TimeLimiterRegistry.ofDefaults();
+
+	private Map<String, Protecao> protecoes = new ConcurrentHashMap<>();
+
+	private CurrentTraceContext currentTraceContext;
+
+	@Autowired
+	public ResilienceGuard(Environment environment, MeterRegistry meterRegistry,
+			ObjectProvider<CurrentTraceContext> currentTraceContext) {
+		this(environment, meterRegistry);
+		this.currentTraceContext = currentTraceContext.getIfAvailable();
+	}
+
+	public ResilienceGuard(Environment environment, MeterRegistry meterRegistry) {
+		this.binder = Binder.get(environment);
+		this.meterRegistry = meterRegistry;
+		TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+		TaggedThreadPoolBulkheadMetrics.ofThreadPoolBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+		TaggedTimeLimiterMetrics.ofTimeLimiterRegistry(timeLimiters).bindTo(meterRegistry);
+	}
+
+	/**
+	 * Executa a chamada protegida. Em falha de disponibilidade devolve o fallback
+	 * ou, se ele estiver vazio, lança {@link ServiceUnavailableException}.
+	 */
+	public <T> T executar(String dependencia, Supplier<T> chamada, Supplier<Optional<T>> fallback) {
+		Protecao protecao = protecoes.computeIfAbsent(dependencia, this::criar);
+		try {
+			return protecao.chamada(comContexto(chamada)).call();
+		} catch (Exception e) {
+			if (!isFalhaDeDisponibilidade(e)) {
+				throw relancar(e);
+			}
+			String motivo = motivo(e);
+			meterRegistry.counter("venda.resiliencia.rejeicoes", "dependencia", dependencia, "motivo", motivo)
+					.increment();
+			Optional<T> alternativa = fallback.get();
+			meterRegistry.counter("venda.resiliencia.fallbacks", "dependencia", dependencia,
+					"resultado", alternativa.isPresent() ? "cache" : "indisponivel").increment();
+			if (alternativa.isPresent()) {
+				logger.warn("{} INDISPONÍVEL ({}), RESPONDENDO COM DADOS EM CACHE", dependencia.toUpperCase(), motivo);
+				return alternativa.get();
+			}
+			throw new ServiceUnavailableException("SERVIÇO " + dependencia.toUpperCase() + " INDISPONÍVEL (" + motivo + ")", e);
+		}
+	}
+
+	/**
+	 * Versão reativa, sem fallback: usa o circuit breaker e o limite de tempo da
+	 * dependência, mas não o pool do bulkhead, já que a chamada não ocupa uma
+	 * thread enquanto espera. Falhas de disponibilidade viram
+	 * {@link ServiceUnavailableException}.
+	 */
+	public <T> Mono<T> executar(String dependencia, Mono<T> chamada) {
+		return Mono.defer(() -> {
+			Protecao protecao = protecoes.computeIfAbsent(dependencia, this::criar);
+			CircuitBreaker circuitBreaker = protecao.circuitBreaker;
+			if (!circuitBreaker.tryAcquirePermission()) {
+				return Mono.<T>error(CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+			}
+			long inicio = System.nanoTime();
+			return chamada.timeout(protecao.timeLimiter.getTimeLimiterConfig().getTimeoutDuration())
+					.doOnSuccess(resultado -> circuitBreaker.onSuccess(System.nanoTime() - inicio, TimeUnit.NANOSECONDS))
+					.doOnError(e -> circuitBreaker.onError(System.nanoTime() - inicio, TimeUnit.NANOSECONDS, e))
+					.doOnCancel(circuitBreaker::releasePermission);
+		}).onErrorMap(ResilienceGuard::isFalhaDeDisponibilidade, e -> {
+			String motivo = motivo(e);
+			meterRegistry.counter("venda.resiliencia.rejeicoes", "dependencia", dependencia, "motivo", motivo)
+					.increment();
+			meterRegistry.counter("venda.resiliencia.fallbacks", "dependencia", dependencia,
+					"resultado", "indisponivel").increment();
+			return new ServiceUnavailableException("SERVIÇO " + dependencia.toUpperCase() + " INDISPONÍVEL (" + motivo + ")", e);
+		});
+	}
+
+	public CircuitBreaker.State estado(String dependencia) {
+		return protecoes.computeIfAbsent(dependencia, this::criar).circuitBreaker.getState();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		protecoes.values().forEach(protecao -> {
+			try {
+				protecao.bulkhead.close();
+			} catch (Exception e) {
+				logger.warn("ERRO AO ENCERRAR BULKHEAD {} - {}", protecao.bulkhead.getName(), e.getMessage());
+			}
+		});
+	}
+
+	/**
+	 * A chamada roda no pool do bulkhead; o trace da requisição vai junto para que
+	 * o span do Feign/RestTemplate fique dentro dele.
+	 */
+	private <T> Supplier<T> comContexto(Supplier<T> chamada) {
+		if (currentTraceContext == null) {
+			return chamada;
+		}
+		TraceContext contexto = currentTraceContext.context();
+		return () -> {
+			try (CurrentTraceContext.Scope scope = currentTraceContext.maybeScope(contexto)) {
+				return chamada.get();
+			}
+		};
+	}
+
+	/**
+	 * Erros que indicam que a dependência não está respondendo, e não que recusou a requisição.
+	 */
+	static boolean isFalhaDeDisponibilidade(Throwable e) {
+		if (e instanceof CallNotPermittedException || e instanceof BulkheadFullException
+				|| e instanceof TimeoutException) {
+			return true;
+		}
+		if (e instanceof FeignException) {
+			int status = ((FeignException) e).status();
+			return status < 0 || status >= 500;
+		}
+		if (e instanceof WebClientResponseException) {
+			return ((WebClientResponseException) e).getRawStatusCode() >= 500;
+		}
+		if (e instanceof WebClientRequestException) {
+			return true;
+		}
+		return e instanceof RestClientException && !(e instanceof HttpClientErrorException);
+	}
+
+	private static String motivo(Throwable e) {
+		if (e instanceof CallNotPermittedException) {
+			return "CIRCUITO_ABERTO";
+		}
+		if (e instanceof BulkheadFullException) {
+			return "BULKHEAD_CHEIO";
+		}
+		if (e instanceof TimeoutException) {
+			return "TIMEOUT";
+		}
+		return "ERRO_REMOTO";
+	}
+
+	private static RuntimeException relancar(Exception e) {
+		if (e instanceof RuntimeException) {
+			return (RuntimeException) e;
+		}
+		return new IllegalStateException(e);
+	}
+
+	private Protecao criar(String dependencia) {
+		String prefixo = PREFIXO + dependencia + ".";
+		CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig.custom()
+				.failureRateThreshold(propriedade(prefixo + "failure-rate-threshold", Float.class, 50f))
+				.slowCallRateThreshold(propriedade(prefixo + "slow-call-rate-threshold", Float.class, 100f))
+				.slowCallDurationThreshold(propriedade(prefixo + "slow-call-duration-threshold", Duration.class, Duration.ofSeconds(2)))
+				.slidingWindowSize(propriedade(prefixo + "sliding-window-size", Integer.class, 50))
+				.minimumNumberOfCalls(propriedade(prefixo + "minimum-number-of-calls", Integer.class, 20))
+				.waitDurationInOpenState(propriedade(prefixo + "wait-duration-in-open-state", Duration.class, Duration.ofSeconds(10)))
+				.permittedNumberOfCallsInHalfOpenState(propriedade(prefixo + "permitted-calls-in-half-open-state", Integer.class, 5))
+				.recordException(ResilienceGuard::isFalhaDeDisponibilidade)
+				.ignoreExceptions(BulkheadFullException.class)
+				.build();
+		int maxConcurrentCalls = propriedade(prefixo + "max-concurrent-calls", Integer.class, 20);
+		ThreadPoolBulkheadConfig bulkheadConfig = ThreadPoolBulkheadConfig.custom()
+				.coreThreadPoolSize(maxConcurrentCalls)
+				.maxThreadPoolSize(maxConcurrentCalls)
+				.queueCapacity(propriedade(prefixo + "queue-capacity", Integer.class, 50))
+				.build();
+		TimeLimiterConfig timeLimiterConfig = TimeLimiterConfig.custom()
+				.timeoutDuration(propriedade(prefixo + "timeout", Duration.class, Duration.ofSeconds(3)))
+				.cancelRunningFuture(true)
+				.build();
+
+		CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(dependencia, circuitBreakerConfig);
+		circuitBreaker.getEventPublisher().onStateTransition(evento -> {
+			CircuitBreaker.StateTransition transicao = evento.getStateTransition();
+			logger.warn("CIRCUITO {} PASSOU DE {} PARA {}", dependencia.toUpperCase(),
+					transicao.getFromState(), transicao.getToState());
+			meterRegistry.counter("venda.resiliencia.transicoes", "dependencia", dependencia,
+					"de", transicao.getFromState().name(), "para", transicao.getToState().name()).increment();
+		});
+		return new Protecao(circuitBreaker,
+				bulkheads.bulkhead(dependencia, bulkheadConfig),
+				timeLimiters.timeLimiter(dependencia, timeLimiterConfig));
+	}
+
+	// Lida pelo Binder, que aceita Duration como "3s"; as chaves em camelCase do YAML equivalem às daqui.
+	private <T> T propriedade(String chave, Class<T> tipo, T padrao) {
+		return binder.bind(chave, tipo).orElse(padrao);
+	}
+
+	private static class Protecao {
+
+		private final CircuitBreaker circuitBreaker;
+
+		private final ThreadPoolBulkhead bulkhead;
+
+		private final TimeLimiter timeLimiter;
+
+		Protecao(CircuitBreaker circuitBreaker, ThreadPoolBulkhead bulkhead, TimeLimiter timeLimiter) {
+			this.circuitBreaker = circuitBreaker;
+			this.bulkhead = bulkhead;
+			this.timeLimiter = timeLimiter;
+		}
+
+		<T> Callable<T> chamada(Supplier<T> chamada) {
+			Supplier<CompletableFuture<T>> isolada = () -> bulkhead.executeSupplier(chamada).toCompletableFuture();
+			return CircuitBreaker.decorateCallable(circuitBreaker,
+					TimeLimiter.decorateFutureSupplier(timeLimiter, isolada));
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cliente Feign do ProdutoService (com {@link HedgingProdutoService}) protegido
+ * pelo {@link ResilienceGuard}.
+ *
+ * Guarda a última versão de cada produto recebido por {@code fallback.ttl} para
+ * responder com ela enquanto o ProdutoService estiver indisponível. Uma consulta
+ * em lote só usa esses dados se todos os códigos forem conhecidos, para que um
+ * produto ausente não seja tratado como inexistente.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Service(ResilientProdutoService.BEAN_NAME)
+public class ResilientProdutoService implements IProdutoService {
+
+	public static final String BEAN_NAME = "resilientProdutoService";
+
+	private static final String DEPENDENCIA = "produto";
+
+	private IProdutoService produtoService;
+
+	private ResilienceGuard resilienceGuard;
+
+	private Cache<String, Produto> ultimosConhecidos;
+
+	@Autowired
+	public ResilientProdutoService(@Qualifier(HedgingProdutoService.BEAN_NAME) IProdutoService produtoService,
+			ResilienceGuard resilienceGuard,
+			MeterRegistry meterRegistry,
+			@Value("${application.resilience.produto.fallback.maximumSize:10000}") long maximumSize,
+			@Value("${application.resilience.produto.fallback.ttl:1h}") Duration ttl) {
+		this.produtoService = produtoService;
+		this.resilienceGuard = resilienceGuard;
+		this.ultimosConhecidos = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, ultimosConhecidos, "produto-fallback");
+	}
+
+	@Override
+	public Produto buscarProduto(String codigoProduto) {
+		return resilienceGuard.executar(DEPENDENCIA,
+				() -> registrar(produtoService.buscarProduto(codigoProduto)),
+				() -> Optional.ofNullable(ultimosConhecidos.getIfPresent(codigoProduto)));
+	}
+
+	@Override
+	public List<Produto> buscarProdutos(Collection<String> codigosProdutos) {
+		return resilienceGuard.executar(DEPENDENCIA,
+				() -> {
+					List<Produto> produtos = produtoService.buscarProdutos(codigosProdutos);
+					produtos.forEach(this::registrar);
+					return produtos;
+				},
+				() -> buscarConhecidos(codigosProdutos));
+	}
+
+	private Produto registrar(Produto produto) {
+		if (produto != null) {
+			ultimosConhecidos.put(produto.getCodigo(), produto);
+		}
+		return produto;
+	}
+
+	private Optional<List<Produto>> buscarConhecidos(Collection<String> codigosProdutos) {
+		Set<String> codigos = new HashSet<>(codigosProdutos);
+		Map<String, Produto> conhecidos = ultimosConhecidos.getAllPresent(codigos);
+		if (conhecidos.size() < codigos.size()) {
+			return Optional.empty();
+		}
+		return Optional.of(List.copyOf(conhecidos.values()));
+	}
+
+}
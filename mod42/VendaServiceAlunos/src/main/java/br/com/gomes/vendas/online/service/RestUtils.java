@@ -3,19 +3,30 @@
  */
 package br.com.gomes.vendas.online.service;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 /**
  * @author wendel.gomes
  *
@@ -31,21 +42,62 @@ public class RestUtils {
 	@Autowired
 	private ObjectMapper objectMapper;
 	
+	@Autowired
+	private MeterRegistry meterRegistry;
+	
+	@Value("${application.restUtils.payloadLogging.enabled:false}")
+	private boolean payloadLoggingEnabled;
+	
+	@Value("${application.restUtils.payloadLogging.sampleRate:1.0}")
+	private double payloadSampleRate;
+	
+	// Um Timer por método, URL e status, para não montar e registrar o meter a cada chamada.
+	private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+	
+	/**
+	 * Executa a chamada e registra o tempo em {@code venda.http.saida}, por método,
+	 * URL (o template, antes de substituir as variáveis) e status; falhas de I/O,
+	 * incluindo timeouts, ficam com o status {@code IO_ERROR}.
+	 *
+	 * Headers e body só são convertidos para JSON no log com DEBUG ativo e
+	 * {@code application.restUtils.payloadLogging.enabled=true}, em uma fração
+	 * {@code sampleRate} das chamadas.
+	 */
 	public <T> ResponseEntity<T> execute(String url, RestRequest request, Class<T> responseType, Object... uriVariables) {
-		logCall(request.getMethod(), url, request.getHttpEntity(), uriVariables);
-		long start = System.currentTimeMillis();
+		HttpMethod method = request.getMethod();
+		HttpEntity<?> httpEntity = request.getHttpEntity();
+		if (logger.isDebugEnabled()) {
+			logCall(method, url, httpEntity, uriVariables);
+		}
+		long start = System.nanoTime();
+		String status = "CLIENT_ERROR";
 		try {
-			ResponseEntity<T> exchange = restTemplate.exchange(url, request.getMethod(), request.getHttpEntity(), responseType, uriVariables);
+			ResponseEntity<T> exchange = restTemplate.exchange(url, method, httpEntity, responseType, uriVariables);
+			status = String.valueOf(exchange.getStatusCodeValue());
 			return exchange;
+		} catch(HttpStatusCodeException e) {
+			status = String.valueOf(e.getRawStatusCode());
+			logError(method, url, e);
+			throw e;
+		} catch(ResourceAccessException e) {
+			status = "IO_ERROR";
+			logError(method, url, e);
+			throw e;
 		} catch(Exception e) {
-			logError(request.getMethod(), url, e);
+			logError(method, url, e);
 			throw e;
 		} finally {
-			logElapsed(request.getMethod(), url, start);
+			long elapsed = System.nanoTime() - start;
+			record(method, url, status, elapsed);
+			logger.debug("ENDPOINT COM {} NA URL: {} - STATUS {} EM {} ms", method, url, status, elapsed / 1_000_000);
 		}
 	}
 	
 	private void logCall(HttpMethod method, String url, HttpEntity<?> httpEntity, Object[] uriVariables) {
+		if (!payloadLoggingEnabled || ThreadLocalRandom.current().nextDouble() >= payloadSampleRate) {
+			logger.debug("EXECUTANDO ENDPOINT COM {} NA URL: {}, PARAMETERS: {}", method, url, uriVariables);
+			return;
+		}
 		HttpHeaders headers = null;
 		Object body = null;
 		if (httpEntity != null) {
@@ -60,8 +112,14 @@ public class RestUtils {
 		logger.error("ERRO NO ENDPOINT COM {} NA URL: {} - {}", method, url, e.getMessage());
 	}
 	
-	private void logElapsed(HttpMethod method, String url, long start) {
-		logger.debug("ELAPSED TIME on ENDPOINT WITH {} IN URL: {} - {} ms", method, url, System.currentTimeMillis()-start);
+	private void record(HttpMethod method, String url, String status, long elapsedNanos) {
+		timers.computeIfAbsent(method.name() + ' ' + status + ' ' + url, chave -> Timer.builder("venda.http.saida")
+				.tag("method", method.name())
+				.tag("uri", url)
+				.tag("status", status)
+				.publishPercentileHistogram()
+				.register(meterRegistry))
+				.record(elapsedNanos, TimeUnit.NANOSECONDS);
 	}
 	
 	protected String asJSON(Object dto) {
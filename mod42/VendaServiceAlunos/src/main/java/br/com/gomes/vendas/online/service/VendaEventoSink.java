@@ -0,0 +1,27 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.service;
+
+import java.util.List;
+
+import br.com.gomes.vendas.online.domain.VendaEvento;
+
+/**
+ * Destino dos eventos de venda publicados pelo relay da outbox. A
+ * implementação é escolhida por {@code application.outbox.sink}: {@code memoria}
+ * (padrão) ou {@code arquivo} para execuções locais; um broker é ligado
+ * registrando outra implementação condicionada a um novo valor.
+ *
+ * @author wendel.gomes
+ *
+ */
+public interface VendaEventoSink {
+
+	/**
+	 * Publica o lote na ordem recebida e só retorna depois que todos foram
+	 * aceitos pelo destino. Uma exceção faz o relay reenviar o lote inteiro,
+	 * então o consumidor deve tolerar eventos repetidos (pelo {@code id}).
+	 */
+	void publicar(List<VendaEvento> eventos);
+}
@@ -3,12 +3,29 @@
  */
 package br.com.gomes.vendas.online.usecase;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
 import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import br.com.gomes.vendas.online.dto.PaginaCursor;
+import br.com.gomes.vendas.online.exception.BadRequestException;
 import br.com.gomes.vendas.online.exception.EntityNotFoundException;
 import br.com.gomes.vendas.online.repository.IVendaRepository;
 
@@ -17,19 +34,75 @@ import br.com.gomes.vendas.online.repository.IVendaRepository;
  *
  */
 @Service
+@Profile("!reactive")
 public class BuscaVenda {
 
+	private static final Logger logger = LoggerFactory.getLogger(BuscaVenda.class);
+
+	/** Vendas gravadas entre os flushes da exportação, o mesmo tamanho do lote do cursor. */
+	private static final int VENDAS_POR_FLUSH = 1000;
+
 	private IVendaRepository vendaRepository;
 	
+	private ObjectMapper objectMapper;
+	
 	@Autowired
-	public BuscaVenda(IVendaRepository produtoRepository) {
+	public BuscaVenda(IVendaRepository produtoRepository, ObjectMapper objectMapper) {
 		this.vendaRepository = produtoRepository;
+		this.objectMapper = objectMapper;
 	}
 	
 	public Page<Venda> buscar(Pageable pageable) {
 		return vendaRepository.findAll(pageable);
 	}
 
+	/**
+	 * Listagem por cursor: cada página busca a partir do último {@code _id}
+	 * pelo índice, sem {@code skip} nem contagem total.
+	 */
+	public PaginaCursor<Venda> buscar(String cursor, Integer tamanho) {
+		String ultimoId = PaginaCursor.decodificar(cursor);
+		int limite = PaginaCursor.limitar(tamanho);
+		List<Venda> vendas = ultimoId == null
+				? vendaRepository.findAllBy(PaginaCursor.consulta(limite))
+				: vendaRepository.findByIdGreaterThan(ultimoId, PaginaCursor.consulta(limite));
+		return PaginaCursor.de(vendas, limite, Venda::getId);
+	}
+
+	/**
+	 * Grava as vendas filtradas em {@code saida} como NDJSON (uma venda por linha),
+	 * direto do cursor do MongoDB: só o lote corrente fica em memória, e a escrita
+	 * bloqueia enquanto o cliente não consome, segurando a leitura do próximo lote.
+	 * A saída só recebe flush a cada {@value #VENDAS_POR_FLUSH} vendas (e quando o
+	 * buffer do gerador enche), não a cada venda.
+	 *
+	 * @return a quantidade de vendas exportadas.
+	 */
+	public long exportar(Instant de, Instant ate, Status status, OutputStream saida) throws IOException {
+		validarPeriodo(de, ate);
+		long exportadas = 0;
+		ObjectWriter escritor = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		try (CloseableIterator<Venda> vendas = vendaRepository.exportar(de, ate, status);
+				JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida)
+						.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+			while (vendas.hasNext()) {
+				escritor.writeValue(gerador, vendas.next());
+				gerador.writeRaw('\n');
+				if (++exportadas % VENDAS_POR_FLUSH == 0) {
+					gerador.flush();
+				}
+			}
+		}
+		logger.info("EXPORTAÇÃO CONCLUÍDA: {} VENDAS", exportadas);
+		return exportadas;
+	}
+
+	public void validarPeriodo(Instant de, Instant ate) {
+		if (de != null && ate != null && !de.isBefore(ate)) {
+			throw new BadRequestException("PERÍODO INVÁLIDO: " + de + " DEVE SER ANTERIOR A " + ate);
+		}
+	}
+
 	public Venda buscarPorCodigo(String codigo) {
 		return vendaRepository.findByCodigo(codigo)
 				.orElseThrow(() -> new EntityNotFoundException(Venda.class, "codigo", codigo));
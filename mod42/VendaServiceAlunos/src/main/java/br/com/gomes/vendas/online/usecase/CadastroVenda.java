@@ -1,30 +1,49 @@
 /**
  * 
  */
-package br.com.rpires.vendas.online.usecase;
+package br.com.gomes.vendas.online.usecase;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
-import br.com.rpires.vendas.online.domain.Produto;
-import br.com.rpires.vendas.online.domain.Venda;
-import br.com.rpires.vendas.online.domain.Venda.Status;
-import br.com.rpires.vendas.online.dto.VendaDTO;
-import br.com.rpires.vendas.online.exception.EntityNotFoundException;
-import br.com.rpires.vendas.online.repository.IVendaRepository;
-import br.com.rpires.vendas.online.service.ClienteService;
-import br.com.rpires.vendas.online.service.IProdutoService;
+import br.com.gomes.vendas.online.domain.Produto;
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import br.com.gomes.vendas.online.domain.VendaEvento.Tipo;
+import br.com.gomes.vendas.online.dto.ItemVendaDTO;
+import br.com.gomes.vendas.online.dto.VendaDTO;
+import br.com.gomes.vendas.online.exception.EntityNotFoundException;
+import br.com.gomes.vendas.online.repository.IVendaRepository;
+import br.com.gomes.vendas.online.service.ClienteService;
+import br.com.gomes.vendas.online.service.EstoqueService;
+import br.com.gomes.vendas.online.service.IProdutoService;
+import br.com.gomes.vendas.online.usecase.ParallelFanOut.Deadline;
 
 /**
  * @author rodrigo.pires
  *
  */
 @Service
+@Profile("!reactive")
 public class CadastroVenda {
 	
 	private IVendaRepository vendaRepository;
@@ -33,27 +52,62 @@ public class CadastroVenda {
 	
 	private ClienteService clienteService;
 	
+	private OptimisticLockRetry optimisticLockRetry;
+	
+	private ParallelFanOut parallelFanOut;
+	
+	private VendaMetrics vendaMetrics;
+	
+	private ResumoVendas resumoVendas;
+	
+	private TopProdutos topProdutos;
+	
+	private VendaOutbox outbox;
+	
+	private EstoqueService estoqueService;
+	
+	private int loteProdutos;
+	
 	@Autowired
 	public CadastroVenda(IVendaRepository produtoRepository,
 			IProdutoService produtoService,
-			ClienteService clienteService) {
+			ClienteService clienteService,
+			OptimisticLockRetry optimisticLockRetry,
+			ParallelFanOut parallelFanOut,
+			VendaMetrics vendaMetrics,
+			ResumoVendas resumoVendas,
+			TopProdutos topProdutos,
+			VendaOutbox outbox,
+			EstoqueService estoqueService,
+			@Value("${application.venda.fanOut.loteProdutos:50}") int loteProdutos) {
 		this.vendaRepository = produtoRepository;
 		this.produtoService = produtoService;
 		this.clienteService = clienteService;
+		this.optimisticLockRetry = optimisticLockRetry;
+		this.parallelFanOut = parallelFanOut;
+		this.vendaMetrics = vendaMetrics;
+		this.resumoVendas = resumoVendas;
+		this.topProdutos = topProdutos;
+		this.outbox = outbox;
+		this.estoqueService = estoqueService;
+		this.loteProdutos = Math.max(1, loteProdutos);
 	}
 	
 	public Venda cadastrar(@Valid VendaDTO vendaDTO) {
 		Venda venda = convertToDomain(vendaDTO, Status.INICIADA);
 		validarCliente(venda.getClienteId());
 		venda.recalcularValorTotalVenda();
-		return this.vendaRepository.insert(venda);
+		Venda inserida = outbox.registrar(Tipo.CRIADA, () -> Optional.of(this.vendaRepository.insert(venda))).get();
+		vendaMetrics.registrarStatus(Status.INICIADA);
+		resumoVendas.registrar(inserida, Status.INICIADA);
+		return inserida;
 	}
 
 	private void validarCliente(String clienteId) {
 		Boolean isCadastrado = 
 				this.clienteService.isClienteCadastrado(clienteId);
 		if (!isCadastrado) {
-			new EntityNotFoundException(Venda.class, "clienteId", clienteId);
+			throw new EntityNotFoundException(Venda.class, "clienteId", clienteId);
 		}
 	}
 
@@ -69,37 +123,117 @@ public class CadastroVenda {
 	}
 
 	public Venda atualizar(@Valid Venda venda) {
-		return this.vendaRepository.save(venda);
+		return outbox.registrar(Tipo.ALTERADA, () -> Optional.of(this.vendaRepository.save(venda))).get();
 	}
 
+	/**
+	 * As reservas de estoque são confirmadas (ou liberadas, no cancelamento)
+	 * antes da mudança de status: sem resposta do ProdutoService a venda
+	 * continua aberta e a operação pode ser repetida. A confirmação leva as
+	 * linhas da venda, que só é lida para isso depois de validado o status.
+	 * Uma venda já concluída não tem o que liberar.
+	 */
 	public Venda finalizar(String id) {
 		Venda venda = buscarVenda(id);
 		venda.validarStatus();
-		venda.setStatus(Status.CONCLUIDA);
-		return this.vendaRepository.save(venda);
+		estoqueService.confirmar(venda);
+		return alterarStatus(id, Status.CONCLUIDA);
 	}
 	
 	public Venda cancelar(String id) {
-		Venda venda = buscarVenda(id);
-		venda.validarStatus();
-		venda.setStatus(Status.CANCELADA);
-		return this.vendaRepository.save(venda);
+		estoqueService.liberar(id);
+		return alterarStatus(id, Status.CANCELADA);
+	}
+	
+	private Venda alterarStatus(String id, Status status) {
+		Venda venda = outbox.registrar(Tipo.de(status), () -> this.vendaRepository.atualizarStatus(id, status))
+				.orElseThrow(() -> falhaAoAlterar(id));
+		vendaMetrics.registrarStatus(status);
+		resumoVendas.registrar(venda, status);
+		if (status == Status.CONCLUIDA) {
+			topProdutos.registrarVenda(venda);
+		}
+		return venda;
 	}
 
 	public Venda adicionarProduto(String id, String codigoProduto, Integer quantidade) {
-		Venda venda = buscarVenda(id);
 		Produto produto = buscarProduto(codigoProduto);
-		venda.validarStatus();
-		venda.adicionarProduto(produto, quantidade);
-		return this.vendaRepository.save(venda);
+		estoqueService.reservar(id, Collections.singletonList(new ItemVendaDTO(codigoProduto, quantidade)));
+		Venda venda;
+		try {
+			venda = outbox.registrar(Tipo.ALTERADA, () -> this.vendaRepository.adicionarProduto(id, produto, quantidade))
+					.orElseThrow(() -> falhaAoAlterar(id));
+		} catch (RuntimeException e) {
+			estoqueService.liberar(id, codigoProduto, quantidade);
+			throw e;
+		}
+		vendaMetrics.registrarItens(quantidade);
+		topProdutos.registrar(TopProdutos.Metrica.ADICIONADOS, codigoProduto, quantidade);
+		return venda;
+	}
+	
+	public Venda adicionarProdutos(String id, List<ItemVendaDTO> itens) {
+		Deadline deadline = parallelFanOut.deadline();
+		CompletableFuture<Venda> vendaAtual = parallelFanOut.submit(() -> buscarVenda(id));
+		Map<String, Produto> produtos;
+		try {
+			produtos = buscarProdutos(itens, deadline);
+		} catch (RuntimeException e) {
+			vendaAtual.cancel(true);
+			throw e;
+		}
+		AtomicReference<Venda> lida = new AtomicReference<>(parallelFanOut.join(vendaAtual, deadline));
+		lida.get().validarStatus();
+		estoqueService.reservar(id, itens);
+		Venda alterada;
+		try {
+			alterada = salvarProdutos(id, itens, produtos, lida);
+		} catch (RuntimeException e) {
+			itens.forEach(item -> estoqueService.liberar(id, item.getCodigoProduto(), item.getQuantidade()));
+			throw e;
+		}
+		vendaMetrics.registrarItens(itens.stream().mapToInt(ItemVendaDTO::getQuantidade).sum());
+		topProdutos.registrarItens(itens);
+		return alterada;
+	}
+	
+	private Venda salvarProdutos(String id, List<ItemVendaDTO> itens, Map<String, Produto> produtos,
+			AtomicReference<Venda> lida) {
+		return optimisticLockRetry.execute("adicionarProdutos", () -> {
+			// A primeira tentativa usa a venda lida junto com os produtos; as seguintes releem.
+			Venda venda = Optional.ofNullable(lida.getAndSet(null)).orElseGet(() -> buscarVenda(id));
+			venda.validarStatus();
+			for (ItemVendaDTO item : itens) {
+				venda.adicionarProduto(produtos.get(item.getCodigoProduto()), item.getQuantidade());
+			}
+			return outbox.registrar(Tipo.ALTERADA, () -> Optional.of(this.vendaRepository.save(venda))).get();
+		});
 	}
 	
 	public Venda removerProduto(String id, String codigoProduto, Integer quantidade) {
+		buscarProduto(codigoProduto);
+		Optional<Venda> alterada = outbox.registrar(Tipo.ALTERADA,
+				() -> this.vendaRepository.removerProduto(id, codigoProduto, quantidade));
+		if (alterada.isPresent()) {
+			estoqueService.liberar(id, codigoProduto, quantidade);
+			return alterada.get();
+		}
+		// Nenhuma linha alterada: a venda não existe, não pode ser alterada ou não tem o produto.
 		Venda venda = buscarVenda(id);
-		Produto produto = buscarProduto(codigoProduto);
 		venda.validarStatus();
-		venda.removerProduto(produto, quantidade);
-		return this.vendaRepository.save(venda);
+		return venda;
+	}
+	
+	/**
+	 * Chamado quando uma atualização parcial não encontrou venda alterável:
+	 * lança EntityNotFoundException ou UnsupportedOperationException conforme o caso.
+	 * Se a venda relida ainda pode ser alterada, ela mudou entre a atualização e a
+	 * releitura, e a falha é um conflito (409) que o cliente pode repetir.
+	 */
+	private RuntimeException falhaAoAlterar(String id) {
+		Venda venda = buscarVenda(id);
+		venda.validarStatus();
+		return new OptimisticLockingFailureException("VENDA " + id + " NÃO PÔDE SER ALTERADA");
 	}
 	
 	private Venda buscarVenda(String id) {
@@ -115,5 +249,27 @@ public class CadastroVenda {
 		}
 		return prod;
 	}
+	
+	/**
+	 * Consulta os produtos em lotes de {@code loteProdutos} códigos, em paralelo.
+	 */
+	private Map<String, Produto> buscarProdutos(List<ItemVendaDTO> itens, Deadline deadline) {
+		Set<String> codigos = itens.stream().map(ItemVendaDTO::getCodigoProduto)
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+		List<String> todos = new ArrayList<>(codigos);
+		List<CompletableFuture<List<Produto>>> lotes = new ArrayList<>();
+		for (int inicio = 0; inicio < todos.size(); inicio += loteProdutos) {
+			List<String> lote = todos.subList(inicio, Math.min(todos.size(), inicio + loteProdutos));
+			lotes.add(parallelFanOut.submit(() -> produtoService.buscarProdutos(lote)));
+		}
+		Map<String, Produto> produtos = parallelFanOut.joinAll(lotes, deadline).stream()
+				.flatMap(List::stream)
+				.collect(Collectors.toMap(Produto::getCodigo, Function.identity(), (a, b) -> a));
+		codigos.removeAll(produtos.keySet());
+		if (!codigos.isEmpty()) {
+			throw new EntityNotFoundException(Produto.class, "codigo", String.join(",", codigos));
+		}
+		return produtos;
+	}
 
 }
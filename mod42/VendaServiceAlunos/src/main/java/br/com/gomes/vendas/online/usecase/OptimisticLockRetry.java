@@ -0,0 +1,107 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.usecase;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Reexecuta operações de leitura-alteração-gravação da venda quando a gravação
+ * falha por conflito de versão, com número máximo de tentativas e espera
+ * exponencial com jitter entre elas.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Component
+public class OptimisticLockRetry {
+
+	private static final Logger logger = LoggerFactory.getLogger(OptimisticLockRetry.class);
+
+	private MeterRegistry meterRegistry;
+
+	private int maxAttempts;
+
+	private long backoffMs;
+
+	private long maxBackoffMs;
+
+	@Autowired
+	public OptimisticLockRetry(MeterRegistry meterRegistry,
+			@Value("${application.venda.retry.maxAttempts:5}") int maxAttempts,
+			@Value("${application.venda.retry.backoffMs:10}") long backoffMs,
+			@Value("${application.venda.retry.maxBackoffMs:200}") long maxBackoffMs) {
+		this.meterRegistry = meterRegistry;
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.backoffMs = backoffMs;
+		this.maxBackoffMs = maxBackoffMs;
+	}
+
+	public <T> T execute(String operacao, Supplier<T> action) {
+		for (int tentativa = 1; ; tentativa++) {
+			try {
+				return action.get();
+			} catch (OptimisticLockingFailureException e) {
+				meterRegistry.counter("venda.optimistic.conflitos", "operacao", operacao).increment();
+				if (tentativa >= maxAttempts) {
+					meterRegistry.counter("venda.optimistic.esgotados", "operacao", operacao).increment();
+					logger.warn("CONFLITO DE VERSÃO EM {} APÓS {} TENTATIVAS", operacao, tentativa);
+					throw e;
+				}
+				aguardar(tentativa);
+			}
+		}
+	}
+
+	/**
+	 * Versão reativa: reassina {@code action} (que deve reler a venda a cada
+	 * assinatura) com a mesma política, esperando sem bloquear a thread.
+	 */
+	public <T> Mono<T> execute(String operacao, Mono<T> action) {
+		return action.retryWhen(Retry.from(falhas -> falhas.concatMap(falha -> {
+			if (!(falha.failure() instanceof OptimisticLockingFailureException)) {
+				return Mono.error(falha.failure());
+			}
+			meterRegistry.counter("venda.optimistic.conflitos", "operacao", operacao).increment();
+			int tentativa = (int) falha.totalRetries() + 1;
+			if (tentativa >= maxAttempts) {
+				meterRegistry.counter("venda.optimistic.esgotados", "operacao", operacao).increment();
+				logger.warn("CONFLITO DE VERSÃO EM {} APÓS {} TENTATIVAS", operacao, tentativa);
+				return Mono.error(falha.failure());
+			}
+			return Mono.delay(Duration.ofMillis(espera(tentativa)));
+		})));
+	}
+
+	private void aguardar(int tentativa) {
+		long espera = espera(tentativa);
+		if (espera <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(espera);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("INTERROMPIDO AGUARDANDO NOVA TENTATIVA", e);
+		}
+	}
+
+	// Full jitter: espera aleatória entre 0 e min(maxBackoff, backoff * 2^(tentativa-1)).
+	private long espera(int tentativa) {
+		long teto = Math.min(maxBackoffMs, backoffMs << Math.min(tentativa - 1, 20));
+		return teto <= 0 ? 0 : ThreadLocalRandom.current().nextLong(teto + 1);
+	}
+}
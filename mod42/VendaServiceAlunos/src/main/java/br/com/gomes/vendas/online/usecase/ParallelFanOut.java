@@ -0,0 +1,162 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.usecase;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.sleuth.CurrentTraceContext;
+import org.springframework.stereotype.Component;
+
+import br.com.gomes.vendas.online.exception.DeadlineExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Executa consultas independentes (MongoDB, ClienteService, ProdutoService) em
+ * paralelo, em um pool limitado a {@code maxParallelism} threads, e espera por
+ * elas até o prazo da requisição.
+ *
+ * Com o pool e a fila cheios a tarefa roda na própria thread da requisição,
+ * o que limita a carga em vez de rejeitá-la.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Component
+public class ParallelFanOut {
+
+	private ThreadPoolExecutor executor;
+
+	private ExecutorService submissor;
+
+	private Duration timeout;
+
+	@Autowired
+	public ParallelFanOut(MeterRegistry meterRegistry,
+			ObjectProvider<CurrentTraceContext> currentTraceContext,
+			@Value("${application.venda.fanOut.maxParallelism:16}") int maxParallelism,
+			@Value("${application.venda.fanOut.queueCapacity:500}") int queueCapacity,
+			@Value("${application.venda.fanOut.timeout:3s}") Duration timeout) {
+		this(meterRegistry, maxParallelism, queueCapacity, timeout);
+		// As consultas continuam no trace da requisição que as disparou.
+		currentTraceContext.ifAvailable(tracing -> this.submissor = tracing.wrap(executor));
+	}
+
+	public ParallelFanOut(MeterRegistry meterRegistry, int maxParallelism, int queueCapacity, Duration timeout) {
+		this.timeout = timeout;
+		this.executor = new ThreadPoolExecutor(maxParallelism, maxParallelism, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(queueCapacity), threadFactory(),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+		this.executor.allowCoreThreadTimeOut(true);
+		this.submissor = executor;
+		new ExecutorServiceMetrics(executor, "venda.fanout", Tags.empty()).bindTo(meterRegistry);
+	}
+
+	/**
+	 * Prazo de uma requisição, contado a partir da chamada.
+	 */
+	public Deadline deadline() {
+		return new Deadline(System.nanoTime() + timeout.toNanos());
+	}
+
+	public <T> CompletableFuture<T> submit(Supplier<T> tarefa) {
+		return CompletableFuture.supplyAsync(tarefa, submissor);
+	}
+
+	/**
+	 * Espera o resultado até o prazo. Exceções da tarefa são relançadas como foram
+	 * lançadas; esgotado o prazo o resultado é descartado e a chamada remota em
+	 * andamento termina pelo seu próprio timeout.
+	 */
+	public <T> T join(CompletableFuture<T> futuro, Deadline deadline) {
+		try {
+			return futuro.get(Math.max(0, deadline.restanteNanos()), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			futuro.cancel(true);
+			throw new DeadlineExceededException("CONSULTAS NÃO CONCLUÍDAS EM " + timeout.toMillis() + " MS");
+		} catch (ExecutionException | CompletionException e) {
+			throw relancar(e.getCause());
+		} catch (CancellationException e) {
+			throw new DeadlineExceededException("CONSULTA CANCELADA");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			futuro.cancel(true);
+			throw new IllegalStateException("INTERROMPIDO AGUARDANDO CONSULTAS", e);
+		}
+	}
+
+	/**
+	 * Espera todos os resultados, na ordem dos futuros. A primeira falha (ou o fim
+	 * do prazo) descarta os que ainda não terminaram.
+	 */
+	public <T> List<T> joinAll(List<CompletableFuture<T>> futuros, Deadline deadline) {
+		List<T> resultados = new ArrayList<>(futuros.size());
+		try {
+			for (CompletableFuture<T> futuro : futuros) {
+				resultados.add(join(futuro, deadline));
+			}
+			return resultados;
+		} catch (RuntimeException e) {
+			futuros.forEach(futuro -> futuro.cancel(true));
+			throw e;
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private static RuntimeException relancar(Throwable causa) {
+		if (causa instanceof RuntimeException) {
+			return (RuntimeException) causa;
+		}
+		if (causa instanceof Error) {
+			throw (Error) causa;
+		}
+		return new IllegalStateException(causa);
+	}
+
+	private static ThreadFactory threadFactory() {
+		AtomicInteger contador = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "venda-fanout-" + contador.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	public static final class Deadline {
+
+		private final long expiraEm;
+
+		private Deadline(long expiraEm) {
+			this.expiraEm = expiraEm;
+		}
+
+		long restanteNanos() {
+			return expiraEm - System.nanoTime();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.usecase;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import br.com.gomes.vendas.online.dto.PaginaCursor;
+import br.com.gomes.vendas.online.exception.BadRequestException;
+import br.com.gomes.vendas.online.exception.EntityNotFoundException;
+import br.com.gomes.vendas.online.repository.IReactiveVendaRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Versão reativa de {@link BuscaVenda}.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Service
+@Profile("reactive")
+public class ReactiveBuscaVenda {
+
+	private IReactiveVendaRepository vendaRepository;
+
+	@Autowired
+	public ReactiveBuscaVenda(IReactiveVendaRepository vendaRepository) {
+		this.vendaRepository = vendaRepository;
+	}
+
+	public Mono<Page<Venda>> buscar(Pageable pageable) {
+		return vendaRepository.findAllBy(pageable).collectList()
+				.zipWith(vendaRepository.count())
+				.map(pagina -> new PageImpl<>(pagina.getT1(), pageable, pagina.getT2()));
+	}
+
+	public Mono<PaginaCursor<Venda>> buscar(String cursor, Integer tamanho) {
+		return Mono.fromCallable(() -> Optional.ofNullable(PaginaCursor.decodificar(cursor)))
+				.flatMap(ultimoId -> {
+					int limite = PaginaCursor.limitar(tamanho);
+					Flux<Venda> vendas = ultimoId.isPresent()
+							? vendaRepository.findByIdGreaterThan(ultimoId.get(), PaginaCursor.consulta(limite))
+							: vendaRepository.findAllBy(PaginaCursor.consulta(limite));
+					return vendas.collectList().map(itens -> PaginaCursor.de(itens, limite, Venda::getId));
+				});
+	}
+
+	/**
+	 * Vendas filtradas lidas do cursor conforme a demanda da resposta, que o
+	 * WebFlux serializa como NDJSON.
+	 */
+	public Flux<Venda> exportar(Instant de, Instant ate, Status status) {
+		if (de != null && ate != null && !de.isBefore(ate)) {
+			return Flux.error(new BadRequestException("PERÍODO INVÁLIDO: " + de + " DEVE SER ANTERIOR A " + ate));
+		}
+		return vendaRepository.exportar(de, ate, status);
+	}
+
+	public Mono<Venda> buscarPorCodigo(String codigo) {
+		return vendaRepository.findByCodigo(codigo)
+				.switchIfEmpty(Mono.error(() -> new EntityNotFoundException(Venda.class, "codigo", codigo)));
+	}
+
+}
@@ -0,0 +1,229 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.usecase;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.validation.Valid;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import br.com.gomes.vendas.online.domain.VendaEvento.Tipo;
+import br.com.gomes.vendas.online.dto.ItemVendaDTO;
+import br.com.gomes.vendas.online.dto.VendaDTO;
+import br.com.gomes.vendas.online.exception.EntityNotFoundException;
+import br.com.gomes.vendas.online.repository.IReactiveVendaRepository;
+import br.com.gomes.vendas.online.service.ReactiveClienteService;
+import br.com.gomes.vendas.online.service.ReactiveEstoqueService;
+import br.com.gomes.vendas.online.service.ReactiveProdutoService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Versão reativa de {@link CadastroVenda}, com as mesmas regras: nenhuma etapa
+ * bloqueia a thread enquanto espera o ClienteService, o ProdutoService ou o MongoDB.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Service
+@Profile("reactive")
+public class ReactiveCadastroVenda {
+
+	private IReactiveVendaRepository vendaRepository;
+
+	private ReactiveProdutoService produtoService;
+
+	private ReactiveClienteService clienteService;
+
+	private OptimisticLockRetry optimisticLockRetry;
+
+	private VendaMetrics vendaMetrics;
+
+	private ReactiveResumoVendas resumoVendas;
+
+	private TopProdutos topProdutos;
+
+	private ReactiveVendaOutbox outbox;
+
+	private ReactiveEstoqueService estoqueService;
+
+	@Autowired
+	public ReactiveCadastroVenda(IReactiveVendaRepository vendaRepository,
+			ReactiveProdutoService produtoService,
+			ReactiveClienteService clienteService,
+			OptimisticLockRetry optimisticLockRetry,
+			VendaMetrics vendaMetrics,
+			ReactiveResumoVendas resumoVendas,
+			TopProdutos topProdutos,
+			ReactiveVendaOutbox outbox,
+			ReactiveEstoqueService estoqueService) {
+		this.vendaRepository = vendaRepository;
+		this.produtoService = produtoService;
+		this.clienteService = clienteService;
+		this.optimisticLockRetry = optimisticLockRetry;
+		this.vendaMetrics = vendaMetrics;
+		this.resumoVendas = resumoVendas;
+		this.topProdutos = topProdutos;
+		this.outbox = outbox;
+		this.estoqueService = estoqueService;
+	}
+
+	public Mono<Venda> cadastrar(@Valid VendaDTO vendaDTO) {
+		Venda venda = convertToDomain(vendaDTO, Status.INICIADA);
+		return validarCliente(venda.getClienteId())
+				.then(outbox.registrar(Tipo.CRIADA, Mono.defer(() -> {
+					venda.recalcularValorTotalVenda();
+					return this.vendaRepository.insert(venda);
+				})))
+				.doOnNext(inserida -> vendaMetrics.registrarStatus(Status.INICIADA))
+				.flatMap(inserida -> resumoVendas.registrar(inserida, Status.INICIADA).thenReturn(inserida));
+	}
+
+	private Mono<Void> validarCliente(String clienteId) {
+		return this.clienteService.isClienteCadastrado(clienteId)
+				.filter(Boolean.TRUE::equals)
+				.switchIfEmpty(Mono.error(() -> new EntityNotFoundException(Venda.class, "clienteId", clienteId)))
+				.then();
+	}
+
+	private Venda convertToDomain(@Valid VendaDTO vendaDTO, Status status) {
+		return Venda.builder()
+				.clienteId(vendaDTO.getClienteId())
+				.codigo(vendaDTO.getCodigo())
+				.dataVenda(vendaDTO.getDataVenda())
+				.status(status)
+				.valorTotal(BigDecimal.ZERO)
+				.produtos(new HashSet<>())
+				.build();
+	}
+
+	public Mono<Venda> atualizar(@Valid Venda venda) {
+		return outbox.registrar(Tipo.ALTERADA, this.vendaRepository.save(venda));
+	}
+
+	/**
+	 * As reservas de estoque são confirmadas (ou liberadas, no cancelamento)
+	 * antes da mudança de status, como em {@link CadastroVenda#finalizar(String)}.
+	 */
+	public Mono<Venda> finalizar(String id) {
+		return buscarVenda(id)
+				.flatMap(venda -> {
+					venda.validarStatus();
+					return estoqueService.confirmar(venda);
+				})
+				.then(Mono.defer(() -> alterarStatus(id, Status.CONCLUIDA)));
+	}
+
+	public Mono<Venda> cancelar(String id) {
+		return estoqueService.liberar(id).then(Mono.defer(() -> alterarStatus(id, Status.CANCELADA)));
+	}
+
+	private Mono<Venda> alterarStatus(String id, Status status) {
+		return outbox.registrar(Tipo.de(status), this.vendaRepository.atualizarStatus(id, status))
+				.switchIfEmpty(Mono.defer(() -> falhaAoAlterar(id)))
+				.doOnNext(venda -> {
+					vendaMetrics.registrarStatus(status);
+					if (status == Status.CONCLUIDA) {
+						topProdutos.registrarVenda(venda);
+					}
+				})
+				.flatMap(venda -> resumoVendas.registrar(venda, status).thenReturn(venda));
+	}
+
+	public Mono<Venda> adicionarProduto(String id, String codigoProduto, Integer quantidade) {
+		return buscarProduto(codigoProduto)
+				.flatMap(produto -> estoqueService.reservar(id, Collections.singletonList(new ItemVendaDTO(codigoProduto, quantidade)))
+						.then(Mono.defer(() -> outbox.registrar(Tipo.ALTERADA, this.vendaRepository.adicionarProduto(id, produto, quantidade))
+								.switchIfEmpty(Mono.defer(() -> falhaAoAlterar(id)))
+								.onErrorResume(e -> estoqueService.liberar(id, codigoProduto, quantidade).then(Mono.error(e))))))
+				.doOnNext(venda -> {
+					vendaMetrics.registrarItens(quantidade);
+					topProdutos.registrar(TopProdutos.Metrica.ADICIONADOS, codigoProduto, quantidade);
+				});
+	}
+
+	public Mono<Venda> adicionarProdutos(String id, List<ItemVendaDTO> itens) {
+		return buscarProdutos(itens)
+				.flatMap(produtos -> estoqueService.reservar(id, itens)
+						.then(Mono.defer(() -> optimisticLockRetry.execute("adicionarProdutos", buscarVenda(id)
+								.flatMap(venda -> {
+									venda.validarStatus();
+									for (ItemVendaDTO item : itens) {
+										venda.adicionarProduto(produtos.get(item.getCodigoProduto()), item.getQuantidade());
+									}
+									return outbox.registrar(Tipo.ALTERADA, this.vendaRepository.save(venda));
+								}))
+								.onErrorResume(e -> Flux.fromIterable(itens)
+										.concatMap(item -> estoqueService.liberar(id, item.getCodigoProduto(), item.getQuantidade()))
+										.then(Mono.error(e))))))
+				.doOnNext(venda -> {
+					vendaMetrics.registrarItens(itens.stream().mapToInt(ItemVendaDTO::getQuantidade).sum());
+					topProdutos.registrarItens(itens);
+				});
+	}
+
+	public Mono<Venda> removerProduto(String id, String codigoProduto, Integer quantidade) {
+		return buscarProduto(codigoProduto)
+				.flatMap(produto -> outbox.registrar(Tipo.ALTERADA, this.vendaRepository.removerProduto(id, codigoProduto, quantidade))
+						.flatMap(venda -> estoqueService.liberar(id, codigoProduto, quantidade).thenReturn(venda))
+						// Nenhuma linha alterada: a venda não existe, não pode ser alterada ou não tem o produto.
+						.switchIfEmpty(Mono.defer(() -> buscarVenda(id).map(venda -> {
+							venda.validarStatus();
+							return venda;
+						}))));
+	}
+
+	/**
+	 * Chamado quando uma atualização parcial não encontrou venda alterável:
+	 * falha com EntityNotFoundException ou UnsupportedOperationException conforme o caso.
+	 * Se a venda relida ainda pode ser alterada, ela mudou entre a atualização e a
+	 * releitura, e a falha é um conflito (409) que o cliente pode repetir.
+	 */
+	private Mono<Venda> falhaAoAlterar(String id) {
+		return buscarVenda(id).flatMap(venda -> {
+			venda.validarStatus();
+			return Mono.error(new OptimisticLockingFailureException("VENDA " + id + " NÃO PÔDE SER ALTERADA"));
+		});
+	}
+
+	private Mono<Venda> buscarVenda(String id) {
+		return vendaRepository.findById(id)
+				.switchIfEmpty(Mono.error(() -> new EntityNotFoundException(Venda.class, "id", id)));
+	}
+
+	private Mono<Produto> buscarProduto(String codigoProduto) {
+		return produtoService.buscarProduto(codigoProduto)
+				.switchIfEmpty(Mono.error(() -> new EntityNotFoundException(Produto.class, "codigo", codigoProduto)));
+	}
+
+	private Mono<Map<String, Produto>> buscarProdutos(List<ItemVendaDTO> itens) {
+		Set<String> codigos = itens.stream().map(ItemVendaDTO::getCodigoProduto)
+				.collect(Collectors.toCollection(HashSet::new));
+		return produtoService.buscarProdutos(codigos).flatMap(encontrados -> {
+			Map<String, Produto> produtos = encontrados.stream()
+					.collect(Collectors.toMap(Produto::getCodigo, Function.identity(), (a, b) -> a));
+			Set<String> ausentes = new HashSet<>(codigos);
+			ausentes.removeAll(produtos.keySet());
+			if (!ausentes.isEmpty()) {
+				return Mono.error(new EntityNotFoundException(Produto.class, "codigo", String.join(",", ausentes)));
+			}
+			return Mono.just(produtos);
+		});
+	}
+
+}
@@ -0,0 +1,90 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.usecase;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import br.com.gomes.vendas.online.domain.ResumoVenda;
+import br.com.gomes.vendas.online.domain.ResumoVenda.Granularidade;
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import br.com.gomes.vendas.online.repository.IReactiveResumoVendaRepository;
+import br.com.gomes.vendas.online.repository.IReactiveVendaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Versão reativa de {@link ResumoVendas}.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Service
+@Profile("reactive")
+public class ReactiveResumoVendas {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReactiveResumoVendas.class);
+
+	private IReactiveResumoVendaRepository resumoRepository;
+
+	private IReactiveVendaRepository vendaRepository;
+
+	private Counter falhas;
+
+	@Autowired
+	public ReactiveResumoVendas(IReactiveResumoVendaRepository resumoRepository,
+			IReactiveVendaRepository vendaRepository,
+			MeterRegistry meterRegistry) {
+		this.resumoRepository = resumoRepository;
+		this.vendaRepository = vendaRepository;
+		this.falhas = ResumoVendas.falhas(meterRegistry);
+	}
+
+	/**
+	 * Completa vazio mesmo se a gravação falhar, para não desfazer a venda.
+	 */
+	public Mono<Void> registrar(Venda venda, Status status) {
+		return resumoRepository.incrementar(ResumoVenda.parciais(venda, status))
+				.onErrorResume(e -> {
+					falhas.increment();
+					logger.error("FALHA AO ATUALIZAR O RESUMO DA VENDA {} ({})", venda.getId(), status, e);
+					return Mono.empty();
+				});
+	}
+
+	public Flux<ResumoVenda> buscar(Granularidade granularidade, Instant de, Instant ate, Status status,
+			String clienteId) {
+		return Mono.fromRunnable(() -> ResumoVendas.validarConsulta(granularidade, de, ate))
+				.thenMany(resumoRepository.buscar(granularidade, de, ate, status, clienteId));
+	}
+
+	public Mono<Long> reconstruir(Instant de, Instant ate) {
+		return Mono.fromRunnable(() -> ResumoVendas.validarReconstrucao(de, ate))
+				.then(resumoRepository.remover(de, ate))
+				.thenMany(vendaRepository.exportar(de, ate, null))
+				.buffer(ResumoVendas.LOTE_RECONSTRUCAO)
+				.concatMap(vendas -> resumoRepository.incrementar(acumular(vendas).values())
+						.thenReturn((long) vendas.size()))
+				.reduce(0L, Long::sum)
+				.doOnNext(vendas -> logger.info("RESUMOS DE {} A {} RECONSTRUÍDOS: {} VENDAS SOMADAS", de, ate, vendas));
+	}
+
+	private Map<String, ResumoVenda> acumular(List<Venda> vendas) {
+		Map<String, ResumoVenda> lote = new LinkedHashMap<>();
+		vendas.forEach(venda -> ResumoVendas.acumular(lote, venda));
+		return lote;
+	}
+
+}
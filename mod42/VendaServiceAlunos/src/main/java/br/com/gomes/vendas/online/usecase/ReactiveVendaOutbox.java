@@ -0,0 +1,59 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.usecase;
+
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.VendaEvento;
+import br.com.gomes.vendas.online.domain.VendaEvento.Tipo;
+import br.com.gomes.vendas.online.repository.IReactiveVendaEventoRepository;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Versão reativa de {@link VendaOutbox}.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Component
+@Profile("reactive")
+public class ReactiveVendaOutbox {
+
+	private IReactiveVendaEventoRepository eventoRepository;
+
+	private TransactionalOperator transactionalOperator;
+
+	private boolean transacional;
+
+	@Autowired
+	public ReactiveVendaOutbox(IReactiveVendaEventoRepository eventoRepository,
+			ReactiveTransactionManager transactionManager,
+			@Value("${application.outbox.transacional:false}") boolean transacional) {
+		this.eventoRepository = eventoRepository;
+		this.transactionalOperator = TransactionalOperator.create(transactionManager);
+		this.transacional = transacional;
+	}
+
+	/**
+	 * @param alteracao altera a venda a cada assinatura e emite como ficou, ou completa vazio (sem evento).
+	 */
+	public Mono<Venda> registrar(Tipo tipo, Mono<Venda> alteracao) {
+		Mono<Venda> gravacao = alteracao.flatMap(venda -> eventoRepository
+				.insert(new VendaEvento(tipo, venda, Instant.now()))
+				.thenReturn(venda));
+		return (transacional ? transactionalOperator.transactional(gravacao) : gravacao)
+				.retryWhen(Retry.max(VendaOutbox.TENTATIVAS - 1)
+						.filter(VendaOutbox::transiente)
+						.onRetryExhaustedThrow((spec, sinal) -> sinal.failure()));
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.usecase;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+
+import br.com.gomes.vendas.online.domain.ResumoVenda;
+import br.com.gomes.vendas.online.domain.ResumoVenda.Granularidade;
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import br.com.gomes.vendas.online.exception.BadRequestException;
+import br.com.gomes.vendas.online.repository.IResumoVendaRepository;
+import br.com.gomes.vendas.online.repository.IVendaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Mantém os resumos de {@link ResumoVenda} a cada venda criada, concluída ou
+ * cancelada, e os consulta para os painéis sem agregar a coleção de vendas.
+ *
+ * Os incrementos são gravados depois da venda e fora de transação: uma falha
+ * não desfaz a venda, é contada em {@code venda.resumo.falhas} e corrigida
+ * com {@link #reconstruir(Instant, Instant)}.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Service
+@Profile("!reactive")
+public class ResumoVendas {
+
+	private static final Logger logger = LoggerFactory.getLogger(ResumoVendas.class);
+
+	/** Vendas somadas em memória antes de cada bulk da reconstrução. */
+	static final int LOTE_RECONSTRUCAO = 1000;
+
+	/** Limite de períodos por consulta, que mantém a resposta em algumas centenas de linhas por status. */
+	static final long MAXIMO_PERIODOS = 1000;
+
+	private IResumoVendaRepository resumoRepository;
+
+	private IVendaRepository vendaRepository;
+
+	private Counter falhas;
+
+	@Autowired
+	public ResumoVendas(IResumoVendaRepository resumoRepository,
+			IVendaRepository vendaRepository,
+			MeterRegistry meterRegistry) {
+		this.resumoRepository = resumoRepository;
+		this.vendaRepository = vendaRepository;
+		this.falhas = falhas(meterRegistry);
+	}
+
+	public void registrar(Venda venda, Status status) {
+		try {
+			resumoRepository.incrementar(ResumoVenda.parciais(venda, status));
+		} catch (RuntimeException e) {
+			falhas.increment();
+			logger.error("FALHA AO ATUALIZAR O RESUMO DA VENDA {} ({})", venda.getId(), status, e);
+		}
+	}
+
+	public List<ResumoVenda> buscar(Granularidade granularidade, Instant de, Instant ate, Status status,
+			String clienteId) {
+		validarConsulta(granularidade, de, ate);
+		return resumoRepository.buscar(granularidade, de, ate, status, clienteId);
+	}
+
+	/**
+	 * Recalcula os resumos de [de, ate), limites em dias UTC completos, a partir
+	 * das vendas. Incrementos de vendas alteradas no período durante a
+	 * reconstrução podem se perder; use em períodos fechados ou sem tráfego.
+	 *
+	 * @return a quantidade de vendas somadas.
+	 */
+	public long reconstruir(Instant de, Instant ate) {
+		validarReconstrucao(de, ate);
+		long removidas = resumoRepository.remover(de, ate);
+		long vendas = 0;
+		Map<String, ResumoVenda> lote = new LinkedHashMap<>();
+		try (CloseableIterator<Venda> cursor = vendaRepository.exportar(de, ate, null)) {
+			while (cursor.hasNext()) {
+				acumular(lote, cursor.next());
+				if (++vendas % LOTE_RECONSTRUCAO == 0) {
+					resumoRepository.incrementar(lote.values());
+					lote.clear();
+				}
+			}
+		}
+		resumoRepository.incrementar(lote.values());
+		logger.info("RESUMOS DE {} A {} RECONSTRUÍDOS: {} LINHAS REMOVIDAS, {} VENDAS SOMADAS", de, ate, removidas, vendas);
+		return vendas;
+	}
+
+	static Counter falhas(MeterRegistry meterRegistry) {
+		return Counter.builder("venda.resumo.falhas")
+				.description("Atualizações de resumo de vendas que falharam")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Soma ao lote as parciais da venda: INICIADA sempre e o status atual, se final.
+	 */
+	static void acumular(Map<String, ResumoVenda> lote, Venda venda) {
+		somar(lote, ResumoVenda.parciais(venda, Status.INICIADA));
+		if (venda.getStatus() != null && venda.getStatus() != Status.INICIADA) {
+			somar(lote, ResumoVenda.parciais(venda, venda.getStatus()));
+		}
+	}
+
+	private static void somar(Map<String, ResumoVenda> lote, Collection<ResumoVenda> parciais) {
+		for (ResumoVenda parcial : parciais) {
+			lote.merge(parcial.chave(), parcial, (atual, novo) -> {
+				atual.somar(novo);
+				return atual;
+			});
+		}
+	}
+
+	static void validarConsulta(Granularidade granularidade, Instant de, Instant ate) {
+		if (granularidade == null || de == null || ate == null || !de.isBefore(ate)) {
+			throw new BadRequestException("INFORME A GRANULARIDADE E UM PERÍODO [de, ate) VÁLIDO");
+		}
+		long periodos = Duration.between(de, ate).toMillis() / granularidade.getDuracao().toMillis();
+		if (periodos > MAXIMO_PERIODOS) {
+			throw new BadRequestException("PERÍODO DE " + periodos + " " + granularidade
+					+ " EXCEDE O LIMITE DE " + MAXIMO_PERIODOS);
+		}
+	}
+
+	static void validarReconstrucao(Instant de, Instant ate) {
+		if (de == null || ate == null || !de.isBefore(ate)
+				|| !de.equals(de.truncatedTo(ChronoUnit.DAYS)) || !ate.equals(ate.truncatedTo(ChronoUnit.DAYS))) {
+			throw new BadRequestException("A RECONSTRUÇÃO EXIGE UM PERÍODO [de, ate) EM DIAS COMPLETOS (UTC)");
+		}
+	}
+
+}
@@ -0,0 +1,276 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.usecase;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import br.com.gomes.vendas.online.domain.ProdutoQuantidade;
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.dto.ItemVendaDTO;
+import br.com.gomes.vendas.online.dto.ProdutoContagem;
+import br.com.gomes.vendas.online.dto.TopProdutosSnapshot;
+import br.com.gomes.vendas.online.exception.BadRequestException;
+import br.com.gomes.vendas.online.service.CountMinSketch;
+
+/**
+ * Produtos mais adicionados e mais vendidos nos últimos minutos, em memória
+ * fixa e sem consultar o MongoDB.
+ *
+ * Cada métrica guarda um anel de {@code intervalos} intervalos de duração
+ * {@code intervalo}; cada intervalo tem um {@link CountMinSketch} e até
+ * {@code candidatos} produtos com a maior estimativa. A consulta de uma janela
+ * soma, para os candidatos dos intervalos da janela, as estimativas de cada
+ * intervalo. Intervalos que saem da janela são zerados ao serem reutilizados.
+ *
+ * Os valores são desta instância; com várias instâncias, os snapshots de cada
+ * uma são mesclados em {@link #mesclar(List, int)}.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Component
+public class TopProdutos {
+
+	public enum Metrica {
+		ADICIONADOS, VENDIDOS
+	}
+
+	private final Clock clock;
+
+	private final long intervaloMillis;
+
+	private final int largura;
+
+	private final int profundidade;
+
+	private final int maximoCandidatos;
+
+	private final Map<Metrica, Intervalo[]> aneis = new EnumMap<>(Metrica.class);
+
+	@Autowired
+	public TopProdutos(@Value("${application.topProdutos.largura:1024}") int largura,
+			@Value("${application.topProdutos.profundidade:4}") int profundidade,
+			@Value("${application.topProdutos.candidatos:100}") int candidatos,
+			@Value("${application.topProdutos.intervalo:1m}") Duration intervalo,
+			@Value("${application.topProdutos.intervalos:60}") int intervalos) {
+		this(Clock.systemUTC(), largura, profundidade, candidatos, intervalo, intervalos);
+	}
+
+	public TopProdutos(Clock clock, int largura, int profundidade, int candidatos, Duration intervalo, int intervalos) {
+		this.clock = clock;
+		this.intervaloMillis = Math.max(1, intervalo.toMillis());
+		this.largura = largura;
+		this.profundidade = profundidade;
+		this.maximoCandidatos = Math.max(1, candidatos);
+		for (Metrica metrica : Metrica.values()) {
+			Intervalo[] anel = new Intervalo[Math.max(1, intervalos)];
+			for (int i = 0; i < anel.length; i++) {
+				anel[i] = new Intervalo(new CountMinSketch(largura, profundidade), maximoCandidatos);
+			}
+			aneis.put(metrica, anel);
+		}
+	}
+
+	public void registrar(Metrica metrica, String codigoProduto, long quantidade) {
+		long numero = numeroAtual();
+		Intervalo[] anel = aneis.get(metrica);
+		anel[(int) (numero % anel.length)].registrar(numero, codigoProduto, quantidade);
+	}
+
+	public void registrarItens(List<ItemVendaDTO> itens) {
+		for (ItemVendaDTO item : itens) {
+			registrar(Metrica.ADICIONADOS, item.getCodigoProduto(), item.getQuantidade());
+		}
+	}
+
+	public void registrarVenda(Venda venda) {
+		for (ProdutoQuantidade linha : venda.getProdutos()) {
+			registrar(Metrica.VENDIDOS, linha.getProduto().getCodigo(), linha.getQuantidade());
+		}
+	}
+
+	public List<ProdutoContagem> top(Metrica metrica, int minutos, int n) {
+		List<Intervalo> janela = new ArrayList<>();
+		List<Long> numeros = new ArrayList<>();
+		selecionar(metrica, minutos, janela, numeros);
+		Set<String> candidatos = new LinkedHashSet<>();
+		for (int i = 0; i < janela.size(); i++) {
+			janela.get(i).candidatos(numeros.get(i), candidatos);
+		}
+		return ordenar(candidatos, codigo -> {
+			long soma = 0;
+			for (int i = 0; i < janela.size(); i++) {
+				soma += janela.get(i).estimar(numeros.get(i), codigo);
+			}
+			return soma;
+		}, n);
+	}
+
+	/**
+	 * Sketch somado e candidatos da janela, para serem mesclados com os das outras instâncias.
+	 */
+	public TopProdutosSnapshot snapshot(Metrica metrica, int minutos) {
+		List<Intervalo> janela = new ArrayList<>();
+		List<Long> numeros = new ArrayList<>();
+		selecionar(metrica, minutos, janela, numeros);
+		CountMinSketch soma = new CountMinSketch(largura, profundidade);
+		Set<String> candidatos = new LinkedHashSet<>();
+		for (int i = 0; i < janela.size(); i++) {
+			janela.get(i).somarEm(numeros.get(i), soma, candidatos);
+		}
+		return new TopProdutosSnapshot(metrica, minutos, largura, profundidade, soma.getTotal(),
+				soma.getContadores(), new ArrayList<>(candidatos));
+	}
+
+	public List<ProdutoContagem> mesclar(List<TopProdutosSnapshot> snapshots, int n) {
+		if (snapshots == null || snapshots.isEmpty()) {
+			throw new BadRequestException("INFORME AO MENOS UM SNAPSHOT");
+		}
+		snapshots.forEach(TopProdutos::validar);
+		TopProdutosSnapshot primeiro = snapshots.get(0);
+		CountMinSketch soma = new CountMinSketch(primeiro.getLargura(), primeiro.getProfundidade());
+		Set<String> candidatos = new LinkedHashSet<>();
+		for (TopProdutosSnapshot snapshot : snapshots) {
+			if (snapshot.getMetrica() != primeiro.getMetrica()) {
+				throw new BadRequestException("SNAPSHOTS DE MÉTRICAS DIFERENTES: "
+						+ primeiro.getMetrica() + " E " + snapshot.getMetrica());
+			}
+			try {
+				soma.merge(new CountMinSketch(snapshot.getLargura(), snapshot.getProfundidade(),
+						snapshot.getContadores(), snapshot.getTotal()));
+			} catch (IllegalArgumentException e) {
+				throw new BadRequestException(e.getMessage());
+			}
+			candidatos.addAll(snapshot.getCandidatos());
+		}
+		return ordenar(candidatos, soma::estimate, n);
+	}
+
+	/**
+	 * Confere o snapshot recebido antes de alocar o sketch da soma: as dimensões
+	 * devem corresponder aos contadores enviados, sem estouro na multiplicação.
+	 */
+	private static void validar(TopProdutosSnapshot snapshot) {
+		if (snapshot == null || snapshot.getMetrica() == null || snapshot.getContadores() == null
+				|| snapshot.getCandidatos() == null) {
+			throw new BadRequestException("SNAPSHOT INCOMPLETO: INFORME MÉTRICA, CONTADORES E CANDIDATOS");
+		}
+		int largura = snapshot.getLargura();
+		int profundidade = snapshot.getProfundidade();
+		try {
+			if (largura < 1 || profundidade < 1
+					|| Math.multiplyExact(largura, profundidade) != snapshot.getContadores().length) {
+				throw new BadRequestException("DIMENSÕES INVÁLIDAS DO SNAPSHOT: " + largura + "x" + profundidade
+						+ " COM " + snapshot.getContadores().length + " CONTADORES");
+			}
+		} catch (ArithmeticException e) {
+			throw new BadRequestException("DIMENSÕES INVÁLIDAS DO SNAPSHOT: " + largura + "x" + profundidade);
+		}
+	}
+
+	private void selecionar(Metrica metrica, int minutos, List<Intervalo> janela, List<Long> numeros) {
+		if (metrica == null || minutos < 1) {
+			throw new BadRequestException("INFORME A MÉTRICA E UMA JANELA DE AO MENOS 1 MINUTO");
+		}
+		Intervalo[] anel = aneis.get(metrica);
+		long quantidade = Math.min(anel.length,
+				Math.max(1, (Duration.ofMinutes(minutos).toMillis() + intervaloMillis - 1) / intervaloMillis));
+		long atual = numeroAtual();
+		for (long numero = atual; numero > atual - quantidade && numero >= 0; numero--) {
+			janela.add(anel[(int) (numero % anel.length)]);
+			numeros.add(numero);
+		}
+	}
+
+	private List<ProdutoContagem> ordenar(Set<String> candidatos, ToLongFunction<String> estimativa, int n) {
+		return candidatos.stream()
+				.map(codigo -> new ProdutoContagem(codigo, estimativa.applyAsLong(codigo)))
+				.filter(contagem -> contagem.getQuantidade() > 0)
+				.sorted(Comparator.comparingLong(ProdutoContagem::getQuantidade).reversed()
+						.thenComparing(ProdutoContagem::getCodigoProduto))
+				.limit(Math.max(1, Math.min(n, maximoCandidatos)))
+				.collect(Collectors.toList());
+	}
+
+	private long numeroAtual() {
+		return clock.millis() / intervaloMillis;
+	}
+
+	/**
+	 * Um intervalo do anel. {@code numero} identifica o intervalo de tempo
+	 * guardado; as leituras informam o número esperado e ignoram o intervalo
+	 * se ele já foi reutilizado por um mais novo.
+	 */
+	private static class Intervalo {
+
+		private final CountMinSketch sketch;
+
+		private final int maximoCandidatos;
+
+		private final Map<String, Long> candidatos = new HashMap<>();
+
+		private long numero = -1;
+
+		Intervalo(CountMinSketch sketch, int maximoCandidatos) {
+			this.sketch = sketch;
+			this.maximoCandidatos = maximoCandidatos;
+		}
+
+		synchronized void registrar(long numeroAtual, String codigo, long quantidade) {
+			if (numero != numeroAtual) {
+				sketch.clear();
+				candidatos.clear();
+				numero = numeroAtual;
+			}
+			long estimativa = sketch.add(codigo, quantidade);
+			if (candidatos.containsKey(codigo) || candidatos.size() < maximoCandidatos) {
+				candidatos.put(codigo, estimativa);
+				return;
+			}
+			// Substitui o candidato de menor estimativa, se o produto já o superou.
+			Map.Entry<String, Long> menor = null;
+			for (Map.Entry<String, Long> candidato : candidatos.entrySet()) {
+				if (menor == null || candidato.getValue() < menor.getValue()) {
+					menor = candidato;
+				}
+			}
+			if (estimativa > menor.getValue()) {
+				candidatos.remove(menor.getKey());
+				candidatos.put(codigo, estimativa);
+			}
+		}
+
+		synchronized long estimar(long numeroEsperado, String codigo) {
+			return numero == numeroEsperado ? sketch.estimate(codigo) : 0;
+		}
+
+		synchronized void candidatos(long numeroEsperado, Set<String> destino) {
+			if (numero == numeroEsperado) {
+				destino.addAll(candidatos.keySet());
+			}
+		}
+
+		synchronized void somarEm(long numeroEsperado, CountMinSketch destino, Set<String> destinoCandidatos) {
+			if (numero == numeroEsperado) {
+				destino.merge(sketch);
+				destinoCandidatos.addAll(candidatos.keySet());
+			}
+		}
+	}
+}
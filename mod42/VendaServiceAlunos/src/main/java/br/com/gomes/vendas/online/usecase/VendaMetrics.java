@@ -0,0 +1,52 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.usecase;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Contadores de negócio das vendas, comuns aos modos bloqueante e reativo:
+ * {@code venda.vendas} por status alcançado e {@code venda.itens.adicionados}
+ * pela quantidade de itens incluídos.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Component
+public class VendaMetrics {
+
+	private Map<Status, Counter> vendas = new EnumMap<>(Status.class);
+
+	private Counter itensAdicionados;
+
+	@Autowired
+	public VendaMetrics(MeterRegistry meterRegistry) {
+		for (Status status : Status.values()) {
+			vendas.put(status, Counter.builder("venda.vendas")
+					.description("Vendas que chegaram ao status")
+					.tag("status", status.name())
+					.register(meterRegistry));
+		}
+		this.itensAdicionados = Counter.builder("venda.itens.adicionados")
+				.description("Quantidade de itens adicionados às vendas")
+				.register(meterRegistry);
+	}
+
+	public void registrarStatus(Status status) {
+		vendas.get(status).increment();
+	}
+
+	public void registrarItens(int quantidade) {
+		itensAdicionados.increment(quantidade);
+	}
+
+}
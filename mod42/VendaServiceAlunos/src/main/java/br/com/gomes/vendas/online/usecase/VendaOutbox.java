@@ -0,0 +1,99 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.usecase;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mongodb.MongoException;
+
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.VendaEvento;
+import br.com.gomes.vendas.online.domain.VendaEvento.Tipo;
+import br.com.gomes.vendas.online.repository.IVendaEventoRepository;
+
+/**
+ * Executa uma alteração de venda e grava o evento correspondente na outbox.
+ * Com {@code application.outbox.transacional} ligado, os dois são gravados na
+ * mesma transação do MongoDB: ou os dois, ou nenhum. Transações exigem replica
+ * set (um nó basta), por isso o padrão é desligado: o evento é gravado logo
+ * depois da alteração, sem essa garantia.
+ *
+ * Conflitos transitórios da transação (outra alteração da mesma venda ao
+ * mesmo tempo) são repetidos até {@code TENTATIVAS} vezes.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Component
+@Profile("!reactive")
+public class VendaOutbox {
+
+	private static final Logger logger = LoggerFactory.getLogger(VendaOutbox.class);
+
+	static final int TENTATIVAS = 3;
+
+	private IVendaEventoRepository eventoRepository;
+
+	private TransactionTemplate transactionTemplate;
+
+	private boolean transacional;
+
+	@Autowired
+	public VendaOutbox(IVendaEventoRepository eventoRepository,
+			PlatformTransactionManager transactionManager,
+			@Value("${application.outbox.transacional:false}") boolean transacional) {
+		this.eventoRepository = eventoRepository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transacional = transacional;
+	}
+
+	/**
+	 * @param alteracao altera a venda e retorna como ficou, ou vazio se nada foi alterado (sem evento).
+	 */
+	public Optional<Venda> registrar(Tipo tipo, Supplier<Optional<Venda>> alteracao) {
+		for (int tentativa = 1; ; tentativa++) {
+			try {
+				return transacional
+						? transactionTemplate.execute(status -> gravar(tipo, alteracao))
+						: gravar(tipo, alteracao);
+			} catch (RuntimeException e) {
+				if (!transiente(e) || tentativa >= TENTATIVAS) {
+					throw e;
+				}
+				logger.debug("CONFLITO TRANSITÓRIO AO GRAVAR EVENTO {} - TENTATIVA {}", tipo, tentativa);
+			}
+		}
+	}
+
+	private Optional<Venda> gravar(Tipo tipo, Supplier<Optional<Venda>> alteracao) {
+		Optional<Venda> venda = alteracao.get();
+		venda.ifPresent(alterada -> eventoRepository.insert(new VendaEvento(tipo, alterada, Instant.now())));
+		return venda;
+	}
+
+	/**
+	 * Falhas marcadas pelo MongoDB como TransientTransactionError, que podem ser
+	 * repetidas desde o início da transação.
+	 */
+	static boolean transiente(Throwable falha) {
+		for (Throwable causa = falha; causa != null; causa = causa.getCause()) {
+			if (causa instanceof MongoException
+					&& ((MongoException) causa).hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
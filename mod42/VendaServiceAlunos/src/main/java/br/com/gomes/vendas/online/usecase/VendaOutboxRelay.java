@@ -0,0 +1,119 @@
+/**
+ *
+ */
+package br.com.gomes.vendas.online.usecase;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import br.com.gomes.vendas.online.domain.VendaEvento;
+import br.com.gomes.vendas.online.repository.IVendaEventoRepository;
+import br.com.gomes.vendas.online.service.VendaEventoSink;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Publica no {@link VendaEventoSink} os eventos gravados na outbox, em lotes de
+ * até {@code tamanhoLote} e na ordem de gravação, lendo apenas a coleção
+ * {@code venda_outbox}. Só a instância com o lease publica, para manter a
+ * ordem; se ela parar, outra assume quando o lease expira.
+ *
+ * A entrega é pelo menos uma vez: um lote cujo envio ou marcação falhou é
+ * reenviado na próxima execução.
+ *
+ * @author wendel.gomes
+ *
+ */
+@Component
+public class VendaOutboxRelay {
+
+	private static final Logger logger = LoggerFactory.getLogger(VendaOutboxRelay.class);
+
+	private final String instancia = UUID.randomUUID().toString();
+
+	private IVendaEventoRepository eventoRepository;
+
+	private VendaEventoSink sink;
+
+	private MeterRegistry meterRegistry;
+
+	private Timer atraso;
+
+	private boolean enabled;
+
+	private int tamanhoLote;
+
+	private Duration lease;
+
+	private long falhasSeguidas;
+
+	@Autowired
+	public VendaOutboxRelay(IVendaEventoRepository eventoRepository,
+			VendaEventoSink sink,
+			MeterRegistry meterRegistry,
+			@Value("${application.outbox.relay.enabled:true}") boolean enabled,
+			@Value("${application.outbox.relay.tamanhoLote:500}") int tamanhoLote,
+			@Value("${application.outbox.relay.lease:30s}") Duration lease) {
+		this.eventoRepository = eventoRepository;
+		this.sink = sink;
+		this.meterRegistry = meterRegistry;
+		this.atraso = Timer.builder("venda.outbox.atraso")
+				.description("Tempo entre a gravação do evento e a sua publicação")
+				.register(meterRegistry);
+		this.enabled = enabled;
+		this.tamanhoLote = Math.max(1, tamanhoLote);
+		this.lease = lease;
+	}
+
+	@Scheduled(fixedDelayString = "${application.outbox.relay.intervalo:PT0.2S}")
+	public void agendado() {
+		if (!enabled) {
+			return;
+		}
+		try {
+			publicar();
+			falhasSeguidas = 0;
+		} catch (RuntimeException e) {
+			meterRegistry.counter("venda.outbox.falhas").increment();
+			// Com o MongoDB ou o destino fora do ar, registra a primeira falha e depois uma a cada 100.
+			if (falhasSeguidas++ % 100 == 0) {
+				logger.error("FALHA AO PUBLICAR EVENTOS DE VENDA ({} SEGUIDAS) - {}", falhasSeguidas, e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Publica os eventos pendentes até esvaziar a outbox ou perder o lease.
+	 *
+	 * @return quantidade de eventos publicados.
+	 */
+	public long publicar() {
+		long publicados = 0;
+		while (eventoRepository.renovarLease(instancia, lease)) {
+			List<VendaEvento> lote = eventoRepository.pendentes(tamanhoLote);
+			if (lote.isEmpty()) {
+				break;
+			}
+			sink.publicar(lote);
+			Instant agora = Instant.now();
+			eventoRepository.marcarPublicados(lote.stream().map(VendaEvento::getId).collect(Collectors.toList()), agora);
+			lote.forEach(evento -> atraso.record(Duration.between(evento.getCriadoEm(), agora)));
+			meterRegistry.counter("venda.outbox.publicados").increment(lote.size());
+			publicados += lote.size();
+			if (lote.size() < tamanhoLote) {
+				break;
+			}
+		}
+		return publicados;
+	}
+}
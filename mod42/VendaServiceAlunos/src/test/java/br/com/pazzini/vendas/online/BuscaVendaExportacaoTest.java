@@ -0,0 +1,166 @@
+/**
+ * BuscaVendaExportacaoTest é uma classe de teste JUnit para a exportação das vendas em NDJSON.
+ * Utiliza o Mockito para simular o repositório de vendas e o MockMvc sobre o controlador.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import br.com.gomes.vendas.online.exception.BadRequestException;
+import br.com.gomes.vendas.online.repository.IVendaRepository;
+import br.com.gomes.vendas.online.resources.VendasResources;
+import br.com.gomes.vendas.online.usecase.BuscaVenda;
+import br.com.gomes.vendas.online.usecase.CadastroVenda;
+
+/**
+ * Testa o formato da exportação, o fechamento do cursor e a validação do período.
+ */
+public class BuscaVendaExportacaoTest {
+
+	private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+	private IVendaRepository vendaRepository;
+
+	private BuscaVenda buscaVenda;
+
+	@BeforeEach
+	public void setup() {
+		vendaRepository = mock(IVendaRepository.class);
+		buscaVenda = new BuscaVenda(vendaRepository, objectMapper);
+	}
+
+	/**
+	 * Cada venda do cursor vira uma linha JSON, a saída não recebe flush por venda, o cursor é fechado e a saída continua aberta.
+	 */
+	@Test
+	public void exportaUmaVendaPorLinhaEFechaOCursor() throws Exception {
+		CursorFake cursor = new CursorFake(Arrays.asList(venda("V1"), venda("V2"), venda("V3")));
+		when(vendaRepository.exportar(any(), any(), any())).thenReturn(cursor);
+		int[] flushes = { 0 };
+		ByteArrayOutputStream saida = new ByteArrayOutputStream() {
+			@Override
+			public void flush() {
+				flushes[0]++;
+			}
+		};
+
+		long exportadas = buscaVenda.exportar(null, null, Status.CONCLUIDA, saida);
+
+		String[] linhas = new String(saida.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		assertThat(exportadas).isEqualTo(3);
+		assertThat(linhas).hasSize(3);
+		JsonNode primeira = objectMapper.readTree(linhas[0]);
+		assertThat(primeira.get("codigo").asText()).isEqualTo("V1");
+		assertThat(primeira.get("status").asText()).isEqualTo("CONCLUIDA");
+		assertThat(objectMapper.readTree(linhas[2]).get("codigo").asText()).isEqualTo("V3");
+		assertThat(cursor.fechado).isTrue();
+		// Menos vendas que um lote: um único flush, ao fechar o gerador.
+		assertThat(flushes[0]).isEqualTo(1);
+	}
+
+	/**
+	 * Um período vazio ou invertido é rejeitado antes de abrir o cursor.
+	 */
+	@Test
+	public void periodoInvalidoERejeitado() {
+		Instant agora = Instant.now();
+
+		assertThatThrownBy(() -> buscaVenda.exportar(agora, agora, null, new ByteArrayOutputStream()))
+				.isInstanceOf(BadRequestException.class);
+		verifyNoInteractions(vendaRepository);
+	}
+
+	/**
+	 * O endpoint responde de forma assíncrona com o prazo configurado para a exportação, e não com o padrão do servidor.
+	 */
+	@Test
+	public void exportacaoUsaOPrazoProprio() throws Exception {
+		when(vendaRepository.exportar(any(), any(), any())).thenReturn(new CursorFake(Arrays.asList(venda("V1"), venda("V2"))));
+		VendasResources resources = new VendasResources(buscaVenda, mock(CadastroVenda.class),
+				new TaskExecutorAdapter(Runnable::run), Duration.ofMinutes(90));
+		MockMvc mockMvc = MockMvcBuilders.standaloneSetup(resources).build();
+
+		MvcResult resultado = mockMvc.perform(get("/venda/exportar").param("status", "CONCLUIDA"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		assertThat(resultado.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(90).toMillis());
+		mockMvc.perform(asyncDispatch(resultado))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_NDJSON));
+		String[] linhas = resultado.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+		assertThat(linhas).hasSize(2);
+		assertThat(objectMapper.readTree(linhas[1]).get("codigo").asText()).isEqualTo("V2");
+	}
+
+	private Venda venda(String codigo) {
+		return Venda.builder()
+				.codigo(codigo)
+				.clienteId("C1")
+				.status(Status.CONCLUIDA)
+				.valorTotal(BigDecimal.TEN)
+				.dataVenda(Instant.parse("2024-01-01T10:00:00Z"))
+				.produtos(new HashSet<>())
+				.build();
+	}
+
+	private static class CursorFake implements CloseableIterator<Venda> {
+
+		private final Iterator<Venda> vendas;
+
+		private boolean fechado;
+
+		CursorFake(List<Venda> vendas) {
+			this.vendas = vendas.iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return vendas.hasNext();
+		}
+
+		@Override
+		public Venda next() {
+			return vendas.next();
+		}
+
+		@Override
+		public void close() {
+			fechado = true;
+		}
+	}
+}
@@ -0,0 +1,206 @@
+/**
+ * CadastroVendaAdicionarProdutosTest é uma classe de teste JUnit para a inclusão de vários produtos na venda (PUT /venda/{id}/addProdutos).
+ * Utiliza o Mockito para simular o repositório de vendas, o ProdutoService e as reservas de estoque.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.validation.beanvalidation.MethodValidationInterceptor;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import br.com.gomes.vendas.online.domain.ProdutoQuantidade;
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import br.com.gomes.vendas.online.dto.ItemVendaDTO;
+import br.com.gomes.vendas.online.exception.RestExceptionHandler;
+import br.com.gomes.vendas.online.repository.IVendaEventoRepository;
+import br.com.gomes.vendas.online.repository.IVendaRepository;
+import br.com.gomes.vendas.online.resources.VendasResources;
+import br.com.gomes.vendas.online.service.ClienteService;
+import br.com.gomes.vendas.online.service.EstoqueService;
+import br.com.gomes.vendas.online.service.IProdutoService;
+import br.com.gomes.vendas.online.usecase.BuscaVenda;
+import br.com.gomes.vendas.online.usecase.CadastroVenda;
+import br.com.gomes.vendas.online.usecase.OptimisticLockRetry;
+import br.com.gomes.vendas.online.usecase.ParallelFanOut;
+import br.com.gomes.vendas.online.usecase.ResumoVendas;
+import br.com.gomes.vendas.online.usecase.TopProdutos;
+import br.com.gomes.vendas.online.usecase.VendaMetrics;
+import br.com.gomes.vendas.online.usecase.VendaOutbox;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Testa que a inclusão em lote é tudo ou nada, grava a venda uma única vez na ordem do pedido e rejeita a lista vazia.
+ */
+public class CadastroVendaAdicionarProdutosTest {
+
+	private IVendaRepository vendaRepository;
+
+	private IProdutoService produtoService;
+
+	private EstoqueService estoqueService;
+
+	private ParallelFanOut parallelFanOut;
+
+	private CadastroVenda cadastroVenda;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	public void setup() {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		vendaRepository = mock(IVendaRepository.class);
+		produtoService = mock(IProdutoService.class);
+		estoqueService = mock(EstoqueService.class);
+		parallelFanOut = new ParallelFanOut(meterRegistry, 4, 16, Duration.ofSeconds(5));
+		when(vendaRepository.findById("V1")).thenReturn(Optional.of(venda()));
+		when(vendaRepository.save(any(Venda.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		when(produtoService.buscarProdutos(anyList())).thenAnswer(invocation -> {
+			Collection<String> codigos = invocation.getArgument(0);
+			return codigos.stream().filter(codigo -> !codigo.startsWith("X")).map(CadastroVendaAdicionarProdutosTest::produto)
+					.collect(Collectors.toList());
+		});
+		// Lotes de dois códigos, para que a consulta ao ProdutoService seja dividida.
+		cadastroVenda = new CadastroVenda(vendaRepository, produtoService, mock(ClienteService.class),
+				new OptimisticLockRetry(meterRegistry, 3, 0, 0), parallelFanOut, new VendaMetrics(meterRegistry),
+				mock(ResumoVendas.class), mock(TopProdutos.class),
+				new VendaOutbox(mock(IVendaEventoRepository.class), mock(PlatformTransactionManager.class), false),
+				estoqueService, 2);
+		// Como no contexto do Spring, a validação dos parâmetros do controlador (@Validated) é feita por um proxy.
+		ProxyFactory proxy = new ProxyFactory(new VendasResources(mock(BuscaVenda.class), cadastroVenda,
+				new TaskExecutorAdapter(Runnable::run), Duration.ofMinutes(1)));
+		proxy.setProxyTargetClass(true);
+		proxy.addAdvice(new MethodValidationInterceptor());
+		mockMvc = MockMvcBuilders.standaloneSetup(proxy.getProxy())
+				.setControllerAdvice(new RestExceptionHandler())
+				.build();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		parallelFanOut.shutdown();
+	}
+
+	/**
+	 * Os itens entram na venda na ordem do pedido, com uma única gravação, e os códigos repetidos somam na mesma linha.
+	 */
+	@Test
+	public void itensGravadosUmaVezNaOrdemDoPedido() throws Exception {
+		List<ItemVendaDTO> itens = Arrays.asList(new ItemVendaDTO("C3", 1), new ItemVendaDTO("A1", 2),
+				new ItemVendaDTO("B2", 3), new ItemVendaDTO("A1", 1));
+
+		Venda alterada = cadastroVenda.adicionarProdutos("V1", itens);
+
+		ArgumentCaptor<Venda> gravada = ArgumentCaptor.forClass(Venda.class);
+		verify(vendaRepository, times(1)).save(gravada.capture());
+		assertThat(gravada.getValue()).isSameAs(alterada);
+		assertThat(alterada.getProdutos())
+				.extracting(linha -> linha.getProduto().getCodigo(), ProdutoQuantidade::getQuantidade)
+				.containsExactly(tuple("C3", 1), tuple("A1", 3), tuple("B2", 3));
+		assertThat(alterada.getQuantidadeTotalProdutos()).isEqualTo(7);
+		verify(produtoService).buscarProdutos(Arrays.asList("C3", "A1"));
+		verify(produtoService).buscarProdutos(Arrays.asList("B2"));
+		verify(estoqueService).reservar("V1", itens);
+	}
+
+	/**
+	 * Um código inexistente responde 404 sem reservar estoque nem gravar nenhum dos itens do pedido.
+	 */
+	@Test
+	public void codigoDesconhecidoNaoIncluiNenhumItem() throws Exception {
+		mockMvc.perform(put("/venda/V1/addProdutos")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"codigoProduto\":\"A1\",\"quantidade\":2},{\"codigoProduto\":\"X9\",\"quantidade\":1}]"))
+				.andExpect(status().isNotFound());
+
+		verify(vendaRepository, never()).save(any(Venda.class));
+		verify(estoqueService, never()).reservar(anyString(), anyList());
+	}
+
+	/**
+	 * O endpoint repassa os itens do corpo na ordem recebida.
+	 */
+	@Test
+	public void endpointIncluiOsItens() throws Exception {
+		mockMvc.perform(put("/venda/V1/addProdutos")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"codigoProduto\":\"B2\",\"quantidade\":2},{\"codigoProduto\":\"A1\",\"quantidade\":1}]"))
+				.andExpect(status().isOk());
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<ItemVendaDTO>> itens = ArgumentCaptor.forClass(List.class);
+		verify(estoqueService).reservar(eq("V1"), itens.capture());
+		assertThat(itens.getValue()).extracting(ItemVendaDTO::getCodigoProduto, ItemVendaDTO::getQuantidade)
+				.containsExactly(tuple("B2", 2), tuple("A1", 1));
+		verify(vendaRepository, times(1)).save(any(Venda.class));
+	}
+
+	/**
+	 * A lista vazia é rejeitada com 400 antes de consultar a venda ou os produtos.
+	 */
+	@Test
+	public void listaVaziaERejeitada() throws Exception {
+		mockMvc.perform(put("/venda/V1/addProdutos")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[]"))
+				.andExpect(status().isBadRequest());
+
+		verifyNoInteractions(produtoService, estoqueService);
+		verify(vendaRepository, never()).findById(anyString());
+	}
+
+	private static Venda venda() {
+		return Venda.builder()
+				.id("V1")
+				.codigo("V1")
+				.clienteId("C1")
+				.status(Status.INICIADA)
+				.valorTotal(BigDecimal.ZERO)
+				.dataVenda(Instant.parse("2024-01-01T10:00:00Z"))
+				.produtos(new LinkedHashSet<>())
+				.build();
+	}
+
+	private static Produto produto(String codigo) {
+		return Produto.builder()
+				.id(codigo)
+				.codigo(codigo)
+				.nome("Produto " + codigo)
+				.valor(BigDecimal.TEN)
+				.build();
+	}
+}
@@ -0,0 +1,182 @@
+/**
+ * EstoqueServiceTest é uma classe de teste JUnit para as reservas de estoque feitas no ProdutoService.
+ * Utiliza o Mockito para simular as chamadas HTTP do RestUtils.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import br.com.gomes.vendas.online.dto.ItemVendaDTO;
+import br.com.gomes.vendas.online.exception.EstoqueInsuficienteException;
+import br.com.gomes.vendas.online.exception.ServiceUnavailableException;
+import br.com.gomes.vendas.online.service.EstoqueService;
+import br.com.gomes.vendas.online.service.ResilienceGuard;
+import br.com.gomes.vendas.online.service.RestRequest;
+import br.com.gomes.vendas.online.service.RestUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Testa a tradução das respostas do ProdutoService, a confirmação pelas linhas da venda e a liberação parcial que não interrompe a venda.
+ */
+public class EstoqueServiceTest {
+
+	private static final String ENDPOINT = "http://localhost:8082/produto/estoque";
+
+	private static final String LIBERAR = ENDPOINT + "/reservas/{vendaId}/liberar?codigoProduto={codigoProduto}&quantidade={quantidade}";
+
+	private static final List<ItemVendaDTO> ITENS = Arrays.asList(new ItemVendaDTO("A1", 2), new ItemVendaDTO("B1", 1));
+
+	private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private RestUtils restUtils;
+
+	private ResilienceGuard resilienceGuard;
+
+	private EstoqueService estoqueService;
+
+	@BeforeEach
+	public void setup() {
+		restUtils = mock(RestUtils.class);
+		resilienceGuard = new ResilienceGuard(new MockEnvironment(), meterRegistry);
+		estoqueService = new EstoqueService(restUtils, resilienceGuard, meterRegistry, true, ENDPOINT);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		resilienceGuard.shutdown();
+	}
+
+	/**
+	 * Sem estoque (409) a reserva falha com EstoqueInsuficienteException; a reserva de venda já concluída (400)
+	 * falha como qualquer alteração de venda finalizada.
+	 */
+	@Test
+	public void respostasDoProdutoServiceSaoTraduzidas() {
+		responderReserva(HttpClientErrorException.create(HttpStatus.CONFLICT, "Conflict", null, null, null));
+		assertThatThrownBy(() -> estoqueService.reservar("V1", ITENS))
+				.isInstanceOf(EstoqueInsuficienteException.class)
+				.hasMessage("ESTOQUE INSUFICIENTE PARA 2 x A1, 1 x B1");
+
+		responderReserva(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", null, null, null));
+		assertThatThrownBy(() -> estoqueService.reservar("V1", ITENS))
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	/**
+	 * A confirmação envia as linhas da venda, para que o ProdutoService só conte como vendido o que está nela.
+	 */
+	@Test
+	public void confirmacaoEnviaAsLinhasDaVenda() {
+		ArgumentCaptor<RestRequest> requisicao = ArgumentCaptor.forClass(RestRequest.class);
+
+		estoqueService.confirmar(venda());
+
+		verify(restUtils).execute(eq(ENDPOINT + "/reservas/{vendaId}/confirmar"), requisicao.capture(), eq(String.class), eq("V1"));
+		List<?> linhas = (List<?>) requisicao.getValue().getHttpEntity().getBody();
+		assertThat(linhas).hasSize(2);
+		assertThat(linhas).extracting("codigoProduto", "quantidade")
+				.containsExactlyInAnyOrder(tuple("A1", 2), tuple("B1", 1));
+	}
+
+	/**
+	 * Se falta estoque para completar as linhas ou refazer uma reserva expirada (409), a confirmação falha e a venda não é concluída.
+	 */
+	@Test
+	public void semEstoqueParaAsLinhasImpedeAConfirmacao() {
+		when(restUtils.execute(eq(ENDPOINT + "/reservas/{vendaId}/confirmar"), any(), eq(String.class), any()))
+				.thenThrow(HttpClientErrorException.create(HttpStatus.CONFLICT, "Conflict", null, null, null));
+
+		assertThatThrownBy(() -> estoqueService.confirmar(venda()))
+				.isInstanceOf(EstoqueInsuficienteException.class)
+				.hasMessage("ESTOQUE INSUFICIENTE PARA CONCLUIR A VENDA");
+	}
+
+	/**
+	 * Sem resposta do ProdutoService a reserva e a confirmação falham, para não vender além do estoque;
+	 * as falhas passam pelo circuito da dependência {@code estoque}. A reserva sem resposta ainda pode ter sido aplicada,
+	 * por isso cada item é liberado.
+	 */
+	@Test
+	public void produtoServiceIndisponivelInterrompeAVenda() {
+		responderReserva(new ResourceAccessException("Connection refused"));
+		assertThatThrownBy(() -> estoqueService.reservar("V1", ITENS))
+				.isInstanceOf(ServiceUnavailableException.class);
+		verify(restUtils).execute(eq(LIBERAR), any(), eq(String.class), eq("V1"), eq("A1"), eq(2));
+		verify(restUtils).execute(eq(LIBERAR), any(), eq(String.class), eq("V1"), eq("B1"), eq(1));
+
+		when(restUtils.execute(eq(ENDPOINT + "/reservas/{vendaId}/confirmar"), any(), eq(String.class), any()))
+				.thenThrow(HttpServerErrorException.create(HttpStatus.INTERNAL_SERVER_ERROR, "Erro", null, null, null));
+		assertThatThrownBy(() -> estoqueService.confirmar(venda()))
+				.isInstanceOf(ServiceUnavailableException.class)
+				.hasMessageContaining("ESTOQUE");
+		assertThat(meterRegistry.counter("venda.resiliencia.rejeicoes", "dependencia", "estoque", "motivo", "ERRO_REMOTO")
+				.count()).isEqualTo(2);
+	}
+
+	/**
+	 * A liberação parcial, feita depois de o produto sair da venda, apenas conta a falha.
+	 */
+	@Test
+	public void falhaAoLiberarProdutoEContada() {
+		when(restUtils.execute(anyString(), any(), eq(String.class), any(), any(), any()))
+				.thenThrow(new ResourceAccessException("Connection refused"));
+
+		assertThatCode(() -> estoqueService.liberar("V1", "A1", 2)).doesNotThrowAnyException();
+
+		assertThat(meterRegistry.counter("venda.estoque.falhas", "operacao", "liberar").count()).isEqualTo(1);
+	}
+
+	/**
+	 * Desabilitado, nenhuma chamada é feita ao ProdutoService.
+	 */
+	@Test
+	public void desabilitadoNaoChamaOProdutoService() {
+		EstoqueService desabilitado = new EstoqueService(restUtils, resilienceGuard, meterRegistry, false, ENDPOINT);
+
+		desabilitado.reservar("V1", ITENS);
+		desabilitado.confirmar(venda());
+		desabilitado.liberar("V1");
+
+		verifyNoInteractions(restUtils);
+	}
+
+	private static Venda venda() {
+		Venda venda = Venda.builder().id("V1").status(Status.INICIADA).produtos(new HashSet<>()).build();
+		venda.adicionarProduto(Produto.builder().codigo("A1").valor(BigDecimal.TEN).build(), 2);
+		venda.adicionarProduto(Produto.builder().codigo("B1").valor(BigDecimal.ONE).build(), 1);
+		return venda;
+	}
+
+	private void responderReserva(RuntimeException erro) {
+		when(restUtils.execute(eq(ENDPOINT + "/reservas/{vendaId}"), any(), eq(String.class), any()))
+				.thenThrow(erro);
+	}
+}
@@ -0,0 +1,116 @@
+/**
+ * HedgingProdutoServiceTest é uma classe de teste JUnit para a consulta extra de produtos em respostas lentas.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import br.com.gomes.vendas.online.service.HedgingProdutoService;
+import br.com.gomes.vendas.online.service.IProdutoService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Testa o envio da consulta extra, a resposta mais rápida e o limite de consultas extras.
+ */
+public class HedgingProdutoServiceTest {
+
+	private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private HedgingProdutoService hedging;
+
+	@AfterEach
+	public void tearDown() {
+		hedging.shutdown();
+	}
+
+	/**
+	 * Com o primário lento, a outra instância responde e a consulta extra é contada.
+	 */
+	@Test
+	public void consultaLentaUsaRespostaDaOutraInstancia() {
+		ProdutoServiceFake primario = new ProdutoServiceFake("primario");
+		hedging = novoHedging(primario, 0.9, 100);
+		aquecer(primario);
+
+		primario.atraso = 2000;
+		long inicio = System.nanoTime();
+		Produto produto = hedging.buscarProduto("A1");
+
+		assertThat(produto.getNome()).isEqualTo("alternativo");
+		assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(Duration.ofMillis(1000));
+		assertThat(meterRegistry.counter("produto.hedge.disparados").count()).isEqualTo(1);
+		assertThat(meterRegistry.counter("produto.hedge.vitorias").count()).isEqualTo(1);
+	}
+
+	/**
+	 * Sem orçamento as consultas extras param, e as lentas esperam o primário.
+	 */
+	@Test
+	public void orcamentoLimitaConsultasExtras() {
+		ProdutoServiceFake primario = new ProdutoServiceFake("primario");
+		// Com a mediana o limiar fica baixo mesmo após as consultas lentas; só o orçamento as limita.
+		hedging = novoHedging(primario, 0.5, 0);
+		aquecer(primario);
+
+		primario.atraso = 100;
+		for (int i = 0; i < 12; i++) {
+			hedging.buscarProduto("A1");
+		}
+
+		// O saldo inicial cobre 10 consultas extras e um orçamento de 0% não o repõe.
+		assertThat(meterRegistry.counter("produto.hedge.disparados").count()).isEqualTo(10);
+		assertThat(meterRegistry.counter("produto.hedge.semOrcamento").count()).isEqualTo(2);
+	}
+
+	private HedgingProdutoService novoHedging(IProdutoService primario, double percentile, double budgetPercent) {
+		ProdutoServiceFake alternativo = new ProdutoServiceFake("alternativo");
+		alternativo.atraso = 5;
+		return new HedgingProdutoService(primario, Collections.singletonList(alternativo), meterRegistry, true,
+				percentile, Duration.ofMillis(10), 10, 100, budgetPercent, 8);
+	}
+
+	private void aquecer(ProdutoServiceFake primario) {
+		primario.atraso = 1;
+		for (int i = 0; i < 20; i++) {
+			hedging.buscarProduto("A1");
+		}
+	}
+
+	private static class ProdutoServiceFake implements IProdutoService {
+
+		private final String nome;
+
+		private volatile long atraso;
+
+		ProdutoServiceFake(String nome) {
+			this.nome = nome;
+		}
+
+		@Override
+		public Produto buscarProduto(String codigoProduto) {
+			try {
+				Thread.sleep(atraso);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			Produto produto = new Produto();
+			produto.setCodigo(codigoProduto);
+			produto.setNome(nome);
+			return produto;
+		}
+
+		@Override
+		public List<Produto> buscarProdutos(Collection<String> codigosProdutos) {
+			return Collections.emptyList();
+		}
+	}
+}
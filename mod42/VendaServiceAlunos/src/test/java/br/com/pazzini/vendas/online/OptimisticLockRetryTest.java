@@ -0,0 +1,129 @@
+/**
+ * OptimisticLockRetryTest é uma classe de teste JUnit para a repetição das alterações de venda após conflito de versão.
+ * Utiliza um SimpleMeterRegistry para conferir os contadores de conflitos e de tentativas esgotadas.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import br.com.gomes.vendas.online.usecase.OptimisticLockRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Testa o limite de tentativas, os contadores e que só os conflitos de versão são repetidos, nas versões bloqueante e reativa.
+ */
+public class OptimisticLockRetryTest {
+
+	private static final String OPERACAO = "adicionarProduto";
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private OptimisticLockRetry retry;
+
+	@BeforeEach
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		// Sem espera entre as tentativas.
+		retry = new OptimisticLockRetry(meterRegistry, 3, 0, 0);
+	}
+
+	/**
+	 * Um conflito seguido de sucesso é repetido uma vez, sem contar como esgotado.
+	 */
+	@Test
+	public void conflitoERepetido() {
+		AtomicInteger tentativas = new AtomicInteger();
+
+		String resultado = retry.execute(OPERACAO, () -> {
+			if (tentativas.incrementAndGet() == 1) {
+				throw new OptimisticLockingFailureException("conflito");
+			}
+			return "ok";
+		});
+
+		assertThat(resultado).isEqualTo("ok");
+		assertThat(tentativas).hasValue(2);
+		assertThat(contador("venda.optimistic.conflitos")).isEqualTo(1);
+		assertThat(contador("venda.optimistic.esgotados")).isZero();
+	}
+
+	/**
+	 * Conflitos seguidos param no máximo de tentativas, propagam o último conflito e contam como esgotados.
+	 */
+	@Test
+	public void conflitosParamNoMaximoDeTentativas() {
+		AtomicInteger tentativas = new AtomicInteger();
+
+		assertThatThrownBy(() -> retry.execute(OPERACAO, () -> {
+			tentativas.incrementAndGet();
+			throw new OptimisticLockingFailureException("conflito");
+		})).isInstanceOf(OptimisticLockingFailureException.class);
+
+		assertThat(tentativas).hasValue(3);
+		assertThat(contador("venda.optimistic.conflitos")).isEqualTo(3);
+		assertThat(contador("venda.optimistic.esgotados")).isEqualTo(1);
+	}
+
+	/**
+	 * Outras falhas são propagadas na primeira tentativa, sem contar conflito.
+	 */
+	@Test
+	public void outrasFalhasNaoSaoRepetidas() {
+		AtomicInteger tentativas = new AtomicInteger();
+
+		assertThatThrownBy(() -> retry.execute(OPERACAO, () -> {
+			tentativas.incrementAndGet();
+			throw new IllegalStateException("falha");
+		})).isInstanceOf(IllegalStateException.class);
+
+		assertThat(tentativas).hasValue(1);
+		assertThat(contador("venda.optimistic.conflitos")).isZero();
+	}
+
+	/**
+	 * A versão reativa reassina a cada conflito com o mesmo limite e não repete outras falhas.
+	 */
+	@Test
+	public void versaoReativaUsaAMesmaPolitica() {
+		AtomicInteger tentativas = new AtomicInteger();
+		Mono<String> conflito = Mono.defer(() -> {
+			tentativas.incrementAndGet();
+			return Mono.error(new OptimisticLockingFailureException("conflito"));
+		});
+
+		assertThatThrownBy(() -> retry.execute(OPERACAO, conflito).block())
+				.isInstanceOf(OptimisticLockingFailureException.class);
+		assertThat(tentativas).hasValue(3);
+		assertThat(contador("venda.optimistic.esgotados")).isEqualTo(1);
+
+		tentativas.set(0);
+		Mono<String> conflitoUnico = Mono.defer(() -> tentativas.incrementAndGet() == 1
+				? Mono.error(new OptimisticLockingFailureException("conflito"))
+				: Mono.just("ok"));
+		assertThat(retry.execute(OPERACAO, conflitoUnico).block()).isEqualTo("ok");
+		assertThat(tentativas).hasValue(2);
+
+		tentativas.set(0);
+		Mono<String> falha = Mono.defer(() -> {
+			tentativas.incrementAndGet();
+			return Mono.error(new IllegalStateException("falha"));
+		});
+		assertThatThrownBy(() -> retry.execute(OPERACAO, falha).block())
+				.isInstanceOf(IllegalStateException.class);
+		assertThat(tentativas).hasValue(1);
+		assertThat(contador("venda.optimistic.conflitos")).isEqualTo(4);
+		assertThat(contador("venda.optimistic.esgotados")).isEqualTo(1);
+	}
+
+	private double contador(String nome) {
+		return meterRegistry.counter(nome, "operacao", OPERACAO).count();
+	}
+}
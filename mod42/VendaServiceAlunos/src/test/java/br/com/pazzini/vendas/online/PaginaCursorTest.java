@@ -0,0 +1,67 @@
+/**
+ * PaginaCursorTest é uma classe de teste JUnit para a paginação por cursor das vendas.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import br.com.gomes.vendas.online.dto.PaginaCursor;
+import br.com.gomes.vendas.online.exception.BadRequestException;
+
+/**
+ * Testa a codificação do cursor e a montagem das páginas.
+ */
+public class PaginaCursorTest {
+
+	/**
+	 * O cursor gerado devolve o mesmo identificador e um cursor vazio indica a primeira página.
+	 */
+	@Test
+	public void cursorDevolveOIdentificador() {
+		String id = new ObjectId().toHexString();
+
+		String cursor = PaginaCursor.codificar(id);
+
+		assertThat(cursor).isNotEqualTo(id);
+		assertThat(PaginaCursor.decodificar(cursor)).isEqualTo(id);
+		assertThat(PaginaCursor.decodificar("")).isNull();
+		assertThat(PaginaCursor.decodificar(null)).isNull();
+	}
+
+	/**
+	 * Cursores que não foram gerados pela API são rejeitados.
+	 */
+	@Test
+	public void cursorInvalidoERejeitado() {
+		assertThatThrownBy(() -> PaginaCursor.decodificar("%%%"))
+				.isInstanceOf(BadRequestException.class);
+		assertThatThrownBy(() -> PaginaCursor.decodificar(PaginaCursor.codificar("nao-e-um-id")))
+				.isInstanceOf(BadRequestException.class);
+	}
+
+	/**
+	 * O item a mais só indica a próxima página; o cursor aponta para o último item retornado.
+	 */
+	@Test
+	public void proximoCursorSoExisteComMaisItens() {
+		List<String> ids = Arrays.asList(new ObjectId().toHexString(), new ObjectId().toHexString(),
+				new ObjectId().toHexString());
+
+		PaginaCursor<String> pagina = PaginaCursor.de(ids, 2, id -> id);
+		PaginaCursor<String> ultima = PaginaCursor.de(ids, 3, id -> id);
+
+		assertThat(pagina.getConteudo()).containsExactly(ids.get(0), ids.get(1));
+		assertThat(PaginaCursor.decodificar(pagina.getProximoCursor())).isEqualTo(ids.get(1));
+		assertThat(ultima.getConteudo()).hasSize(3);
+		assertThat(ultima.getProximoCursor()).isNull();
+		assertThat(PaginaCursor.consulta(PaginaCursor.limitar(500)).getPageSize())
+				.isEqualTo(PaginaCursor.TAMANHO_MAXIMO + 1);
+	}
+}
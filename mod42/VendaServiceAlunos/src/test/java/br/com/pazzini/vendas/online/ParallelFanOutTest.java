@@ -0,0 +1,90 @@
+/**
+ * ParallelFanOutTest é uma classe de teste JUnit para a execução paralela de consultas com prazo.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.exception.DeadlineExceededException;
+import br.com.gomes.vendas.online.exception.EntityNotFoundException;
+import br.com.gomes.vendas.online.usecase.ParallelFanOut;
+import br.com.gomes.vendas.online.usecase.ParallelFanOut.Deadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Testa o paralelismo, o prazo e a propagação de erros das consultas.
+ */
+public class ParallelFanOutTest {
+
+	private ParallelFanOut fanOut;
+
+	@BeforeEach
+	public void setup() {
+		fanOut = new ParallelFanOut(new SimpleMeterRegistry(), 4, 10, Duration.ofMillis(500));
+	}
+
+	@AfterEach
+	public void tearDown() {
+		fanOut.shutdown();
+	}
+
+	/**
+	 * Consultas independentes levam o tempo da mais lenta, não a soma delas.
+	 */
+	@Test
+	public void consultasExecutamEmParalelo() {
+		Deadline deadline = fanOut.deadline();
+		long inicio = System.nanoTime();
+
+		List<CompletableFuture<String>> futuros = Arrays.asList(
+				fanOut.submit(() -> aguardar(200, "a")),
+				fanOut.submit(() -> aguardar(200, "b")),
+				fanOut.submit(() -> aguardar(200, "c")));
+
+		assertThat(fanOut.joinAll(futuros, deadline)).containsExactly("a", "b", "c");
+		assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(Duration.ofMillis(450));
+	}
+
+	/**
+	 * Uma consulta que passa do prazo encerra a espera com DeadlineExceededException.
+	 */
+	@Test
+	public void prazoEsgotadoLancaDeadlineExceeded() {
+		Deadline deadline = fanOut.deadline();
+		CompletableFuture<String> lenta = fanOut.submit(() -> aguardar(2000, "lenta"));
+
+		assertThatThrownBy(() -> fanOut.join(lenta, deadline)).isInstanceOf(DeadlineExceededException.class);
+	}
+
+	/**
+	 * A exceção lançada pela consulta chega ao chamador sem ser encapsulada.
+	 */
+	@Test
+	public void excecaoDaConsultaEhRelancada() {
+		CompletableFuture<String> falha = fanOut.submit(() -> {
+			throw new EntityNotFoundException(Venda.class, "id", "1");
+		});
+
+		assertThatThrownBy(() -> fanOut.join(falha, fanOut.deadline())).isInstanceOf(EntityNotFoundException.class);
+	}
+
+	private static String aguardar(long millis, String resultado) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return resultado;
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * ProdutoCacheServiceTest é uma classe de teste JUnit para o cache local de produtos do Venda Service.
+ * Utiliza o Mockito para simular o cliente Feign do Produto Service.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import br.com.gomes.vendas.online.service.IProdutoService;
+import br.com.gomes.vendas.online.service.ProdutoCacheService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Testa o comportamento do cache de produtos na frente do IProdutoService.
+ */
+public class ProdutoCacheServiceTest {
+
+	private IProdutoService produtoService;
+
+	private ProdutoCacheService cacheService;
+
+	@BeforeEach
+	public void setup() {
+		produtoService = mock(IProdutoService.class);
+		cacheService = new ProdutoCacheService(produtoService, new SimpleMeterRegistry(),
+				true, 100, Duration.ofMinutes(5), Duration.ofSeconds(30));
+	}
+
+	/**
+	 * Consultas repetidas ao mesmo código devem chegar ao Produto Service uma única vez.
+	 */
+	@Test
+	public void buscarProdutoUsaCache() {
+		Produto produto = Produto.builder().codigo("A1").valor(BigDecimal.TEN).build();
+		when(produtoService.buscarProduto("A1")).thenReturn(produto);
+
+		assertThat(cacheService.buscarProduto("A1")).isSameAs(produto);
+		assertThat(cacheService.buscarProduto("A1")).isSameAs(produto);
+
+		verify(produtoService, times(1)).buscarProduto("A1");
+	}
+
+	/**
+	 * Códigos inexistentes também ficam em cache, até serem invalidados.
+	 */
+	@Test
+	public void buscarProdutoInexistenteUsaCacheNegativo() {
+		assertThat(cacheService.buscarProduto("X9")).isNull();
+		assertThat(cacheService.buscarProduto("X9")).isNull();
+		verify(produtoService, times(1)).buscarProduto("X9");
+
+		cacheService.invalidar("X9");
+		cacheService.buscarProduto("X9");
+		verify(produtoService, times(2)).buscarProduto("X9");
+	}
+
+	/**
+	 * A busca em lote consulta o Produto Service apenas pelos códigos que ainda não estão em cache.
+	 */
+	@Test
+	public void buscarProdutosConsultaApenasAusentes() {
+		Produto a1 = Produto.builder().codigo("A1").valor(BigDecimal.TEN).build();
+		Produto b2 = Produto.builder().codigo("B2").valor(BigDecimal.ONE).build();
+		when(produtoService.buscarProduto("A1")).thenReturn(a1);
+		when(produtoService.buscarProdutos(List.of("B2"))).thenReturn(List.of(b2));
+		cacheService.buscarProduto("A1");
+
+		assertThat(cacheService.buscarProdutos(List.of("A1", "B2"))).containsExactlyInAnyOrder(a1, b2);
+
+		verify(produtoService, times(1)).buscarProdutos(List.of("B2"));
+	}
+
+}
@@ -0,0 +1,184 @@
+/**
+ * ProdutoEventosServiceTest é uma classe de teste JUnit para a invalidação do cache de produtos pelos eventos do catálogo.
+ * Utiliza o Mockito para simular o ProdutoService e o cache de produtos, e o MockRestServiceServer para responder
+ * /produto/eventos com o JSON publicado pelo ProdutoService.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.math.BigDecimal;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import br.com.gomes.vendas.online.dto.ProdutoEventoDTO;
+import br.com.gomes.vendas.online.service.IProdutoService;
+import br.com.gomes.vendas.online.service.ProdutoCacheService;
+import br.com.gomes.vendas.online.service.ProdutoEventosService;
+import br.com.gomes.vendas.online.service.ReactiveProdutoService;
+import br.com.gomes.vendas.online.service.RestUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Testa a invalidação dos códigos alterados, a margem das consultas, o descarte após longa falta de sincronismo
+ * e o caminho completo do JSON de /produto/eventos até o cache de produtos.
+ */
+public class ProdutoEventosServiceTest {
+
+	private static final Instant INICIO = Instant.parse("2024-01-01T10:00:00Z");
+
+	private RestUtils restUtils;
+
+	private ProdutoCacheService produtoCacheService;
+
+	@BeforeEach
+	public void setup() {
+		restUtils = mock(RestUtils.class);
+		produtoCacheService = mock(ProdutoCacheService.class);
+	}
+
+	/**
+	 * Os códigos novo e anterior são invalidados e a próxima consulta recomeça a margem antes do último evento.
+	 */
+	@Test
+	public void eventosInvalidamOsCodigos() {
+		ProdutoEventosService service = service(Clock.fixed(INICIO, ZoneOffset.UTC));
+		responder(INICIO.minusSeconds(10).toString(),
+				new ProdutoEventoDTO("E1", "A1", null, INICIO.plusSeconds(1)),
+				new ProdutoEventoDTO("E2", "B2", "B1", INICIO.plusSeconds(2)));
+
+		assertThat(service.sincronizar()).isEqualTo(2);
+
+		verify(produtoCacheService).invalidar("A1");
+		verify(produtoCacheService).invalidar("B2");
+		verify(produtoCacheService).invalidar("B1");
+
+		responder(INICIO.plusSeconds(2).minusSeconds(10).toString());
+		assertThat(service.sincronizar()).isZero();
+		verify(produtoCacheService, never()).invalidarTodos();
+	}
+
+	/**
+	 * Sem sincronismo por mais tempo que a retenção dos eventos, o cache inteiro é descartado.
+	 */
+	@Test
+	public void semSincronismoDescartaTudo() {
+		Instant[] agora = { INICIO };
+		Clock relogio = new Clock() {
+			@Override
+			public ZoneOffset getZone() {
+				return ZoneOffset.UTC;
+			}
+
+			@Override
+			public Clock withZone(ZoneId zone) {
+				return this;
+			}
+
+			@Override
+			public Instant instant() {
+				return agora[0];
+			}
+		};
+		ProdutoEventosService service = service(relogio);
+		when(restUtils.execute(anyString(), any(), eq(ProdutoEventoDTO[].class), any(), any()))
+				.thenThrow(new IllegalStateException("produto fora do ar"));
+
+		agora[0] = INICIO.plus(Duration.ofHours(2));
+		service.agendado();
+		verify(produtoCacheService, never()).invalidarTodos();
+
+		agora[0] = INICIO.plus(Duration.ofDays(2));
+		service.agendado();
+		verify(produtoCacheService).invalidarTodos();
+	}
+
+	/**
+	 * Contrato de ponta a ponta: o JSON de /produto/eventos, no formato gravado pelo ProdutoService (com tipo e produto,
+	 * instantes em ISO-8601), passa pelo RestTemplate e invalida no cache de 1h só os códigos alterados.
+	 */
+	@Test
+	public void eventosDoProdutoServiceInvalidamOCache() {
+		IProdutoService produtoService = mock(IProdutoService.class);
+		ProdutoCacheService cache = new ProdutoCacheService(produtoService, new SimpleMeterRegistry(),
+				true, 100, Duration.ofHours(1), Duration.ofSeconds(30));
+		when(produtoService.buscarProduto(anyString()))
+				.thenAnswer(invocation -> Produto.builder().codigo(invocation.getArgument(0)).valor(BigDecimal.ONE).build());
+		cache.buscarProduto("A1");
+		cache.buscarProduto("B1");
+		cache.buscarProduto("C1");
+
+		RestTemplate restTemplate = new RestTemplate();
+		MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+		RestUtils clienteHttp = new RestUtils();
+		ReflectionTestUtils.setField(clienteHttp, "restTemplate", restTemplate);
+		ReflectionTestUtils.setField(clienteHttp, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(clienteHttp, "meterRegistry", new SimpleMeterRegistry());
+		server.expect(requestTo("http://produto/eventos?desde=" + INICIO.minusSeconds(10) + "&limite=100"))
+				.andExpect(method(HttpMethod.GET))
+				.andRespond(withSuccess("[" + evento("1", "ALTERADO", "A2", "\"A1\"", INICIO.plusMillis(1))
+						+ "," + evento("2", "INATIVADO", "B1", "null", INICIO.plusMillis(2)) + "]",
+						MediaType.APPLICATION_JSON));
+		@SuppressWarnings("unchecked")
+		ProdutoEventosService service = new ProdutoEventosService(clienteHttp, cache, mock(ObjectProvider.class),
+				new SimpleMeterRegistry(), Clock.fixed(INICIO, ZoneOffset.UTC), "http://produto/eventos", true,
+				Duration.ofSeconds(10), Duration.ofDays(1), 100);
+
+		assertThat(service.sincronizar()).isEqualTo(2);
+		server.verify();
+
+		cache.buscarProduto("A1");
+		cache.buscarProduto("B1");
+		cache.buscarProduto("C1");
+		verify(produtoService, times(2)).buscarProduto("A1");
+		verify(produtoService, times(2)).buscarProduto("B1");
+		verify(produtoService, times(1)).buscarProduto("C1");
+	}
+
+	@SuppressWarnings("unchecked")
+	private ProdutoEventosService service(Clock clock) {
+		return new ProdutoEventosService(restUtils, produtoCacheService, mock(ObjectProvider.class),
+				new SimpleMeterRegistry(), clock, "http://produto/eventos", true,
+				Duration.ofSeconds(10), Duration.ofDays(1), 100);
+	}
+
+	private void responder(String desde, ProdutoEventoDTO... eventos) {
+		when(restUtils.execute(anyString(), any(), eq(ProdutoEventoDTO[].class), eq(desde), eq(100)))
+				.thenReturn(ResponseEntity.ok(eventos));
+	}
+
+	private static String evento(String id, String tipo, String codigo, String codigoAnterior, Instant criadoEm) {
+		return "{\"id\":\"" + id + "\",\"tipo\":\"" + tipo + "\",\"codigo\":\"" + codigo
+				+ "\",\"codigoAnterior\":" + codigoAnterior
+				+ ",\"produto\":{\"id\":\"" + id + "\",\"codigo\":\"" + codigo + "\",\"valor\":10,\"status\":\"ATIVO\"}"
+				+ ",\"criadoEm\":\"" + criadoEm + "\"}";
+	}
+}
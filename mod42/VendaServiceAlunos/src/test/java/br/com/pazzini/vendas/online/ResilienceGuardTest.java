@@ -0,0 +1,130 @@
+/**
+ * ResilienceGuardTest é uma classe de teste JUnit para o circuit breaker, o bulkhead e o timeout das dependências remotas.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import br.com.gomes.vendas.online.exception.ServiceUnavailableException;
+import br.com.gomes.vendas.online.service.ResilienceGuard;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Testa o fallback, a abertura do circuito e o repasse de erros 4xx.
+ */
+public class ResilienceGuardTest {
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private ResilienceGuard guard;
+
+	@BeforeEach
+	public void setup() {
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("application.resilience.teste.timeout", "200ms")
+				.withProperty("application.resilience.teste.slidingWindowSize", "4")
+				.withProperty("application.resilience.teste.minimumNumberOfCalls", "4")
+				.withProperty("application.resilience.teste.waitDurationInOpenState", "1m");
+		meterRegistry = new SimpleMeterRegistry();
+		guard = new ResilienceGuard(environment, meterRegistry);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		guard.shutdown();
+	}
+
+	/**
+	 * Uma chamada que passa do timeout é respondida pelo fallback.
+	 */
+	@Test
+	public void timeoutUsaFallback() {
+		String resultado = guard.executar("teste", () -> aguardar(2000, "remoto"), () -> Optional.of("cache"));
+
+		assertThat(resultado).isEqualTo("cache");
+		assertThat(meterRegistry.counter("venda.resiliencia.rejeicoes", "dependencia", "teste", "motivo", "TIMEOUT")
+				.count()).isEqualTo(1);
+	}
+
+	/**
+	 * Falhas seguidas abrem o circuito, e sem fallback a chamada seguinte nem chega à dependência.
+	 */
+	@Test
+	public void falhasAbremOCircuito() {
+		for (int i = 0; i < 4; i++) {
+			assertThatThrownBy(() -> guard.executar("teste", ResilienceGuardTest::falhar, Optional::empty))
+					.isInstanceOf(ServiceUnavailableException.class);
+		}
+
+		assertThat(guard.estado("teste")).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThatThrownBy(() -> guard.executar("teste", () -> "remoto", Optional::empty))
+				.isInstanceOf(ServiceUnavailableException.class)
+				.hasMessageContaining("CIRCUITO_ABERTO");
+		assertThat(meterRegistry.counter("venda.resiliencia.transicoes", "dependencia", "teste",
+				"de", "CLOSED", "para", "OPEN").count()).isEqualTo(1);
+	}
+
+	/**
+	 * Erros 4xx chegam ao chamador sem fallback e não contam como falha do circuito.
+	 */
+	@Test
+	public void erroDoClienteNaoAcionaFallback() {
+		for (int i = 0; i < 4; i++) {
+			assertThatThrownBy(() -> guard.executar("teste", () -> {
+				throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null);
+			}, () -> Optional.of("cache"))).isInstanceOf(HttpClientErrorException.NotFound.class);
+		}
+
+		assertThat(guard.estado("teste")).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	/**
+	 * A versão reativa respeita o timeout, repassa erros 4xx e abre o mesmo circuito da dependência.
+	 */
+	@Test
+	public void chamadaReativaUsaOMesmoCircuito() {
+		assertThatThrownBy(() -> guard.executar("teste", Mono.just("remoto").delayElement(Duration.ofSeconds(2))).block())
+				.isInstanceOf(ServiceUnavailableException.class)
+				.hasMessageContaining("TIMEOUT");
+		assertThatThrownBy(() -> guard.executar("teste",
+				Mono.error(WebClientResponseException.create(404, "Not Found", null, null, null))).block())
+				.isInstanceOf(WebClientResponseException.NotFound.class);
+		for (int i = 0; i < 3; i++) {
+			assertThatThrownBy(() -> guard.executar("teste",
+					Mono.error(WebClientResponseException.create(503, "Service Unavailable", null, null, null))).block())
+					.isInstanceOf(ServiceUnavailableException.class);
+		}
+
+		assertThat(guard.estado("teste")).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThatThrownBy(() -> guard.executar("teste", Mono.just("remoto")).block())
+				.hasMessageContaining("CIRCUITO_ABERTO");
+	}
+
+	private static String falhar() {
+		throw new ResourceAccessException("Connection refused");
+	}
+
+	private static String aguardar(long millis, String resultado) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return resultado;
+	}
+}
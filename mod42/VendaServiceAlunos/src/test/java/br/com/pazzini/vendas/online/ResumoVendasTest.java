@@ -0,0 +1,183 @@
+/**
+ * ResumoVendasTest é uma classe de teste JUnit para os resumos de vendas por período.
+ * Utiliza o Mockito para simular os repositórios de vendas e de resumos.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.util.CloseableIterator;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import br.com.gomes.vendas.online.domain.ResumoVenda;
+import br.com.gomes.vendas.online.domain.ResumoVenda.Granularidade;
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import br.com.gomes.vendas.online.exception.BadRequestException;
+import br.com.gomes.vendas.online.repository.IResumoVendaRepository;
+import br.com.gomes.vendas.online.repository.IVendaRepository;
+import br.com.gomes.vendas.online.usecase.ResumoVendas;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Testa as parciais de cada status, a reconstrução a partir das vendas e as falhas de gravação.
+ */
+public class ResumoVendasTest {
+
+	private static final Instant DIA = Instant.parse("2024-01-01T00:00:00Z");
+
+	private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private IResumoVendaRepository resumoRepository;
+
+	private IVendaRepository vendaRepository;
+
+	private ResumoVendas resumoVendas;
+
+	private List<ResumoVenda> gravadas;
+
+	@BeforeEach
+	public void setup() {
+		resumoRepository = mock(IResumoVendaRepository.class);
+		vendaRepository = mock(IVendaRepository.class);
+		resumoVendas = new ResumoVendas(resumoRepository, vendaRepository, meterRegistry);
+		gravadas = new ArrayList<>();
+		doAnswer(chamada -> {
+			gravadas.addAll(chamada.<Collection<ResumoVenda>>getArgument(0));
+			return null;
+		}).when(resumoRepository).incrementar(anyCollection());
+	}
+
+	/**
+	 * A venda concluída entra na hora e no dia, para o cliente e para o total, com valor e itens.
+	 */
+	@Test
+	public void vendaConcluidaSomaValorEItens() {
+		Venda venda = venda("C1", "2024-01-01T10:15:00Z", Status.CONCLUIDA, 3);
+
+		resumoVendas.registrar(venda, Status.CONCLUIDA);
+
+		assertThat(gravadas).hasSize(4);
+		assertThat(gravadas).allSatisfy(parcial -> {
+			assertThat(parcial.getQuantidade()).isEqualTo(1);
+			assertThat(parcial.getValorTotal()).isEqualByComparingTo("30.00");
+			assertThat(parcial.getItens()).isEqualTo(3);
+		});
+		assertThat(gravadas).extracting(ResumoVenda::getInicio).containsOnly(
+				Instant.parse("2024-01-01T10:00:00Z"), DIA);
+		assertThat(gravadas).extracting(ResumoVenda::getClienteId).containsOnly("C1", null);
+	}
+
+	/**
+	 * A reconstrução conta cada venda em INICIADA e no status final, somando as linhas iguais.
+	 */
+	@Test
+	public void reconstruirSomaAsVendasDoPeriodo() {
+		when(vendaRepository.exportar(any(), any(), any())).thenReturn(new CursorFake(Arrays.asList(
+				venda("C1", "2024-01-01T10:15:00Z", Status.CONCLUIDA, 2),
+				venda("C2", "2024-01-01T10:45:00Z", Status.CONCLUIDA, 1),
+				venda("C1", "2024-01-01T11:05:00Z", Status.INICIADA, 0))));
+
+		long vendas = resumoVendas.reconstruir(DIA, DIA.plusSeconds(86400));
+
+		verify(resumoRepository).remover(DIA, DIA.plusSeconds(86400));
+		assertThat(vendas).isEqualTo(3);
+		Map<String, ResumoVenda> linhas = gravadas.stream()
+				.collect(Collectors.toMap(ResumoVenda::chave, Function.identity()));
+		ResumoVenda diaIniciadas = linhas.get(new ResumoVenda(Granularidade.DIA, DIA, Status.INICIADA, null,
+				0, BigDecimal.ZERO, 0).chave());
+		ResumoVenda horaConcluidas = linhas.get(new ResumoVenda(Granularidade.HORA,
+				Instant.parse("2024-01-01T10:00:00Z"), Status.CONCLUIDA, null, 0, BigDecimal.ZERO, 0).chave());
+		assertThat(diaIniciadas.getQuantidade()).isEqualTo(3);
+		assertThat(diaIniciadas.getValorTotal()).isEqualByComparingTo("0");
+		assertThat(horaConcluidas.getQuantidade()).isEqualTo(2);
+		assertThat(horaConcluidas.getValorTotal()).isEqualByComparingTo("30.00");
+		assertThat(horaConcluidas.getItens()).isEqualTo(3);
+	}
+
+	/**
+	 * A falha ao gravar o resumo não interrompe a venda e é contada.
+	 */
+	@Test
+	public void falhaAoGravarEContada() {
+		doThrow(new IllegalStateException("mongo")).when(resumoRepository).incrementar(anyCollection());
+
+		resumoVendas.registrar(venda("C1", "2024-01-01T10:15:00Z", Status.INICIADA, 0), Status.INICIADA);
+
+		assertThat(meterRegistry.counter("venda.resumo.falhas").count()).isEqualTo(1);
+	}
+
+	/**
+	 * Consultas sem período ou longas demais, e reconstruções fora de dias completos, são rejeitadas.
+	 */
+	@Test
+	public void periodosInvalidosSaoRejeitados() {
+		assertThatThrownBy(() -> resumoVendas.buscar(Granularidade.HORA, DIA, DIA.plusSeconds(3600L * 2000), null, null))
+				.isInstanceOf(BadRequestException.class);
+		assertThatThrownBy(() -> resumoVendas.buscar(Granularidade.DIA, DIA, null, null, null))
+				.isInstanceOf(BadRequestException.class);
+		assertThatThrownBy(() -> resumoVendas.reconstruir(DIA.plusSeconds(3600), DIA.plusSeconds(86400)))
+				.isInstanceOf(BadRequestException.class);
+	}
+
+	private Venda venda(String clienteId, String data, Status status, int itens) {
+		Venda venda = Venda.builder()
+				.clienteId(clienteId)
+				.codigo("V" + data.hashCode())
+				.status(Status.INICIADA)
+				.valorTotal(BigDecimal.ZERO)
+				.dataVenda(Instant.parse(data))
+				.produtos(new HashSet<>())
+				.build();
+		if (itens > 0) {
+			venda.adicionarProduto(Produto.builder().codigo("A1").valor(new BigDecimal("10.00")).build(), itens);
+		}
+		venda.setStatus(status);
+		return venda;
+	}
+
+	private static class CursorFake implements CloseableIterator<Venda> {
+
+		private final Iterator<Venda> vendas;
+
+		CursorFake(List<Venda> vendas) {
+			this.vendas = vendas.iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return vendas.hasNext();
+		}
+
+		@Override
+		public Venda next() {
+			return vendas.next();
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,173 @@
+/**
+ * TopProdutosTest é uma classe de teste JUnit para os produtos mais adicionados e vendidos.
+ * Utiliza um relógio ajustável para avançar os intervalos sem esperar.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import br.com.gomes.vendas.online.dto.ProdutoContagem;
+import br.com.gomes.vendas.online.dto.TopProdutosSnapshot;
+import br.com.gomes.vendas.online.exception.BadRequestException;
+import br.com.gomes.vendas.online.service.CountMinSketch;
+import br.com.gomes.vendas.online.usecase.TopProdutos;
+import br.com.gomes.vendas.online.usecase.TopProdutos.Metrica;
+
+/**
+ * Testa o ranking, a janela deslizante, a mesclagem entre instâncias e as estimativas do sketch.
+ */
+public class TopProdutosTest {
+
+	private RelogioAjustavel relogio;
+
+	private TopProdutos topProdutos;
+
+	@BeforeEach
+	public void setup() {
+		relogio = new RelogioAjustavel(Instant.parse("2024-01-01T10:00:00Z"));
+		topProdutos = new TopProdutos(relogio, 1024, 4, 10, Duration.ofMinutes(1), 60);
+	}
+
+	/**
+	 * Os produtos saem ordenados pela quantidade somada nos intervalos da janela.
+	 */
+	@Test
+	public void topOrdenaPelaQuantidade() {
+		topProdutos.registrar(Metrica.VENDIDOS, "A1", 5);
+		topProdutos.registrar(Metrica.VENDIDOS, "B1", 2);
+		relogio.avancar(Duration.ofMinutes(1));
+		topProdutos.registrar(Metrica.VENDIDOS, "B1", 7);
+		topProdutos.registrar(Metrica.VENDIDOS, "C1", 1);
+		topProdutos.registrar(Metrica.ADICIONADOS, "D1", 50);
+
+		List<ProdutoContagem> top = topProdutos.top(Metrica.VENDIDOS, 60, 2);
+
+		assertThat(top).extracting(ProdutoContagem::getCodigoProduto).containsExactly("B1", "A1");
+		assertThat(top).extracting(ProdutoContagem::getQuantidade).containsExactly(9L, 5L);
+	}
+
+	/**
+	 * Intervalos fora da janela não contam, e o intervalo reutilizado pelo anel começa zerado.
+	 */
+	@Test
+	public void intervalosAntigosSaemDaJanela() {
+		topProdutos.registrar(Metrica.VENDIDOS, "A1", 5);
+		relogio.avancar(Duration.ofMinutes(10));
+		topProdutos.registrar(Metrica.VENDIDOS, "B1", 1);
+
+		assertThat(topProdutos.top(Metrica.VENDIDOS, 5, 10))
+				.extracting(ProdutoContagem::getCodigoProduto).containsExactly("B1");
+		assertThat(topProdutos.top(Metrica.VENDIDOS, 15, 10))
+				.extracting(ProdutoContagem::getCodigoProduto).containsExactly("A1", "B1");
+
+		relogio.avancar(Duration.ofMinutes(50));
+		topProdutos.registrar(Metrica.VENDIDOS, "C1", 1);
+
+		assertThat(topProdutos.top(Metrica.VENDIDOS, 60, 10))
+				.extracting(ProdutoContagem::getCodigoProduto).containsExactly("B1", "C1");
+		assertThatThrownBy(() -> topProdutos.top(Metrica.VENDIDOS, 0, 10)).isInstanceOf(BadRequestException.class);
+	}
+
+	/**
+	 * Os snapshots de duas instâncias somam as contagens de cada produto.
+	 */
+	@Test
+	public void mesclarSomaAsInstancias() {
+		TopProdutos outra = new TopProdutos(relogio, 1024, 4, 10, Duration.ofMinutes(1), 60);
+		topProdutos.registrar(Metrica.VENDIDOS, "A1", 5);
+		topProdutos.registrar(Metrica.VENDIDOS, "B1", 4);
+		outra.registrar(Metrica.VENDIDOS, "B1", 3);
+		outra.registrar(Metrica.VENDIDOS, "C1", 1);
+
+		List<ProdutoContagem> top = topProdutos.mesclar(Arrays.asList(
+				topProdutos.snapshot(Metrica.VENDIDOS, 60), outra.snapshot(Metrica.VENDIDOS, 60)), 10);
+
+		assertThat(top).extracting(ProdutoContagem::getCodigoProduto).containsExactly("B1", "A1", "C1");
+		assertThat(top).extracting(ProdutoContagem::getQuantidade).containsExactly(7L, 5L, 1L);
+		assertThatThrownBy(() -> topProdutos.mesclar(Arrays.asList(topProdutos.snapshot(Metrica.VENDIDOS, 60),
+				new TopProdutos(relogio, 512, 4, 10, Duration.ofMinutes(1), 60).snapshot(Metrica.VENDIDOS, 60)), 10))
+				.isInstanceOf(BadRequestException.class);
+	}
+
+	/**
+	 * Snapshots nulos, incompletos ou com dimensões que não correspondem aos contadores (inclusive por estouro
+	 * na multiplicação) são rejeitados com BadRequestException antes de alocar o sketch.
+	 */
+	@Test
+	public void mesclarRejeitaSnapshotsInvalidos() {
+		List<TopProdutosSnapshot> nulo = Collections.singletonList(null);
+		assertThatThrownBy(() -> topProdutos.mesclar(nulo, 10)).isInstanceOf(BadRequestException.class);
+		assertThatThrownBy(() -> topProdutos.mesclar(Collections.singletonList(
+				new TopProdutosSnapshot(Metrica.VENDIDOS, 60, 1024, 4, 0, null, Collections.emptyList())), 10))
+				.isInstanceOf(BadRequestException.class);
+		// 65536 x 65536 estoura para 0 em int e casaria com um vetor vazio.
+		assertThatThrownBy(() -> topProdutos.mesclar(Collections.singletonList(
+				new TopProdutosSnapshot(Metrica.VENDIDOS, 60, 65536, 65536, 0, new long[0], Collections.emptyList())), 10))
+				.isInstanceOf(BadRequestException.class);
+		assertThatThrownBy(() -> topProdutos.mesclar(Collections.singletonList(
+				new TopProdutosSnapshot(Metrica.VENDIDOS, 60, 1024, 4, 0, new long[10], Collections.emptyList())), 10))
+				.isInstanceOf(BadRequestException.class);
+	}
+
+	/**
+	 * Com muito mais produtos que contadores, a estimativa nunca fica abaixo da contagem real.
+	 */
+	@Test
+	public void sketchNuncaSubestima() {
+		CountMinSketch sketch = new CountMinSketch(64, 4);
+		Map<String, Long> reais = new HashMap<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 5000; i++) {
+			String codigo = "P" + random.nextInt(500);
+			sketch.add(codigo, 1);
+			reais.merge(codigo, 1L, Long::sum);
+		}
+
+		reais.forEach((codigo, real) -> assertThat(sketch.estimate(codigo)).isGreaterThanOrEqualTo(real));
+		assertThat(sketch.getTotal()).isEqualTo(5000);
+	}
+
+	private static class RelogioAjustavel extends Clock {
+
+		private Instant agora;
+
+		RelogioAjustavel(Instant agora) {
+			this.agora = agora;
+		}
+
+		void avancar(Duration duracao) {
+			agora = agora.plus(duracao);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return agora;
+		}
+	}
+}
@@ -0,0 +1,173 @@
+/**
+ * VendaOutboxTest é uma classe de teste JUnit para a outbox de eventos de venda e o seu relay.
+ * Utiliza o Mockito para simular o repositório de eventos e o gerenciador de transações.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.mongodb.MongoException;
+
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+import br.com.gomes.vendas.online.domain.VendaEvento;
+import br.com.gomes.vendas.online.domain.VendaEvento.Tipo;
+import br.com.gomes.vendas.online.repository.IVendaEventoRepository;
+import br.com.gomes.vendas.online.service.MemoriaVendaEventoSink;
+import br.com.gomes.vendas.online.service.VendaEventoSink;
+import br.com.gomes.vendas.online.usecase.VendaOutbox;
+import br.com.gomes.vendas.online.usecase.VendaOutboxRelay;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Testa a gravação do evento junto com a alteração e a publicação dos eventos pendentes.
+ */
+public class VendaOutboxTest {
+
+	private IVendaEventoRepository eventoRepository;
+
+	private PlatformTransactionManager transactionManager;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	@BeforeEach
+	public void setup() {
+		eventoRepository = mock(IVendaEventoRepository.class);
+		transactionManager = mock(PlatformTransactionManager.class);
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	/**
+	 * A alteração e o evento são gravados na mesma transação; sem alteração não há evento.
+	 */
+	@Test
+	public void eventoGravadoNaTransacaoDaAlteracao() {
+		VendaOutbox outbox = new VendaOutbox(eventoRepository, transactionManager, true);
+
+		Optional<Venda> alterada = outbox.registrar(Tipo.CONCLUIDA, () -> Optional.of(venda("V1", 3L)));
+		Optional<Venda> nenhuma = outbox.registrar(Tipo.CANCELADA, Optional::empty);
+
+		assertThat(alterada).isPresent();
+		assertThat(nenhuma).isEmpty();
+		ArgumentCaptor<VendaEvento> evento = ArgumentCaptor.forClass(VendaEvento.class);
+		verify(eventoRepository).insert(evento.capture());
+		assertThat(evento.getValue().getTipo()).isEqualTo(Tipo.CONCLUIDA);
+		assertThat(evento.getValue().getVendaId()).isEqualTo("V1");
+		assertThat(evento.getValue().getVersao()).isEqualTo(3L);
+		verify(transactionManager, times(2)).commit(any());
+	}
+
+	/**
+	 * Se o evento não puder ser gravado a transação é desfeita; conflitos transitórios são repetidos.
+	 */
+	@Test
+	public void falhaDesfazEConflitoTransitorioRepete() {
+		VendaOutbox outbox = new VendaOutbox(eventoRepository, transactionManager, true);
+		doThrow(new IllegalStateException("mongo")).when(eventoRepository).insert(any(VendaEvento.class));
+
+		assertThatThrownBy(() -> outbox.registrar(Tipo.ALTERADA, () -> Optional.of(venda("V1", 1L))))
+				.isInstanceOf(IllegalStateException.class);
+		verify(transactionManager).rollback(any());
+
+		MongoException conflito = new MongoException(112, "WriteConflict");
+		conflito.addLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+		AtomicInteger tentativas = new AtomicInteger();
+		Optional<Venda> alterada = outbox.registrar(Tipo.ALTERADA, () -> {
+			if (tentativas.incrementAndGet() == 1) {
+				throw new UncategorizedMongoDbException("WriteConflict", conflito);
+			}
+			return Optional.empty();
+		});
+
+		assertThat(alterada).isEmpty();
+		assertThat(tentativas).hasValue(2);
+	}
+
+	/**
+	 * O relay publica os pendentes em ordem e só depois os marca como publicados.
+	 */
+	@Test
+	public void relayPublicaEmOrdemEMarca() {
+		MemoriaVendaEventoSink sink = new MemoriaVendaEventoSink(10);
+		VendaOutboxRelay relay = new VendaOutboxRelay(eventoRepository, sink, meterRegistry, true, 2, Duration.ofSeconds(30));
+		VendaEvento primeiro = evento("E1", "V1");
+		VendaEvento segundo = evento("E2", "V1");
+		VendaEvento terceiro = evento("E3", "V2");
+		when(eventoRepository.renovarLease(anyString(), any())).thenReturn(true);
+		when(eventoRepository.pendentes(2)).thenReturn(Arrays.asList(primeiro, segundo), Arrays.asList(terceiro));
+
+		long publicados = relay.publicar();
+
+		assertThat(publicados).isEqualTo(3);
+		assertThat(sink.ultimos(10)).containsExactly(primeiro, segundo, terceiro);
+		verify(eventoRepository).marcarPublicados(eq(Arrays.asList("E1", "E2")), any(Instant.class));
+		verify(eventoRepository).marcarPublicados(eq(Collections.singletonList("E3")), any(Instant.class));
+		assertThat(meterRegistry.counter("venda.outbox.publicados").count()).isEqualTo(3);
+	}
+
+	/**
+	 * Sem o lease nada é lido; se o destino falha, o lote continua pendente.
+	 */
+	@Test
+	public void relaySemLeaseOuComFalhaNaoMarca() {
+		VendaEventoSink falho = mock(VendaEventoSink.class);
+		VendaOutboxRelay relay = new VendaOutboxRelay(eventoRepository, falho, meterRegistry, true, 10, Duration.ofSeconds(30));
+
+		when(eventoRepository.renovarLease(anyString(), any())).thenReturn(false);
+		assertThat(relay.publicar()).isZero();
+		verify(eventoRepository, never()).pendentes(anyInt());
+
+		when(eventoRepository.renovarLease(anyString(), any())).thenReturn(true);
+		when(eventoRepository.pendentes(10)).thenReturn(Collections.singletonList(evento("E1", "V1")));
+		doThrow(new IllegalStateException("broker")).when(falho).publicar(any());
+		relay.agendado();
+
+		verify(eventoRepository, never()).marcarPublicados(any(), any());
+		assertThat(meterRegistry.counter("venda.outbox.falhas").count()).isEqualTo(1);
+	}
+
+	private VendaEvento evento(String id, String vendaId) {
+		VendaEvento evento = new VendaEvento(Tipo.ALTERADA, venda(vendaId, 1L), Instant.now());
+		evento.setId(id);
+		return evento;
+	}
+
+	private Venda venda(String id, Long versao) {
+		return Venda.builder()
+				.id(id)
+				.clienteId("C1")
+				.codigo("V" + id)
+				.status(Status.INICIADA)
+				.valorTotal(BigDecimal.ZERO)
+				.dataVenda(Instant.parse("2024-01-01T10:00:00Z"))
+				.produtos(new HashSet<>())
+				.versao(versao)
+				.build();
+	}
+}
@@ -0,0 +1,98 @@
+/**
+ * VendaTest é uma classe de teste JUnit para as regras do agregado Venda.
+ */
+package br.com.pazzini.vendas.online;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import br.com.gomes.vendas.online.domain.Produto;
+import br.com.gomes.vendas.online.domain.ProdutoQuantidade;
+import br.com.gomes.vendas.online.domain.Venda;
+import br.com.gomes.vendas.online.domain.Venda.Status;
+
+/**
+ * Testa a manutenção das linhas de produto e dos totais da venda.
+ */
+public class VendaTest {
+
+	private Venda venda;
+
+	private Produto produtoA;
+
+	private Produto produtoB;
+
+	@BeforeEach
+	public void setup() {
+		// Confere os totais incrementais contra o recálculo completo a cada alteração.
+		Venda.setVerificarTotais(true);
+		venda = Venda.builder()
+				.codigo("V1")
+				.status(Status.INICIADA)
+				.valorTotal(BigDecimal.ZERO)
+				.produtos(new HashSet<>())
+				.build();
+		produtoA = Produto.builder().codigo("A1").valor(new BigDecimal("10.00")).build();
+		produtoB = Produto.builder().codigo("B2").valor(new BigDecimal("2.50")).build();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Venda.setVerificarTotais(false);
+	}
+
+	/**
+	 * Adicionar o mesmo produto mais de uma vez acumula na mesma linha.
+	 */
+	@Test
+	public void adicionarProdutoAcumulaNaMesmaLinha() {
+		venda.adicionarProduto(produtoA, 2);
+		venda.adicionarProduto(produtoB, 4);
+		venda.adicionarProduto(produtoA, 1);
+
+		assertThat(venda.getProdutos()).hasSize(2);
+		assertThat(venda.getQuantidadeTotalProdutos()).isEqualTo(7);
+		assertThat(venda.getValorTotal()).isEqualByComparingTo("40.00");
+	}
+
+	/**
+	 * Remover a quantidade total de um produto exclui a linha.
+	 */
+	@Test
+	public void removerProdutoExcluiLinha() {
+		venda.adicionarProduto(produtoA, 2);
+		venda.adicionarProduto(produtoB, 4);
+
+		venda.removerProduto(produtoA, 1);
+		assertThat(venda.getValorTotal()).isEqualByComparingTo("20.00");
+
+		venda.removerProduto(produtoA, 5);
+		assertThat(venda.getProdutos()).hasSize(1);
+		assertThat(venda.getValorTotal()).isEqualByComparingTo("10.00");
+	}
+
+	/**
+	 * Linhas atribuídas diretamente (como na leitura do banco) continuam sendo encontradas pelo código.
+	 */
+	@Test
+	public void adicionarProdutoAposSubstituirLinhas() {
+		Set<ProdutoQuantidade> produtos = new HashSet<>();
+		produtos.add(ProdutoQuantidade.builder().produto(produtoA).quantidade(3).valorTotal(new BigDecimal("30.00")).build());
+		venda.setProdutos(produtos);
+		venda.setValorTotal(new BigDecimal("30.00"));
+
+		venda.adicionarProduto(produtoA, 1);
+
+		assertThat(venda.getProdutos()).hasSize(1);
+		assertThat(venda.getQuantidadeTotalProdutos()).isEqualTo(4);
+		assertThat(venda.getValorTotal()).isEqualByComparingTo("40.00");
+	}
+
+}
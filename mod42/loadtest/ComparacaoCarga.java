@@ -0,0 +1,202 @@
+/**
+ * Teste de carga comparativo entre instâncias de um mesmo serviço, por exemplo uma
+ * com o pool padrão do Tomcat e outra com application.virtualThreads.enabled=true.
+ *
+ * Não depende de build: java mod42/loadtest/ComparacaoCarga.java [opções]
+ *
+ *   --alvo nome=url     instância a medir (repetir para cada uma; obrigatório)
+ *   --concorrencia N    requisições simultâneas mantidas por alvo (padrão 200)
+ *   --duracao S         segundos de medição por alvo (padrão 30)
+ *   --aquecimento S     segundos de carga descartada antes da medição (padrão 5)
+ *   --metodo M          GET, POST ou PUT (padrão GET)
+ *   --corpo JSON        corpo enviado em POST/PUT
+ *
+ * Exemplo:
+ *   java mod42/loadtest/ComparacaoCarga.java --concorrencia 1000 \
+ *       --alvo plataforma=http://localhost:8083/venda?page=0&size=20 \
+ *       --alvo virtual=http://localhost:9083/venda?page=0&size=20
+ */
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author wendel.gomes
+ *
+ */
+public class ComparacaoCarga {
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+
+	private final Map<String, String> alvos = new LinkedHashMap<>();
+
+	private int concorrencia = 200;
+
+	private int duracao = 30;
+
+	private int aquecimento = 5;
+
+	private String metodo = "GET";
+
+	private String corpo = "";
+
+	public static void main(String[] args) throws Exception {
+		ComparacaoCarga carga = new ComparacaoCarga();
+		carga.lerArgumentos(args);
+		List<Resultado> resultados = new ArrayList<>();
+		for (Map.Entry<String, String> alvo : carga.alvos.entrySet()) {
+			System.out.printf("%s: aquecendo %ds e medindo %ds com %d requisições simultâneas%n",
+					alvo.getKey(), carga.aquecimento, carga.duracao, carga.concorrencia);
+			carga.executar(alvo.getValue(), carga.aquecimento);
+			resultados.add(carga.executar(alvo.getValue(), carga.duracao).nomear(alvo.getKey()));
+		}
+		System.out.printf("%n%-14s %10s %8s %10s %9s %9s %9s %9s%n",
+				"alvo", "requisições", "erros", "req/s", "p50 ms", "p90 ms", "p99 ms", "máx ms");
+		resultados.forEach(Resultado::imprimir);
+	}
+
+	private void lerArgumentos(String[] args) {
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			String valor = args[i + 1];
+			switch (args[i]) {
+			case "--alvo":
+				int separador = valor.indexOf('=');
+				alvos.put(valor.substring(0, separador), valor.substring(separador + 1));
+				break;
+			case "--concorrencia":
+				concorrencia = Integer.parseInt(valor);
+				break;
+			case "--duracao":
+				duracao = Integer.parseInt(valor);
+				break;
+			case "--aquecimento":
+				aquecimento = Integer.parseInt(valor);
+				break;
+			case "--metodo":
+				metodo = valor.toUpperCase();
+				break;
+			case "--corpo":
+				corpo = valor;
+				break;
+			default:
+				throw new IllegalArgumentException("OPÇÃO DESCONHECIDA: " + args[i]);
+			}
+		}
+		if (alvos.isEmpty()) {
+			throw new IllegalArgumentException("INFORME AO MENOS UM --alvo nome=url");
+		}
+	}
+
+	/**
+	 * Mantém {@code concorrencia} requisições em andamento até o fim do período:
+	 * cada uma dispara a próxima ao terminar, sem uma thread por requisição no cliente.
+	 */
+	private Resultado executar(String url, int segundos) throws InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+				.timeout(Duration.ofSeconds(30))
+				.header("Content-Type", "application/json")
+				.header("Accept", "application/json")
+				.method(metodo, corpo.isEmpty()
+						? HttpRequest.BodyPublishers.noBody()
+						: HttpRequest.BodyPublishers.ofString(corpo))
+				.build();
+		long inicio = System.nanoTime();
+		long fim = inicio + TimeUnit.SECONDS.toNanos(segundos);
+		CountDownLatch terminados = new CountDownLatch(concorrencia);
+		AtomicLong erros = new AtomicLong();
+		List<Amostras> amostras = new ArrayList<>();
+		for (int i = 0; i < concorrencia; i++) {
+			Amostras amostra = new Amostras();
+			amostras.add(amostra);
+			disparar(request, fim, amostra, erros, terminados);
+		}
+		terminados.await();
+		double decorrido = (System.nanoTime() - inicio) / 1e9;
+		return new Resultado(amostras, erros.get(), decorrido);
+	}
+
+	private void disparar(HttpRequest request, long fim, Amostras amostras, AtomicLong erros,
+			CountDownLatch terminados) {
+		if (System.nanoTime() >= fim) {
+			terminados.countDown();
+			return;
+		}
+		long inicio = System.nanoTime();
+		client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+				.whenComplete((response, falha) -> {
+					amostras.adicionar(System.nanoTime() - inicio);
+					if (falha != null || response.statusCode() >= 400) {
+						erros.incrementAndGet();
+					}
+					disparar(request, fim, amostras, erros, terminados);
+				});
+	}
+
+	/** Latências de uma das requisições simultâneas; só é alterada por ela, em sequência. */
+	private static class Amostras {
+
+		private long[] latencias = new long[1024];
+
+		private int tamanho;
+
+		void adicionar(long latencia) {
+			if (tamanho == latencias.length) {
+				latencias = Arrays.copyOf(latencias, tamanho * 2);
+			}
+			latencias[tamanho++] = latencia;
+		}
+	}
+
+	private static class Resultado {
+
+		private final long[] latencias;
+
+		private final long erros;
+
+		private final double segundos;
+
+		private String nome;
+
+		Resultado(List<Amostras> amostras, long erros, double segundos) {
+			this.latencias = amostras.stream()
+					.flatMapToLong(amostra -> Arrays.stream(amostra.latencias, 0, amostra.tamanho))
+					.sorted()
+					.toArray();
+			this.erros = erros;
+			this.segundos = segundos;
+		}
+
+		Resultado nomear(String nome) {
+			this.nome = nome;
+			return this;
+		}
+
+		void imprimir() {
+			System.out.printf("%-14s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+					nome, latencias.length, erros, latencias.length / segundos,
+					percentil(0.50), percentil(0.90), percentil(0.99), percentil(1.0));
+		}
+
+		private double percentil(double p) {
+			if (latencias.length == 0) {
+				return 0;
+			}
+			int indice = (int) Math.ceil(p * latencias.length) - 1;
+			return latencias[Math.max(0, indice)] / 1e6;
+		}
+	}
+}